@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.client;
+
+import io.servicetalk.client.api.AutoRetryStrategyProvider.AutoRetryStrategy;
+import io.servicetalk.client.api.DefaultAutoRetryStrategyProvider;
+import io.servicetalk.client.api.RetryBudget;
+import io.servicetalk.client.api.RetryableConnectException;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Shows the load amplification of automatic retries during a partial outage, with and without a {@link RetryBudget}.
+ * <p>
+ * Each benchmark invocation is one request, retried by a {@link DefaultAutoRetryStrategyProvider} strategy while the
+ * simulated service fails {@code failurePercent} percent of the attempts. Compare the {@code attempts} secondary
+ * result, the number of attempts sent to the service, with the {@code requests} secondary result: without a budget
+ * every request can be sent up to five times, with a budget retries are bounded by a ratio of the successful requests.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Threads(4)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class RetryBudgetAmplificationBenchmark {
+    private static final RetryableConnectException OUTAGE = new RetryableConnectException("simulated outage");
+
+    @Param({"none", "default"})
+    public String budget;
+
+    @Param({"10", "50", "90"})
+    public int failurePercent;
+
+    @Nullable
+    private RetryBudget retryBudget;
+    private AutoRetryStrategy strategy;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final DefaultAutoRetryStrategyProvider.Builder builder = new DefaultAutoRetryStrategyProvider.Builder()
+                .disableWaitForLoadBalancer();
+        if ("default".equals(budget)) {
+            retryBudget = new RetryBudget.Builder().build();
+            builder.retryBudget(retryBudget);
+        }
+        strategy = builder.build().newStrategy(Publisher.never(), Completable.never());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        strategy.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public Boolean request(final Counters counters) throws Exception {
+        ++counters.requests;
+        final RetryBudget retryBudget = this.retryBudget;
+        return Single.defer(() -> {
+            ++counters.attempts;
+            return ThreadLocalRandom.current().nextInt(100) < failurePercent ?
+                    Single.<Boolean>failed(OUTAGE) : Single.succeeded(true);
+        }).retryWhen(strategy)
+                .beforeOnSuccess(__ -> {
+                    if (retryBudget != null) {
+                        retryBudget.onSuccess();
+                    }
+                })
+                .onErrorReturn(__ -> false)
+                .toFuture().get();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long requests;
+        public long attempts;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            requests = 0;
+            attempts = 0;
+        }
+    }
+}
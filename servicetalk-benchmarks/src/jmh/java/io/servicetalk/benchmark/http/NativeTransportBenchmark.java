@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.http;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.netty.HttpClients;
+import io.servicetalk.http.netty.HttpServers;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.NettyIoThreadFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoopGroup;
+import static java.net.InetAddress.getLoopbackAddress;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the throughput of HTTP/1.1 request-response exchanges over loopback for the epoll and the io_uring
+ * transports.
+ * <p>
+ * The server and the client use the same transport, each with its own {@link IoExecutor}. Multiple benchmark threads
+ * issue requests concurrently, so that the client opens multiple connections and the event loops process multiple
+ * connections per iteration. Requires Linux, the io_uring transport requires a kernel which supports it (5.9+).
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Threads(8)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+public class NativeTransportBenchmark {
+    static {
+        AsyncContext.disable(); // reduce noise in benchmarks.
+    }
+
+    @Param({"epoll", "io_uring"})
+    public String transport;
+
+    @Param({"2"})
+    public int ioThreads;
+
+    @Param({"256"})
+    public int payloadSize;
+
+    private IoExecutor serverIoExecutor;
+    private IoExecutor clientIoExecutor;
+    private ServerContext serverContext;
+    private BlockingHttpClient client;
+    private Buffer payload;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        serverIoExecutor = newIoExecutor("server-io");
+        clientIoExecutor = newIoExecutor("client-io");
+        payload = DEFAULT_ALLOCATOR.fromAscii(new String(new char[payloadSize]).replace('\0', 'x'));
+        serverContext = HttpServers.forAddress(new InetSocketAddress(getLoopbackAddress(), 0))
+                .ioExecutor(serverIoExecutor)
+                .listenBlockingAndAwait((ctx, request, responseFactory) ->
+                        responseFactory.ok().payloadBody(payload.duplicate()));
+        client = HttpClients.forResolvedAddress((InetSocketAddress) serverContext.listenAddress())
+                .ioExecutor(clientIoExecutor)
+                .buildBlocking();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        serverContext.close();
+        clientIoExecutor.closeAsync().toFuture().get();
+        serverIoExecutor.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public HttpResponse requestResponse() throws Exception {
+        return client.request(client.post("/").payloadBody(payload.duplicate()));
+    }
+
+    private IoExecutor newIoExecutor(final String threadNamePrefix) {
+        final NettyIoThreadFactory threadFactory = new NettyIoThreadFactory(threadNamePrefix);
+        final EventLoopGroup group;
+        if ("io_uring".equals(transport)) {
+            IOUring.ensureAvailability();
+            group = new IOUringEventLoopGroup(ioThreads, threadFactory);
+        } else {
+            Epoll.ensureAvailability();
+            group = new EpollEventLoopGroup(ioThreads, threadFactory);
+        }
+        return fromNettyEventLoopGroup(group, true);
+    }
+}
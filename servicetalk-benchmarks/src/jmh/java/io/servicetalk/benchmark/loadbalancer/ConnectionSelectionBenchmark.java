@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.SingleSource;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Measures the cost of selecting an available connection from a single host with many connections, when a share of
+ * the connections is busy. Connections are reserved by the selector and released after the selection, like HTTP/1.x
+ * connections without pipelining.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class ConnectionSelectionBenchmark {
+    private static final Predicate<ReservableConnection> RESERVE = ReservableConnection::tryReserve;
+
+    @Param({"16", "128", "1024"})
+    public int connections;
+
+    @Param({"50", "90"})
+    public int busyPercent;
+
+    private LoadBalancer<ReservableConnection> loadBalancer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        loadBalancer = new RoundRobinLoadBalancerFactory.Builder<String, ReservableConnection>().build()
+                .newLoadBalancer(from(new DefaultServiceDiscovererEvent<>("host", true)),
+                        new ReservableConnectionFactory());
+        // Reserving connections without releasing them forces the load balancer to open new ones.
+        final List<ReservableConnection> opened = new ArrayList<>(connections);
+        for (int i = 0; i < connections; ++i) {
+            opened.add(loadBalancer.selectConnection(RESERVE).toFuture().get());
+        }
+        // Keep every n-th connection busy, such that busy and available connections interleave.
+        int busy = 0;
+        for (int i = 0; i < connections; ++i) {
+            if ((i + 1) * busyPercent / 100 > busy) {
+                ++busy;
+            } else {
+                opened.get(i).release();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        loadBalancer.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public ReservableConnection selectAndRelease(final SelectionSubscriber subscriber) {
+        // Selection completes synchronously, subscribe directly to keep the overhead of the benchmark low.
+        toSource(loadBalancer.selectConnection(RESERVE)).subscribe(subscriber);
+        final ReservableConnection connection = subscriber.connection;
+        assert connection != null;
+        connection.release();
+        return connection;
+    }
+
+    @State(Scope.Thread)
+    public static class SelectionSubscriber implements SingleSource.Subscriber<ReservableConnection> {
+        @Nullable
+        ReservableConnection connection;
+
+        @Override
+        public void onSubscribe(final Cancellable cancellable) {
+            connection = null;
+        }
+
+        @Override
+        public void onSuccess(@Nullable final ReservableConnection result) {
+            connection = result;
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    public static final class ReservableConnection implements LoadBalancedConnection {
+        private final AtomicBoolean reserved = new AtomicBoolean();
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        boolean tryReserve() {
+            return !reserved.get() && reserved.compareAndSet(false, true);
+        }
+
+        void release() {
+            reserved.set(false);
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class ReservableConnectionFactory implements ConnectionFactory<String, ReservableConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<ReservableConnection> newConnection(final String address,
+                                                          @Nullable final TransportObserver observer) {
+            return succeeded(new ReservableConnection());
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+}
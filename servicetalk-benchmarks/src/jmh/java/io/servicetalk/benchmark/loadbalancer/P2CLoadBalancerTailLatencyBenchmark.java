@@ -0,0 +1,183 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.RequestTracker;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.loadbalancer.P2CLoadBalancerFactory;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Compares the request latency distribution of round robin and P2C load balancing when one of the hosts is
+ * significantly slower than the others.
+ * <p>
+ * Each benchmark invocation selects a connection and simulates a request by parking the calling thread for the
+ * service time of the host the connection belongs to. Run with {@code -bm sample} (the default for this benchmark) and
+ * compare the {@code p0.99} and {@code p0.999} percentiles between the {@code lb} parameter values.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Threads(16)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class P2CLoadBalancerTailLatencyBenchmark {
+    private static final Predicate<SimulatedConnection> ANY = __ -> true;
+
+    @Param({"roundRobin", "p2c"})
+    public String lb;
+
+    @Param({"10"})
+    public int hosts;
+
+    @Param({"100"})
+    public int serviceTimeMicros;
+
+    @Param({"20"})
+    public int slowHostFactor;
+
+    private LoadBalancer<SimulatedConnection> loadBalancer;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final List<ServiceDiscovererEvent<Integer>> events = new ArrayList<>(hosts);
+        for (int i = 0; i < hosts; ++i) {
+            events.add(new DefaultServiceDiscovererEvent<>(i, true));
+        }
+        final LoadBalancerFactory<Integer, SimulatedConnection> factory = "p2c".equals(lb) ?
+                new P2CLoadBalancerFactory.Builder<Integer, SimulatedConnection>().build() :
+                new RoundRobinLoadBalancerFactory.Builder<Integer, SimulatedConnection>().build();
+        // Host 0 is the deliberately slowed host.
+        loadBalancer = factory.newLoadBalancer(fromIterable(events), new SimulatedConnectionFactory(
+                MICROSECONDS.toNanos(serviceTimeMicros), MICROSECONDS.toNanos(serviceTimeMicros) * slowHostFactor));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        loadBalancer.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public SimulatedConnection request() throws Exception {
+        final SimulatedConnection connection = loadBalancer.selectConnection(ANY).toFuture().get();
+        connection.request();
+        return connection;
+    }
+
+    public static final class SimulatedConnection implements LoadBalancedConnection {
+        private final long serviceTimeNanos;
+        @Nullable
+        private final RequestTracker tracker;
+
+        SimulatedConnection(final long serviceTimeNanos, @Nullable final RequestTracker tracker) {
+            this.serviceTimeNanos = serviceTimeNanos;
+            this.tracker = tracker;
+        }
+
+        void request() {
+            final long startTime = tracker == null ? 0 : tracker.beforeStart();
+            LockSupport.parkNanos(serviceTimeNanos);
+            if (tracker != null) {
+                tracker.onSuccess(startTime);
+            }
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+
+    private static final class SimulatedConnectionFactory
+            implements ConnectionFactory<Integer, SimulatedConnection> {
+        private final long serviceTimeNanos;
+        private final long slowServiceTimeNanos;
+
+        SimulatedConnectionFactory(final long serviceTimeNanos, final long slowServiceTimeNanos) {
+            this.serviceTimeNanos = serviceTimeNanos;
+            this.slowServiceTimeNanos = slowServiceTimeNanos;
+        }
+
+        @Override
+        public Single<SimulatedConnection> newConnection(final Integer host,
+                                                         @Nullable final TransportObserver observer) {
+            return newConnection(host, null, observer);
+        }
+
+        @Override
+        public Single<SimulatedConnection> newConnection(final Integer host,
+                                                         @Nullable final RequestTracker requestTracker,
+                                                         @Nullable final TransportObserver observer) {
+            return succeeded(new SimulatedConnection(host == 0 ? slowServiceTimeNanos : serviceTimeNanos,
+                    requestTracker));
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+}
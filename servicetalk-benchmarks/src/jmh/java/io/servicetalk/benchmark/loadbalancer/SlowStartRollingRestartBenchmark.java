@@ -0,0 +1,196 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.benchmark.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.PublisherSource.Processor;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory;
+import io.servicetalk.loadbalancer.SlowStartConfig;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Processors.newPublisherProcessor;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static java.lang.Math.max;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the request latency distribution during a simulated rolling restart, with and without slow start.
+ * <p>
+ * Every {@code restartIntervalMillis} one of the hosts is replaced by a new one. A new host is "cold": its service time
+ * starts at {@code coldFactor} times the regular service time and decreases linearly to the regular service time over
+ * {@code warmupMillis}, which approximates a JVM that starts in interpreted mode. Compare the {@code p0.99} and
+ * {@code p0.999} percentiles between the {@code slowStart} parameter values.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Threads(16)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class SlowStartRollingRestartBenchmark {
+    private static final Predicate<SimulatedConnection> ANY = __ -> true;
+
+    @Param({"none", "linear"})
+    public String slowStart;
+
+    @Param({"10"})
+    public int hosts;
+
+    @Param({"100"})
+    public int serviceTimeMicros;
+
+    @Param({"20"})
+    public int coldFactor;
+
+    @Param({"2000"})
+    public int warmupMillis;
+
+    @Param({"500"})
+    public int restartIntervalMillis;
+
+    private final Map<Integer, Long> hostStartNanos = new ConcurrentHashMap<>();
+    private LoadBalancer<SimulatedConnection> loadBalancer;
+    private ScheduledExecutorService restarter;
+    private int nextHost;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Processor<ServiceDiscovererEvent<Integer>, ServiceDiscovererEvent<Integer>> sdEvents =
+                newPublisherProcessor(hosts * 2);
+        final RoundRobinLoadBalancerFactory.Builder<Integer, SimulatedConnection> builder =
+                new RoundRobinLoadBalancerFactory.Builder<>();
+        if ("linear".equals(slowStart)) {
+            builder.slowStart(new SlowStartConfig.Builder(Duration.ofMillis(warmupMillis)).build());
+        }
+        loadBalancer = builder.build().newLoadBalancer(fromSource(sdEvents), new SimulatedConnectionFactory());
+
+        // The initial hosts are warm.
+        for (; nextHost < hosts; ++nextHost) {
+            hostStartNanos.put(nextHost, System.nanoTime() - MILLISECONDS.toNanos(warmupMillis));
+            sdEvents.onNext(new DefaultServiceDiscovererEvent<>(nextHost, true));
+        }
+        restarter = Executors.newSingleThreadScheduledExecutor();
+        restarter.scheduleAtFixedRate(() -> {
+            // Replace the oldest host with a cold one.
+            final int oldHost = nextHost - hosts;
+            hostStartNanos.put(nextHost, System.nanoTime());
+            sdEvents.onNext(new DefaultServiceDiscovererEvent<>(oldHost, false));
+            sdEvents.onNext(new DefaultServiceDiscovererEvent<>(nextHost++, true));
+            hostStartNanos.remove(oldHost);
+        }, restartIntervalMillis, restartIntervalMillis, MILLISECONDS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        restarter.shutdownNow();
+        restarter.awaitTermination(1, SECONDS);
+        loadBalancer.closeAsync().toFuture().get();
+    }
+
+    @Benchmark
+    public SimulatedConnection request() throws Exception {
+        final SimulatedConnection connection = loadBalancer.selectConnection(ANY).toFuture().get();
+        connection.request();
+        return connection;
+    }
+
+    public final class SimulatedConnection implements LoadBalancedConnection {
+        private final long startNanos;
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        SimulatedConnection(final long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        void request() {
+            final long warmupNanos = MILLISECONDS.toNanos(warmupMillis);
+            final double coldness = max(0, 1 - (System.nanoTime() - startNanos) / (double) warmupNanos);
+            LockSupport.parkNanos((long) (MICROSECONDS.toNanos(serviceTimeMicros) * (1 + (coldFactor - 1) * coldness)));
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private final class SimulatedConnectionFactory implements ConnectionFactory<Integer, SimulatedConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<SimulatedConnection> newConnection(final Integer host,
+                                                         @Nullable final TransportObserver observer) {
+            final Long startNanos = hostStartNanos.get(host);
+            return succeeded(new SimulatedConnection(startNanos == null ? System.nanoTime() : startNanos));
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.AsciiString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map.Entry;
+
+import static io.servicetalk.http.netty.H2HeadersFactory.DEFAULT_SENSITIVITY_DETECTOR;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/*
+ * This benchmark measures the allocations per request of reading the headers of a HTTP/2 request, whose values the
+ * peer sends as HPACK literals (each value is decoded into a new AsciiString), as Strings. Run with "-prof gc":
+ *
+ * Benchmark                                               (cacheSize)   Mode  Cnt     Score   Units
+ * H2HeaderValueCacheBenchmark.readHeaders:·gc.alloc.rate.norm        0  thrpt    5  1072.941    B/op
+ * H2HeaderValueCacheBenchmark.readHeaders:·gc.alloc.rate.norm       64  thrpt    5   776.689    B/op
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.Throughput)
+public class H2HeaderValueCacheBenchmark {
+
+    private static final String[][] HEADERS = {
+            {":path", "/api/v1/users"},
+            {":authority", "backend.servicetalk.io:8080"},
+            {"content-type", "application/json; charset=utf-8"},
+            {"user-agent", "servicetalk-client/0.42"},
+            {"accept", "application/json"},
+    };
+
+    @Param({"0", "64"})
+    private int cacheSize;
+
+    private EmbeddedChannel channel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        channel = cacheSize == 0 ? new EmbeddedChannel() :
+                new EmbeddedChannel(new H2HeaderValueCacheHandler(cacheSize, DEFAULT_SENSITIVITY_DETECTOR));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int readHeaders() {
+        final Http2Headers headers = new DefaultHttp2Headers(false, HEADERS.length);
+        for (String[] header : HEADERS) {
+            // The HPACK decoder copies the bytes of literals into a new AsciiString.
+            headers.add(header[0], new AsciiString(header[1].getBytes(US_ASCII), false));
+        }
+        channel.writeInbound(new DefaultHttp2HeadersFrame(headers));
+        final Http2HeadersFrame frame = channel.readInbound();
+        int length = 0;
+        for (Entry<CharSequence, CharSequence> header : frame.headers()) {
+            length += header.getValue().toString().length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.PublisherSource.Subscription;
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.transport.netty.internal.NoopTransportObserver.NoopWriteObserver;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.transport.netty.internal.FlushStrategies.adaptiveFlush;
+import static io.servicetalk.transport.netty.internal.FlushStrategies.flushOnEach;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * Compares {@link FlushStrategy}s for streams of small items written from a thread other than the event loop, the way
+ * a service produces a server streaming gRPC response or server-sent events.
+ * <p>
+ * Items are written to an in-VM channel, where each flush which reaches the transport stands for a system call. The
+ * {@code flushes} secondary result counts these flushes, the primary result is the time until the peer received all
+ * items of a stream. The {@code grpcStreaming} scenario emits the items back to back, the {@code sse} scenario spends
+ * some CPU time between items, so that they are written at a lower rate.
+ */
+@Fork(value = 1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 3)
+@Measurement(iterations = 5, time = 3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+public class FlushStrategyBenchmark {
+    static {
+        AsyncContext.disable(); // reduce noise in benchmarks.
+    }
+
+    @Param({"flushOnEach", "adaptive"})
+    public String strategy;
+
+    @Param({"grpcStreaming", "sse"})
+    public String scenario;
+
+    @Param({"100"})
+    public int items;
+
+    @Param({"64"})
+    public int itemSize;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+    private FlushStrategy flushStrategy;
+    private ByteBuf item;
+    private long itemCpuTokens;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        flushStrategy = "adaptive".equals(strategy) ? adaptiveFlush() : flushOnEach();
+        itemCpuTokens = "sse".equals(scenario) ? 2_000 : 0;
+        item = Unpooled.unreleasableBuffer(Unpooled.directBuffer(itemSize).writeZero(itemSize));
+        group = new DefaultEventLoopGroup(2);
+        final LocalAddress address = new LocalAddress(FlushStrategyBenchmark.class.getSimpleName());
+        serverChannel = new ServerBootstrap().group(group).channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                        final ByteBuf buf = (ByteBuf) msg;
+                        received.addAndGet(buf.readableBytes());
+                        buf.release();
+                    }
+                }).bind(address).sync().channel();
+        channel = new Bootstrap().group(group).channel(LocalChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(final Channel ch) {
+                        ch.pipeline().addLast(new ChannelOutboundHandlerAdapter() {
+                            @Override
+                            public void flush(final ChannelHandlerContext ctx) {
+                                flushes.incrementAndGet();
+                                ctx.flush();
+                            }
+                        });
+                    }
+                }).connect(address).sync().channel();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    public long stream(final Counters counters) {
+        final long expected = received.get() + (long) items * itemSize;
+        final long flushesBefore = flushes.get();
+        final long itemCpuTokens = this.itemCpuTokens;
+        final Publisher<ByteBuf> source = Publisher.range(0, items).map(__ -> {
+            if (itemCpuTokens > 0) {
+                Blackhole.consumeCPU(itemCpuTokens);
+            }
+            return item.duplicate();
+        });
+        toSource(Flush.composeFlushes(channel, source, flushStrategy, NoopWriteObserver.INSTANCE))
+                .subscribe(new ChannelWriter(channel));
+        long current;
+        while ((current = received.get()) < expected) {
+            Thread.yield();
+        }
+        counters.streams++;
+        counters.flushes += flushes.get() - flushesBefore;
+        return current;
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Counters {
+        public long streams;
+        public long flushes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            streams = 0;
+            flushes = 0;
+        }
+    }
+
+    private static final class ChannelWriter implements Subscriber<ByteBuf> {
+        private final Channel channel;
+
+        ChannelWriter(final Channel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void onSubscribe(final Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(@Nullable final ByteBuf buf) {
+            // Off the event loop this enqueues the write, like WriteStreamSubscriber does.
+            channel.write(buf, channel.voidPromise());
+        }
+
+        @Override
+        public void onError(final Throwable t) {
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -53,6 +53,8 @@ public abstract class AbstractRetryingFilterBuilder<Builder
     private int maxRetries;
     @Nullable
     private BiPredicate<Meta, Throwable> retryForPredicate;
+    @Nullable
+    private RetryBudget retryBudget;
 
     @SuppressWarnings("unchecked")
     private Builder castThis() {
@@ -85,6 +87,23 @@ public abstract class AbstractRetryingFilterBuilder<Builder
         return castThis();
     }
 
+    /**
+     * Bounds the retries with a {@link RetryBudget}. Each request can still be retried at most
+     * {@link #maxRetries(int)} times, but once the budget is exhausted failures are not retried anymore until enough
+     * requests succeeded again. This prevents retries from multiplying the load on a service during a partial outage.
+     * The built {@link Filter} records its successful requests in the budget.
+     * <p>
+     * The same {@link RetryBudget} can be shared with other retrying layers of the client, for example with
+     * {@link DefaultAutoRetryStrategyProvider.Builder#retryBudget(RetryBudget)}.
+     *
+     * @param retryBudget the {@link RetryBudget} which bounds the retries
+     * @return {@code this}
+     */
+    public final Builder retryBudget(final RetryBudget retryBudget) {
+        this.retryBudget = requireNonNull(retryBudget);
+        return castThis();
+    }
+
     /**
      * Creates a new retrying {@link Filter} which retries without delay.
      * @deprecated Use {@link #buildWithConstantBackoffFullJitter(Duration)} or
@@ -261,7 +280,7 @@ public abstract class AbstractRetryingFilterBuilder<Builder
                                                              final boolean exponential) {
         return new ReadOnlyRetryableSettings<>(maxRetries > 0 ? maxRetries : (exponential ? 2 : 1),
                 retryForPredicate != null ? retryForPredicate : defaultRetryForPredicate(),
-                initialDelay, jitter, maxDelay, timerExecutor, exponential);
+                initialDelay, jitter, maxDelay, timerExecutor, exponential, retryBudget);
     }
 
     /**
@@ -281,6 +300,8 @@ public abstract class AbstractRetryingFilterBuilder<Builder
         @Nullable
         private final Executor timerExecutor;
         private final boolean exponential;
+        @Nullable
+        private final RetryBudget retryBudget;
 
         private ReadOnlyRetryableSettings(final int maxRetries,
                                           final BiPredicate<Meta, Throwable> retryForPredicate,
@@ -288,7 +309,8 @@ public abstract class AbstractRetryingFilterBuilder<Builder
                                           final Duration jitter,
                                           @Nullable final Duration maxDelay,
                                           @Nullable final Executor timerExecutor,
-                                          final boolean exponential) {
+                                          final boolean exponential,
+                                          @Nullable final RetryBudget retryBudget) {
             this.maxRetries = maxRetries;
             this.retryForPredicate = retryForPredicate;
             this.initialDelay = initialDelay;
@@ -296,6 +318,19 @@ public abstract class AbstractRetryingFilterBuilder<Builder
             this.exponential = exponential;
             this.jitter = requireNonNull(jitter);
             this.maxDelay = maxDelay;
+            this.retryBudget = retryBudget;
+        }
+
+        /**
+         * Returns the {@link RetryBudget} which bounds the retries, if any. Filters should record their successful
+         * requests with {@link RetryBudget#recordSuccess(Single)}.
+         *
+         * @return the {@link RetryBudget} which bounds the retries, or {@code null} if retries are not bounded by a
+         * budget
+         */
+        @Nullable
+        public RetryBudget retryBudget() {
+            return retryBudget;
         }
 
         /**
@@ -313,12 +348,24 @@ public abstract class AbstractRetryingFilterBuilder<Builder
          * Builds a new retry strategy {@link BiIntFunction} for retrying with
          * {@link Publisher#retryWhen(BiIntFunction)}, {@link Single#retryWhen(BiIntFunction)}, and
          * {@link Completable#retryWhen(BiIntFunction)} or in general with an alternative timer {@link Executor}.
+         * Every retry of the strategy withdraws from the {@link #retryBudget() retry budget}, if any.
          *
          * @param alternativeTimerExecutor {@link Executor} to be used to schedule timers for backoff if no executor
          * was provided at the build time
          * @return a new retry strategy {@link BiIntFunction}
          */
         public BiIntFunction<Throwable, Completable> newStrategy(final Executor alternativeTimerExecutor) {
+            final BiIntFunction<Throwable, Completable> strategy = newBackoffStrategy(alternativeTimerExecutor);
+            final RetryBudget retryBudget = this.retryBudget;
+            if (retryBudget == null) {
+                return strategy;
+            }
+            // Check the number of retries first to not withdraw from the budget for retries which are not attempted.
+            return (count, throwable) -> count <= maxRetries && retryBudget.tryRetry() ?
+                    strategy.apply(count, throwable) : failed(throwable);
+        }
+
+        private BiIntFunction<Throwable, Completable> newBackoffStrategy(final Executor alternativeTimerExecutor) {
             if (initialDelay == null) {
                 return (count, throwable) -> count <= maxRetries ? completed() : failed(throwable);
             } else {
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,8 @@ import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
 
+import javax.annotation.Nullable;
+
 import static io.servicetalk.concurrent.api.Completable.completed;
 import static io.servicetalk.concurrent.api.Completable.failed;
 
@@ -56,6 +58,18 @@ public interface AutoRetryStrategyProvider {
     @FunctionalInterface
     interface AutoRetryStrategy extends AsyncCloseable, BiIntFunction<Throwable, Completable> {
 
+        /**
+         * Returns the {@link RetryBudget} which bounds the retries of this strategy. Clients record their successful
+         * requests in this budget.
+         *
+         * @return the {@link RetryBudget} which bounds the retries of this strategy, or {@code null} if retries are
+         * not bounded by a budget.
+         */
+        @Nullable
+        default RetryBudget retryBudget() {
+            return null;
+        }
+
         @Override
         default Completable closeAsync() {
             return completed();
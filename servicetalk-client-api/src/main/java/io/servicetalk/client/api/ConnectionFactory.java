@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -38,4 +38,21 @@ public interface ConnectionFactory<ResolvedAddress, C extends ListenableAsyncClo
      * @return {@link Single} that emits the created connection.
      */
     Single<C> newConnection(ResolvedAddress address, @Nullable TransportObserver observer);
+
+    /**
+     * Creates and asynchronously returns a connection which reports the lifecycle of requests it processes to the
+     * passed {@link RequestTracker}.
+     * <p>
+     * Implementations which do not support request tracking ignore the passed {@link RequestTracker} and behave the
+     * same as {@link #newConnection(Object, TransportObserver)}.
+     *
+     * @param address to connect.
+     * @param requestTracker {@link RequestTracker} to notify about requests processed by the newly created connection.
+     * @param observer {@link TransportObserver} for the newly created connection.
+     * @return {@link Single} that emits the created connection.
+     */
+    default Single<C> newConnection(ResolvedAddress address, @Nullable RequestTracker requestTracker,
+                                    @Nullable TransportObserver observer) {
+        return newConnection(address, observer);
+    }
 }
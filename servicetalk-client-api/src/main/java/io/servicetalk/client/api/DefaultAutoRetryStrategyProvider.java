@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import static io.servicetalk.concurrent.api.AsyncCloseables.toAsyncCloseable;
 import static io.servicetalk.concurrent.api.Completable.completed;
 import static io.servicetalk.concurrent.api.Completable.failed;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.util.Objects.requireNonNull;
 
 /**
  * Default implementation for {@link AutoRetryStrategyProvider}.
@@ -36,14 +37,18 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
     private final boolean waitForLb;
     private final boolean ignoreSdErrors;
     private final boolean retryAllRetryableExceptions;
+    @Nullable
+    private final RetryBudget retryBudget;
 
     private DefaultAutoRetryStrategyProvider(final int maxRetryCount, final boolean waitForLb,
                                              final boolean ignoreSdErrors,
-                                             final boolean retryAllRetryableExceptions) {
+                                             final boolean retryAllRetryableExceptions,
+                                             @Nullable final RetryBudget retryBudget) {
         this.maxRetryCount = maxRetryCount;
         this.waitForLb = waitForLb;
         this.ignoreSdErrors = ignoreSdErrors;
         this.retryAllRetryableExceptions = retryAllRetryableExceptions;
+        this.retryBudget = retryBudget;
     }
 
     @Override
@@ -52,7 +57,7 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
             return (count, cause) -> failed(cause);
         }
         return new DefaultAutoRetryStrategy(maxRetryCount, waitForLb, retryAllRetryableExceptions,
-                lbEventStream, ignoreSdErrors ? null : sdStatus);
+                lbEventStream, ignoreSdErrors ? null : sdStatus, retryBudget);
     }
 
     /**
@@ -63,6 +68,8 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
         private boolean ignoreSdErrors;
         private boolean retryAllRetryableExceptions = true;
         private int maxRetries = 4;
+        @Nullable
+        private RetryBudget retryBudget;
 
         /**
          * By default, automatic retries wait for the associated {@link LoadBalancer} to be ready before triggering a
@@ -115,6 +122,24 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
             return this;
         }
 
+        /**
+         * Bounds the retries of {@link RetryableException}s with a {@link RetryBudget}. Each request can still be
+         * retried at most {@link #maxRetries(int)} times, but once the budget is exhausted failures are not retried
+         * anymore until enough requests succeeded again. This prevents automatic retries from multiplying the load on
+         * the remaining hosts during a partial outage. Waiting for the {@link LoadBalancer} to be ready does not
+         * consume the budget, because no request is sent until hosts are available.
+         * <p>
+         * The same {@link RetryBudget} can be shared with other retrying layers of the client, for example with
+         * {@link AbstractRetryingFilterBuilder#retryBudget(RetryBudget)}.
+         *
+         * @param retryBudget the {@link RetryBudget} which bounds automatic retries.
+         * @return {@code this}.
+         */
+        public Builder retryBudget(final RetryBudget retryBudget) {
+            this.retryBudget = requireNonNull(retryBudget);
+            return this;
+        }
+
         /**
          * Builds a new {@link AutoRetryStrategyProvider}.
          *
@@ -122,7 +147,7 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
          */
         public AutoRetryStrategyProvider build() {
             return new DefaultAutoRetryStrategyProvider(maxRetries, waitForLb, ignoreSdErrors,
-                    retryAllRetryableExceptions);
+                    retryAllRetryableExceptions, retryBudget);
         }
     }
 
@@ -134,13 +159,17 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
         private final AsyncCloseable closeAsync;
         private final int maxRetryCount;
         private final boolean retryAllRetryableExceptions;
+        @Nullable
+        private final RetryBudget retryBudget;
 
         DefaultAutoRetryStrategy(final int maxRetryCount, final boolean waitForLb,
                                  final boolean retryAllRetryableExceptions,
-                                 final Publisher<Object> lbEventStream, @Nullable final Completable sdStatus) {
+                                 final Publisher<Object> lbEventStream, @Nullable final Completable sdStatus,
+                                 @Nullable final RetryBudget retryBudget) {
             this.maxRetryCount = maxRetryCount;
             this.sdStatus = sdStatus;
             this.retryAllRetryableExceptions = retryAllRetryableExceptions;
+            this.retryBudget = retryBudget;
             if (waitForLb) {
                 loadBalancerReadySubscriber = new LoadBalancerReadySubscriber();
                 closeAsync = toAsyncCloseable(__ -> {
@@ -163,12 +192,19 @@ public final class DefaultAutoRetryStrategyProvider implements AutoRetryStrategy
                 final Completable onHostsAvailable = loadBalancerReadySubscriber.onHostsAvailable();
                 return sdStatus == null ? onHostsAvailable : onHostsAvailable.ambWith(sdStatus);
             }
-            if (retryAllRetryableExceptions && cause instanceof RetryableException) {
+            if (retryAllRetryableExceptions && cause instanceof RetryableException &&
+                    (retryBudget == null || retryBudget.tryRetry())) {
                 return completed();
             }
             return failed(cause);
         }
 
+        @Nullable
+        @Override
+        public RetryBudget retryBudget() {
+            return retryBudget;
+        }
+
         @Override
         public Completable closeAsync() {
             return closeAsync.closeAsync();
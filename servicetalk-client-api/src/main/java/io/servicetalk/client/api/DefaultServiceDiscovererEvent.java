@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,9 @@
  */
 package io.servicetalk.client.api;
 
+import java.util.Objects;
+import javax.annotation.Nullable;
+
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -24,6 +27,9 @@ import static java.util.Objects.requireNonNull;
 public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscovererEvent<T> {
     private final T address;
     private final boolean available;
+    private final int weight;
+    @Nullable
+    private final String zone;
 
     /**
      * Create a new instance.
@@ -31,8 +37,34 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
      * @param available Value returned by {@link #available}.
      */
     public DefaultServiceDiscovererEvent(T address, boolean available) {
+        this(address, available, DEFAULT_WEIGHT);
+    }
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #address()}.
+     * @param available Value returned by {@link #available}.
+     * @param weight Value returned by {@link #weight()}, must be positive.
+     */
+    public DefaultServiceDiscovererEvent(T address, boolean available, int weight) {
+        this(address, available, weight, null);
+    }
+
+    /**
+     * Create a new instance.
+     * @param address The address returned by {@link #address()}.
+     * @param available Value returned by {@link #available}.
+     * @param weight Value returned by {@link #weight()}, must be positive.
+     * @param zone Value returned by {@link #zone()}.
+     */
+    public DefaultServiceDiscovererEvent(T address, boolean available, int weight, @Nullable String zone) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("weight: " + weight + " (expected > 0)");
+        }
         this.address = requireNonNull(address);
         this.available = available;
+        this.weight = weight;
+        this.zone = zone;
     }
 
     @Override
@@ -45,6 +77,17 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
         return available;
     }
 
+    @Override
+    public int weight() {
+        return weight;
+    }
+
+    @Nullable
+    @Override
+    public String zone() {
+        return zone;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (this == o) {
@@ -56,16 +99,18 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
 
         final DefaultServiceDiscovererEvent<?> that = (DefaultServiceDiscovererEvent<?>) o;
 
-        if (available != that.available) {
+        if (available != that.available || weight != that.weight) {
             return false;
         }
-        return address.equals(that.address);
+        return address.equals(that.address) && Objects.equals(zone, that.zone);
     }
 
     @Override
     public int hashCode() {
         int result = address.hashCode();
         result = 31 * result + (available ? 1 : 0);
+        result = 31 * result + weight;
+        result = 31 * result + Objects.hashCode(zone);
         return result;
     }
 
@@ -74,6 +119,8 @@ public final class DefaultServiceDiscovererEvent<T> implements ServiceDiscoverer
         return "DefaultServiceDiscovererEvent{" +
                 "address=" + address +
                 ", available=" + available +
+                ", weight=" + weight +
+                ", zone=" + zone +
                 '}';
     }
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,6 +48,13 @@ public class DelegatingConnectionFactory<ResolvedAddress, C extends ListenableAs
         return delegate.newConnection(resolvedAddress, observer);
     }
 
+    @Override
+    public Single<C> newConnection(final ResolvedAddress resolvedAddress,
+                                   @Nullable final RequestTracker requestTracker,
+                                   @Nullable final TransportObserver observer) {
+        return delegate.newConnection(resolvedAddress, requestTracker, observer);
+    }
+
     @Override
     public Completable onClose() {
         return delegate.onClose();
@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+/**
+ * Receives notifications about the lifecycle of requests processed by connections to a particular host.
+ * <p>
+ * A {@link LoadBalancer} may provide a {@link RequestTracker} to the {@link ConnectionFactory} when it creates a new
+ * connection (see {@link ConnectionFactory#newConnection(Object, RequestTracker,
+ * io.servicetalk.transport.api.TransportObserver)}) in order to learn about the load and responsiveness of the host
+ * the connection belongs to. Protocol implementations that support request tracking are expected to invoke
+ * {@link #beforeStart()} exactly once for each request and follow up with exactly one of {@link #onSuccess(long)} or
+ * {@link #onError(long, ErrorClass)} when the request terminates.
+ * <p>
+ * Implementations are invoked on the hot path of request processing and therefore must be thread-safe, non-blocking
+ * and cheap.
+ */
+public interface RequestTracker {
+
+    /**
+     * Invoked before a request is written to the connection.
+     *
+     * @return an opaque timestamp in nanoseconds that has to be passed back to {@link #onSuccess(long)} or
+     * {@link #onError(long, ErrorClass)} when the request terminates.
+     */
+    long beforeStart();
+
+    /**
+     * Invoked when a request completes successfully.
+     *
+     * @param beforeStartTimeNs the value returned from the corresponding call to {@link #beforeStart()}.
+     */
+    void onSuccess(long beforeStartTimeNs);
+
+    /**
+     * Invoked when a request terminates unsuccessfully.
+     *
+     * @param beforeStartTimeNs the value returned from the corresponding call to {@link #beforeStart()}.
+     * @param errorClass the class of error that terminated the request.
+     */
+    void onError(long beforeStartTimeNs, ErrorClass errorClass);
+
+    /**
+     * Classification of the reasons for which a request can terminate unsuccessfully.
+     */
+    enum ErrorClass {
+        /**
+         * The request was cancelled by the caller. This does not say anything about the health of the host.
+         */
+        CANCELLED,
+        /**
+         * The request failed due to an error while talking to the host (connection closed, timeout, protocol error,
+         * etc.).
+         */
+        CONNECTION_FAILURE,
+        /**
+         * The host responded, but the response indicates the host failed to process the request (for example an HTTP
+         * {@code 5xx} status code).
+         */
+        RESPONSE_FAILURE
+    }
+}
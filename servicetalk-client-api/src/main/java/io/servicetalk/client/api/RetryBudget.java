@@ -0,0 +1,242 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import io.servicetalk.concurrent.api.AsyncContext;
+import io.servicetalk.concurrent.api.AsyncContextMap;
+import io.servicetalk.concurrent.api.Single;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static io.servicetalk.concurrent.api.AsyncContextMap.Key.newKey;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static java.lang.Boolean.TRUE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A token bucket which bounds the number of retries of a client relative to the number of its successful requests.
+ * <p>
+ * Every successful request deposits a {@link Builder#ratio(double) ratio} of a token, and the bucket is additionally
+ * refilled at a {@link Builder#minRetriesPerSecond(int) minimum rate} so that clients with little traffic can still
+ * retry. Every retry withdraws one token; when the bucket is empty retries are denied and the original failure is
+ * propagated. The bucket holds at most {@link Builder#maxBalance(int) a maximum balance} of tokens. During an outage,
+ * this limits the additional load generated by retries to the ratio of the load which still succeeds, rather than to a
+ * multiple of the offered load.
+ * <p>
+ * A single instance is meant to be shared by all retrying layers of a client, see
+ * {@link DefaultAutoRetryStrategyProvider.Builder#retryBudget(RetryBudget)} and
+ * {@link AbstractRetryingFilterBuilder#retryBudget(RetryBudget)}. Layers record successful requests with
+ * {@link #recordSuccess(Single)}, which deposits only once per request however many layers share the budget.
+ */
+public final class RetryBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long depositPerSuccess;
+    private final long maxBalance;
+    private final long nanosPerRefill;
+    private final LongSupplier nanoTime;
+    // Balance in thousandths of a token.
+    private final AtomicLong balance;
+    private final AtomicLong lastRefillNanos;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhaustions = new LongAdder();
+    // Marks requests whose success is recorded by an outer layer, per instance so that distinct budgets both record.
+    private final AsyncContextMap.Key<Boolean> recordingKey = newKey("RetryBudget");
+
+    RetryBudget(final double ratio, final int minRetriesPerSecond, final int maxBalance, final LongSupplier nanoTime) {
+        this.depositPerSuccess = (long) (ratio * TOKEN);
+        this.maxBalance = maxBalance * TOKEN;
+        // One thousandth of a token is added every nanosPerRefill.
+        this.nanosPerRefill = minRetriesPerSecond == 0 ? 0 :
+                Math.max(1, SECONDS.toNanos(1) / (minRetriesPerSecond * TOKEN));
+        this.nanoTime = nanoTime;
+        this.balance = new AtomicLong(Math.min(this.maxBalance, minRetriesPerSecond * TOKEN));
+        this.lastRefillNanos = new AtomicLong(nanoTime.getAsLong());
+    }
+
+    /**
+     * Records a successful request, which deposits a {@link Builder#ratio(double) ratio} of a token. Retrying layers
+     * should use {@link #recordSuccess(Single)} instead, which does not record a request twice.
+     */
+    public void onSuccess() {
+        if (depositPerSuccess != 0 && balance.get() < maxBalance) {
+            balance.accumulateAndGet(depositPerSuccess, this::deposit);
+        }
+    }
+
+    /**
+     * Records the success of {@code request} in this budget. When layers which share this budget are nested (e.g. a
+     * retrying filter on top of automatic retries), only the outermost layer records the success, so that every
+     * request deposits once. Nesting is detected through the {@link AsyncContext}, hence every layer records the
+     * success if it is disabled.
+     *
+     * @param request the request, including the retries of the calling layer.
+     * @param <T> The type of the result.
+     * @return a {@link Single} which records the success of {@code request} when it succeeds.
+     */
+    public <T> Single<T> recordSuccess(final Single<T> request) {
+        return defer(() -> {
+            if (AsyncContext.containsKey(recordingKey)) {
+                // An outer layer records the success of this request.
+                return request.subscribeShareContext();
+            }
+            // Each request is subscribed with a copy of the context, so the mark is not visible to other requests.
+            AsyncContext.put(recordingKey, TRUE);
+            return request.beforeOnSuccess(__ -> onSuccess()).subscribeShareContext();
+        });
+    }
+
+    /**
+     * Attempts to withdraw the token for a retry.
+     *
+     * @return {@code true} if the retry is allowed, {@code false} if the budget is exhausted.
+     */
+    public boolean tryRetry() {
+        refill();
+        for (;;) {
+            final long current = balance.get();
+            if (current < TOKEN) {
+                exhaustions.increment();
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                retries.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * The number of tokens currently available for retries.
+     *
+     * @return the number of tokens currently available for retries.
+     */
+    public double balance() {
+        refill();
+        return (double) balance.get() / TOKEN;
+    }
+
+    /**
+     * The number of retries allowed by this budget so far.
+     *
+     * @return the number of retries allowed by this budget so far.
+     */
+    public long retries() {
+        return retries.sum();
+    }
+
+    /**
+     * The number of retries denied so far because this budget was exhausted.
+     *
+     * @return the number of retries denied so far because this budget was exhausted.
+     */
+    public long exhaustions() {
+        return exhaustions.sum();
+    }
+
+    private void refill() {
+        if (nanosPerRefill == 0) {
+            return;
+        }
+        final long last = lastRefillNanos.get();
+        final long refills = (nanoTime.getAsLong() - last) / nanosPerRefill;
+        // Only the thread which advances the refill timestamp deposits, the remainder is kept for the next refill.
+        if (refills > 0 && lastRefillNanos.compareAndSet(last, last + refills * nanosPerRefill)) {
+            balance.accumulateAndGet(refills, this::deposit);
+        }
+    }
+
+    private long deposit(final long current, final long amount) {
+        return current >= maxBalance - amount ? maxBalance : current + amount;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{" +
+                "balance=" + balance() +
+                ", retries=" + retries() +
+                ", exhaustions=" + exhaustions() +
+                '}';
+    }
+
+    /**
+     * A builder for {@link RetryBudget}.
+     */
+    public static final class Builder {
+        private double ratio = 0.2;
+        private int minRetriesPerSecond = 10;
+        private int maxBalance = 100;
+
+        /**
+         * Sets the number of retries allowed per successful request. The default is {@code 0.2}, which allows retries
+         * to add at most 20% to the load of successful requests.
+         *
+         * @param ratio the number of retries allowed per successful request, in {@code [0, 1]}.
+         * @return {@code this}.
+         */
+        public Builder ratio(final double ratio) {
+            if (!(ratio >= 0 && ratio <= 1)) {
+                throw new IllegalArgumentException("ratio: " + ratio + " (expected [0, 1])");
+            }
+            this.ratio = ratio;
+            return this;
+        }
+
+        /**
+         * Sets the number of retries allowed per second regardless of the number of successful requests. The budget
+         * starts with this many tokens. The default is {@code 10}.
+         *
+         * @param minRetriesPerSecond the number of retries allowed per second regardless of the number of successful
+         * requests, at least {@code 0}.
+         * @return {@code this}.
+         */
+        public Builder minRetriesPerSecond(final int minRetriesPerSecond) {
+            if (minRetriesPerSecond < 0) {
+                throw new IllegalArgumentException("minRetriesPerSecond: " + minRetriesPerSecond +
+                        " (expected >= 0)");
+            }
+            this.minRetriesPerSecond = minRetriesPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of tokens which can be accumulated, which is the maximum number of retries in a
+         * burst. The default is {@code 100}.
+         *
+         * @param maxBalance the maximum number of tokens which can be accumulated, at least {@code 1}.
+         * @return {@code this}.
+         */
+        public Builder maxBalance(final int maxBalance) {
+            if (maxBalance <= 0) {
+                throw new IllegalArgumentException("maxBalance: " + maxBalance + " (expected > 0)");
+            }
+            this.maxBalance = maxBalance;
+            return this;
+        }
+
+        /**
+         * Builds the {@link RetryBudget} configured by this builder.
+         *
+         * @return a new {@link RetryBudget}.
+         */
+        public RetryBudget build() {
+            return new RetryBudget(ratio, minRetriesPerSecond, maxBalance, System::nanoTime);
+        }
+    }
+}
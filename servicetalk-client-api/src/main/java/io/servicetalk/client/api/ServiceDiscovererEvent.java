@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,11 +15,18 @@
  */
 package io.servicetalk.client.api;
 
+import javax.annotation.Nullable;
+
 /**
  * Notification from the Service Discovery system that availability for an address has changed.
  * @param <ResolvedAddress> the type of address after resolution.
  */
 public interface ServiceDiscovererEvent<ResolvedAddress> {
+    /**
+     * The {@link #weight()} of addresses for which the Service Discovery system does not provide a weight.
+     */
+    int DEFAULT_WEIGHT = 1;
+
     /**
      * Get the resolved address which is the subject of this event.
      * @return a resolved address that can be used for connecting.
@@ -32,4 +39,29 @@ public interface ServiceDiscovererEvent<ResolvedAddress> {
      * unavailable.
      */
     boolean isAvailable();
+
+    /**
+     * Get the relative weight of {@link #address()} compared to other addresses, for load balancers which support
+     * weighted selection. An address with twice the weight of another address is expected to receive twice as much
+     * traffic. A subsequent {@link #isAvailable() available} event for the same address updates its weight.
+     * <p>
+     * The weight is only meaningful for {@link #isAvailable() available} events.
+     * @return the positive relative weight of {@link #address()}, {@link #DEFAULT_WEIGHT} by default.
+     */
+    default int weight() {
+        return DEFAULT_WEIGHT;
+    }
+
+    /**
+     * Get the zone (availability zone, rack, data center, etc.) of {@link #address()}, for load balancers which
+     * prefer addresses in the same zone as the client. A subsequent {@link #isAvailable() available} event for the same
+     * address updates its zone.
+     * <p>
+     * The zone is only meaningful for {@link #isAvailable() available} events.
+     * @return the zone of {@link #address()}, or {@code null} if unknown, which is the default.
+     */
+    @Nullable
+    default String zone() {
+        return null;
+    }
 }
@@ -176,6 +176,34 @@ class DefaultAutoRetryStrategyProviderTest {
         verifyRetryResultError(RETRYABLE_EXCEPTION);
     }
 
+    @Test
+    void retryBudgetBoundsRetryableEx() {
+        RetryBudget budget = new RetryBudget.Builder().minRetriesPerSecond(0).ratio(1).build();
+        AutoRetryStrategy strategy = newStrategy(builder -> builder.retryBudget(budget));
+        assertThat(strategy.retryBudget(), is(sameInstance(budget)));
+        Completable retry = strategy.apply(1, RETRYABLE_EXCEPTION);
+        toSource(retry).subscribe(retrySubscriber);
+        verifyRetryResultError(RETRYABLE_EXCEPTION);
+        assertThat(budget.exhaustions(), is(1L));
+
+        budget.onSuccess();
+        TestCompletableSubscriber secondRetrySubscriber = new TestCompletableSubscriber();
+        toSource(strategy.apply(1, RETRYABLE_EXCEPTION)).subscribe(secondRetrySubscriber);
+        secondRetrySubscriber.awaitOnComplete();
+        assertThat(budget.retries(), is(1L));
+    }
+
+    @Test
+    void retryBudgetIsNotUsedForNoAvailableHost() {
+        RetryBudget budget = new RetryBudget.Builder().minRetriesPerSecond(0).build();
+        AutoRetryStrategy strategy = newStrategy(builder -> builder.retryBudget(budget));
+        Completable retry = strategy.apply(1, NO_AVAILABLE_HOST);
+        toSource(retry).subscribe(retrySubscriber);
+        lbEvents.onNext(LOAD_BALANCER_READY_EVENT);
+        verifyRetryResultCompleted();
+        assertThat(budget.exhaustions(), is(0L));
+    }
+
     private void verifyRetryResultCompleted() {
         retrySubscriber.awaitOnComplete();
     }
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.client.api;
+
+import org.junit.jupiter.api.Test;
+
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RetryBudgetTest {
+
+    private long nanoTime;
+
+    @Test
+    void retriesAreProportionalToSuccesses() {
+        RetryBudget budget = new RetryBudget(0.2, 0, 100, () -> nanoTime);
+        assertThat(budget.tryRetry(), is(false));
+        for (int i = 0; i < 10; ++i) {
+            budget.onSuccess();
+        }
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(false));
+        assertThat(budget.retries(), is(2L));
+        assertThat(budget.exhaustions(), is(2L));
+    }
+
+    @Test
+    void minimumRateRefillsOverTime() {
+        RetryBudget budget = new RetryBudget(0, 10, 100, () -> nanoTime);
+        for (int i = 0; i < 10; ++i) {
+            assertThat(budget.tryRetry(), is(true));
+        }
+        assertThat(budget.tryRetry(), is(false));
+
+        nanoTime += MILLISECONDS.toNanos(150);
+        assertThat(budget.tryRetry(), is(true));
+        assertThat(budget.tryRetry(), is(false));
+        nanoTime += MILLISECONDS.toNanos(50);
+        assertThat(budget.tryRetry(), is(true));
+    }
+
+    @Test
+    void balanceIsCapped() {
+        RetryBudget budget = new RetryBudget(1, 10, 20, () -> nanoTime);
+        for (int i = 0; i < 100; ++i) {
+            budget.onSuccess();
+        }
+        nanoTime += MILLISECONDS.toNanos(10_000);
+        assertThat(budget.balance(), is(20.0));
+    }
+
+    @Test
+    void nestedLayersRecordSuccessOnce() throws Exception {
+        RetryBudget budget = new RetryBudget(0.5, 0, 100, () -> nanoTime);
+        budget.recordSuccess(budget.recordSuccess(succeeded("ok"))).toFuture().get();
+        assertThat(budget.balance(), is(0.5));
+        budget.recordSuccess(succeeded("ok")).toFuture().get();
+        assertThat(budget.balance(), is(1.0));
+    }
+
+    @Test
+    void distinctBudgetsRecordSuccess() throws Exception {
+        RetryBudget inner = new RetryBudget(0.5, 0, 100, () -> nanoTime);
+        RetryBudget outer = new RetryBudget(0.5, 0, 100, () -> nanoTime);
+        outer.recordSuccess(inner.recordSuccess(succeeded("ok"))).toFuture().get();
+        assertThat(inner.balance(), is(0.5));
+        assertThat(outer.balance(), is(0.5));
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget.Builder().ratio(1.5));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget.Builder().minRetriesPerSecond(-1));
+        assertThrows(IllegalArgumentException.class, () -> new RetryBudget.Builder().maxBalance(0));
+    }
+}
@@ -131,6 +131,16 @@ public abstract class GrpcClientBuilder<U, R> {
      */
     public abstract GrpcClientBuilder<U, R> defaultTimeout(Duration defaultTimeout);
 
+    /**
+     * Hedges calls of some methods: if no response arrives within a delay, a second copy of the call is sent and the
+     * first response of either copy is used. The timeout of the call bounds both copies together, the hedge does not
+     * extend it.
+     *
+     * @param hedgingPolicy {@link GrpcHedgingPolicy} which selects the hedged methods and the delay of the hedges.
+     * @return {@code this}.
+     */
+    public abstract GrpcClientBuilder<U, R> hedging(GrpcHedgingPolicy hedgingPolicy);
+
     /**
      * Append the filter to the chain of filters used to decorate the {@link ConnectionFactory} used by this
      * builder.
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.grpc.api;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.servicetalk.utils.internal.DurationUtils.ensurePositive;
+import static java.time.Duration.ofMillis;
+
+/**
+ * Policy to hedge gRPC calls: if no response arrives within a delay, a second copy of the call is sent and the first
+ * response of either copy is used, the other copy is cancelled.
+ * <p>
+ * Only calls of the {@link Builder#hedgedMethod(MethodDescriptor) configured methods} are hedged. These methods must
+ * be safe to call twice, and their requests must not be streamed from sources which can only be consumed once.
+ * The delay is either {@link Builder#delay(Duration) fixed} or a
+ * {@link Builder#delayPercentile(double, Duration) percentile} of recent response latencies, and hedges are bounded by
+ * a {@link Builder#budget(double, int) budget} proportional to the number of calls.
+ *
+ * @see GrpcClientBuilder#hedging(GrpcHedgingPolicy)
+ */
+public final class GrpcHedgingPolicy {
+
+    private final Set<String> hedgedPaths;
+    private final Duration delay;
+    private final double percentile;
+    private final double budgetRatio;
+    private final int budgetBurst;
+
+    private GrpcHedgingPolicy(final Set<String> hedgedPaths, final Duration delay, final double percentile,
+                              final double budgetRatio, final int budgetBurst) {
+        this.hedgedPaths = hedgedPaths;
+        this.delay = delay;
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.budgetBurst = budgetBurst;
+    }
+
+    /**
+     * The {@link MethodDescriptor#httpPath() HTTP paths} of the hedged methods.
+     *
+     * @return the {@link MethodDescriptor#httpPath() HTTP paths} of the hedged methods.
+     */
+    public Set<String> hedgedPaths() {
+        return hedgedPaths;
+    }
+
+    /**
+     * The fixed delay, or the initial delay if {@link #percentile()} is positive.
+     *
+     * @return the fixed delay, or the initial delay if {@link #percentile()} is positive.
+     */
+    public Duration delay() {
+        return delay;
+    }
+
+    /**
+     * The percentile of the response latencies used as the delay, or {@code 0} if the {@link #delay()} is fixed.
+     *
+     * @return the percentile of the response latencies used as the delay, or {@code 0} if the delay is fixed.
+     */
+    public double percentile() {
+        return percentile;
+    }
+
+    /**
+     * The maximum ratio of hedges to calls.
+     *
+     * @return the maximum ratio of hedges to calls.
+     */
+    public double budgetRatio() {
+        return budgetRatio;
+    }
+
+    /**
+     * The maximum number of hedges which can be sent in a row.
+     *
+     * @return the maximum number of hedges which can be sent in a row.
+     */
+    public int budgetBurst() {
+        return budgetBurst;
+    }
+
+    @Override
+    public String toString() {
+        return "GrpcHedgingPolicy{" +
+                "hedgedPaths=" + hedgedPaths +
+                ", delay=" + delay +
+                ", percentile=" + percentile +
+                ", budgetRatio=" + budgetRatio +
+                ", budgetBurst=" + budgetBurst +
+                '}';
+    }
+
+    /**
+     * Builder for {@link GrpcHedgingPolicy}.
+     */
+    public static final class Builder {
+        private final Set<String> hedgedPaths = new HashSet<>();
+        private Duration delay = ofMillis(100);
+        private double percentile = 95;
+        private double budgetRatio = 0.1;
+        private int budgetBurst = 10;
+
+        /**
+         * Hedges calls of the passed method.
+         *
+         * @param method the {@link MethodDescriptor} of a method which is safe to call twice.
+         * @return {@code this}.
+         */
+        public Builder hedgedMethod(final MethodDescriptor<?, ?> method) {
+            hedgedPaths.add(method.httpPath());
+            return this;
+        }
+
+        /**
+         * Sends the hedge after a fixed delay.
+         *
+         * @param delay the delay after which the hedge is sent if no response arrived.
+         * @return {@code this}.
+         */
+        public Builder delay(final Duration delay) {
+            this.delay = ensurePositive(delay, "delay");
+            this.percentile = 0;
+            return this;
+        }
+
+        /**
+         * Sends the hedge after a delay equal to a percentile of the latencies of the most recent responses. This is
+         * the default, with the 95th percentile and an initial delay of 100 milliseconds.
+         *
+         * @param percentile the percentile of the response latencies, in {@code (0, 100]}.
+         * @param initialDelay the delay used until enough responses are observed.
+         * @return {@code this}.
+         */
+        public Builder delayPercentile(final double percentile, final Duration initialDelay) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile: " + percentile + " (expected (0, 100])");
+            }
+            this.delay = ensurePositive(initialDelay, "initialDelay");
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the budget of hedges. Every call adds {@code ratio} to the budget, up to {@code burst}, and every
+         * hedge consumes {@code 1}. The default is a ratio of {@code 0.1} and a burst of {@code 10}.
+         *
+         * @param ratio the maximum ratio of hedges to calls, in {@code [0, 1]}.
+         * @param burst the maximum number of hedges which can be sent in a row.
+         * @return {@code this}.
+         */
+        public Builder budget(final double ratio, final int burst) {
+            if (!(ratio >= 0 && ratio <= 1)) {
+                throw new IllegalArgumentException("ratio: " + ratio + " (expected [0, 1])");
+            }
+            if (burst < 0) {
+                throw new IllegalArgumentException("burst: " + burst + " (expected >= 0)");
+            }
+            this.budgetRatio = ratio;
+            this.budgetBurst = burst;
+            return this;
+        }
+
+        /**
+         * Builds the {@link GrpcHedgingPolicy} configured by this builder.
+         *
+         * @return a new {@link GrpcHedgingPolicy}.
+         */
+        public GrpcHedgingPolicy build() {
+            return new GrpcHedgingPolicy(Collections.unmodifiableSet(new HashSet<>(hedgedPaths)), delay, percentile,
+                    budgetRatio, budgetBurst);
+        }
+    }
+}
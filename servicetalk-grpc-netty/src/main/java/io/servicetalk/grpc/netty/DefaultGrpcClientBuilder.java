@@ -23,6 +23,7 @@ import io.servicetalk.client.api.ServiceDiscovererEvent;
 import io.servicetalk.grpc.api.GrpcClientBuilder;
 import io.servicetalk.grpc.api.GrpcClientCallFactory;
 import io.servicetalk.grpc.api.GrpcExecutionStrategy;
+import io.servicetalk.grpc.api.GrpcHedgingPolicy;
 import io.servicetalk.http.api.FilterableStreamingHttpConnection;
 import io.servicetalk.http.api.HttpExecutionStrategy;
 import io.servicetalk.http.api.HttpLoadBalancerFactory;
@@ -32,6 +33,7 @@ import io.servicetalk.http.api.SingleAddressHttpClientBuilder;
 import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
 import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
 import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.utils.HedgingHttpRequesterFilter;
 import io.servicetalk.http.utils.TimeoutFromRequest;
 import io.servicetalk.http.utils.TimeoutHttpRequesterFilter;
 import io.servicetalk.logging.api.LogLevel;
@@ -40,6 +42,7 @@ import io.servicetalk.transport.api.IoExecutor;
 
 import java.net.SocketOption;
 import java.time.Duration;
+import java.util.Set;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -50,6 +53,7 @@ import static io.servicetalk.grpc.internal.DeadlineUtils.readTimeoutHeader;
 import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
 import static io.servicetalk.utils.internal.DurationUtils.ensurePositive;
 import static io.servicetalk.utils.internal.DurationUtils.isInfinite;
+import static java.util.Objects.requireNonNull;
 
 final class DefaultGrpcClientBuilder<U, R> extends GrpcClientBuilder<U, R> {
 
@@ -77,6 +81,8 @@ final class DefaultGrpcClientBuilder<U, R> extends GrpcClientBuilder<U, R> {
 
     @Nullable
     private Duration defaultTimeout;
+    @Nullable
+    private GrpcHedgingPolicy hedgingPolicy;
     private boolean invokedBuild;
 
     private final SingleAddressHttpClientBuilder<U, R> httpClientBuilder;
@@ -94,6 +100,15 @@ final class DefaultGrpcClientBuilder<U, R> extends GrpcClientBuilder<U, R> {
         return this;
     }
 
+    @Override
+    public GrpcClientBuilder<U, R> hedging(final GrpcHedgingPolicy hedgingPolicy) {
+        if (invokedBuild) {
+            throw new IllegalStateException("hedging cannot be modified after build, create a new builder");
+        }
+        this.hedgingPolicy = requireNonNull(hedgingPolicy);
+        return this;
+    }
+
     @Override
     public GrpcClientBuilder<U, R> ioExecutor(final IoExecutor ioExecutor) {
         httpClientBuilder.ioExecutor(ioExecutor);
@@ -215,11 +230,28 @@ final class DefaultGrpcClientBuilder<U, R> extends GrpcClientBuilder<U, R> {
         Duration timeout = isInfinite(defaultTimeout, GRPC_MAX_TIMEOUT) ? null : defaultTimeout;
         if (!invokedBuild) {
             httpClientBuilder.appendClientFilter(new TimeoutHttpRequesterFilter(GRPC_TIMEOUT_REQHDR, true));
+            if (hedgingPolicy != null) {
+                // Appended after the timeout filter, so that the deadline of the call bounds both copies together.
+                httpClientBuilder.appendClientFilter(newHedgingFilter(hedgingPolicy));
+            }
         }
         invokedBuild = true;
         return GrpcClientCallFactory.from(httpClientBuilder.buildStreaming(), timeout);
     }
 
+    private static HedgingHttpRequesterFilter newHedgingFilter(final GrpcHedgingPolicy policy) {
+        final Set<String> hedgedPaths = policy.hedgedPaths();
+        final HedgingHttpRequesterFilter.Builder builder = new HedgingHttpRequesterFilter.Builder()
+                .hedgeFor(request -> hedgedPaths.contains(request.path()))
+                .budget(policy.budgetRatio(), policy.budgetBurst());
+        if (policy.percentile() > 0) {
+            builder.delayPercentile(policy.percentile(), policy.delay());
+        } else {
+            builder.delay(policy.delay());
+        }
+        return builder.build();
+    }
+
     @Override
     protected void doAppendHttpClientFilter(final StreamingHttpClientFilterFactory factory) {
         httpClientBuilder.appendClientFilter(factory);
@@ -124,7 +124,7 @@ final class DefaultHttpExecutionStrategy implements HttpExecutionStrategy {
                             // flattened (meta + data) stream. In this case, we need to preserve the service contract
                             // and hence have to offload both meta and data separately.
                             resp.map(r -> r.transformMessageBody(
-                                    p -> p.subscribeOn(e)))
+                                    p -> FileRegionPayloadBody.subscribeOn(p, e, Boolean.TRUE::booleanValue)))
                                         .subscribeOn(e) :
                             resp;
                 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BooleanSupplier;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.utils.internal.PlatformDependent.throwException;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A payload body which consists of {@link #count()} bytes of a {@link FileChannel}, starting at {@link #position()}.
+ * <p>
+ * If the payload body is written to a transport which supports it (e.g. HTTP/1.x without TLS) and has not been
+ * transformed, the region is transferred from the file to the socket without copying it into user space (e.g. using
+ * {@code sendfile}). Otherwise the region is read in chunks of {@link Buffer}s when this {@link Publisher} is
+ * subscribed.
+ * <p>
+ * The {@link FileChannel} is closed when the region has been written or read, or when writing or reading it fails or
+ * is cancelled. This {@link Publisher} can therefore be subscribed only once.
+ *
+ * @see StreamingHttpResponseFactory#newResponse(HttpResponseStatus, FileRegionPayloadBody)
+ */
+public final class FileRegionPayloadBody extends Publisher<Buffer> {
+    private static final int DEFAULT_READ_CHUNK_SIZE = 8192;
+
+    private final FileChannel fileChannel;
+    private final long position;
+    private final long count;
+    private final BufferAllocator allocator;
+    private final int readChunkSize;
+    @Nullable
+    private final Executor subscribeExecutor;
+    private final BooleanSupplier shouldOffload;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param fileChannel the {@link FileChannel} to transfer the region of.
+     * @param position the offset in {@code fileChannel} where the region starts.
+     * @param count the number of bytes in the region.
+     * @param allocator the {@link BufferAllocator} used if the region has to be read in chunks.
+     */
+    public FileRegionPayloadBody(final FileChannel fileChannel, final long position, final long count,
+                                 final BufferAllocator allocator) {
+        this(fileChannel, position, count, allocator, DEFAULT_READ_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param fileChannel the {@link FileChannel} to transfer the region of.
+     * @param position the offset in {@code fileChannel} where the region starts.
+     * @param count the number of bytes in the region.
+     * @param allocator the {@link BufferAllocator} used if the region has to be read in chunks.
+     * @param readChunkSize the maximum size of a {@link Buffer} if the region has to be read in chunks.
+     */
+    public FileRegionPayloadBody(final FileChannel fileChannel, final long position, final long count,
+                                 final BufferAllocator allocator, final int readChunkSize) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected >=0)");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count + " (expected >=0)");
+        }
+        if (readChunkSize <= 0) {
+            throw new IllegalArgumentException("readChunkSize: " + readChunkSize + " (expected >0)");
+        }
+        this.fileChannel = requireNonNull(fileChannel);
+        this.position = position;
+        this.count = count;
+        this.allocator = requireNonNull(allocator);
+        this.readChunkSize = readChunkSize;
+        subscribeExecutor = null;
+        shouldOffload = Boolean.FALSE::booleanValue;
+    }
+
+    private FileRegionPayloadBody(final FileRegionPayloadBody original, final Executor subscribeExecutor,
+                                  final BooleanSupplier shouldOffload) {
+        fileChannel = original.fileChannel;
+        position = original.position;
+        count = original.count;
+        allocator = original.allocator;
+        readChunkSize = original.readChunkSize;
+        this.subscribeExecutor = subscribeExecutor;
+        this.shouldOffload = shouldOffload;
+    }
+
+    /**
+     * Returns the {@link FileChannel} to transfer the region of.
+     *
+     * @return the {@link FileChannel} to transfer the region of.
+     */
+    public FileChannel fileChannel() {
+        return fileChannel;
+    }
+
+    /**
+     * Returns the offset in {@link #fileChannel()} where the region starts.
+     *
+     * @return the offset in {@link #fileChannel()} where the region starts.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of bytes in the region.
+     *
+     * @return the number of bytes in the region.
+     */
+    public long count() {
+        return count;
+    }
+
+    @Override
+    protected void handleSubscribe(final Subscriber<? super Buffer> subscriber) {
+        final Publisher<Buffer> chunks = fromIterable(ChunkIterator::new).beforeFinally(this::closeFileChannel);
+        toSource(subscribeExecutor == null ? chunks : chunks.subscribeOn(subscribeExecutor, shouldOffload))
+                .subscribe(subscriber);
+    }
+
+    /**
+     * Equivalent of {@link Publisher#subscribeOn(Executor, BooleanSupplier)} which keeps a
+     * {@link FileRegionPayloadBody} recognizable by transports, which do not need to offload the subscription if they
+     * write the region directly.
+     *
+     * @param messageBody the message body to offload the subscription of.
+     * @param executor {@link Executor} to use.
+     * @param shouldOffload Provides a hint whether offloading to the executor can be omitted or not.
+     * @return the message body which offloads its subscription to {@code executor}.
+     */
+    static Publisher<?> subscribeOn(final Publisher<?> messageBody, final Executor executor,
+                                    final BooleanSupplier shouldOffload) {
+        // Reading the region in chunks blocks, so the subscription (which requests the chunks) is still offloaded.
+        return messageBody instanceof FileRegionPayloadBody ?
+                new FileRegionPayloadBody((FileRegionPayloadBody) messageBody, executor, shouldOffload) :
+                messageBody.subscribeOn(executor, shouldOffload);
+    }
+
+    private void closeFileChannel() {
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            throwException(e);
+        }
+    }
+
+    private final class ChunkIterator implements Iterator<Buffer> {
+        private final long end = position + count;
+        private long offset = position;
+
+        @Override
+        public boolean hasNext() {
+            return offset < end;
+        }
+
+        @Override
+        public Buffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            // Positional reads do not depend on (or modify) the position of the FileChannel.
+            final ByteBuffer chunk = ByteBuffer.allocate((int) min(readChunkSize, end - offset));
+            try {
+                while (chunk.hasRemaining()) {
+                    if (fileChannel.read(chunk, offset + chunk.position()) < 0) {
+                        throw new EOFException("Unexpected end of file at offset " + (offset + chunk.position()) +
+                                ", expected the region to end at " + end);
+                    }
+                }
+            } catch (IOException e) {
+                return throwException(e);
+            }
+            offset += chunk.capacity();
+            chunk.flip();
+            return allocator.wrap(chunk);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.buffer.api.BufferAllocator;
+import io.servicetalk.concurrent.PublisherSource.Subscriber;
+import io.servicetalk.concurrent.api.Publisher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.utils.internal.PlatformDependent.throwException;
+import static java.lang.Math.min;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A payload body which consists of {@link #count()} bytes of a {@link FileChannel}, starting at {@link #position()},
+ * which are memory-mapped and emitted as read-only {@link Buffer} slices of the mapping.
+ * <p>
+ * Unlike {@link FileRegionPayloadBody}, which is only transferred without a copy on plaintext HTTP/1.x connections,
+ * the slices can be written by any transport (e.g. encrypted with TLS or framed for HTTP/2) without first being copied
+ * to the heap. The region is mapped lazily, in parts of at most 1 GiB, as slices are requested.
+ * <p>
+ * Reading a slice may cause page faults, which block the thread reading it (typically an IO thread) until the pages
+ * are loaded from disk. This payload body is therefore best suited for files which are likely to be in the page
+ * cache. The file must not be truncated while the payload body is written. Mappings are released by the garbage
+ * collector once all slices are unreachable.
+ * <p>
+ * The {@link FileChannel} is closed when the region has been emitted, or when mapping it fails or is cancelled. This
+ * {@link Publisher} can therefore be subscribed only once.
+ */
+public final class MappedFilePayloadBody extends Publisher<Buffer> {
+    private static final int DEFAULT_SLICE_SIZE = 64 * 1024;
+    private static final long MAX_MAPPING_SIZE = 1 << 30;
+
+    private final FileChannel fileChannel;
+    private final long position;
+    private final long count;
+    private final BufferAllocator allocator;
+    private final int sliceSize;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param fileChannel the {@link FileChannel} to map the region of.
+     * @param position the offset in {@code fileChannel} where the region starts.
+     * @param count the number of bytes in the region.
+     * @param allocator the {@link BufferAllocator} used to wrap the slices of the mapping, which must be writable by
+     * the transport (e.g. the allocator of the {@link HttpServiceContext#executionContext() execution context}).
+     */
+    public MappedFilePayloadBody(final FileChannel fileChannel, final long position, final long count,
+                                 final BufferAllocator allocator) {
+        this(fileChannel, position, count, allocator, DEFAULT_SLICE_SIZE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param fileChannel the {@link FileChannel} to map the region of.
+     * @param position the offset in {@code fileChannel} where the region starts.
+     * @param count the number of bytes in the region.
+     * @param allocator the {@link BufferAllocator} used to wrap the slices of the mapping, which must be writable by
+     * the transport (e.g. the allocator of the {@link HttpServiceContext#executionContext() execution context}).
+     * @param sliceSize the maximum size of an emitted {@link Buffer}.
+     */
+    public MappedFilePayloadBody(final FileChannel fileChannel, final long position, final long count,
+                                 final BufferAllocator allocator, final int sliceSize) {
+        if (position < 0) {
+            throw new IllegalArgumentException("position: " + position + " (expected >=0)");
+        }
+        if (count < 0) {
+            throw new IllegalArgumentException("count: " + count + " (expected >=0)");
+        }
+        if (sliceSize <= 0) {
+            throw new IllegalArgumentException("sliceSize: " + sliceSize + " (expected >0)");
+        }
+        this.fileChannel = requireNonNull(fileChannel);
+        this.position = position;
+        this.count = count;
+        this.allocator = requireNonNull(allocator);
+        this.sliceSize = sliceSize;
+    }
+
+    /**
+     * Returns the {@link FileChannel} to map the region of.
+     *
+     * @return the {@link FileChannel} to map the region of.
+     */
+    public FileChannel fileChannel() {
+        return fileChannel;
+    }
+
+    /**
+     * Returns the offset in {@link #fileChannel()} where the region starts.
+     *
+     * @return the offset in {@link #fileChannel()} where the region starts.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns the number of bytes in the region.
+     *
+     * @return the number of bytes in the region.
+     */
+    public long count() {
+        return count;
+    }
+
+    @Override
+    protected void handleSubscribe(final Subscriber<? super Buffer> subscriber) {
+        // fromIterable only pulls (and therefore maps) the next slice when it has been requested.
+        toSource(fromIterable(SliceIterator::new).beforeFinally(this::closeFileChannel)).subscribe(subscriber);
+    }
+
+    private void closeFileChannel() {
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            throwException(e);
+        }
+    }
+
+    private final class SliceIterator implements Iterator<Buffer> {
+        private final long end = position + count;
+        private long offset = position;
+        @Nullable
+        private ByteBuffer mapping;
+
+        @Override
+        public boolean hasNext() {
+            return offset < end;
+        }
+
+        @Override
+        public Buffer next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ByteBuffer mapping = this.mapping;
+            if (mapping == null || !mapping.hasRemaining()) {
+                try {
+                    // Mappings with READ_ONLY mode are read-only ByteBuffers, which transports write without a copy.
+                    mapping = fileChannel.map(READ_ONLY, offset, min(MAX_MAPPING_SIZE, end - offset));
+                } catch (IOException e) {
+                    return throwException(e);
+                }
+                this.mapping = mapping;
+            }
+            final int length = min(sliceSize, mapping.remaining());
+            final ByteBuffer slice = mapping.slice();
+            slice.limit(length);
+            mapping.position(mapping.position() + length);
+            offset += length;
+            return allocator.wrap(slice);
+        }
+    }
+}
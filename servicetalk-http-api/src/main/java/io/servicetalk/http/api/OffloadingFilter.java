@@ -75,7 +75,8 @@ final class OffloadingFilter implements StreamingHttpServiceFilterFactory, HttpE
                         // (meta + data) stream. In this case, we need to preserve the service contract and hence
                         // have to offload both meta and data separately.
                         resp.map(r -> r.transformMessageBody(
-                                p -> p.subscribeOn(e, shouldOffload))).subscribeOn(e, shouldOffload) :
+                                p -> FileRegionPayloadBody.subscribeOn(p, e, shouldOffload)))
+                                .subscribeOn(e, shouldOffload) :
                         resp;
             }
         };
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,6 +15,7 @@
  */
 package io.servicetalk.http.api;
 
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
 import static io.servicetalk.http.api.HttpResponseStatus.ACCEPTED;
 import static io.servicetalk.http.api.HttpResponseStatus.ALREADY_REPORTED;
 import static io.servicetalk.http.api.HttpResponseStatus.BAD_GATEWAY;
@@ -88,6 +89,36 @@ public interface StreamingHttpResponseFactory {
      */
     StreamingHttpResponse newResponse(HttpResponseStatus status);
 
+    /**
+     * Create a new {@link StreamingHttpResponse} object whose payload body is a region of a file.
+     * <p>
+     * The {@link HttpHeaderNames#CONTENT_LENGTH content-length} is set to the {@link FileRegionPayloadBody#count()
+     * count} of the region. If the response is written to a transport which supports it (e.g. HTTP/1.x without TLS)
+     * and its payload body has not been transformed, the region is transferred from the file to the socket without
+     * copying it into user space (e.g. using {@code sendfile}), otherwise it is read in chunks.
+     * @param status The {@link HttpResponseStatus}.
+     * @param payloadBody The {@link FileRegionPayloadBody} to use as the payload body of the response.
+     * @return a new {@link StreamingHttpResponse} object.
+     */
+    default StreamingHttpResponse newResponse(HttpResponseStatus status, FileRegionPayloadBody payloadBody) {
+        return newResponse(status).setHeader(CONTENT_LENGTH, Long.toString(payloadBody.count()))
+                .payloadBody(payloadBody);
+    }
+
+    /**
+     * Create a new {@link StreamingHttpResponse} object whose payload body is a memory-mapped region of a file.
+     * <p>
+     * The {@link HttpHeaderNames#CONTENT_LENGTH content-length} is set to the {@link MappedFilePayloadBody#count()
+     * count} of the region.
+     * @param status The {@link HttpResponseStatus}.
+     * @param payloadBody The {@link MappedFilePayloadBody} to use as the payload body of the response.
+     * @return a new {@link StreamingHttpResponse} object.
+     */
+    default StreamingHttpResponse newResponse(HttpResponseStatus status, MappedFilePayloadBody payloadBody) {
+        return newResponse(status).setHeader(CONTENT_LENGTH, Long.toString(payloadBody.count()))
+                .payloadBody(payloadBody);
+    }
+
     /**
      * Create a new {@link HttpResponseStatus#CONTINUE} response.
      * @return a new {@link HttpResponseStatus#CONTINUE} response.
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.api;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Arrays.copyOfRange;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FileRegionPayloadBodyTest {
+
+    private final byte[] content = new byte[100];
+    private final File file;
+    private final FileChannel fileChannel;
+
+    FileRegionPayloadBodyTest() throws IOException {
+        ThreadLocalRandom.current().nextBytes(content);
+        file = File.createTempFile("FileRegionPayloadBodyTest", ".bin");
+        Files.write(file.toPath(), content);
+        fileChannel = FileChannel.open(file.toPath(), READ);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fileChannel.close();
+        assertThat(file.delete(), is(true));
+    }
+
+    @Test
+    void readInChunks() throws Exception {
+        Collection<Buffer> chunks = new FileRegionPayloadBody(fileChannel, 10, 80, DEFAULT_ALLOCATOR, 32)
+                .toFuture().get();
+        assertThat(chunks, contains(wrap(10, 42), wrap(42, 74), wrap(74, 90)));
+        assertThat(fileChannel.isOpen(), is(false));
+    }
+
+    @Test
+    void emptyRegion() throws Exception {
+        assertThat(new FileRegionPayloadBody(fileChannel, 0, 0, DEFAULT_ALLOCATOR).toFuture().get().isEmpty(),
+                is(true));
+        assertThat(fileChannel.isOpen(), is(false));
+    }
+
+    @Test
+    void regionBeyondEndOfFile() {
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> new FileRegionPayloadBody(fileChannel, 90, 20, DEFAULT_ALLOCATOR).toFuture().get());
+        assertThat(e.getCause(), instanceOf(EOFException.class));
+        assertThat(fileChannel.isOpen(), is(false));
+    }
+
+    @Test
+    void invalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileRegionPayloadBody(fileChannel, -1, 10, DEFAULT_ALLOCATOR));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileRegionPayloadBody(fileChannel, 0, -1, DEFAULT_ALLOCATOR));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FileRegionPayloadBody(fileChannel, 0, 10, DEFAULT_ALLOCATOR, 0));
+    }
+
+    private Buffer wrap(final int from, final int to) {
+        return DEFAULT_ALLOCATOR.wrap(copyOfRange(content, from, to));
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.client.api.ConnectionFactory;
 import io.servicetalk.client.api.ConnectionFactoryFilter;
+import io.servicetalk.client.api.RequestTracker;
 import io.servicetalk.client.api.internal.ReservableRequestConcurrencyController;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
@@ -98,6 +99,13 @@ abstract class AbstractLBHttpConnectionFactory<ResolvedAddress>
     @Override
     public final Single<LoadBalancedStreamingHttpConnection> newConnection(
             final ResolvedAddress resolvedAddress, @Nullable final TransportObserver observer) {
+        return newConnection(resolvedAddress, null, observer);
+    }
+
+    @Override
+    public final Single<LoadBalancedStreamingHttpConnection> newConnection(
+            final ResolvedAddress resolvedAddress, @Nullable final RequestTracker requestTracker,
+            @Nullable final TransportObserver observer) {
         return filterableConnectionFactory.newConnection(resolvedAddress, observer)
                 .map(conn -> {
                     FilterableStreamingHttpConnection filteredConnection = connectionFilterFunction != null ?
@@ -110,7 +118,7 @@ abstract class AbstractLBHttpConnectionFactory<ResolvedAddress>
                         onClosing = filteredConnection.onClose();
                     }
                     return new LoadBalancedStreamingHttpConnection(protocolBinding.apply(filteredConnection),
-                            newConcurrencyController(filteredConnection, onClosing),
+                            newConcurrencyController(filteredConnection, onClosing), requestTracker,
                             executionContext.executionStrategy(), strategyInfluencer);
                 });
     }
@@ -43,6 +43,7 @@ import static io.servicetalk.concurrent.api.Single.failed;
 import static io.servicetalk.http.api.HttpEventKey.MAX_CONCURRENCY;
 import static io.servicetalk.http.netty.AlpnIds.HTTP_1_1;
 import static io.servicetalk.http.netty.AlpnIds.HTTP_2;
+import static io.servicetalk.http.netty.H2LBHttpConnectionFactory.newH2ConcurrencyController;
 
 final class AlpnLBHttpConnectionFactory<ResolvedAddress> extends AbstractLBHttpConnectionFactory<ResolvedAddress> {
 
@@ -105,6 +106,11 @@ final class AlpnLBHttpConnectionFactory<ResolvedAddress> extends AbstractLBHttpC
         // We set initialMaxConcurrency to 1 here because we don't know what type of connection will be created when
         // ALPN completes. The actual maxConcurrency value will be updated by the MAX_CONCURRENCY stream,
         // when we create a connection.
+        if (connection.connectionContext().protocol() == HttpProtocolVersion.HTTP_2_0) {
+            final H2ProtocolConfig h2Config = config.h2Config();
+            assert h2Config != null;
+            return newH2ConcurrencyController(connection, onClosing, 1, h2Config);
+        }
         return newController(connection.transportEventStream(MAX_CONCURRENCY), onClosing, 1);
     }
 }
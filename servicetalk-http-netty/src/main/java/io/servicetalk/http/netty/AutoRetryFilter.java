@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package io.servicetalk.http.netty;
 
 import io.servicetalk.client.api.AutoRetryStrategyProvider.AutoRetryStrategy;
 import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RetryBudget;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.http.api.FilterableReservedStreamingHttpConnection;
 import io.servicetalk.http.api.FilterableStreamingHttpClient;
@@ -28,6 +29,8 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpRequester;
 import io.servicetalk.http.api.StreamingHttpResponse;
 
+import javax.annotation.Nullable;
+
 /**
  * A {@link StreamingHttpClient} filter that will account for transient failures introduced by a {@link LoadBalancer}
  * not being ready for {@link #request(HttpExecutionStrategy, StreamingHttpRequest)} and retry/delay requests until the
@@ -35,10 +38,13 @@ import io.servicetalk.http.api.StreamingHttpResponse;
  */
 final class AutoRetryFilter extends StreamingHttpClientFilter {
     private final AutoRetryStrategy retryStrategy;
+    @Nullable
+    private final RetryBudget retryBudget;
 
     AutoRetryFilter(final FilterableStreamingHttpClient next, final AutoRetryStrategy retryStrategy) {
         super(next);
         this.retryStrategy = retryStrategy;
+        this.retryBudget = retryStrategy.retryBudget();
     }
 
     @Override
@@ -52,6 +58,8 @@ final class AutoRetryFilter extends StreamingHttpClientFilter {
     protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
                                                     final HttpExecutionStrategy strategy,
                                                     final StreamingHttpRequest request) {
-        return delegate.request(strategy, request).retryWhen(retryStrategy);
+        final Single<StreamingHttpResponse> response = delegate.request(strategy, request).retryWhen(retryStrategy);
+        final RetryBudget retryBudget = this.retryBudget;
+        return retryBudget == null ? response : retryBudget.recordSuccess(response);
     }
 }
@@ -34,6 +34,7 @@ import io.servicetalk.http.api.HttpRequestMethod;
 import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.loadbalancer.P2CLoadBalancerFactory;
 import io.servicetalk.loadbalancer.RoundRobinLoadBalancer;
 import io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory;
 
@@ -130,7 +131,8 @@ public final class DefaultHttpLoadBalancerFactory<ResolvedAddress>
             if (rawFactory instanceof HttpExecutionStrategyInfluencer) {
                 strategyInfluencer = (HttpExecutionStrategyInfluencer) rawFactory;
             } else if (rawFactory instanceof RoundRobinLoadBalancerFactory
-                    || rawFactory instanceof RoundRobinLoadBalancer.RoundRobinLoadBalancerFactory) {
+                    || rawFactory instanceof RoundRobinLoadBalancer.RoundRobinLoadBalancerFactory
+                    || rawFactory instanceof P2CLoadBalancerFactory) {
                 strategyInfluencer = strategy -> strategy; // RoundRobinLoadBalancer is non-blocking.
             } else {
                 // user provided load balancer assumed to be blocking unless it implements
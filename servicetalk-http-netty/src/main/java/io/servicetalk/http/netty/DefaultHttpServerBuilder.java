@@ -37,6 +37,8 @@ import java.util.Map;
 import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
 
+import static io.servicetalk.http.netty.HttpExecutionContextBuilder.h2ExecutionContext;
+
 final class DefaultHttpServerBuilder extends HttpServerBuilder {
 
     private final HttpServerConfig config = new HttpServerConfig();
@@ -134,10 +136,12 @@ final class DefaultHttpServerBuilder extends HttpServerBuilder {
 
     @Override
     protected Single<ServerContext> doListen(@Nullable final ConnectionAcceptor connectionAcceptor,
-                                             final HttpExecutionContext context,
+                                             final HttpExecutionContext userContext,
                                              final StreamingHttpService service,
                                              final boolean drainRequestPayloadBody) {
         final ReadOnlyHttpServerConfig roConfig = this.config.asReadOnly();
+        final HttpExecutionContext context = roConfig.h2Config() == null ? userContext :
+                h2ExecutionContext(userContext);
         if (roConfig.tcpConfig().isAlpnConfigured()) {
             return DeferredServerChannelBinder.bind(context, roConfig, address, connectionAcceptor,
                     service, drainRequestPayloadBody, false);
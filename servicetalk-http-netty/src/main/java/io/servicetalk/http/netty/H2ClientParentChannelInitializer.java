@@ -22,7 +22,7 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.codec.http2.DefaultHttp2GoAwayFrame;
-import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2FrameCodec;
 import io.netty.handler.codec.http2.Http2MultiplexHandler;
 
 import java.util.function.BiPredicate;
@@ -40,7 +40,9 @@ final class H2ClientParentChannelInitializer implements ChannelInitializer {
 
     @Override
     public void init(final Channel channel) {
-        final Http2FrameCodecBuilder multiplexCodecBuilder = new OptimizedHttp2FrameCodecBuilder(false)
+        final OptimizedHttp2FrameCodecBuilder multiplexCodecBuilder =
+                new OptimizedHttp2FrameCodecBuilder(false, config);
+        multiplexCodecBuilder
                 // We do not want close to trigger graceful closure (go away), instead when user triggers a graceful
                 // close, we do the appropriate go away handling.
                 .decoupleCloseAndGoAway(true)
@@ -64,8 +66,17 @@ final class H2ClientParentChannelInitializer implements ChannelInitializer {
 
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(),
-                new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
+        final Http2FrameCodec codec = multiplexCodecBuilder.build();
+        channel.pipeline().addLast(codec);
+        final ChannelHandler flowControlWindowHandler = multiplexCodecBuilder.newFlowControlWindowHandler(codec);
+        if (flowControlWindowHandler != null) {
+            channel.pipeline().addLast(flowControlWindowHandler);
+        }
+        if (config.headerValueCacheSize() > 0) {
+            channel.pipeline().addLast(new H2HeaderValueCacheHandler(config.headerValueCacheSize(),
+                    headersSensitivityDetector));
+        }
+        channel.pipeline().addLast(new Http2MultiplexHandler(H2PushStreamHandler.INSTANCE));
     }
 
     @ChannelHandler.Sharable
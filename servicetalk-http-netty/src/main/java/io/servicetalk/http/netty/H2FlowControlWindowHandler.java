@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http2.DefaultHttp2PingFrame;
+import io.netty.handler.codec.http2.DefaultHttp2SettingsFrame;
+import io.netty.handler.codec.http2.DefaultHttp2WindowUpdateFrame;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionPrefaceAndSettingsFrameWrittenEvent;
+import io.netty.handler.codec.http2.Http2DataFrame;
+import io.netty.handler.codec.http2.Http2LocalFlowController;
+import io.netty.handler.codec.http2.Http2PingFrame;
+import io.netty.handler.codec.http2.Http2Settings;
+
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Manages the flow-control windows of a HTTP/2 connection. Must be added to the pipeline right after the
+ * {@link io.netty.handler.codec.http2.Http2FrameCodec}.
+ * <ul>
+ *     <li>Grows the connection window to the configured {@link H2ProtocolConfig#connectionWindowSize()} once the
+ *     connection preface has been written.</li>
+ *     <li>If {@link H2ProtocolConfig#flowControlWindowAutoTuningMaxSize() automatic tuning} is enabled, estimates the
+ *     bandwidth-delay product (BDP) by sending a PING frame when data is received and counting the data received
+ *     until its acknowledgment. When the measured bandwidth grows, the connection window and the initial window of
+ *     streams are grown to twice the BDP.</li>
+ * </ul>
+ */
+final class H2FlowControlWindowHandler extends ChannelInboundHandlerAdapter {
+
+    private static final long BDP_PING_CONTENT = ThreadLocalRandom.current().nextLong();
+
+    private final Http2Connection connection;
+    private final boolean server;
+    @Nullable
+    private final Integer connectionWindowSize;
+    private final int autoTuningMaxWindowSize;
+    private int streamWindowSize;
+    private boolean pingOutstanding;
+    private long pingSentNanos;
+    private long dataSincePing;
+    private double lastBandwidth;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param connection the {@link Http2Connection} of the codec.
+     * @param server {@code true} if for server, {@code false} otherwise.
+     * @param config the {@link H2ProtocolConfig} to apply.
+     */
+    H2FlowControlWindowHandler(final Http2Connection connection, final boolean server,
+                               final H2ProtocolConfig config) {
+        this.connection = connection;
+        this.server = server;
+        this.connectionWindowSize = config.connectionWindowSize();
+        this.autoTuningMaxWindowSize = config.flowControlWindowAutoTuningMaxSize();
+        final Integer initialStreamWindowSize = config.initialStreamWindowSize();
+        this.streamWindowSize = initialStreamWindowSize == null ? DEFAULT_WINDOW_SIZE : initialStreamWindowSize;
+    }
+
+    /**
+     * Determines if a {@link H2FlowControlWindowHandler} is required for the passed {@link H2ProtocolConfig}.
+     *
+     * @param config the {@link H2ProtocolConfig} to check.
+     * @return {@code true} if a {@link H2FlowControlWindowHandler} is required.
+     */
+    static boolean isRequired(final H2ProtocolConfig config) {
+        return config.connectionWindowSize() != null || config.flowControlWindowAutoTuningMaxSize() > 0;
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        // The codec is added before this handler and writes the preface of the server as soon as the channel is
+        // active, the preface of the client is signaled via Http2ConnectionPrefaceAndSettingsFrameWrittenEvent.
+        if (server && ctx.channel().isActive()) {
+            growConnectionWindow(ctx, connectionWindowSize);
+        }
+    }
+
+    @Override
+    public void channelActive(final ChannelHandlerContext ctx) {
+        if (server) {
+            growConnectionWindow(ctx, connectionWindowSize);
+        }
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void userEventTriggered(final ChannelHandlerContext ctx, final Object evt) {
+        if (!server && evt instanceof Http2ConnectionPrefaceAndSettingsFrameWrittenEvent) {
+            growConnectionWindow(ctx, connectionWindowSize);
+        }
+        ctx.fireUserEventTriggered(evt);
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        if (autoTuningMaxWindowSize > 0) {
+            if (msg instanceof Http2DataFrame) {
+                dataReceived(ctx, ((Http2DataFrame) msg).initialFlowControlledBytes());
+            } else if (msg instanceof Http2PingFrame) {
+                final Http2PingFrame pingFrame = (Http2PingFrame) msg;
+                if (pingFrame.ack() && pingFrame.content() == BDP_PING_CONTENT) {
+                    pingAckReceived(ctx);
+                    return;
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private void dataReceived(final ChannelHandlerContext ctx, final int bytes) {
+        if (!pingOutstanding) {
+            pingOutstanding = true;
+            dataSincePing = 0;
+            pingSentNanos = nanoTime();
+            ctx.writeAndFlush(new DefaultHttp2PingFrame(BDP_PING_CONTENT));
+        }
+        dataSincePing += bytes;
+    }
+
+    private void pingAckReceived(final ChannelHandlerContext ctx) {
+        pingOutstanding = false;
+        final long elapsedNanos = max(1, nanoTime() - pingSentNanos);
+        final double bandwidth = dataSincePing * (double) SECONDS.toNanos(1) / elapsedNanos;
+        final int targetWindowSize = (int) min(dataSincePing * 2, autoTuningMaxWindowSize);
+        if (bandwidth <= lastBandwidth || targetWindowSize <= currentConnectionWindowSize()) {
+            return;
+        }
+        lastBandwidth = bandwidth;
+        growConnectionWindow(ctx, targetWindowSize);
+        if (targetWindowSize > streamWindowSize) {
+            streamWindowSize = targetWindowSize;
+            // The new initial window is applied to all streams once the peer acknowledges the SETTINGS frame.
+            ctx.writeAndFlush(new DefaultHttp2SettingsFrame(new Http2Settings().initialWindowSize(targetWindowSize)));
+        }
+    }
+
+    private void growConnectionWindow(final ChannelHandlerContext ctx, @Nullable final Integer targetWindowSize) {
+        if (targetWindowSize == null) {
+            return;
+        }
+        final int delta = targetWindowSize - currentConnectionWindowSize();
+        if (delta > 0) {
+            ctx.writeAndFlush(new DefaultHttp2WindowUpdateFrame(delta));
+        }
+    }
+
+    private int currentConnectionWindowSize() {
+        final Http2LocalFlowController flowController = connection.local().flowController();
+        return flowController.initialWindowSize(connection.connectionStream());
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.AsciiString;
+
+import java.util.Map.Entry;
+import java.util.function.BiPredicate;
+
+import static io.servicetalk.http.api.HttpHeaderNames.AUTHORIZATION;
+import static io.servicetalk.http.api.HttpHeaderNames.COOKIE;
+import static io.servicetalk.http.api.HttpHeaderNames.PROXY_AUTHORIZATION;
+import static io.servicetalk.http.api.HttpHeaderNames.SET_COOKIE;
+import static io.servicetalk.utils.internal.MathUtils.safeFindNextPositivePowerOfTwo;
+
+/**
+ * Shares a single instance of header values decoded repeatedly on a HTTP/2 connection. Must be added to the pipeline
+ * after the {@link io.netty.handler.codec.http2.Http2FrameCodec}.
+ * <p>
+ * Values indexed in the HPACK dynamic table are already shared by the HPACK decoder, but values the peer sends as
+ * literals are decoded into a new instance for every request. This handler replaces such values with the instance
+ * cached for equal content, so that repeated values are retained once and their {@link String} representation and
+ * hash code (cached by {@link AsciiString}) are computed once per connection.
+ */
+final class H2HeaderValueCacheHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * Longer values are unlikely to repeat and would increase the memory retained per connection.
+     */
+    static final int MAX_CACHED_VALUE_LENGTH = 256;
+
+    private final AsciiString[] cache;
+    private final int mask;
+    private final BiPredicate<CharSequence, CharSequence> sensitivityDetector;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param cacheSize the number of values to cache, rounded up to a power of two.
+     * @param sensitivityDetector detects sensitive headers, which are not cached.
+     */
+    H2HeaderValueCacheHandler(final int cacheSize,
+                              final BiPredicate<CharSequence, CharSequence> sensitivityDetector) {
+        cache = new AsciiString[safeFindNextPositivePowerOfTwo(cacheSize)];
+        mask = cache.length - 1;
+        this.sensitivityDetector = sensitivityDetector;
+    }
+
+    @Override
+    public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+        // Only entries of DefaultHttp2Headers (created by the HPACK decoder) are known to support setValue.
+        if (msg instanceof Http2HeadersFrame && ((Http2HeadersFrame) msg).headers() instanceof DefaultHttp2Headers) {
+            for (Entry<CharSequence, CharSequence> header : ((Http2HeadersFrame) msg).headers()) {
+                final CharSequence value = header.getValue();
+                if (value instanceof AsciiString && isCacheable(header.getKey(), value)) {
+                    final AsciiString cached = cached((AsciiString) value);
+                    if (cached != value) {
+                        header.setValue(cached);
+                    }
+                }
+            }
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    private boolean isCacheable(final CharSequence name, final CharSequence value) {
+        return value.length() <= MAX_CACHED_VALUE_LENGTH &&
+                // Values recommended to never be indexed, see https://tools.ietf.org/html/rfc7541#section-7.1.3.
+                !AsciiString.contentEqualsIgnoreCase(name, AUTHORIZATION) &&
+                !AsciiString.contentEqualsIgnoreCase(name, PROXY_AUTHORIZATION) &&
+                !AsciiString.contentEqualsIgnoreCase(name, COOKIE) &&
+                !AsciiString.contentEqualsIgnoreCase(name, SET_COOKIE) &&
+                !sensitivityDetector.test(name, value);
+    }
+
+    private AsciiString cached(final AsciiString value) {
+        final int index = value.hashCode() & mask;
+        final AsciiString cached = cache[index];
+        if (cached != null && cached.contentEquals(value)) {
+            return cached;
+        }
+        cache[index] = value;
+        return value;
+    }
+}
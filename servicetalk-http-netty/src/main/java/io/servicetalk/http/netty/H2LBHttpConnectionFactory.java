@@ -16,8 +16,10 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.client.api.ConnectionFactoryFilter;
+import io.servicetalk.client.api.ConsumableEvent;
 import io.servicetalk.client.api.internal.ReservableRequestConcurrencyController;
 import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.http.api.FilterableStreamingHttpConnection;
 import io.servicetalk.http.api.FilterableStreamingHttpLoadBalancedConnection;
@@ -37,6 +39,7 @@ import static io.netty.handler.codec.http2.Http2CodecUtil.SMALLEST_MAX_CONCURREN
 import static io.servicetalk.client.api.internal.ReservableRequestConcurrencyControllers.newController;
 import static io.servicetalk.http.api.HttpEventKey.MAX_CONCURRENCY;
 import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_2_0;
+import static java.lang.Math.max;
 
 final class H2LBHttpConnectionFactory<ResolvedAddress> extends AbstractLBHttpConnectionFactory<ResolvedAddress> {
     H2LBHttpConnectionFactory(
@@ -71,7 +74,56 @@ final class H2LBHttpConnectionFactory<ResolvedAddress> extends AbstractLBHttpCon
     @Override
     ReservableRequestConcurrencyController newConcurrencyController(final FilterableStreamingHttpConnection connection,
                                                                     final Completable onClosing) {
-        return newController(connection.transportEventStream(MAX_CONCURRENCY), onClosing,
-                SMALLEST_MAX_CONCURRENT_STREAMS);
+        assert config.h2Config() != null;
+        return newH2ConcurrencyController(connection, onClosing, SMALLEST_MAX_CONCURRENT_STREAMS, config.h2Config());
+    }
+
+    /**
+     * Creates a {@link ReservableRequestConcurrencyController} for a HTTP/2 connection which only uses
+     * {@link H2ProtocolConfig#maxConcurrentStreamsUtilization()} of the streams allowed by the peer, rejecting further
+     * requests temporarily so that the load balancer selects (or opens) another connection.
+     *
+     * @param connection the HTTP/2 connection.
+     * @param onClosing {@link Completable} which terminates when the connection is closing.
+     * @param initialMaxConcurrency the initial maximum concurrency until the peer's settings are received.
+     * @param config the {@link H2ProtocolConfig} of the connection.
+     * @return a {@link ReservableRequestConcurrencyController} for a HTTP/2 connection.
+     */
+    static ReservableRequestConcurrencyController newH2ConcurrencyController(
+            final FilterableStreamingHttpConnection connection, final Completable onClosing,
+            final int initialMaxConcurrency, final H2ProtocolConfig config) {
+        final double utilization = config.maxConcurrentStreamsUtilization();
+        final Publisher<? extends ConsumableEvent<Integer>> maxConcurrency =
+                connection.transportEventStream(MAX_CONCURRENCY);
+        if (utilization >= 1d) {
+            return newController(maxConcurrency, onClosing, initialMaxConcurrency);
+        }
+        return newController(maxConcurrency.map(event -> new UtilizedMaxConcurrencyEvent(event, utilization)),
+                onClosing, usableStreams(initialMaxConcurrency, utilization));
+    }
+
+    static int usableStreams(final int maxConcurrentStreams, final double utilization) {
+        // Keep at least one stream usable, unless the peer does not allow new streams (e.g. the connection is closing).
+        return maxConcurrentStreams <= 0 ? maxConcurrentStreams : max(1, (int) (maxConcurrentStreams * utilization));
+    }
+
+    private static final class UtilizedMaxConcurrencyEvent implements ConsumableEvent<Integer> {
+        private final ConsumableEvent<Integer> delegate;
+        private final int usableStreams;
+
+        UtilizedMaxConcurrencyEvent(final ConsumableEvent<Integer> delegate, final double utilization) {
+            this.delegate = delegate;
+            this.usableStreams = usableStreams(delegate.event(), utilization);
+        }
+
+        @Override
+        public Integer event() {
+            return usableStreams;
+        }
+
+        @Override
+        public void eventConsumed() {
+            delegate.eventConsumed();
+        }
     }
 }
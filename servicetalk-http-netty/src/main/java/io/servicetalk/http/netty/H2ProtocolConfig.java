@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -60,6 +60,87 @@ public interface H2ProtocolConfig extends HttpProtocolConfig {
     @Nullable
     KeepAlivePolicy keepAlivePolicy();
 
+    /**
+     * Initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for streams,
+     * advertised via {@code SETTINGS_INITIAL_WINDOW_SIZE}.
+     *
+     * @return initial flow-control window size for streams in octets or {@code null} to use the default
+     * (65,535 octets).
+     */
+    @Nullable
+    Integer initialStreamWindowSize();
+
+    /**
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">Flow-control window size</a> for the connection,
+     * which limits the data in flight for all streams of the connection together. The window is increased with a
+     * {@code WINDOW_UPDATE} frame when the connection is established.
+     *
+     * @return flow-control window size for the connection in octets or {@code null} to use the default (grown
+     * proportionally to the {@link #initialStreamWindowSize()} if configured, 65,535 octets otherwise).
+     */
+    @Nullable
+    Integer connectionWindowSize();
+
+    /**
+     * Maximum number of concurrent streams the peer is allowed to open, advertised via
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_MAX_CONCURRENT_STREAMS</a>. Only applies to
+     * servers, clients do not accept streams initiated by the server (push).
+     *
+     * @return maximum number of concurrent streams the peer is allowed to open or {@code null} for no limit.
+     */
+    @Nullable
+    Long maxConcurrentStreams();
+
+    /**
+     * Largest frame payload the peer is allowed to send, advertised via
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_MAX_FRAME_SIZE</a>.
+     *
+     * @return largest frame payload in octets the peer is allowed to send or {@code null} to use the default
+     * (16,384 octets).
+     */
+    @Nullable
+    Integer maxFrameSize();
+
+    /**
+     * Maximum size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a> used to
+     * decode headers, advertised via
+     * <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_HEADER_TABLE_SIZE</a>.
+     *
+     * @return maximum size of the header table in octets or {@code null} to use the default (4,096 octets).
+     */
+    @Nullable
+    Long headerTableSize();
+
+    /**
+     * Maximum size the flow-control windows are grown to by automatic tuning based on the
+     * <a href="https://en.wikipedia.org/wiki/Bandwidth-delay_product">bandwidth-delay product</a>, which is measured
+     * with <a href="https://tools.ietf.org/html/rfc7540#section-6.7">PING frames</a> while receiving data.
+     *
+     * @return maximum size in octets the flow-control windows are grown to or {@code 0} if automatic tuning is
+     * disabled.
+     */
+    int flowControlWindowAutoTuningMaxSize();
+
+    /**
+     * Fraction of the peer's <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">
+     * SETTINGS_MAX_CONCURRENT_STREAMS</a> a client uses on a connection before new requests are sent on other
+     * connections to the same host. When all connections to a host reach this fraction, the load balancer opens an
+     * additional connection instead of saturating the existing ones.
+     *
+     * @return fraction in the range {@code (0, 1]} of the peer's {@code SETTINGS_MAX_CONCURRENT_STREAMS} a client
+     * uses on a connection, {@code 1} uses all streams allowed by the peer.
+     */
+    double maxConcurrentStreamsUtilization();
+
+    /**
+     * Number of decoded header values cached per connection, so that requests (or responses) which repeat a value the
+     * peer does not index in the <a href="https://tools.ietf.org/html/rfc7541#section-2.3.2">HPACK dynamic table</a>
+     * share a single instance.
+     *
+     * @return number of decoded header values cached per connection or {@code 0} if disabled.
+     */
+    int headerValueCacheSize();
+
     /**
      * A policy for sending <a href="https://tools.ietf.org/html/rfc7540#section-6.7">PING frames</a> to the peer.
      */
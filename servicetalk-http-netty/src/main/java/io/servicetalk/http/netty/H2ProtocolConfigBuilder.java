@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -26,6 +26,9 @@ import java.util.function.BiPredicate;
 import java.util.function.BooleanSupplier;
 import javax.annotation.Nullable;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND;
 import static io.servicetalk.http.netty.H2HeadersFactory.DEFAULT_SENSITIVITY_DETECTOR;
 import static io.servicetalk.http.netty.H2KeepAlivePolicies.DISABLE_KEEP_ALIVE;
 import static java.util.Objects.requireNonNull;
@@ -37,12 +40,27 @@ import static java.util.Objects.requireNonNull;
  */
 public final class H2ProtocolConfigBuilder {
 
+    private static final long MAX_UNSIGNED_INT = 0xFFFFFFFFL;
+
     private HttpHeadersFactory headersFactory = H2HeadersFactory.INSTANCE;
     private BiPredicate<CharSequence, CharSequence> headersSensitivityDetector = DEFAULT_SENSITIVITY_DETECTOR;
     @Nullable
     private UserDataLoggerConfig frameLoggerConfig;
     @Nullable
     private KeepAlivePolicy keepAlivePolicy;
+    @Nullable
+    private Integer initialStreamWindowSize;
+    @Nullable
+    private Integer connectionWindowSize;
+    @Nullable
+    private Long maxConcurrentStreams;
+    @Nullable
+    private Integer maxFrameSize;
+    @Nullable
+    private Long headerTableSize;
+    private int flowControlWindowAutoTuningMaxSize;
+    private double maxConcurrentStreamsUtilization = 1d;
+    private int headerValueCacheSize;
 
     H2ProtocolConfigBuilder() {
     }
@@ -102,6 +120,162 @@ public final class H2ProtocolConfigBuilder {
         return this;
     }
 
+    /**
+     * Sets the initial <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for
+     * streams.
+     * <p>
+     * The default of 65,535 octets limits the throughput of a stream to one window per round-trip, a larger window
+     * is required to fully utilize connections with a high
+     * <a href="https://en.wikipedia.org/wiki/Bandwidth-delay_product">bandwidth-delay product</a>.
+     *
+     * @param initialStreamWindowSize initial flow-control window size for streams in octets.
+     * @return {@code this}
+     * @see H2ProtocolConfig#initialStreamWindowSize()
+     */
+    public H2ProtocolConfigBuilder initialStreamWindowSize(final int initialStreamWindowSize) {
+        if (initialStreamWindowSize < 0) {
+            throw new IllegalArgumentException("initialStreamWindowSize: " + initialStreamWindowSize +
+                    " (expected >= 0)");
+        }
+        this.initialStreamWindowSize = initialStreamWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">flow-control window size</a> for the
+     * connection.
+     *
+     * @param connectionWindowSize flow-control window size for the connection in octets.
+     * @return {@code this}
+     * @see H2ProtocolConfig#connectionWindowSize()
+     */
+    public H2ProtocolConfigBuilder connectionWindowSize(final int connectionWindowSize) {
+        if (connectionWindowSize < DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException("connectionWindowSize: " + connectionWindowSize +
+                    " (expected >= " + DEFAULT_WINDOW_SIZE + ")");
+        }
+        this.connectionWindowSize = connectionWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of concurrent streams the peer is allowed to open.
+     *
+     * @param maxConcurrentStreams maximum number of concurrent streams the peer is allowed to open.
+     * @return {@code this}
+     * @see H2ProtocolConfig#maxConcurrentStreams()
+     */
+    public H2ProtocolConfigBuilder maxConcurrentStreams(final long maxConcurrentStreams) {
+        if (maxConcurrentStreams < 0 || maxConcurrentStreams > MAX_UNSIGNED_INT) {
+            throw new IllegalArgumentException("maxConcurrentStreams: " + maxConcurrentStreams +
+                    " (expected: 0-" + MAX_UNSIGNED_INT + ")");
+        }
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * Sets the largest frame payload the peer is allowed to send.
+     *
+     * @param maxFrameSize largest frame payload in octets the peer is allowed to send.
+     * @return {@code this}
+     * @see H2ProtocolConfig#maxFrameSize()
+     */
+    public H2ProtocolConfigBuilder maxFrameSize(final int maxFrameSize) {
+        if (maxFrameSize < MAX_FRAME_SIZE_LOWER_BOUND || maxFrameSize > MAX_FRAME_SIZE_UPPER_BOUND) {
+            throw new IllegalArgumentException("maxFrameSize: " + maxFrameSize +
+                    " (expected: " + MAX_FRAME_SIZE_LOWER_BOUND + "-" + MAX_FRAME_SIZE_UPPER_BOUND + ")");
+        }
+        this.maxFrameSize = maxFrameSize;
+        return this;
+    }
+
+    /**
+     * Sets the maximum size of the <a href="https://tools.ietf.org/html/rfc7541#section-4.2">HPACK dynamic table</a>
+     * used to decode headers.
+     *
+     * @param headerTableSize maximum size of the header table in octets.
+     * @return {@code this}
+     * @see H2ProtocolConfig#headerTableSize()
+     */
+    public H2ProtocolConfigBuilder headerTableSize(final long headerTableSize) {
+        if (headerTableSize < 0 || headerTableSize > MAX_UNSIGNED_INT) {
+            throw new IllegalArgumentException("headerTableSize: " + headerTableSize +
+                    " (expected: 0-" + MAX_UNSIGNED_INT + ")");
+        }
+        this.headerTableSize = headerTableSize;
+        return this;
+    }
+
+    /**
+     * Enables automatic tuning of the flow-control windows based on the measured
+     * <a href="https://en.wikipedia.org/wiki/Bandwidth-delay_product">bandwidth-delay product</a>.
+     * <p>
+     * While data is received, a <a href="https://tools.ietf.org/html/rfc7540#section-6.7">PING frame</a> is sent per
+     * round-trip and the data received until its acknowledgment is used as an estimate of the bandwidth-delay
+     * product. The connection window and the initial window of streams are grown to twice this estimate while the
+     * measured bandwidth grows, up to {@code maxWindowSize}.
+     *
+     * @param maxWindowSize maximum size in octets the flow-control windows are grown to.
+     * @return {@code this}
+     * @see H2ProtocolConfig#flowControlWindowAutoTuningMaxSize()
+     */
+    public H2ProtocolConfigBuilder enableFlowControlWindowAutoTuning(final int maxWindowSize) {
+        if (maxWindowSize < DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException("maxWindowSize: " + maxWindowSize +
+                    " (expected >= " + DEFAULT_WINDOW_SIZE + ")");
+        }
+        this.flowControlWindowAutoTuningMaxSize = maxWindowSize;
+        return this;
+    }
+
+    /**
+     * Sets the fraction of the peer's <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">
+     * SETTINGS_MAX_CONCURRENT_STREAMS</a> a client uses on a connection before new requests are sent on other
+     * connections to the same host, opening a new connection if all connections reached this fraction.
+     * <p>
+     * A value below {@code 1} keeps headroom on each connection, which lets a client scale the number of connections
+     * to a host with the number of concurrent requests instead of being limited by the streams of a single
+     * connection. Combine it with a load balancer which reuses connections in order and closes idle connections to
+     * scale the number of connections down again when the number of concurrent requests decreases.
+     *
+     * @param maxConcurrentStreamsUtilization fraction in the range {@code (0, 1]} of the peer's
+     * {@code SETTINGS_MAX_CONCURRENT_STREAMS} a client uses on a connection.
+     * @return {@code this}
+     * @see H2ProtocolConfig#maxConcurrentStreamsUtilization()
+     */
+    public H2ProtocolConfigBuilder maxConcurrentStreamsUtilization(final double maxConcurrentStreamsUtilization) {
+        if (!(maxConcurrentStreamsUtilization > 0d && maxConcurrentStreamsUtilization <= 1d)) {
+            throw new IllegalArgumentException("maxConcurrentStreamsUtilization: " + maxConcurrentStreamsUtilization +
+                    " (expected: (0, 1])");
+        }
+        this.maxConcurrentStreamsUtilization = maxConcurrentStreamsUtilization;
+        return this;
+    }
+
+    /**
+     * Sets the number of decoded header values cached per connection.
+     * <p>
+     * Header values the peer sends as literals instead of indexing them in the
+     * <a href="https://tools.ietf.org/html/rfc7541#section-2.3.2">HPACK dynamic table</a> are decoded into a new
+     * instance for every request. When the cache is enabled, values repeated on a connection (like
+     * {@code :authority}, {@code content-type} or {@code user-agent}) share a single instance, whose
+     * {@link String} representation and hash code are only computed once. Values of sensitive headers (as determined
+     * by {@link #headersSensitivityDetector(BiPredicate)}, authorization and cookie headers) and long values are not
+     * cached.
+     *
+     * @param headerValueCacheSize number of decoded header values cached per connection, {@code 0} disables the cache.
+     * @return {@code this}
+     * @see H2ProtocolConfig#headerValueCacheSize()
+     */
+    public H2ProtocolConfigBuilder headerValueCacheSize(final int headerValueCacheSize) {
+        if (headerValueCacheSize < 0) {
+            throw new IllegalArgumentException("headerValueCacheSize: " + headerValueCacheSize + " (expected >= 0)");
+        }
+        this.headerValueCacheSize = headerValueCacheSize;
+        return this;
+    }
+
     /**
      * Builds {@link H2ProtocolConfig}.
      *
@@ -109,7 +283,9 @@ public final class H2ProtocolConfigBuilder {
      */
     public H2ProtocolConfig build() {
         return new DefaultH2ProtocolConfig(headersFactory, headersSensitivityDetector, frameLoggerConfig,
-                keepAlivePolicy);
+                keepAlivePolicy, initialStreamWindowSize, connectionWindowSize, maxConcurrentStreams, maxFrameSize,
+                headerTableSize, flowControlWindowAutoTuningMaxSize, maxConcurrentStreamsUtilization,
+                headerValueCacheSize);
     }
 
     private static final class DefaultH2ProtocolConfig implements H2ProtocolConfig {
@@ -120,15 +296,44 @@ public final class H2ProtocolConfigBuilder {
         private final UserDataLoggerConfig frameLoggerConfig;
         @Nullable
         private final KeepAlivePolicy keepAlivePolicy;
+        @Nullable
+        private final Integer initialStreamWindowSize;
+        @Nullable
+        private final Integer connectionWindowSize;
+        @Nullable
+        private final Long maxConcurrentStreams;
+        @Nullable
+        private final Integer maxFrameSize;
+        @Nullable
+        private final Long headerTableSize;
+        private final int flowControlWindowAutoTuningMaxSize;
+        private final double maxConcurrentStreamsUtilization;
+        private final int headerValueCacheSize;
 
         DefaultH2ProtocolConfig(final HttpHeadersFactory headersFactory,
                                 final BiPredicate<CharSequence, CharSequence> headersSensitivityDetector,
                                 @Nullable final UserDataLoggerConfig frameLoggerConfig,
-                                @Nullable final KeepAlivePolicy keepAlivePolicy) {
+                                @Nullable final KeepAlivePolicy keepAlivePolicy,
+                                @Nullable final Integer initialStreamWindowSize,
+                                @Nullable final Integer connectionWindowSize,
+                                @Nullable final Long maxConcurrentStreams,
+                                @Nullable final Integer maxFrameSize,
+                                @Nullable final Long headerTableSize,
+                                final int flowControlWindowAutoTuningMaxSize,
+                                final double maxConcurrentStreamsUtilization,
+                                final int headerValueCacheSize) {
             this.headersFactory = headersFactory;
             this.headersSensitivityDetector = headersSensitivityDetector;
             this.frameLoggerConfig = frameLoggerConfig;
             this.keepAlivePolicy = keepAlivePolicy;
+            this.initialStreamWindowSize = initialStreamWindowSize;
+            this.connectionWindowSize = connectionWindowSize;
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            this.maxFrameSize = maxFrameSize;
+            this.headerTableSize = headerTableSize;
+            this.flowControlWindowAutoTuningMaxSize = flowControlWindowAutoTuningMaxSize;
+            this.maxConcurrentStreamsUtilization = maxConcurrentStreamsUtilization;
+            this.headerValueCacheSize = headerValueCacheSize;
         }
 
         @Override
@@ -152,5 +357,50 @@ public final class H2ProtocolConfigBuilder {
         public KeepAlivePolicy keepAlivePolicy() {
             return keepAlivePolicy;
         }
+
+        @Nullable
+        @Override
+        public Integer initialStreamWindowSize() {
+            return initialStreamWindowSize;
+        }
+
+        @Nullable
+        @Override
+        public Integer connectionWindowSize() {
+            return connectionWindowSize;
+        }
+
+        @Nullable
+        @Override
+        public Long maxConcurrentStreams() {
+            return maxConcurrentStreams;
+        }
+
+        @Nullable
+        @Override
+        public Integer maxFrameSize() {
+            return maxFrameSize;
+        }
+
+        @Nullable
+        @Override
+        public Long headerTableSize() {
+            return headerTableSize;
+        }
+
+        @Override
+        public int flowControlWindowAutoTuningMaxSize() {
+            return flowControlWindowAutoTuningMaxSize;
+        }
+
+        @Override
+        public double maxConcurrentStreamsUtilization() {
+            return maxConcurrentStreamsUtilization;
+        }
+
+        @Override
+        public int headerValueCacheSize() {
+            return headerValueCacheSize;
+        }
     }
 }
@@ -19,6 +19,8 @@ import io.servicetalk.logging.api.UserDataLoggerConfig;
 import io.servicetalk.transport.netty.internal.ChannelInitializer;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.http2.Http2FrameCodec;
 import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
 import io.netty.handler.codec.http2.Http2MultiplexHandler;
 import io.netty.handler.codec.http2.Http2StreamChannel;
@@ -41,7 +43,8 @@ final class H2ServerParentChannelInitializer implements ChannelInitializer {
 
     @Override
     public void init(final Channel channel) {
-        final Http2FrameCodecBuilder multiplexCodecBuilder = new OptimizedHttp2FrameCodecBuilder(true)
+        final OptimizedHttp2FrameCodecBuilder multiplexCodecBuilder = new OptimizedHttp2FrameCodecBuilder(true, config);
+        multiplexCodecBuilder
                 // We do not want close to trigger graceful closure (go away), instead when user triggers a graceful
                 // close, we do the appropriate go away handling.
                 .decoupleCloseAndGoAway(true)
@@ -59,7 +62,17 @@ final class H2ServerParentChannelInitializer implements ChannelInitializer {
 
         // TODO(scott): more configuration. header validation, settings stream, etc...
 
-        channel.pipeline().addLast(multiplexCodecBuilder.build(), new Http2MultiplexHandler(streamChannelInitializer));
+        final Http2FrameCodec codec = multiplexCodecBuilder.build();
+        channel.pipeline().addLast(codec);
+        final ChannelHandler flowControlWindowHandler = multiplexCodecBuilder.newFlowControlWindowHandler(codec);
+        if (flowControlWindowHandler != null) {
+            channel.pipeline().addLast(flowControlWindowHandler);
+        }
+        if (config.headerValueCacheSize() > 0) {
+            channel.pipeline().addLast(new H2HeaderValueCacheHandler(config.headerValueCacheSize(),
+                    headersSensitivityDetector));
+        }
+        channel.pipeline().addLast(new Http2MultiplexHandler(streamChannelInitializer));
     }
 
     static void initFrameLogger(final Http2FrameCodecBuilder multiplexCodecBuilder,
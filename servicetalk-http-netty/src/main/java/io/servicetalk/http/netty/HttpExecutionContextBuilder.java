@@ -21,6 +21,7 @@ import io.servicetalk.http.api.HttpExecutionContext;
 import io.servicetalk.http.api.HttpExecutionStrategy;
 import io.servicetalk.transport.api.ExecutionContext;
 import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
 import io.servicetalk.transport.netty.internal.ExecutionContextBuilder;
 
 import static io.servicetalk.http.api.HttpExecutionStrategies.defaultStrategy;
@@ -85,4 +86,21 @@ final class HttpExecutionContextBuilder {
         ExecutionContext ctx = executionContextBuilder.build();
         return new DefaultHttpExecutionContext(ctx.bufferAllocator(), ctx.ioExecutor(), ctx.executor(), strategy);
     }
+
+    /**
+     * Returns the {@link HttpExecutionContext} to use if HTTP/2 may be negotiated. HTTP/2 connections stall with the
+     * incubating io_uring transport, so they use its {@link EventLoopAwareNettyIoExecutor#epollFallback()}.
+     *
+     * @param ctx the {@link HttpExecutionContext} configured by the user.
+     * @return the {@link HttpExecutionContext} to use if HTTP/2 may be negotiated.
+     */
+    static HttpExecutionContext h2ExecutionContext(final HttpExecutionContext ctx) {
+        final IoExecutor ioExecutor = ctx.ioExecutor();
+        if (!(ioExecutor instanceof EventLoopAwareNettyIoExecutor)) {
+            return ctx;
+        }
+        final IoExecutor fallback = ((EventLoopAwareNettyIoExecutor) ioExecutor).epollFallback();
+        return fallback == ioExecutor ? ctx : new DefaultHttpExecutionContext(ctx.bufferAllocator(), fallback,
+                ctx.executor(), ctx.executionStrategy());
+    }
 }
@@ -40,6 +40,7 @@ import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 import io.netty.util.concurrent.PromiseCombiner;
 
 import java.util.Map;
@@ -190,6 +191,32 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
                         throw new Error();
                 }
             }
+        } else if (msg instanceof FileRegion) {
+            final FileRegion region = (FileRegion) msg;
+            switch (state) {
+                case ST_INIT:
+                    region.release();
+                    throw new IllegalStateException("unexpected message type: " + simpleClassName(msg));
+                case ST_CONTENT_NON_CHUNK:
+                    if (region.count() > 0) {
+                        ctx.write(region, promise);
+                        break;
+                    }
+
+                    // fall-through!
+                case ST_CONTENT_ALWAYS_EMPTY:
+                    // The region is not written, release it to close the underlying file.
+                    region.release();
+                    ctx.write(EMPTY_BUFFER, promise);
+                    break;
+                case ST_CONTENT_CHUNK:
+                    PromiseCombiner promiseCombiner = new PromiseCombiner();
+                    encodeChunkedContent(ctx, region, promiseCombiner);
+                    promiseCombiner.finish(promise);
+                    break;
+                default:
+                    throw new Error();
+            }
         } else if (msg instanceof HttpHeaders) {
             closeHandler.protocolPayloadEndOutbound(ctx, promise);
             final int oldState = state;
@@ -262,16 +289,7 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
     private static void encodeChunkedContent(ChannelHandlerContext ctx, Buffer msg, long contentLength,
                                              PromiseCombiner promiseCombiner) {
         if (contentLength > 0) {
-            String lengthHex = toHexString(contentLength);
-            ByteBuf buf = ctx.alloc().directBuffer(lengthHex.length() + 2);
-            try {
-                buf.writeCharSequence(lengthHex, US_ASCII);
-                writeShortBE(buf, CRLF_SHORT);
-            } catch (Throwable e) {
-                buf.release();
-                throw e;
-            }
-            promiseCombiner.add(ctx.write(buf));
+            promiseCombiner.add(ctx.write(newChunkHeader(ctx, contentLength)));
             promiseCombiner.add(ctx.write(encodeAndRetain(msg)));
             promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
         } else {
@@ -282,6 +300,40 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
         }
     }
 
+    private static void encodeChunkedContent(ChannelHandlerContext ctx, FileRegion region,
+                                             PromiseCombiner promiseCombiner) {
+        if (region.count() > 0) {
+            final ByteBuf header;
+            try {
+                header = newChunkHeader(ctx, region.count());
+            } catch (Throwable e) {
+                region.release();
+                throw e;
+            }
+            promiseCombiner.add(ctx.write(header));
+            promiseCombiner.add(ctx.write(region));
+            promiseCombiner.add(ctx.write(CRLF_BUF.duplicate()));
+        } else {
+            // A chunk of size 0 would terminate the message, the region is not written and released to close the
+            // underlying file.
+            region.release();
+            promiseCombiner.add(ctx.write(EMPTY_BUFFER));
+        }
+    }
+
+    private static ByteBuf newChunkHeader(ChannelHandlerContext ctx, long contentLength) {
+        String lengthHex = toHexString(contentLength);
+        ByteBuf buf = ctx.alloc().directBuffer(lengthHex.length() + 2);
+        try {
+            buf.writeCharSequence(lengthHex, US_ASCII);
+            writeShortBE(buf, CRLF_SHORT);
+        } catch (Throwable e) {
+            buf.release();
+            throw e;
+        }
+        return buf;
+    }
+
     private void encodeAndWriteTrailers(ChannelHandlerContext ctx, HttpHeaders headers, ChannelPromise promise) {
         if (headers.isEmpty()) {
             ctx.write(ZERO_CRLF_CRLF_BUF.duplicate(), promise);
@@ -355,7 +407,6 @@ abstract class HttpObjectEncoder<T extends HttpMetaData> extends ChannelOutbound
     static ByteBuf encodeAndRetain(Buffer msg) {
         // We still want to retain the objects we encode because otherwise folks may hold on to references of objects
         // with a 0 reference count and get an IllegalReferenceCountException.
-        // TODO(scott): add support for file region
         return toByteBuf(msg).retain();
     }
 
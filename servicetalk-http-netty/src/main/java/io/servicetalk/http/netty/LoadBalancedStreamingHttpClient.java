@@ -16,6 +16,8 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RequestTracker;
+import io.servicetalk.client.api.RequestTracker.ErrorClass;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.concurrent.api.TerminalSignalConsumer;
@@ -24,6 +26,7 @@ import io.servicetalk.http.api.HttpExecutionContext;
 import io.servicetalk.http.api.HttpExecutionStrategy;
 import io.servicetalk.http.api.HttpRequestMetaData;
 import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.HttpResponseStatus.StatusClass;
 import io.servicetalk.http.api.ReservedStreamingHttpConnection;
 import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
@@ -33,8 +36,13 @@ import io.servicetalk.http.utils.BeforeFinallyHttpOperator;
 
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.CANCELLED;
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.CONNECTION_FAILURE;
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.RESPONSE_FAILURE;
 import static io.servicetalk.client.api.internal.RequestConcurrencyController.Result.Accepted;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SERVER_ERROR_5XX;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
 import static java.util.function.Function.identity;
@@ -70,8 +78,14 @@ final class LoadBalancedStreamingHttpClient implements FilterableStreamingHttpCl
         return loadBalancer.selectConnection(SELECTOR_FOR_REQUEST).flatMap(c -> {
                 final OwnedRunnable ownedRunnable = c.connectionContext().protocol().major() <= 1 ? null :
                         new OwnedRunnable(c::requestFinished);
-                return c.request(strategy, ownedRunnable == null ? request :
-                                new StreamingHttpRequestWithContext(request, ownedRunnable))
+                final RequestTracker tracker = c.requestTracker();
+                Single<StreamingHttpResponse> response = c.request(strategy, ownedRunnable == null ? request :
+                        new StreamingHttpRequestWithContext(request, ownedRunnable));
+                if (tracker != null) {
+                    final RequestTrackerSignalConsumer trackerConsumer = new RequestTrackerSignalConsumer(tracker);
+                    response = response.map(trackerConsumer).liftSync(new BeforeFinallyHttpOperator(trackerConsumer));
+                }
+                return response
                         .liftSync(new BeforeFinallyHttpOperator(new TerminalSignalConsumer() {
                             @Override
                             public void onComplete() {
@@ -155,6 +169,49 @@ final class LoadBalancedStreamingHttpClient implements FilterableStreamingHttpCl
         return reqRespFactory.newRequest(method, requestTarget);
     }
 
+    /**
+     * Reports the outcome of a request to a {@link RequestTracker}. A response with a
+     * {@link StatusClass#SERVER_ERROR_5XX 5xx} status is reported as {@link ErrorClass#RESPONSE_FAILURE} once its
+     * payload terminates.
+     */
+    private static final class RequestTrackerSignalConsumer
+            implements TerminalSignalConsumer, UnaryOperator<StreamingHttpResponse> {
+        private final RequestTracker tracker;
+        private final long startTimeNs;
+        // Written before the payload is subscribed, hence visible to the terminal signals.
+        private boolean serverError;
+
+        RequestTrackerSignalConsumer(final RequestTracker tracker) {
+            this.tracker = tracker;
+            this.startTimeNs = tracker.beforeStart();
+        }
+
+        @Override
+        public StreamingHttpResponse apply(final StreamingHttpResponse response) {
+            serverError = response.status().statusClass() == SERVER_ERROR_5XX;
+            return response;
+        }
+
+        @Override
+        public void onComplete() {
+            if (serverError) {
+                tracker.onError(startTimeNs, RESPONSE_FAILURE);
+            } else {
+                tracker.onSuccess(startTimeNs);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            tracker.onError(startTimeNs, CONNECTION_FAILURE);
+        }
+
+        @Override
+        public void cancel() {
+            tracker.onError(startTimeNs, CANCELLED);
+        }
+    }
+
     static final class OwnedRunnable implements Runnable {
         private static final AtomicIntegerFieldUpdater<OwnedRunnable> ownedUpdater =
                 newUpdater(OwnedRunnable.class, "owned");
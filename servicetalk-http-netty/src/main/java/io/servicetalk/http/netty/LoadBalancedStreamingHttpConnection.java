@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package io.servicetalk.http.netty;
 
 import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RequestTracker;
 import io.servicetalk.client.api.internal.ReservableRequestConcurrencyController;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
@@ -36,6 +37,8 @@ import io.servicetalk.http.api.StreamingHttpRequest;
 import io.servicetalk.http.api.StreamingHttpResponse;
 import io.servicetalk.http.api.StreamingHttpResponseFactory;
 
+import javax.annotation.Nullable;
+
 import static io.servicetalk.http.api.HttpApiConversions.toReservedBlockingConnection;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedBlockingStreamingConnection;
 import static io.servicetalk.http.api.HttpApiConversions.toReservedConnection;
@@ -52,16 +55,20 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
                    // we wrap before returning to the user.
                    HttpExecutionStrategyInfluencer {
     private final ReservableRequestConcurrencyController limiter;
+    @Nullable
+    private final RequestTracker requestTracker;
     private final FilterableStreamingHttpLoadBalancedConnection filteredConnection;
     private final HttpExecutionStrategy streamingStrategy;
     private final HttpExecutionStrategyInfluencer strategyInfluencer;
 
     LoadBalancedStreamingHttpConnection(FilterableStreamingHttpLoadBalancedConnection filteredConnection,
                                         ReservableRequestConcurrencyController limiter,
+                                        @Nullable RequestTracker requestTracker,
                                         HttpExecutionStrategy streamingStrategy,
                                         HttpExecutionStrategyInfluencer strategyInfluencer) {
         this.filteredConnection = filteredConnection;
         this.limiter = requireNonNull(limiter);
+        this.requestTracker = requestTracker;
         this.streamingStrategy = streamingStrategy;
         this.strategyInfluencer = strategyInfluencer;
     }
@@ -71,6 +78,17 @@ final class LoadBalancedStreamingHttpConnection implements FilterableStreamingHt
         return limiter.tryReserve();
     }
 
+    /**
+     * Returns the {@link RequestTracker} provided by the {@link LoadBalancer} for this connection.
+     *
+     * @return the {@link RequestTracker} provided by the {@link LoadBalancer} for this connection, or {@code null}
+     * if the {@link LoadBalancer} does not track requests.
+     */
+    @Nullable
+    RequestTracker requestTracker() {
+        return requestTracker;
+    }
+
     @Override
     public Result tryRequest() {
         return limiter.tryRequest();
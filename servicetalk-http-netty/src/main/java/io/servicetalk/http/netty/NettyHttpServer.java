@@ -31,6 +31,7 @@ import io.servicetalk.concurrent.internal.DuplicateSubscribeException;
 import io.servicetalk.concurrent.internal.RejectedSubscribeError;
 import io.servicetalk.concurrent.internal.TerminalNotification;
 import io.servicetalk.http.api.DefaultHttpExecutionContext;
+import io.servicetalk.http.api.FileRegionPayloadBody;
 import io.servicetalk.http.api.HttpExecutionContext;
 import io.servicetalk.http.api.HttpExecutionStrategies;
 import io.servicetalk.http.api.HttpHeaders;
@@ -64,10 +65,12 @@ import io.servicetalk.transport.netty.internal.SplittingFlushStrategy;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.DecoderException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.net.SocketAddress;
 import java.net.SocketOption;
 import java.nio.channels.ClosedChannelException;
@@ -85,6 +88,7 @@ import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseabl
 import static io.servicetalk.concurrent.api.AsyncCloseables.toListenableAsyncCloseable;
 import static io.servicetalk.concurrent.api.Completable.completed;
 import static io.servicetalk.concurrent.api.Completable.defer;
+import static io.servicetalk.concurrent.api.Publisher.from;
 import static io.servicetalk.concurrent.api.Single.failed;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
@@ -99,6 +103,7 @@ import static io.servicetalk.http.netty.HeaderUtils.emptyMessageBody;
 import static io.servicetalk.http.netty.HeaderUtils.flatEmptyMessage;
 import static io.servicetalk.http.netty.HeaderUtils.setResponseContentLength;
 import static io.servicetalk.http.netty.HttpDebugUtils.showPipeline;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.isFileRegionSupported;
 import static io.servicetalk.transport.netty.internal.CloseHandler.CloseEvent.CHANNEL_CLOSED_INBOUND;
 import static io.servicetalk.transport.netty.internal.CloseHandler.forPipelinedRequestResponse;
 import static io.servicetalk.transport.netty.internal.SplittingFlushStrategy.FlushBoundaryProvider.FlushBoundary.End;
@@ -242,6 +247,7 @@ final class NettyHttpServer {
         private final SplittingFlushStrategy splittingFlushStrategy;
         private final boolean drainRequestPayloadBody;
         private final boolean requireTrailerHeader;
+        private final boolean fileRegionSupported;
 
         NettyHttpServerConnection(final NettyConnection<Object, Object> connection,
                                   final StreamingHttpService service,
@@ -276,6 +282,9 @@ final class NettyHttpServer {
             connection.updateFlushStrategy((current, isCurrentOriginal) -> splittingFlushStrategy);
             this.drainRequestPayloadBody = drainRequestPayloadBody;
             this.requireTrailerHeader = requireTrailerHeader;
+            // HTTP/2 frames the payload body in DATA frames, so only HTTP/1.x can write the file region as-is.
+            fileRegionSupported = version.major() == 1 &&
+                    isFileRegionSupported(connection.nettyChannel().eventLoop());
         }
 
         void process(final boolean handleMultipleRequests) {
@@ -362,6 +371,10 @@ final class NettyHttpServer {
                                 splittingFlushStrategy.updateFlushStrategy(
                                         (prev, isOriginal) -> isOriginal ? flushStrategy : prev, 1);
                             }
+                            // With TLS the payload body has to be encrypted in user space, so it is read in chunks.
+                            if (fileRegionSupported && connection.sslSession() == null) {
+                                response.transformMessageBody(NettyHttpServerConnection::toFileRegion);
+                            }
                             return handleResponse(protocol(), requestMethod, response);
                         });
 
@@ -398,6 +411,27 @@ final class NettyHttpServer {
             }
         }
 
+        private static Publisher<?> toFileRegion(final Publisher<?> messageBody) {
+            if (!(messageBody instanceof FileRegionPayloadBody)) {
+                // The payload body is not a file region, or it has been transformed and has to be read in chunks.
+                return messageBody;
+            }
+            final FileRegionPayloadBody payloadBody = (FileRegionPayloadBody) messageBody;
+            // The FileChannel is closed by the DefaultFileRegion when it is released after being written, or by the
+            // HttpObjectEncoder if the response status does not allow a payload body (e.g. 204 No Content).
+            return from(payloadBody)
+                    .map(body -> new DefaultFileRegion(body.fileChannel(), body.position(), body.count()))
+                    .beforeCancel(() -> closeFileChannel(payloadBody));
+        }
+
+        private static void closeFileChannel(final FileRegionPayloadBody payloadBody) {
+            try {
+                payloadBody.fileChannel().close();
+            } catch (IOException e) {
+                LOGGER.debug("Failed to close the FileChannel of a cancelled file region payload body", e);
+            }
+        }
+
         private StreamingHttpResponse newErrorResponse(final Throwable cause, final Executor executor,
                                                        final HttpProtocolVersion version,
                                                        final HttpKeepAlive keepAlive) {
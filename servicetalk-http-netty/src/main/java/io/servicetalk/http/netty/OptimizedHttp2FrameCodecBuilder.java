@@ -15,28 +15,53 @@
  */
 package io.servicetalk.http.netty;
 
+import io.netty.channel.ChannelHandler;
 import io.netty.handler.codec.http2.DefaultHttp2Connection;
 import io.netty.handler.codec.http2.DefaultHttp2RemoteFlowController;
 import io.netty.handler.codec.http2.Http2FrameCodec;
 import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
 import io.netty.handler.codec.http2.Http2RemoteFlowController;
+import io.netty.handler.codec.http2.Http2Settings;
 import io.netty.handler.codec.http2.UniformStreamByteDistributor;
 
+import javax.annotation.Nullable;
+
 /**
  * Optimized variant of {@link Http2FrameCodecBuilder} that allows us to use {@link UniformStreamByteDistributor}
- * for {@link Http2RemoteFlowController}.
+ * for {@link Http2RemoteFlowController} and applies the {@link Http2Settings} and flow-control windows of a
+ * {@link H2ProtocolConfig}.
  */
 final class OptimizedHttp2FrameCodecBuilder extends Http2FrameCodecBuilder {
 
     private final boolean server;
+    private final H2ProtocolConfig config;
 
     /**
      * Creates a new instance.
      *
      * @param server {@code true} if for server, {@code false} otherwise
+     * @param config the {@link H2ProtocolConfig} to apply
      */
-    OptimizedHttp2FrameCodecBuilder(final boolean server) {
+    OptimizedHttp2FrameCodecBuilder(final boolean server, final H2ProtocolConfig config) {
         this.server = server;
+        this.config = config;
+        final Http2Settings settings = initialSettings();
+        final Integer initialStreamWindowSize = config.initialStreamWindowSize();
+        if (initialStreamWindowSize != null) {
+            settings.initialWindowSize(initialStreamWindowSize);
+        }
+        final Integer maxFrameSize = config.maxFrameSize();
+        if (maxFrameSize != null) {
+            settings.maxFrameSize(maxFrameSize);
+        }
+        final Long headerTableSize = config.headerTableSize();
+        if (headerTableSize != null) {
+            settings.headerTableSize(headerTableSize);
+        }
+        final Long maxConcurrentStreams = config.maxConcurrentStreams();
+        if (server && maxConcurrentStreams != null) {
+            settings.maxConcurrentStreams(maxConcurrentStreams);
+        }
     }
 
     @Override
@@ -52,4 +77,17 @@ final class OptimizedHttp2FrameCodecBuilder extends Http2FrameCodecBuilder {
         connection(connection);
         return super.build();
     }
+
+    /**
+     * Creates a {@link ChannelHandler} which manages the flow-control windows of the {@link Http2FrameCodec} as
+     * configured by {@link H2ProtocolConfig}, it must be added to the pipeline right after the codec.
+     *
+     * @param codec the {@link Http2FrameCodec} previously built by this builder
+     * @return a {@link ChannelHandler} which manages the flow-control windows or {@code null} if not required
+     */
+    @Nullable
+    ChannelHandler newFlowControlWindowHandler(final Http2FrameCodec codec) {
+        return H2FlowControlWindowHandler.isRequired(config) ?
+                new H2FlowControlWindowHandler(codec.connection(), server, config) : null;
+    }
 }
@@ -0,0 +1,224 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.FileRegionPayloadBody;
+import io.servicetalk.http.api.HttpProtocolConfig;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.HttpServerBuilder;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.SingleAddressHttpClientBuilder;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.test.resources.DefaultTestCerts;
+import io.servicetalk.transport.api.ClientSslConfigBuilder;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.DelegatingConnectionAcceptor;
+import io.servicetalk.transport.api.HostAndPort;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.api.ServerSslConfigBuilder;
+import io.servicetalk.transport.netty.internal.NettyConnectionContext;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpHeaderNames.CONTENT_LENGTH;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static io.servicetalk.test.resources.DefaultTestCerts.serverPemHostname;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static java.lang.String.valueOf;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+class FileRegionResponseTest {
+
+    private static final int FILE_SIZE = 100_000;
+
+    private enum Config {
+        HTTP_1_1(h1Default(), false),
+        HTTP_2_0(h2Default(), false),
+        SECURE_HTTP_1_1(h1Default(), true);
+
+        final HttpProtocolConfig protocol;
+        final boolean secure;
+
+        Config(HttpProtocolConfig protocol, boolean secure) {
+            this.protocol = protocol;
+            this.secure = secure;
+        }
+    }
+
+    private final byte[] content = new byte[FILE_SIZE];
+    private final File file;
+    private final AtomicInteger fileRegionsWritten = new AtomicInteger();
+    private final Queue<FileChannel> fileChannels = new ConcurrentLinkedQueue<>();
+
+    FileRegionResponseTest() throws IOException {
+        ThreadLocalRandom.current().nextBytes(content);
+        file = File.createTempFile("FileRegionResponseTest", ".bin");
+        Files.write(file.toPath(), content);
+    }
+
+    @AfterEach
+    void tearDown() {
+        assertThat(file.delete(), is(true));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Config.class)
+    void payloadBodyIsFileContent(Config config) throws Exception {
+        try (ServerContext serverContext = startServer(config, 0, FILE_SIZE, null);
+             BlockingHttpClient client = newClient(serverContext, config)) {
+            HttpResponse response = client.request(client.get("/"));
+            assertThat(response.status(), is(OK));
+            assertThat(response.payloadBody().toNioBuffer(), equalTo(wrap(0, FILE_SIZE)));
+        }
+        // Only plaintext HTTP/1.x writes the region without reading it.
+        assertThat(fileRegionsWritten.get(), is(config == Config.HTTP_1_1 ? 1 : 0));
+        assertFileChannelsClosed();
+    }
+
+    @Test
+    void regionOfFile() throws Exception {
+        try (ServerContext serverContext = startServer(Config.HTTP_1_1, 1000, 50_000, null);
+             BlockingHttpClient client = newClient(serverContext, Config.HTTP_1_1)) {
+            HttpResponse response = client.request(client.get("/"));
+            assertThat(valueOf(response.headers().get(CONTENT_LENGTH)), equalTo("50000"));
+            assertThat(response.payloadBody().toNioBuffer(), equalTo(wrap(1000, 50_000)));
+        }
+        assertThat(fileRegionsWritten.get(), is(1));
+        assertFileChannelsClosed();
+    }
+
+    @Test
+    void transformedPayloadBodyIsRead() throws Exception {
+        try (ServerContext serverContext = startServer(Config.HTTP_1_1, 0, FILE_SIZE,
+                payloadBody -> payloadBody.map(buffer -> buffer));
+             BlockingHttpClient client = newClient(serverContext, Config.HTTP_1_1)) {
+            HttpResponse response = client.request(client.get("/"));
+            assertThat(response.payloadBody().toNioBuffer(), equalTo(wrap(0, FILE_SIZE)));
+        }
+        assertThat(fileRegionsWritten.get(), is(0));
+        assertFileChannelsClosed();
+    }
+
+    private ByteBuffer wrap(final int position, final int count) {
+        return ByteBuffer.wrap(Arrays.copyOfRange(content, position, position + count));
+    }
+
+    private void assertFileChannelsClosed() throws InterruptedException {
+        // The file is closed after the response has been written, which may be observed after it has been received.
+        for (FileChannel fileChannel : fileChannels) {
+            while (fileChannel.isOpen()) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    private ServerContext startServer(final Config config, final long position, final long count,
+                                      @Nullable final UnaryOperator<Publisher<Buffer>> transformer) throws Exception {
+        final HttpServerBuilder builder = HttpServers.forAddress(localAddress(0))
+                .protocols(config.protocol);
+        if (config.secure) {
+            builder.sslConfig(new ServerSslConfigBuilder(DefaultTestCerts::loadServerPem,
+                    DefaultTestCerts::loadServerKey).build());
+        }
+        if (transformer != null) {
+            builder.appendServiceFilter(service -> new StreamingHttpServiceFilter(service) {
+                @Override
+                public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                            final StreamingHttpRequest request,
+                                                            final StreamingHttpResponseFactory responseFactory) {
+                    return delegate().handle(ctx, request, responseFactory)
+                            .map(response -> response.transformPayloadBody(transformer));
+                }
+            });
+        }
+        builder.appendConnectionAcceptorFilter(original -> new DelegatingConnectionAcceptor(original) {
+            @Override
+            public Completable accept(final ConnectionContext context) {
+                ((NettyConnectionContext) context).nettyChannel().pipeline().addFirst(
+                        new ChannelOutboundHandlerAdapter() {
+                            @Override
+                            public void write(final ChannelHandlerContext ctx, final Object msg,
+                                              final ChannelPromise promise) {
+                                if (msg instanceof FileRegion) {
+                                    fileRegionsWritten.incrementAndGet();
+                                }
+                                ctx.write(msg, promise);
+                            }
+                        });
+                return delegate().accept(context);
+            }
+        });
+        return builder.listenStreamingAndAwait((ctx, request, responseFactory) -> {
+            final FileChannel fileChannel;
+            try {
+                fileChannel = FileChannel.open(file.toPath(), READ);
+            } catch (IOException e) {
+                return failed(e);
+            }
+            fileChannels.add(fileChannel);
+            return succeeded(responseFactory.newResponse(OK, new FileRegionPayloadBody(fileChannel, position, count,
+                    ctx.executionContext().bufferAllocator())));
+        });
+    }
+
+    private static BlockingHttpClient newClient(final ServerContext serverContext, final Config config) {
+        SingleAddressHttpClientBuilder<HostAndPort, InetSocketAddress> builder =
+                HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                        .protocols(config.protocol);
+        if (config.secure) {
+            builder.sslConfig(new ClientSslConfigBuilder(DefaultTestCerts::loadServerCAPem)
+                    .peerHost(serverPemHostname()).build());
+        }
+        return builder.buildBlocking();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpProtocolConfig;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.HttpServerBuilder;
+import io.servicetalk.http.api.SingleAddressHttpClientBuilder;
+import io.servicetalk.test.resources.DefaultTestCerts;
+import io.servicetalk.transport.api.ClientSslConfigBuilder;
+import io.servicetalk.transport.api.HostAndPort;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.api.ServerSslConfigBuilder;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.net.InetSocketAddress;
+
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpSerializers.textSerializerUtf8;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h1Default;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2Default;
+import static io.servicetalk.test.resources.DefaultTestCerts.serverPemHostname;
+import static io.servicetalk.transport.api.ServiceTalkSocketOptions.FLUSH_CONSOLIDATION;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+class FlushConsolidationTest {
+
+    private enum Config {
+        HTTP_1_1(h1Default(), false),
+        HTTP_2_0(h2Default(), false),
+        SECURE_HTTP_1_1(h1Default(), true),
+        SECURE_HTTP_2_0(h2Default(), true);
+
+        final HttpProtocolConfig protocol;
+        final boolean secure;
+
+        Config(HttpProtocolConfig protocol, boolean secure) {
+            this.protocol = protocol;
+            this.secure = secure;
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(Config.class)
+    void requestsAndResponsesAreFlushed(Config config) throws Exception {
+        try (ServerContext serverContext = startServer(config);
+             BlockingHttpClient client = newClient(serverContext, config)) {
+            for (int i = 0; i < 10; ++i) {
+                final String payload = "request-" + i;
+                HttpResponse response = client.request(client.post("/")
+                        .payloadBody(payload, textSerializerUtf8()));
+                assertThat(response.status(), is(OK));
+                assertThat(response.payloadBody(textSerializerUtf8()), equalTo(payload));
+            }
+        }
+    }
+
+    private static ServerContext startServer(Config config) throws Exception {
+        final HttpServerBuilder builder = HttpServers.forAddress(localAddress(0))
+                .protocols(config.protocol)
+                .socketOption(FLUSH_CONSOLIDATION, true);
+        if (config.secure) {
+            builder.sslConfig(new ServerSslConfigBuilder(DefaultTestCerts::loadServerPem,
+                    DefaultTestCerts::loadServerKey).build());
+        }
+        return builder.listenBlockingAndAwait((ctx, request, responseFactory) -> responseFactory.ok()
+                .payloadBody(request.payloadBody(textSerializerUtf8()), textSerializerUtf8()));
+    }
+
+    private static BlockingHttpClient newClient(ServerContext serverContext, Config config) {
+        SingleAddressHttpClientBuilder<HostAndPort, InetSocketAddress> builder =
+                HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                        .protocols(config.protocol)
+                        .socketOption(FLUSH_CONSOLIDATION, true);
+        if (config.secure) {
+            builder.sslConfig(new ClientSslConfigBuilder(DefaultTestCerts::loadServerCAPem)
+                    .peerHost(serverPemHostname()).build());
+        }
+        return builder.buildBlocking();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.NettyConnectionContext;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class H2FlowControlWindowTest {
+
+    private static final int PAYLOAD_SIZE = 8 * 1024 * 1024;
+
+    private final AtomicReference<Channel> clientChannel = new AtomicReference<>();
+
+    @Test
+    void settingsAreAdvertised() throws Exception {
+        try (ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .protocols(h2()
+                        .initialStreamWindowSize(1024 * 1024)
+                        .connectionWindowSize(4 * 1024 * 1024)
+                        .maxConcurrentStreams(17)
+                        .maxFrameSize(64 * 1024)
+                        .headerTableSize(8 * 1024)
+                        .build())
+                .listenBlockingAndAwait((ctx, request, responseFactory) ->
+                        responseFactory.ok().payloadBody(request.payloadBody()));
+             BlockingHttpClient client = HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                     .protocols(h2()
+                             .initialStreamWindowSize(512 * 1024)
+                             .connectionWindowSize(2 * 1024 * 1024)
+                             .build())
+                     .appendConnectionFilter(this::captureChannel)
+                     .buildBlocking()) {
+            assertEcho(client);
+            final Http2FrameCodec codec = clientCodec();
+            final Http2Connection h2Connection = codec.connection();
+            assertThat(h2Connection.local().flowController().initialWindowSize(h2Connection.connectionStream()),
+                    is(2 * 1024 * 1024));
+            assertThat(codec.decoder().localSettings().initialWindowSize(), is(512 * 1024));
+            // Settings advertised by the server.
+            assertThat(h2Connection.remote().flowController().initialWindowSize(), is(1024 * 1024));
+            assertThat(h2Connection.local().maxActiveStreams(), is(17));
+            assertThat(codec.encoder().configuration().frameSizePolicy().maxFrameSize(), is(64 * 1024));
+        }
+    }
+
+    @Test
+    void autoTuningGrowsWindows() throws Exception {
+        try (ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .protocols(h2().enableFlowControlWindowAutoTuning(16 * 1024 * 1024).build())
+                .listenBlockingAndAwait((ctx, request, responseFactory) ->
+                        responseFactory.ok().payloadBody(request.payloadBody()));
+             BlockingHttpClient client = HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                     .protocols(h2().enableFlowControlWindowAutoTuning(16 * 1024 * 1024).build())
+                     .appendConnectionFilter(this::captureChannel)
+                     .buildBlocking()) {
+            assertEcho(client);
+            final Http2Connection h2Connection = clientCodec().connection();
+            assertThat(h2Connection.local().flowController().initialWindowSize(h2Connection.connectionStream()),
+                    is(greaterThan(DEFAULT_WINDOW_SIZE)));
+        }
+    }
+
+    @Test
+    void invalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> h2().initialStreamWindowSize(-1));
+        assertThrows(IllegalArgumentException.class, () -> h2().connectionWindowSize(DEFAULT_WINDOW_SIZE - 1));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxConcurrentStreams(-1));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxConcurrentStreams(0x100000000L));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxFrameSize(16 * 1024 - 1));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxFrameSize(16 * 1024 * 1024));
+        assertThrows(IllegalArgumentException.class, () -> h2().headerTableSize(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> h2().enableFlowControlWindowAutoTuning(DEFAULT_WINDOW_SIZE - 1));
+    }
+
+    private static void assertEcho(final BlockingHttpClient client) throws Exception {
+        final byte[] bytes = new byte[PAYLOAD_SIZE];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        final HttpResponse response = client.request(client.post("/").payloadBody(DEFAULT_ALLOCATOR.wrap(bytes)));
+        assertThat(response.status(), is(OK));
+        assertThat(response.payloadBody(), equalTo(DEFAULT_ALLOCATOR.wrap(bytes)));
+    }
+
+    private StreamingHttpConnectionFilter captureChannel(final FilterableStreamingHttpConnection connection) {
+        clientChannel.set(((NettyConnectionContext) connection.connectionContext()).nettyChannel());
+        return new StreamingHttpConnectionFilter(connection) { };
+    }
+
+    private Http2FrameCodec clientCodec() {
+        return clientChannel.get().pipeline().get(Http2FrameCodec.class);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http2.DefaultHttp2Headers;
+import io.netty.handler.codec.http2.DefaultHttp2HeadersFrame;
+import io.netty.handler.codec.http2.Http2Headers;
+import io.netty.handler.codec.http2.Http2HeadersFrame;
+import io.netty.util.AsciiString;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static io.servicetalk.http.netty.H2HeaderValueCacheHandler.MAX_CACHED_VALUE_LENGTH;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+class H2HeaderValueCacheHandlerTest {
+
+    private final EmbeddedChannel channel = new EmbeddedChannel(new H2HeaderValueCacheHandler(16,
+            (name, value) -> AsciiString.contentEquals(name, "x-secret")));
+
+    @AfterEach
+    void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void repeatedValuesShareInstance() {
+        final Http2Headers first = read("user-agent", "servicetalk");
+        final Http2Headers second = read("user-agent", "servicetalk");
+        assertThat(second.get("user-agent"), is(sameInstance(first.get("user-agent"))));
+        assertThat(second.get("user-agent"), equalTo(new AsciiString("servicetalk")));
+    }
+
+    @Test
+    void differentValuesAreNotShared() {
+        final Http2Headers first = read("user-agent", "servicetalk");
+        final Http2Headers second = read("user-agent", "other");
+        assertThat(second.get("user-agent"), equalTo(new AsciiString("other")));
+        assertThat(first.get("user-agent"), equalTo(new AsciiString("servicetalk")));
+    }
+
+    @Test
+    void sensitiveValuesAreNotShared() {
+        assertNotShared("authorization", "Bearer token");
+        assertNotShared("cookie", "name=value");
+        assertNotShared("x-secret", "value");
+    }
+
+    @Test
+    void longValuesAreNotShared() {
+        final char[] value = new char[MAX_CACHED_VALUE_LENGTH + 1];
+        Arrays.fill(value, 'a');
+        assertNotShared("x-long", new String(value));
+    }
+
+    private void assertNotShared(final String name, final String value) {
+        final Http2Headers first = read(name, value);
+        final Http2Headers second = read(name, value);
+        assertThat(second.get(name), is(not(sameInstance(first.get(name)))));
+    }
+
+    private Http2Headers read(final String name, final String value) {
+        final Http2Headers headers = new DefaultHttp2Headers();
+        // A new instance with the same content, like the HPACK decoder creates for literals.
+        headers.add(new AsciiString(name), new AsciiString(value.getBytes(US_ASCII), true));
+        channel.writeInbound(new DefaultHttp2HeadersFrame(headers));
+        final Http2HeadersFrame frame = channel.readInbound();
+        return frame.headers();
+    }
+}
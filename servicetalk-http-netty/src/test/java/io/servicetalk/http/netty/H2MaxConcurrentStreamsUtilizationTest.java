@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.DelegatingConnectionAcceptor;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.netty.H2LBHttpConnectionFactory.usableStreams;
+import static io.servicetalk.http.netty.HttpProtocolConfigs.h2;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class H2MaxConcurrentStreamsUtilizationTest {
+
+    private static final int SERVER_MAX_CONCURRENT_STREAMS = 4;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Semaphore requestsReceived = new Semaphore(0);
+    private final CountDownLatch respond = new CountDownLatch(1);
+
+    @Test
+    void allStreamsUsedByDefault() throws Exception {
+        assertThat(connectionsFor(h2().build()), is(1));
+    }
+
+    @Test
+    void additionalConnectionsOpenedBeforeLimit() throws Exception {
+        assertThat(connectionsFor(h2().maxConcurrentStreamsUtilization(0.5).build()), is(2));
+    }
+
+    @Test
+    void usableStreamsOfAConnection() {
+        assertThat(usableStreams(100, 0.8), is(80));
+        assertThat(usableStreams(1, 0.5), is(1));
+        assertThat(usableStreams(0, 0.5), is(0));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxConcurrentStreamsUtilization(0));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxConcurrentStreamsUtilization(1.1));
+        assertThrows(IllegalArgumentException.class, () -> h2().maxConcurrentStreamsUtilization(Double.NaN));
+    }
+
+    private int connectionsFor(final H2ProtocolConfig clientConfig) throws Exception {
+        try (ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .protocols(h2().maxConcurrentStreams(SERVER_MAX_CONCURRENT_STREAMS).build())
+                .appendConnectionAcceptorFilter(original -> new DelegatingConnectionAcceptor(original) {
+                    @Override
+                    public Completable accept(final ConnectionContext context) {
+                        connections.incrementAndGet();
+                        return delegate().accept(context);
+                    }
+                })
+                .listenBlockingAndAwait((ctx, request, responseFactory) -> {
+                    if (!request.path().equals("/warmup")) {
+                        requestsReceived.release();
+                        respond.await();
+                    }
+                    return responseFactory.ok();
+                });
+             HttpClient client = HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                     .protocols(clientConfig)
+                     .build()) {
+            // Receive the SETTINGS of the server before sending concurrent requests.
+            assertThat(client.request(client.get("/warmup")).toFuture().get().status(), is(OK));
+
+            final List<Future<HttpResponse>> responses = new ArrayList<>();
+            for (int i = 0; i < SERVER_MAX_CONCURRENT_STREAMS; ++i) {
+                responses.add(client.request(client.get("/")).toFuture());
+                requestsReceived.acquire();
+            }
+            respond.countDown();
+            for (Future<HttpResponse> response : responses) {
+                assertThat(response.get().status(), is(OK));
+            }
+        }
+        return connections.get();
+    }
+}
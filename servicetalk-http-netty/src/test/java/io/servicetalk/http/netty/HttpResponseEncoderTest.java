@@ -22,9 +22,12 @@ import io.servicetalk.http.api.HttpHeaders;
 import io.servicetalk.http.api.HttpResponseMetaData;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.channel.FileRegion;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
 import java.util.ArrayDeque;
 import java.util.concurrent.ThreadLocalRandom;
 
@@ -45,6 +48,7 @@ import static java.lang.String.valueOf;
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -276,6 +280,66 @@ class HttpResponseEncoderTest extends HttpEncoderTest<HttpResponseMetaData> {
         assertFalse(channel.finishAndReleaseAll());
     }
 
+    @Test
+    void contentLengthFileRegion() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        FileRegion region = new DefaultFileRegion(new File("unused"), 0, 128);
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.headers()
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(SERVER, "unit-test")
+                .add(CONTENT_LENGTH, valueOf(region.count()));
+        channel.writeOutbound(response);
+        channel.writeOutbound(region);
+        channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+
+        ByteBuf byteBuf = channel.readOutbound();
+        String actualMetaData = byteBuf.toString(US_ASCII);
+        byteBuf.release();
+        assertTrue(actualMetaData.contains(CONTENT_LENGTH + ": 128\r\n"),
+                () -> "unexpected metadata: " + actualMetaData);
+        FileRegion actualRegion = channel.readOutbound();
+        assertSame(region, actualRegion);
+        actualRegion.release();
+        consumeEmptyBufferFromTrailers(channel);
+
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
+    @Test
+    void chunkedFileRegion() {
+        EmbeddedChannel channel = newEmbeddedChannel();
+        FileRegion region = new DefaultFileRegion(new File("unused"), 0, 128);
+        HttpResponseMetaData response = newResponseMetaData(HTTP_1_1, OK, INSTANCE.newHeaders());
+        response.headers()
+                .add(CONNECTION, KEEP_ALIVE)
+                .add(SERVER, "unit-test")
+                .add(TRANSFER_ENCODING, CHUNKED);
+        channel.writeOutbound(response);
+        channel.writeOutbound(region);
+        channel.writeOutbound(EmptyHttpHeaders.INSTANCE);
+
+        ByteBuf byteBuf = channel.readOutbound();
+        String actualMetaData = byteBuf.toString(US_ASCII);
+        byteBuf.release();
+        assertTrue(actualMetaData.contains(TRANSFER_ENCODING + ": " + CHUNKED + "\r\n"),
+                () -> "unexpected metadata: " + actualMetaData);
+        byteBuf = channel.readOutbound();
+        assertEquals(toHexString(128) + "\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+        FileRegion actualRegion = channel.readOutbound();
+        assertSame(region, actualRegion);
+        actualRegion.release();
+        byteBuf = channel.readOutbound();
+        assertEquals("\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+        byteBuf = channel.readOutbound();
+        assertEquals("0\r\n\r\n", byteBuf.toString(US_ASCII));
+        byteBuf.release();
+
+        assertFalse(channel.finishAndReleaseAll());
+    }
+
     private static String verifyHttpResponse(EmbeddedChannel channel, Buffer buffer, TransferEncoding encoding,
                                              boolean trailers) {
         ByteBuf byteBuf = channel.readOutbound();
@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.IoThreadAffinityGroup;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.api.HttpSerializers.textSerializerUtf8;
+import static io.servicetalk.transport.netty.IoThreadAffinityGroup.newIoThreadAffinityGroup;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoExecutor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+class IoThreadAffinityTest {
+
+    private final IoExecutor ioExecutor = createIoExecutor(2, "io-affinity");
+    private final Queue<String> errors = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ioExecutor.closeAsync().toFuture().get();
+    }
+
+    @Test
+    void downstreamRequestsStayOnTheServerIoThread() throws Exception {
+        try (ServerContext backend = HttpServers.forAddress(localAddress(0))
+                .listenBlockingAndAwait((ctx, request, responseFactory) ->
+                        responseFactory.ok().payloadBody("backend", textSerializerUtf8()))) {
+            final IoThreadAffinityGroup<HttpClient> backendClients = newIoThreadAffinityGroup(ioExecutor,
+                    clientIoExecutor -> HttpClients.forSingleAddress(serverHostAndPort(backend))
+                            .ioExecutor(clientIoExecutor)
+                            .executionStrategy(noOffloadsStrategy())
+                            .build());
+            try (ServerContext frontend = HttpServers.forAddress(localAddress(0))
+                    .ioExecutor(ioExecutor)
+                    .executionStrategy(noOffloadsStrategy())
+                    .listenAndAwait((ctx, request, responseFactory) -> {
+                        final Thread serverThread = Thread.currentThread();
+                        final HttpClient client = backendClients.current();
+                        return client.request(client.get("/")).map(response -> {
+                            if (Thread.currentThread() != serverThread) {
+                                errors.add("Response received on " + Thread.currentThread() +
+                                        " instead of " + serverThread);
+                            }
+                            return responseFactory.ok().payloadBody(response.payloadBody(textSerializerUtf8()),
+                                    textSerializerUtf8());
+                        });
+                    })) {
+                for (int i = 0; i < 10; ++i) {
+                    // Each new connection is accepted on the next I/O thread.
+                    try (BlockingHttpClient client = HttpClients.forSingleAddress(serverHostAndPort(frontend))
+                            .buildBlocking()) {
+                        HttpResponse response = client.request(client.get("/"));
+                        assertThat(response.status(), is(OK));
+                        assertThat(response.payloadBody(textSerializerUtf8()), equalTo("backend"));
+                    }
+                }
+            } finally {
+                backendClients.closeAsync().toFuture().get();
+            }
+        }
+        assertThat(errors, is(empty()));
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.api.HttpResponse;
+import io.servicetalk.transport.api.ConnectionContext;
+import io.servicetalk.transport.api.DelegatingConnectionAcceptor;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.api.ServerContext;
+import io.servicetalk.transport.netty.internal.NettyConnectionContext;
+
+import io.netty.channel.Channel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.transport.api.ServiceTalkSocketOptions.SO_REUSEPORT_PER_IO_THREAD;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.createIoExecutor;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ReusePortPerIoThreadTest {
+
+    private static final int IO_THREADS = 3;
+
+    private final IoExecutor ioExecutor = createIoExecutor(IO_THREADS, "reuse-port");
+    private final Set<Channel> listenChannels = ConcurrentHashMap.newKeySet();
+    private final Set<String> mismatches = ConcurrentHashMap.newKeySet();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ioExecutor.closeAsync().toFuture().get();
+    }
+
+    @Test
+    void connectionsAreAcceptedBySeparateServerSockets() throws Exception {
+        assumeTrue(System.getProperty("os.name").toLowerCase().contains("linux"), "SO_REUSEPORT requires linux");
+        final ServerContext serverContext = HttpServers.forAddress(localAddress(0))
+                .ioExecutor(ioExecutor)
+                .listenSocketOption(SO_REUSEPORT_PER_IO_THREAD, true)
+                .appendConnectionAcceptorFilter(original -> new DelegatingConnectionAcceptor(original) {
+                    @Override
+                    public Completable accept(final ConnectionContext context) {
+                        final Channel channel = ((NettyConnectionContext) context).nettyChannel();
+                        listenChannels.add(channel.parent());
+                        if (channel.parent().eventLoop() != channel.eventLoop()) {
+                            mismatches.add(channel.toString());
+                        }
+                        return completed();
+                    }
+                })
+                .listenBlockingAndAwait((ctx, request, responseFactory) -> responseFactory.ok());
+        try {
+            for (int i = 0; i < 50; ++i) {
+                try (BlockingHttpClient client = HttpClients.forSingleAddress(serverHostAndPort(serverContext))
+                        .buildBlocking()) {
+                    HttpResponse response = client.request(client.get("/"));
+                    assertThat(response.status(), is(OK));
+                }
+            }
+            assertThat("Connections accepted by a single server socket", listenChannels.size(), is(greaterThan(1)));
+            assertThat("Connections not processed by the I/O thread of their server socket: " + mismatches,
+                    mismatches.isEmpty(), is(true));
+        } finally {
+            serverContext.close();
+        }
+
+        for (Channel listenChannel : listenChannels) {
+            assertThat(listenChannel.isOpen(), is(false));
+        }
+        final InetSocketAddress address = (InetSocketAddress) serverContext.listenAddress();
+        for (int i = 0; i < 10; ++i) {
+            assertThrows(Exception.class, () -> new Socket(address.getAddress(), address.getPort()).close());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.netty;
+
+import io.servicetalk.client.api.DefaultAutoRetryStrategyProvider;
+import io.servicetalk.client.api.RetryBudget;
+import io.servicetalk.http.api.BlockingHttpClient;
+import io.servicetalk.http.utils.RetryingHttpRequesterFilter;
+import io.servicetalk.transport.api.ServerContext;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static io.servicetalk.http.api.HttpResponseStatus.OK;
+import static io.servicetalk.http.netty.HttpClients.forSingleAddress;
+import static io.servicetalk.http.netty.HttpServers.forAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.localAddress;
+import static io.servicetalk.transport.netty.internal.AddressUtils.serverHostAndPort;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SharedRetryBudgetTest {
+
+    private static final int REQUESTS = 10;
+
+    // Without a minimum rate the balance only grows with successful requests.
+    private final RetryBudget retryBudget = new RetryBudget.Builder().ratio(0.2).minRetriesPerSecond(0).build();
+    private final ServerContext serverContext;
+
+    SharedRetryBudgetTest() throws Exception {
+        serverContext = forAddress(localAddress(0))
+                .listenBlockingAndAwait((ctx, request, responseFactory) -> responseFactory.ok());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        serverContext.close();
+    }
+
+    @Test
+    void clientFilterAndAutoRetriesRecordSuccessOnce() throws Exception {
+        try (BlockingHttpClient client = forSingleAddress(serverHostAndPort(serverContext))
+                .autoRetryStrategy(new DefaultAutoRetryStrategyProvider.Builder().retryBudget(retryBudget).build())
+                .appendClientFilter(new RetryingHttpRequesterFilter.Builder().retryBudget(retryBudget)
+                        .buildWithImmediateRetries())
+                .buildBlocking()) {
+            sendRequests(client);
+        }
+    }
+
+    @Test
+    void connectionFilterAndAutoRetriesRecordSuccessOnce() throws Exception {
+        try (BlockingHttpClient client = forSingleAddress(serverHostAndPort(serverContext))
+                .autoRetryStrategy(new DefaultAutoRetryStrategyProvider.Builder().retryBudget(retryBudget).build())
+                .appendConnectionFilter(new RetryingHttpRequesterFilter.Builder().retryBudget(retryBudget)
+                        .buildWithImmediateRetries())
+                .buildBlocking()) {
+            sendRequests(client);
+        }
+    }
+
+    private void sendRequests(final BlockingHttpClient client) throws Exception {
+        for (int i = 0; i < REQUESTS; ++i) {
+            assertThat(client.request(client.get("/")).status(), is(OK));
+        }
+        assertThat(retryBudget.balance(), is(REQUESTS * 0.2));
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TerminalSignalConsumer;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpResponseStatus.StatusClass;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+abstract class AbstractHttpLatencyMetricsFilter implements HttpExecutionStrategyInfluencer {
+    static final Function<HttpRequestMetaData, String> DEFAULT_ROUTE_MAPPER = request -> request.method().name();
+
+    private final HttpLatencyMetrics metrics;
+    private final Function<? super HttpRequestMetaData, String> routeMapper;
+
+    AbstractHttpLatencyMetricsFilter(final HttpLatencyMetrics metrics,
+                                     final Function<? super HttpRequestMetaData, String> routeMapper) {
+        this.metrics = requireNonNull(metrics, "metrics");
+        this.routeMapper = requireNonNull(routeMapper, "routeMapper");
+    }
+
+    @Override
+    public final HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    final Single<StreamingHttpResponse> withMetrics(final StreamingHttpRequest request,
+            final Function<StreamingHttpRequest, Single<StreamingHttpResponse>> responseFunction) {
+        return Single.defer(() -> {
+            final RequestMetrics requestMetrics = new RequestMetrics(metrics, routeMapper.apply(request));
+            return responseFunction.apply(request.transformMessageBody(payload ->
+                    payload.beforeOnNext(requestMetrics::onRequestPayload)))
+                    .map(requestMetrics::onResponse)
+                    .liftSync(new BeforeFinallyHttpOperator(requestMetrics))
+                    .subscribeShareContext();
+        });
+    }
+
+    private static final class RequestMetrics implements TerminalSignalConsumer {
+        private final HttpLatencyMetrics metrics;
+        private final String route;
+        private final long startNanos = System.nanoTime();
+        @Nullable
+        private StatusClass statusClass;
+        // Recorded when the request terminates, so that all histograms of a request are in the same slot.
+        private long timeToFirstByteNanos = -1;
+        // The request and the response payload are each written from one thread at a time, and read when the
+        // response terminates.
+        private long requestPayloadSize;
+        private long responsePayloadSize;
+
+        RequestMetrics(final HttpLatencyMetrics metrics, final String route) {
+            this.metrics = metrics;
+            this.route = route;
+        }
+
+        void onRequestPayload(@Nullable final Object item) {
+            if (item instanceof Buffer) {
+                requestPayloadSize += ((Buffer) item).readableBytes();
+            }
+        }
+
+        StreamingHttpResponse onResponse(final StreamingHttpResponse response) {
+            final StatusClass statusClass = response.status().statusClass();
+            this.statusClass = statusClass;
+            timeToFirstByteNanos = System.nanoTime() - startNanos;
+            return response.transformMessageBody(payload -> payload.beforeOnNext(item -> {
+                if (item instanceof Buffer) {
+                    responsePayloadSize += ((Buffer) item).readableBytes();
+                }
+            }));
+        }
+
+        @Override
+        public void onComplete() {
+            record(statusClass);
+        }
+
+        @Override
+        public void onError(final Throwable throwable) {
+            record(null);
+        }
+
+        @Override
+        public void cancel() {
+            record(null);
+        }
+
+        private void record(@Nullable final StatusClass statusClass) {
+            metrics.record(route, statusClass, timeToFirstByteNanos, System.nanoTime() - startNanos,
+                    requestPayloadSize, responsePayloadSize);
+        }
+    }
+}
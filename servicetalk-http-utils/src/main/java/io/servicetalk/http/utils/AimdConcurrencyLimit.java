@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A concurrency limit following the additive increase/multiplicative decrease (AIMD) scheme: the limit grows by one
+ * for every successful request while at least half of it is used, and is multiplied by a backoff ratio for every
+ * request which failed or took longer than a timeout.
+ */
+final class AimdConcurrencyLimit extends ConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+    private final AtomicInteger limit;
+
+    AimdConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit, final double backoffRatio,
+                         final long timeoutNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.timeoutNanos = timeoutNanos;
+        this.limit = new AtomicInteger(initialLimit);
+    }
+
+    @Override
+    int limit() {
+        return limit.get();
+    }
+
+    @Override
+    void onSample(final long rttNanos, final int inFlight, final long nowNanos) {
+        if (rttNanos > timeoutNanos) {
+            onDrop(inFlight, nowNanos);
+            return;
+        }
+        for (;;) {
+            final int current = limit.get();
+            if (current >= maxLimit || inFlight * 2 < current) {
+                // Don't grow the limit if it's not the bottleneck.
+                return;
+            }
+            if (limit.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    void onDrop(final int inFlight, final long nowNanos) {
+        for (;;) {
+            final int current = limit.get();
+            final int next = Math.max(minLimit, (int) (current * backoffRatio));
+            if (next == current || limit.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A limit of concurrent requests which adapts to the outcome of the requests.
+ */
+abstract class ConcurrencyLimit {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Acquires a permit if the number of requests in flight is below the limit.
+     *
+     * @return the number of requests in flight including this one, or {@code 0} if the limit is reached.
+     */
+    final int tryAcquire() {
+        for (;;) {
+            final int current = inFlight.get();
+            if (current >= limit()) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    /**
+     * Releases a permit acquired by {@link #tryAcquire()}.
+     */
+    final void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * The number of requests in flight.
+     *
+     * @return the number of requests in flight.
+     */
+    final int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * The current limit.
+     *
+     * @return the current limit.
+     */
+    abstract int limit();
+
+    /**
+     * Records the round trip time of a successful request.
+     *
+     * @param rttNanos the round trip time of the request.
+     * @param inFlight the number of requests in flight when the request was admitted.
+     * @param nowNanos the current time.
+     */
+    abstract void onSample(long rttNanos, int inFlight, long nowNanos);
+
+    /**
+     * Records a request which failed or was rejected by the peer because of overload.
+     *
+     * @param inFlight the number of requests in flight when the request was admitted.
+     * @param nowNanos the current time.
+     */
+    abstract void onDrop(int inFlight, long nowNanos);
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.MaxRequestLimitExceededException;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpResponseStatus;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.api.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static io.servicetalk.utils.internal.DurationUtils.ensurePositive;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter which limits the number of concurrent requests to each host to a limit which adapts to the latency and
+ * the failures of the requests, and fails excess requests right away with a {@link MaxRequestLimitExceededException}
+ * instead of queueing them on the connections of a degraded host.
+ * <p>
+ * Hosts are identified by the {@link FilterableStreamingHttpConnection#connectionContext() remote address} of the
+ * connections, all connections to the same host share a limit. By default the limit follows the additive
+ * increase/multiplicative decrease (AIMD) scheme: it grows by one for every successful request while at least half of
+ * it is used, and shrinks by a {@link Builder#aimd(double, Duration) backoff ratio} for every request which fails,
+ * takes longer than a timeout, or is answered with {@code 503 Service Unavailable} or {@code 429 Too Many Requests}.
+ * Alternatively the limit can follow the {@link Builder#gradient(double, double) gradient} of the latency.
+ * <p>
+ * The limits and the rejections can be observed with an {@link Observer}, for example to export them as metrics.
+ */
+public final class ConcurrencyLimitingHttpRequesterFilter implements StreamingHttpConnectionFilterFactory,
+                                                                     HttpExecutionStrategyInfluencer {
+
+    private final Supplier<ConcurrencyLimit> limitFactory;
+    private final Observer observer;
+    private final ConcurrentMap<SocketAddress, HostLimit> hostLimits = new ConcurrentHashMap<>();
+
+    private ConcurrencyLimitingHttpRequesterFilter(final Supplier<ConcurrencyLimit> limitFactory,
+                                                   final Observer observer) {
+        this.limitFactory = limitFactory;
+        this.observer = observer;
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        final SocketAddress host = connection.connectionContext().remoteAddress();
+        final HostLimit hostLimit = hostLimits.compute(host, (__, existing) -> {
+            final HostLimit result = existing == null ? new HostLimit(limitFactory.get()) : existing;
+            ++result.connections;
+            return result;
+        });
+        connection.onClose().whenFinally(() -> hostLimits.computeIfPresent(host, (__, existing) ->
+                --existing.connections == 0 ? null : existing)).subscribe();
+        final ConcurrencyLimit limit = hostLimit.limit;
+
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return defer(() -> {
+                    final int inFlight = limit.tryAcquire();
+                    if (inFlight == 0) {
+                        final int currentLimit = limit.limit();
+                        observer.onRejected(host, currentLimit);
+                        return failed(new MaxRequestLimitExceededException("Concurrency limit of " + currentLimit +
+                                " requests to " + host + " reached"));
+                    }
+                    final long startNanos = System.nanoTime();
+                    return delegate().request(strategy, request)
+                            .beforeOnSuccess(response -> {
+                                final int previousLimit = limit.limit();
+                                final long nowNanos = System.nanoTime();
+                                if (isOverloaded(response.status())) {
+                                    limit.onDrop(inFlight, nowNanos);
+                                } else {
+                                    limit.onSample(nowNanos - startNanos, inFlight, nowNanos);
+                                }
+                                notifyLimitChanged(host, limit, previousLimit);
+                            })
+                            .beforeOnError(__ -> {
+                                final int previousLimit = limit.limit();
+                                limit.onDrop(inFlight, System.nanoTime());
+                                notifyLimitChanged(host, limit, previousLimit);
+                            })
+                            .liftSync(new BeforeFinallyHttpOperator(limit::release))
+                            .subscribeShareContext();
+                });
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    private void notifyLimitChanged(final SocketAddress host, final ConcurrencyLimit limit, final int previousLimit) {
+        final int currentLimit = limit.limit();
+        if (currentLimit != previousLimit) {
+            observer.onLimitChanged(host, currentLimit);
+        }
+    }
+
+    private static boolean isOverloaded(final HttpResponseStatus status) {
+        return status.code() == SERVICE_UNAVAILABLE.code() || status.code() == TOO_MANY_REQUESTS.code();
+    }
+
+    private static final class HostLimit {
+        final ConcurrencyLimit limit;
+        // Only accessed within ConcurrentMap#compute.
+        int connections;
+
+        HostLimit(final ConcurrencyLimit limit) {
+            this.limit = limit;
+        }
+    }
+
+    /**
+     * Observer of the limits of a {@link ConcurrencyLimitingHttpRequesterFilter}. Methods are invoked on the threads
+     * which complete or issue requests and must not block.
+     */
+    public interface Observer {
+
+        /**
+         * Invoked when the limit of a host changed.
+         *
+         * @param host the remote address of the host.
+         * @param limit the new limit.
+         */
+        default void onLimitChanged(SocketAddress host, int limit) {
+        }
+
+        /**
+         * Invoked when a request was rejected because the limit of the host is reached.
+         *
+         * @param host the remote address of the host.
+         * @param limit the limit of the host.
+         */
+        default void onRejected(SocketAddress host, int limit) {
+        }
+    }
+
+    /**
+     * A builder for {@link ConcurrencyLimitingHttpRequesterFilter}.
+     */
+    public static final class Builder {
+        private static final Observer NOOP_OBSERVER = new Observer() { };
+
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 1000;
+        private boolean gradient;
+        private double backoffRatio = 0.9;
+        private long timeoutNanos = Duration.ofSeconds(5).toNanos();
+        private double tolerance = 1.5;
+        private double smoothing = 0.2;
+        private Observer observer = NOOP_OBSERVER;
+
+        /**
+         * Sets the bounds of the limit and the limit to start with, for each host. The defaults are {@code 20}
+         * initially, between {@code 1} and {@code 1000}.
+         *
+         * @param initialLimit the limit to start with.
+         * @param minLimit the minimum limit.
+         * @param maxLimit the maximum limit.
+         * @return {@code this}.
+         */
+        public Builder limits(final int initialLimit, final int minLimit, final int maxLimit) {
+            if (minLimit <= 0 || initialLimit < minLimit || maxLimit < initialLimit) {
+                throw new IllegalArgumentException("initialLimit: " + initialLimit + ", minLimit: " + minLimit +
+                        ", maxLimit: " + maxLimit + " (expected 0 < minLimit <= initialLimit <= maxLimit)");
+            }
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Adapts the limit with the additive increase/multiplicative decrease scheme. This is the default, with a
+         * backoff ratio of {@code 0.9} and a timeout of 5 seconds.
+         *
+         * @param backoffRatio the ratio by which the limit is multiplied for every failed request, in {@code (0, 1)}.
+         * @param timeout requests taking longer than this are considered failed.
+         * @return {@code this}.
+         */
+        public Builder aimd(final double backoffRatio, final Duration timeout) {
+            if (!(backoffRatio > 0 && backoffRatio < 1)) {
+                throw new IllegalArgumentException("backoffRatio: " + backoffRatio + " (expected (0, 1))");
+            }
+            this.timeoutNanos = ensurePositive(timeout, "timeout").toNanos();
+            this.backoffRatio = backoffRatio;
+            this.gradient = false;
+            return this;
+        }
+
+        /**
+         * Adapts the limit to the gradient of the latency, like {@link ConcurrencyLimitingHttpServiceFilter}. The limit
+         * only follows the latency of successful requests.
+         *
+         * @param tolerance the tolerated ratio of the recent latency to the long term latency, at least {@code 1}.
+         * @param smoothing the weight of each new estimate of the limit, in {@code (0, 1]}.
+         * @return {@code this}.
+         */
+        public Builder gradient(final double tolerance, final double smoothing) {
+            if (!(tolerance >= 1)) {
+                throw new IllegalArgumentException("tolerance: " + tolerance + " (expected >= 1)");
+            }
+            if (!(smoothing > 0 && smoothing <= 1)) {
+                throw new IllegalArgumentException("smoothing: " + smoothing + " (expected (0, 1])");
+            }
+            this.tolerance = tolerance;
+            this.smoothing = smoothing;
+            this.gradient = true;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Observer} of the limits.
+         *
+         * @param observer the {@link Observer} of the limits.
+         * @return {@code this}.
+         */
+        public Builder observer(final Observer observer) {
+            this.observer = requireNonNull(observer);
+            return this;
+        }
+
+        /**
+         * Builds the {@link ConcurrencyLimitingHttpRequesterFilter} configured by this builder.
+         *
+         * @return a new {@link ConcurrencyLimitingHttpRequesterFilter}.
+         */
+        public ConcurrencyLimitingHttpRequesterFilter build() {
+            final int initialLimit = this.initialLimit;
+            final int minLimit = this.minLimit;
+            final int maxLimit = this.maxLimit;
+            final Supplier<ConcurrencyLimit> limitFactory;
+            if (gradient) {
+                final double tolerance = this.tolerance;
+                final double smoothing = this.smoothing;
+                limitFactory = () -> new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance,
+                        smoothing, System.nanoTime());
+            } else {
+                final double backoffRatio = this.backoffRatio;
+                final long timeoutNanos = this.timeoutNanos;
+                limitFactory = () -> new AimdConcurrencyLimit(initialLimit, minLimit, maxLimit, backoffRatio,
+                        timeoutNanos);
+            }
+            return new ConcurrencyLimitingHttpRequesterFilter(limitFactory, observer);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpServerBuilder;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import java.util.function.BiFunction;
+
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A filter which limits the number of concurrent requests of a server to a limit estimated from the measured latency,
+ * and rejects excess requests right away.
+ * <p>
+ * The limit follows the gradient algorithm of the
+ * <a href="https://github.com/Netflix/concurrency-limits">Netflix concurrency-limits</a> library: the latency of
+ * the recent requests is compared with the long term latency. While the recent latency stays within a
+ * {@link Builder#tolerance(double) tolerance} of the long term latency the limit grows, once requests queue up and the
+ * latency increases the limit shrinks. The latency of a request is measured until its response metadata is produced,
+ * the request counts towards the limit until the response is complete.
+ * <p>
+ * This filter should be added with
+ * {@link HttpServerBuilder#appendNonOffloadingServiceFilter(StreamingHttpServiceFilterFactory)}, so that excess
+ * requests are rejected on the IO thread, before any offloading and before their payload is read. By default requests
+ * are rejected with {@code 503 Service Unavailable}, see {@link Builder#rejectionResponse(BiFunction)}.
+ */
+public final class ConcurrencyLimitingHttpServiceFilter implements StreamingHttpServiceFilterFactory,
+                                                                   HttpExecutionStrategyInfluencer {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final BiFunction<HttpRequestMetaData, StreamingHttpResponseFactory, StreamingHttpResponse>
+            rejectionResponse;
+
+    private ConcurrencyLimitingHttpServiceFilter(final Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.tolerance = builder.tolerance;
+        this.smoothing = builder.smoothing;
+        this.rejectionResponse = builder.rejectionResponse;
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit,
+                tolerance, smoothing, System.nanoTime());
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                final int inFlight = limit.tryAcquire();
+                if (inFlight == 0) {
+                    return succeeded(rejectionResponse.apply(request, responseFactory));
+                }
+                final long startNanos = System.nanoTime();
+                return delegate().handle(ctx, request, responseFactory)
+                        .beforeOnSuccess(__ -> {
+                            final long nowNanos = System.nanoTime();
+                            limit.onSample(nowNanos - startNanos, inFlight, nowNanos);
+                        })
+                        .liftSync(new BeforeFinallyHttpOperator(limit::release));
+            }
+        };
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    /**
+     * A builder for {@link ConcurrencyLimitingHttpServiceFilter}.
+     */
+    public static final class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 1000;
+        private double tolerance = 1.5;
+        private double smoothing = 0.2;
+        private BiFunction<HttpRequestMetaData, StreamingHttpResponseFactory, StreamingHttpResponse>
+                rejectionResponse = (request, responseFactory) -> responseFactory.serviceUnavailable();
+
+        /**
+         * Sets the bounds of the limit and the limit to start with. The defaults are {@code 20} initially, between
+         * {@code 1} and {@code 1000}.
+         *
+         * @param initialLimit the limit to start with.
+         * @param minLimit the minimum limit.
+         * @param maxLimit the maximum limit.
+         * @return {@code this}.
+         */
+        public Builder limits(final int initialLimit, final int minLimit, final int maxLimit) {
+            if (minLimit <= 0 || initialLimit < minLimit || maxLimit < initialLimit) {
+                throw new IllegalArgumentException("initialLimit: " + initialLimit + ", minLimit: " + minLimit +
+                        ", maxLimit: " + maxLimit + " (expected 0 < minLimit <= initialLimit <= maxLimit)");
+            }
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets the factor by which the recent latency may exceed the long term latency before the limit shrinks. The
+         * default is {@code 1.5}.
+         *
+         * @param tolerance the tolerated ratio of the recent latency to the long term latency, at least {@code 1}.
+         * @return {@code this}.
+         */
+        public Builder tolerance(final double tolerance) {
+            if (!(tolerance >= 1)) {
+                throw new IllegalArgumentException("tolerance: " + tolerance + " (expected >= 1)");
+            }
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Sets the weight of each new estimate of the limit, higher values react faster. The default is {@code 0.2}.
+         *
+         * @param smoothing the weight of each new estimate of the limit, in {@code (0, 1]}.
+         * @return {@code this}.
+         */
+        public Builder smoothing(final double smoothing) {
+            if (!(smoothing > 0 && smoothing <= 1)) {
+                throw new IllegalArgumentException("smoothing: " + smoothing + " (expected (0, 1])");
+            }
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Sets the function which creates the responses of rejected requests. It is invoked on the IO thread and must
+         * not block. The default responds with {@code 503 Service Unavailable}. gRPC servers would rather respond with
+         * the {@code RESOURCE_EXHAUSTED} status:
+         * <pre>{@code
+         *     (request, responseFactory) -> responseFactory.ok()
+         *             .setHeader(CONTENT_TYPE, "application/grpc")
+         *             .setHeader("grpc-status", "8")
+         * }</pre>
+         *
+         * @param rejectionResponse the function which creates the responses of rejected requests.
+         * @return {@code this}.
+         */
+        public Builder rejectionResponse(final BiFunction<HttpRequestMetaData, StreamingHttpResponseFactory,
+                StreamingHttpResponse> rejectionResponse) {
+            this.rejectionResponse = requireNonNull(rejectionResponse);
+            return this;
+        }
+
+        /**
+         * Builds the {@link ConcurrencyLimitingHttpServiceFilter} configured by this builder.
+         *
+         * @return a new {@link ConcurrencyLimitingHttpServiceFilter}.
+         */
+        public ConcurrencyLimitingHttpServiceFilter build() {
+            return new ConcurrencyLimitingHttpServiceFilter(this);
+        }
+    }
+}
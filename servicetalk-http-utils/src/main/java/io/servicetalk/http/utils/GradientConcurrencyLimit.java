@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * A concurrency limit which adapts to the measured round trip time, following the gradient algorithm of the
+ * <a href="https://github.com/Netflix/concurrency-limits">Netflix concurrency-limits</a> library (Gradient2).
+ * <p>
+ * Samples are aggregated in windows of at least {@link #WINDOW_NANOS} and {@link #MIN_WINDOW_SAMPLES} samples. At
+ * the end of each window, the average round trip time of the window (short RTT) is compared with an exponential
+ * moving average of the previous windows (long RTT). While the short RTT stays within {@code tolerance} times the long
+ * RTT, the limit grows by a queue allowance of {@code sqrt(limit)}; when it exceeds it, the limit shrinks
+ * proportionally. The limit does not grow while less than half of it is used.
+ * <p>
+ * Only the thread which closes a window updates the limit.
+ */
+final class GradientConcurrencyLimit extends ConcurrencyLimit {
+
+    private static final long WINDOW_NANOS = MILLISECONDS.toNanos(100);
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    /**
+     * Number of windows covered by the exponential moving average of the long RTT.
+     */
+    private static final int LONG_WINDOWS = 100;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final AtomicLong windowRttSum = new AtomicLong();
+    private final AtomicInteger windowSamples = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean();
+    private volatile int limit;
+    private volatile long windowEndNanos;
+    // Only accessed by the thread which closes a window.
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    GradientConcurrencyLimit(final int initialLimit, final int minLimit, final int maxLimit, final double tolerance,
+                             final double smoothing, final long nowNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+        this.windowEndNanos = nowNanos + WINDOW_NANOS;
+    }
+
+    @Override
+    void onSample(final long rttNanos, final int inFlight, final long nowNanos) {
+        windowRttSum.addAndGet(rttNanos);
+        windowMaxInFlight.accumulateAndGet(inFlight, Math::max);
+        if (windowSamples.incrementAndGet() < MIN_WINDOW_SAMPLES || nowNanos - windowEndNanos < 0 ||
+                !updating.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Samples recorded concurrently may be attributed to the next window, which is fine for an average.
+            final int samples = windowSamples.getAndSet(0);
+            final long rttSum = windowRttSum.getAndSet(0);
+            final int maxInFlight = windowMaxInFlight.getAndSet(0);
+            windowEndNanos = nowNanos + WINDOW_NANOS;
+            if (samples > 0) {
+                update((double) rttSum / samples, maxInFlight);
+            }
+        } finally {
+            updating.set(false);
+        }
+    }
+
+    @Override
+    int limit() {
+        return limit;
+    }
+
+    @Override
+    void onDrop(final int inFlight, final long nowNanos) {
+        // The latency of failed requests is not representative, the gradient only follows successful requests.
+    }
+
+    private void update(final double shortRttNanos, final int maxInFlight) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+        } else {
+            longRttNanos += (shortRttNanos - longRttNanos) * 2 / (LONG_WINDOWS + 1);
+        }
+        // If the RTT dropped substantially, converge the long RTT faster to recover from a steady-state increase.
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        if (maxInFlight < estimatedLimit / 2) {
+            // The limit is not the bottleneck, don't draw conclusions from the RTT.
+            return;
+        }
+        final double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        final double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - smoothing) + newLimit * smoothing));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.buffer.api.Buffer;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.encoding.api.ContentCodec;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpExecutionStrategyInfluencer;
+import io.servicetalk.http.api.HttpHeaders;
+import io.servicetalk.http.api.HttpRequest;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.StatelessTrailersTransformer;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.never;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.utils.internal.DurationUtils.ensurePositive;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A filter to hedge HTTP requests: if no response arrives within a delay, a second copy of the request is sent and the
+ * first response of either copy is used, the other copy is cancelled.
+ * <p>
+ * Hedging trades additional load for lower tail latency. The delay is either {@link Builder#delay(Duration) fixed}
+ * or a {@link Builder#delayPercentile(double, Duration) percentile} of recent response latencies. Hedges are bounded by
+ * a {@link Builder#budget(double, int) budget} proportional to the number of requests, so that hedging doesn't amplify
+ * the load when all responses are slow, for example during an outage.
+ * <p>
+ * If a copy fails while the other copy is still pending, the result of the other copy is used. A copy which
+ * fails before the hedge is sent fails the request, failures are left to retry filters.
+ * <p>
+ * <b>Note:</b> Hedged {@link StreamingHttpRequest requests} are sent twice, hence they must be safe to repeat. By
+ * default only <a href="https://tools.ietf.org/html/rfc7231#section-4.2.2">idempotent</a> requests are hedged, see
+ * {@link Builder#hedgeFor(Predicate)}. The {@link StreamingHttpRequest#payloadBody() payload body} of a hedged request
+ * is aggregated before the request is sent, and each copy is sent with its own copy of the metadata and payload body,
+ * so hedging is not suitable for large streaming payloads.
+ * <p>
+ * The order with which this filter is applied is significant: a timeout filter appended before this filter bounds
+ * both copies together, a timeout filter appended after this filter bounds each copy.
+ */
+public final class HedgingHttpRequesterFilter implements StreamingHttpClientFilterFactory,
+                                                         HttpExecutionStrategyInfluencer {
+
+    private final Predicate<HttpRequestMetaData> hedgeFor;
+    private final long delayNanos;
+    private final double percentile;
+    private final double budgetRatio;
+    private final int budgetBurst;
+
+    private HedgingHttpRequesterFilter(final Predicate<HttpRequestMetaData> hedgeFor, final long delayNanos,
+                                       final double percentile, final double budgetRatio, final int budgetBurst) {
+        this.hedgeFor = hedgeFor;
+        this.delayNanos = delayNanos;
+        this.percentile = percentile;
+        this.budgetRatio = budgetRatio;
+        this.budgetBurst = budgetBurst;
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+
+            private final Executor executor = client.executionContext().executor();
+            private final HedgeDelay hedgeDelay = percentile > 0 ? new PercentileDelay(percentile, delayNanos) :
+                    new HedgeDelay(delayNanos);
+            private final HedgingBudget budget = new HedgingBudget(budgetRatio, budgetBurst);
+
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                if (!hedgeFor.test(request)) {
+                    return delegate.request(strategy, request);
+                }
+                // Both copies are written concurrently, hence each needs its own metadata and payload body.
+                return request.toRequest().flatMap(aggregated -> {
+                    budget.deposit();
+                    final HedgedRequest hedged = new HedgedRequest(hedgeDelay);
+                    final Single<StreamingHttpResponse> hedge = executor.timer(hedgeDelay.delayNanos(), NANOSECONDS)
+                            .concat(defer(() -> {
+                                if (!budget.tryWithdraw()) {
+                                    // The original request remains the only one.
+                                    return never();
+                                }
+                                hedged.pending.incrementAndGet();
+                                return hedged.guard(delegate.request(strategy, copyOf(delegate, aggregated)))
+                                        .subscribeShareContext();
+                            }));
+                    return hedged.guard(delegate.request(strategy, copyOf(delegate, aggregated))).ambWith(hedge)
+                            .subscribeShareContext();
+                });
+            }
+        };
+    }
+
+    @SuppressWarnings("deprecation")
+    private static StreamingHttpRequest copyOf(final StreamingHttpRequestFactory factory,
+                                               final HttpRequest aggregated) {
+        final StreamingHttpRequest copy = factory.newRequest(aggregated.method(), aggregated.requestTarget())
+                .version(aggregated.version())
+                .contentEncoding(aggregated.contentEncoding());
+        final ContentCodec encoding = aggregated.encoding();
+        if (encoding != null) {
+            copy.encoding(encoding);
+        }
+        copy.headers().set(aggregated.headers());
+        final Buffer payloadBody = aggregated.payloadBody();
+        if (payloadBody.readableBytes() > 0) {
+            // Each copy reads the payload body with its own indexes.
+            copy.payloadBody(from(payloadBody.duplicate()));
+        }
+        final HttpHeaders trailers = aggregated.trailers();
+        if (!trailers.isEmpty()) {
+            copy.transform(new StatelessTrailersTransformer<Buffer>() {
+                @Override
+                protected HttpHeaders payloadComplete(final HttpHeaders copyTrailers) {
+                    return copyTrailers.set(trailers);
+                }
+            });
+        }
+        return copy;
+    }
+
+    @Override
+    public HttpExecutionStrategy influenceStrategy(final HttpExecutionStrategy strategy) {
+        // No influence since we do not block.
+        return strategy;
+    }
+
+    /**
+     * State of a request and its hedge. Makes sure that only the first response is used and the response of the other
+     * copy is drained, and that a failed copy waits for the other copy if it is still pending.
+     */
+    private static final class HedgedRequest {
+        private final HedgeDelay hedgeDelay;
+        private final long startNanos = System.nanoTime();
+        final AtomicInteger pending = new AtomicInteger(1);
+        private final AtomicInteger responses = new AtomicInteger();
+
+        HedgedRequest(final HedgeDelay hedgeDelay) {
+            this.hedgeDelay = hedgeDelay;
+        }
+
+        Single<StreamingHttpResponse> guard(final Single<StreamingHttpResponse> response) {
+            return response.flatMap(resp -> {
+                if (responses.getAndIncrement() == 0) {
+                    hedgeDelay.record(System.nanoTime() - startNanos);
+                    return succeeded(resp);
+                }
+                // Both copies responded concurrently, the payload of the loser must be consumed.
+                resp.messageBody().ignoreElements().subscribe();
+                return never();
+            }).onErrorResume(t -> pending.decrementAndGet() > 0 ? never() : failed(t));
+        }
+    }
+
+    /**
+     * A fixed hedging delay.
+     */
+    private static class HedgeDelay {
+        private final long delayNanos;
+
+        HedgeDelay(final long delayNanos) {
+            this.delayNanos = delayNanos;
+        }
+
+        long delayNanos() {
+            return delayNanos;
+        }
+
+        void record(final long latencyNanos) {
+        }
+    }
+
+    /**
+     * A hedging delay equal to a percentile of the most recent response latencies. The percentile is recomputed after
+     * every {@link #RECOMPUTE_INTERVAL} responses, the initial delay is used until then.
+     */
+    private static final class PercentileDelay extends HedgeDelay {
+        private static final int SAMPLES = 256;
+        private static final int RECOMPUTE_INTERVAL = 64;
+
+        private final double percentile;
+        private final AtomicLongArray samples = new AtomicLongArray(SAMPLES);
+        private final AtomicLong recorded = new AtomicLong();
+        private volatile long delayNanos;
+
+        PercentileDelay(final double percentile, final long initialDelayNanos) {
+            super(initialDelayNanos);
+            this.percentile = percentile;
+            this.delayNanos = initialDelayNanos;
+        }
+
+        @Override
+        long delayNanos() {
+            return delayNanos;
+        }
+
+        @Override
+        void record(final long latencyNanos) {
+            final long count = recorded.incrementAndGet();
+            samples.set((int) ((count - 1) % SAMPLES), latencyNanos);
+            if (count % RECOMPUTE_INTERVAL == 0) {
+                final int size = (int) Math.min(count, SAMPLES);
+                final long[] sorted = new long[size];
+                for (int i = 0; i < size; ++i) {
+                    sorted[i] = samples.get(i);
+                }
+                Arrays.sort(sorted);
+                final int index = (int) Math.ceil(percentile / 100 * size) - 1;
+                delayNanos = Math.max(1, sorted[Math.max(0, index)]);
+            }
+        }
+    }
+
+    /**
+     * A token bucket which gains {@code ratio} tokens for every request, up to {@code burst} tokens, and loses a token
+     * for every hedge. Tokens are counted in thousandths.
+     */
+    private static final class HedgingBudget {
+        private static final long TOKEN = 1000;
+
+        private final long deposit;
+        private final long maxBalance;
+        private final AtomicLong balance;
+
+        HedgingBudget(final double ratio, final int burst) {
+            this.deposit = (long) (ratio * TOKEN);
+            this.maxBalance = burst * TOKEN;
+            this.balance = new AtomicLong(maxBalance);
+        }
+
+        void deposit() {
+            for (;;) {
+                final long current = balance.get();
+                if (current >= maxBalance || balance.compareAndSet(current, Math.min(maxBalance, current + deposit))) {
+                    return;
+                }
+            }
+        }
+
+        boolean tryWithdraw() {
+            for (;;) {
+                final long current = balance.get();
+                if (current < TOKEN) {
+                    return false;
+                }
+                if (balance.compareAndSet(current, current - TOKEN)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * A builder for {@link HedgingHttpRequesterFilter}.
+     */
+    public static final class Builder {
+        private Predicate<HttpRequestMetaData> hedgeFor = meta -> meta.method().properties().isIdempotent();
+        private long delayNanos = MILLISECONDS.toNanos(100);
+        private double percentile = 95;
+        private double budgetRatio = 0.1;
+        private int budgetBurst = 10;
+
+        /**
+         * Sends the hedge after a fixed delay.
+         *
+         * @param delay the delay after which the hedge is sent if no response arrived.
+         * @return {@code this}.
+         */
+        public Builder delay(final Duration delay) {
+            this.delayNanos = ensurePositive(delay, "delay").toNanos();
+            this.percentile = 0;
+            return this;
+        }
+
+        /**
+         * Sends the hedge after a delay equal to a percentile of the latencies of the most recent responses. This is
+         * the default, with the 95th percentile and an initial delay of 100 milliseconds.
+         *
+         * @param percentile the percentile of the response latencies, in {@code (0, 100]}.
+         * @param initialDelay the delay used until enough responses are observed.
+         * @return {@code this}.
+         */
+        public Builder delayPercentile(final double percentile, final Duration initialDelay) {
+            if (!(percentile > 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("percentile: " + percentile + " (expected (0, 100])");
+            }
+            this.delayNanos = ensurePositive(initialDelay, "initialDelay").toNanos();
+            this.percentile = percentile;
+            return this;
+        }
+
+        /**
+         * Sets the budget of hedges. Every request adds {@code ratio} to the budget, up to {@code burst}, and every
+         * hedge consumes {@code 1}. Hence at most a {@code ratio} fraction of requests is hedged over time. The
+         * default is a ratio of {@code 0.1} and a burst of {@code 10}.
+         *
+         * @param ratio the maximum ratio of hedges to requests, in {@code [0, 1]}.
+         * @param burst the maximum number of hedges which can be sent in a row.
+         * @return {@code this}.
+         */
+        public Builder budget(final double ratio, final int burst) {
+            if (!(ratio >= 0 && ratio <= 1)) {
+                throw new IllegalArgumentException("ratio: " + ratio + " (expected [0, 1])");
+            }
+            if (burst < 0) {
+                throw new IllegalArgumentException("burst: " + burst + " (expected >= 0)");
+            }
+            this.budgetRatio = ratio;
+            this.budgetBurst = burst;
+            return this;
+        }
+
+        /**
+         * Selects the requests which are hedged. By default only
+         * <a href="https://tools.ietf.org/html/rfc7231#section-4.2.2">idempotent</a> requests are hedged.
+         *
+         * @param hedgeFor {@link Predicate} which returns {@code true} for requests which are hedged.
+         * @return {@code this}.
+         */
+        public Builder hedgeFor(final Predicate<HttpRequestMetaData> hedgeFor) {
+            this.hedgeFor = requireNonNull(hedgeFor);
+            return this;
+        }
+
+        /**
+         * Builds the {@link HedgingHttpRequesterFilter} configured by this builder.
+         *
+         * @return a new {@link HedgingHttpRequesterFilter}.
+         */
+        public HedgingHttpRequesterFilter build() {
+            return new HedgingHttpRequesterFilter(hedgeFor, delayNanos, percentile, budgetRatio, budgetBurst);
+        }
+    }
+}
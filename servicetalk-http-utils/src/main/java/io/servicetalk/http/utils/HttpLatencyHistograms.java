@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.http.api.HttpResponseStatus.StatusClass;
+import io.servicetalk.transport.metrics.Histogram;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * The histograms of the requests of one route with one {@link StatusClass}, over one export interval of
+ * {@link HttpLatencyMetrics}.
+ * <p>
+ * Latencies are in nanoseconds and payload sizes in bytes.
+ */
+public final class HttpLatencyHistograms {
+    private static final AtomicIntegerFieldUpdater<HttpLatencyHistograms> writersUpdater =
+            newUpdater(HttpLatencyHistograms.class, "writers");
+
+    private final String route;
+    @Nullable
+    private final StatusClass statusClass;
+    private final Histogram timeToFirstByte = new Histogram();
+    private final Histogram timeToLastByte = new Histogram();
+    private final Histogram requestPayloadSize = new Histogram();
+    private final Histogram responsePayloadSize = new Histogram();
+    // The number of requests which may be recording into these histograms.
+    private volatile int writers;
+
+    HttpLatencyHistograms(final String route, @Nullable final StatusClass statusClass) {
+        this.route = route;
+        this.statusClass = statusClass;
+    }
+
+    /**
+     * The route of the requests.
+     *
+     * @return the route of the requests.
+     */
+    public String route() {
+        return route;
+    }
+
+    /**
+     * The {@link StatusClass} of the responses.
+     *
+     * @return the {@link StatusClass} of the responses, or {@code null} for requests which failed or were cancelled
+     * before the response completed, even if the response meta-data was received.
+     */
+    @Nullable
+    public StatusClass statusClass() {
+        return statusClass;
+    }
+
+    /**
+     * The time from the start of the request to the response meta-data. Requests which failed before the response
+     * meta-data was received are not counted.
+     *
+     * @return the time from the start of the request to the response meta-data, in nanoseconds.
+     */
+    public Histogram timeToFirstByte() {
+        return timeToFirstByte;
+    }
+
+    /**
+     * The time from the start of the request to the end of the response payload body. Its count is the number of
+     * requests.
+     *
+     * @return the time from the start of the request to the end of the response payload body, in nanoseconds.
+     */
+    public Histogram timeToLastByte() {
+        return timeToLastByte;
+    }
+
+    /**
+     * The size of the request payload bodies.
+     *
+     * @return the size of the request payload bodies, in bytes.
+     */
+    public Histogram requestPayloadSize() {
+        return requestPayloadSize;
+    }
+
+    /**
+     * The size of the response payload bodies.
+     *
+     * @return the size of the response payload bodies, in bytes.
+     */
+    public Histogram responsePayloadSize() {
+        return responsePayloadSize;
+    }
+
+    void startWrite() {
+        writersUpdater.incrementAndGet(this);
+    }
+
+    void endWrite() {
+        writersUpdater.decrementAndGet(this);
+    }
+
+    boolean hasWriters() {
+        return writers != 0;
+    }
+
+    void record(final long timeToFirstByteNanos, final long timeToLastByteNanos, final long requestPayloadSize,
+                final long responsePayloadSize) {
+        if (timeToFirstByteNanos >= 0) {
+            timeToFirstByte.record(timeToFirstByteNanos);
+        }
+        timeToLastByte.record(timeToLastByteNanos);
+        this.requestPayloadSize.record(requestPayloadSize);
+        this.responsePayloadSize.record(responsePayloadSize);
+    }
+
+    void reset() {
+        timeToFirstByte.reset();
+        timeToLastByte.reset();
+        requestPayloadSize.reset();
+        responsePayloadSize.reset();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() +
+                "{route=" + route +
+                ", statusClass=" + statusClass +
+                ", timeToFirstByte=" + timeToFirstByte +
+                ", timeToLastByte=" + timeToLastByte +
+                ", requestPayloadSize=" + requestPayloadSize +
+                ", responsePayloadSize=" + responsePayloadSize +
+                '}';
+    }
+}
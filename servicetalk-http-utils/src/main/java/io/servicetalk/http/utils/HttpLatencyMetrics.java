@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.http.api.HttpResponseStatus.StatusClass;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nullable;
+
+/**
+ * Latency and payload size histograms of HTTP requests per route and {@link StatusClass}, recorded by
+ * {@link HttpLatencyMetricsRequesterFilter} and {@link HttpLatencyMetricsServiceFilter}.
+ * <p>
+ * The histograms cover the interval since the previous {@link #export(Sink) export}. Each route and status class has
+ * two sets of histograms: one records new requests while the other one is exported, then reset and reused for the next
+ * interval, so exporting does not allocate nor block the requests. A request which completes concurrently with an
+ * export may be attributed to either interval, but it is not lost: the export waits for the requests which are still
+ * recording into the histograms it exports.
+ */
+public final class HttpLatencyMetrics {
+    // The slot of requests without a status class, which failed or were cancelled.
+    private static final int FAILED = StatusClass.values().length;
+
+    private final ConcurrentMap<String, AtomicReferenceArray<Slot>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance, which can be shared by multiple filters.
+     */
+    public HttpLatencyMetrics() {
+    }
+
+    /**
+     * Exports the histograms of the requests since the previous export to {@code sink}, one
+     * {@link HttpLatencyHistograms} per route and {@link StatusClass} which had requests.
+     * <p>
+     * The {@link HttpLatencyHistograms} are only valid during the invocation of
+     * {@link Sink#export(HttpLatencyHistograms)} and are reused afterwards.
+     *
+     * @param sink the {@link Sink} to export the histograms to.
+     */
+    public synchronized void export(final Sink sink) {
+        for (Map.Entry<String, AtomicReferenceArray<Slot>> entry : routes.entrySet()) {
+            final AtomicReferenceArray<Slot> slots = entry.getValue();
+            for (int i = 0; i < slots.length(); ++i) {
+                final Slot slot = slots.get(i);
+                if (slot == null) {
+                    continue;
+                }
+                final HttpLatencyHistograms interval = slot.active;
+                HttpLatencyHistograms next = slot.spare;
+                if (next == null) {
+                    next = new HttpLatencyHistograms(interval.route(), interval.statusClass());
+                } else {
+                    next.reset();
+                }
+                slot.active = next;
+                slot.spare = interval;
+                // Requests which read the previous histograms before the swap may still be recording into them.
+                while (interval.hasWriters()) {
+                    Thread.yield();
+                }
+                if (interval.timeToFirstByte().count() > 0 || interval.timeToLastByte().count() > 0) {
+                    sink.export(interval);
+                }
+            }
+        }
+    }
+
+    void record(final String route, @Nullable final StatusClass statusClass, final long timeToFirstByteNanos,
+                final long timeToLastByteNanos, final long requestPayloadSize, final long responsePayloadSize) {
+        final Slot slot = slot(route, statusClass);
+        for (;;) {
+            final HttpLatencyHistograms histograms = slot.active;
+            histograms.startWrite();
+            try {
+                // If the histograms were swapped before they saw this writer, the export may not wait for it.
+                if (histograms == slot.active) {
+                    histograms.record(timeToFirstByteNanos, timeToLastByteNanos, requestPayloadSize,
+                            responsePayloadSize);
+                    return;
+                }
+            } finally {
+                histograms.endWrite();
+            }
+        }
+    }
+
+    private Slot slot(final String route, @Nullable final StatusClass statusClass) {
+        AtomicReferenceArray<Slot> slots = routes.get(route);
+        if (slots == null) {
+            slots = routes.computeIfAbsent(route, __ -> new AtomicReferenceArray<>(FAILED + 1));
+        }
+        final int index = statusClass == null ? FAILED : statusClass.ordinal();
+        Slot slot = slots.get(index);
+        if (slot == null) {
+            final Slot newSlot = new Slot(new HttpLatencyHistograms(route, statusClass));
+            slot = slots.compareAndSet(index, null, newSlot) ? newSlot : slots.get(index);
+        }
+        return slot;
+    }
+
+    /**
+     * Receives the histograms exported by {@link HttpLatencyMetrics#export(Sink)}, for example to publish them to a
+     * metrics library.
+     */
+    @FunctionalInterface
+    public interface Sink {
+
+        /**
+         * Exports the histograms of one route and {@link StatusClass}.
+         *
+         * @param histograms the histograms of one route and {@link StatusClass}, only valid during this invocation.
+         */
+        void export(HttpLatencyHistograms histograms);
+    }
+
+    private static final class Slot {
+        volatile HttpLatencyHistograms active;
+        // Only accessed while exporting.
+        @Nullable
+        HttpLatencyHistograms spare;
+
+        Slot(final HttpLatencyHistograms active) {
+            this.active = active;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.StreamingHttpClientFilter;
+import io.servicetalk.http.api.StreamingHttpClientFilterFactory;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpConnectionFilterFactory;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import java.util.function.Function;
+
+/**
+ * A filter which records the latency and the payload sizes of HTTP requests on the client-side into
+ * {@link HttpLatencyMetrics}, per route and status class of the response.
+ * <p>
+ * The time to first byte ends when the response meta-data is received, the time to last byte ends when the response
+ * payload body completes. Requests which fail or are cancelled before the response completes are recorded without a
+ * status class.
+ * <p>
+ * When appended to a client the latency includes the selection of a connection, when appended to a connection it
+ * only covers the request on that connection.
+ */
+public final class HttpLatencyMetricsRequesterFilter extends AbstractHttpLatencyMetricsFilter
+        implements StreamingHttpClientFilterFactory, StreamingHttpConnectionFilterFactory {
+
+    /**
+     * Creates a new instance which uses the request method as the route.
+     *
+     * @param metrics the {@link HttpLatencyMetrics} to record the requests into.
+     */
+    public HttpLatencyMetricsRequesterFilter(final HttpLatencyMetrics metrics) {
+        this(metrics, DEFAULT_ROUTE_MAPPER);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param metrics the {@link HttpLatencyMetrics} to record the requests into.
+     * @param routeMapper maps each request to its route. The number of distinct routes should be bounded, for example
+     * by using a path template instead of the path.
+     */
+    public HttpLatencyMetricsRequesterFilter(final HttpLatencyMetrics metrics,
+                                             final Function<? super HttpRequestMetaData, String> routeMapper) {
+        super(metrics, routeMapper);
+    }
+
+    @Override
+    public StreamingHttpClientFilter create(final FilterableStreamingHttpClient client) {
+        return new StreamingHttpClientFilter(client) {
+            @Override
+            protected Single<StreamingHttpResponse> request(final StreamingHttpRequester delegate,
+                                                            final HttpExecutionStrategy strategy,
+                                                            final StreamingHttpRequest request) {
+                return withMetrics(request, r -> delegate.request(strategy, r));
+            }
+        };
+    }
+
+    @Override
+    public StreamingHttpConnectionFilter create(final FilterableStreamingHttpConnection connection) {
+        return new StreamingHttpConnectionFilter(connection) {
+            @Override
+            public Single<StreamingHttpResponse> request(final HttpExecutionStrategy strategy,
+                                                         final StreamingHttpRequest request) {
+                return withMetrics(request, r -> delegate().request(strategy, r));
+            }
+        };
+    }
+}
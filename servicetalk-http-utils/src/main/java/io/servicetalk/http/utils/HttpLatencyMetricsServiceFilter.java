@@ -0,0 +1,73 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+import io.servicetalk.http.api.StreamingHttpServiceFilterFactory;
+
+import java.util.function.Function;
+
+/**
+ * A filter which records the latency and the payload sizes of HTTP requests on the server-side into
+ * {@link HttpLatencyMetrics}, per route and status class of the response.
+ * <p>
+ * The time to first byte ends when the service returns the response meta-data, the time to last byte ends when the
+ * response payload body completes. Requests which fail or are cancelled before the response completes are recorded
+ * without a status class.
+ */
+public final class HttpLatencyMetricsServiceFilter extends AbstractHttpLatencyMetricsFilter
+        implements StreamingHttpServiceFilterFactory {
+
+    /**
+     * Creates a new instance which uses the request method as the route.
+     *
+     * @param metrics the {@link HttpLatencyMetrics} to record the requests into.
+     */
+    public HttpLatencyMetricsServiceFilter(final HttpLatencyMetrics metrics) {
+        this(metrics, DEFAULT_ROUTE_MAPPER);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param metrics the {@link HttpLatencyMetrics} to record the requests into.
+     * @param routeMapper maps each request to its route. The number of distinct routes should be bounded, for example
+     * by using a path template instead of the path.
+     */
+    public HttpLatencyMetricsServiceFilter(final HttpLatencyMetrics metrics,
+                                           final Function<? super HttpRequestMetaData, String> routeMapper) {
+        super(metrics, routeMapper);
+    }
+
+    @Override
+    public StreamingHttpServiceFilter create(final StreamingHttpService service) {
+        return new StreamingHttpServiceFilter(service) {
+            @Override
+            public Single<StreamingHttpResponse> handle(final HttpServiceContext ctx,
+                                                        final StreamingHttpRequest request,
+                                                        final StreamingHttpResponseFactory responseFactory) {
+                return withMetrics(request, r -> delegate().handle(ctx, r, responseFactory));
+            }
+        };
+    }
+}
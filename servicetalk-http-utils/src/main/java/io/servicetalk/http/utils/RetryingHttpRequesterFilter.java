@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@ package io.servicetalk.http.utils;
 
 import io.servicetalk.client.api.AbstractRetryingFilterBuilder;
 import io.servicetalk.client.api.AbstractRetryingFilterBuilder.ReadOnlyRetryableSettings;
+import io.servicetalk.client.api.RetryBudget;
 import io.servicetalk.concurrent.api.BiIntFunction;
 import io.servicetalk.concurrent.api.Completable;
 import io.servicetalk.concurrent.api.Publisher;
@@ -59,12 +60,14 @@ public final class RetryingHttpRequesterFilter implements StreamingHttpClientFil
                                                   final HttpExecutionStrategy strategy,
                                                   final StreamingHttpRequest request,
                                                   final BiIntFunction<Throwable, Completable> retryStrategy) {
-        return delegate.request(strategy, request).retryWhen((count, t) -> {
+        final Single<StreamingHttpResponse> response = delegate.request(strategy, request).retryWhen((count, t) -> {
             if (settings.isRetryable(request, t)) {
                 return retryStrategy.apply(count, t);
             }
             return failed(t);
         });
+        final RetryBudget retryBudget = settings.retryBudget();
+        return retryBudget == null ? response : retryBudget.recordSuccess(response);
     }
 
     @Override
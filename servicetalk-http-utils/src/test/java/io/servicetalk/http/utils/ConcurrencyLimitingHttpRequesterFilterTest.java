@@ -0,0 +1,170 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.client.api.MaxRequestLimitExceededException;
+import io.servicetalk.concurrent.CompletableSource;
+import io.servicetalk.concurrent.SingleSource.Processor;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.FilterableStreamingHttpConnection;
+import io.servicetalk.http.api.HttpConnectionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.StreamingHttpConnectionFilter;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Processors.newCompletableProcessor;
+import static io.servicetalk.concurrent.api.Processors.newSingleProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitingHttpRequesterFilterTest {
+
+    private static final SocketAddress HOST = InetSocketAddress.createUnresolved("host", 80);
+
+    private final StreamingHttpResponseFactory responseFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    private final List<Processor<StreamingHttpResponse, StreamingHttpResponse>> responses = new ArrayList<>();
+    private final List<String> events = new CopyOnWriteArrayList<>();
+    private final ConcurrencyLimitingHttpRequesterFilter filterFactory =
+            new ConcurrencyLimitingHttpRequesterFilter.Builder()
+                    .limits(2, 1, 10)
+                    .aimd(0.5, Duration.ofSeconds(10))
+                    .observer(new ConcurrencyLimitingHttpRequesterFilter.Observer() {
+                        @Override
+                        public void onLimitChanged(final SocketAddress host, final int limit) {
+                            events.add("limit " + limit);
+                        }
+
+                        @Override
+                        public void onRejected(final SocketAddress host, final int limit) {
+                            events.add("rejected " + limit);
+                        }
+                    })
+                    .build();
+
+    @Test
+    void excessRequestsFailFast() throws Exception {
+        final StreamingHttpConnectionFilter filter = filterFactory.create(newConnection(newCompletableProcessor()));
+        request(filter);
+        request(filter);
+        final ExecutionException e = assertThrows(ExecutionException.class, () -> request(filter).get());
+        assertThat(e.getCause(), is(instanceOf(MaxRequestLimitExceededException.class)));
+        assertThat(responses.size(), is(2));
+        assertThat(events, contains("rejected 2"));
+    }
+
+    @Test
+    void limitGrowsWithSuccessfulRequests() throws Exception {
+        final StreamingHttpConnectionFilter filter = filterFactory.create(newConnection(newCompletableProcessor()));
+        final Future<StreamingHttpResponse> first = request(filter);
+        request(filter);
+        complete(0, first);
+        // Two requests were in flight, which is the whole limit: it grows.
+        assertThat(events, contains("limit 3"));
+        request(filter);
+        request(filter);
+        assertThat(responses.size(), is(4));
+    }
+
+    @Test
+    void failuresAndOverloadResponsesShrinkTheLimit() {
+        final StreamingHttpConnectionFilter filter = filterFactory.create(newConnection(newCompletableProcessor()));
+        final Future<StreamingHttpResponse> first = request(filter);
+        final Future<StreamingHttpResponse> second = request(filter);
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThrows(ExecutionException.class, first::get);
+        assertThat(events, contains("limit 1"));
+
+        responses.get(1).onSuccess(responseFactory.serviceUnavailable());
+        // The limit is at its minimum already.
+        assertThat(events, contains("limit 1"));
+        assertThat(second.isDone(), is(true));
+    }
+
+    @Test
+    void closingAllConnectionsResetsTheLimit() throws Exception {
+        final CompletableSource.Processor closed = newCompletableProcessor();
+        final StreamingHttpConnectionFilter first = filterFactory.create(newConnection(closed));
+        final Future<StreamingHttpResponse> response = request(first);
+        request(first);
+        complete(0, response);
+        assertThat(events, contains("limit 3"));
+        closed.onComplete();
+
+        final StreamingHttpConnectionFilter second = filterFactory.create(newConnection(newCompletableProcessor()));
+        request(second);
+        request(second);
+        assertThrows(ExecutionException.class, () -> request(second).get());
+    }
+
+    @Test
+    void connectionsToTheSameHostShareTheLimit() {
+        final StreamingHttpConnectionFilter first = filterFactory.create(newConnection(newCompletableProcessor()));
+        final StreamingHttpConnectionFilter second = filterFactory.create(newConnection(newCompletableProcessor()));
+        request(first);
+        request(second);
+        assertThrows(ExecutionException.class, () -> request(first).get());
+        assertThat(responses.size(), is(2));
+    }
+
+    private void complete(final int index, final Future<StreamingHttpResponse> future) throws Exception {
+        responses.get(index).onSuccess(responseFactory.ok());
+        future.get().messageBody().ignoreElements().toFuture().get();
+    }
+
+    private Future<StreamingHttpResponse> request(final StreamingHttpConnectionFilter filter) {
+        return filter.request(mock(HttpExecutionStrategy.class), mock(StreamingHttpRequest.class)).toFuture();
+    }
+
+    private FilterableStreamingHttpConnection newConnection(final CompletableSource.Processor onClose) {
+        final FilterableStreamingHttpConnection connection = mock(FilterableStreamingHttpConnection.class);
+        final HttpConnectionContext connectionContext = mock(HttpConnectionContext.class);
+        when(connectionContext.remoteAddress()).thenReturn(HOST);
+        when(connection.connectionContext()).thenReturn(connectionContext);
+        when(connection.onClose()).thenReturn(fromSource(onClose));
+        when(connection.request(any(), any())).thenAnswer(invocation -> {
+            final Processor<StreamingHttpResponse, StreamingHttpResponse> processor = newSingleProcessor();
+            responses.add(processor);
+            return fromSource(processor);
+        });
+        return connection;
+    }
+}
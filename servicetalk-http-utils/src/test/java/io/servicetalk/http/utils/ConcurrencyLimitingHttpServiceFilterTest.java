@@ -0,0 +1,118 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.SingleSource.Processor;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpResponseFactory;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Processors.newSingleProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.SERVICE_UNAVAILABLE;
+import static io.servicetalk.http.api.HttpResponseStatus.TOO_MANY_REQUESTS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyLimitingHttpServiceFilterTest {
+
+    private final StreamingHttpResponseFactory responseFactory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    private final List<Processor<StreamingHttpResponse, StreamingHttpResponse>> responses = new ArrayList<>();
+    private final StreamingHttpService service = mock(StreamingHttpService.class);
+
+    @BeforeEach
+    void setUp() {
+        when(service.handle(any(), any(), any())).thenAnswer(invocation -> {
+            final Processor<StreamingHttpResponse, StreamingHttpResponse> processor = newSingleProcessor();
+            responses.add(processor);
+            return fromSource(processor);
+        });
+    }
+
+    @Test
+    void excessRequestsAreRejected() throws Exception {
+        final StreamingHttpServiceFilter filter = newFilter(new ConcurrencyLimitingHttpServiceFilter.Builder()
+                .limits(2, 1, 10));
+        handle(filter);
+        handle(filter);
+        final StreamingHttpResponse rejected = handle(filter).get();
+        assertThat(rejected.status(), is(SERVICE_UNAVAILABLE));
+        // Rejected requests don't reach the service.
+        assertThat(responses, hasSize(2));
+    }
+
+    @Test
+    void completedRequestsReleaseTheirPermit() throws Exception {
+        final StreamingHttpServiceFilter filter = newFilter(new ConcurrencyLimitingHttpServiceFilter.Builder()
+                .limits(1, 1, 10));
+        final Future<StreamingHttpResponse> first = handle(filter);
+        final StreamingHttpResponse response = responseFactory.ok();
+        responses.get(0).onSuccess(response);
+        assertThat(first.get(), is(sameInstance(response)));
+        // The permit is held until the payload body completes.
+        assertThat(handle(filter).get().status(), is(SERVICE_UNAVAILABLE));
+
+        response.messageBody().ignoreElements().toFuture().get();
+        handle(filter);
+        assertThat(responses, hasSize(2));
+    }
+
+    @Test
+    void customRejectionResponse() throws Exception {
+        final StreamingHttpServiceFilter filter = newFilter(new ConcurrencyLimitingHttpServiceFilter.Builder()
+                .limits(1, 1, 10)
+                .rejectionResponse((request, factory) -> factory.tooManyRequests()));
+        handle(filter);
+        assertThat(handle(filter).get().status(), is(TOO_MANY_REQUESTS));
+    }
+
+    @Test
+    void filterDoesNotRequireOffloading() {
+        assertThat(new ConcurrencyLimitingHttpServiceFilter.Builder().build().influenceStrategy(noOffloadsStrategy()),
+                is(noOffloadsStrategy()));
+    }
+
+    private StreamingHttpServiceFilter newFilter(final ConcurrencyLimitingHttpServiceFilter.Builder builder) {
+        return builder.build().create(service);
+    }
+
+    private Future<StreamingHttpResponse> handle(final StreamingHttpServiceFilter filter) {
+        return filter.handle(mock(HttpServiceContext.class), mock(StreamingHttpRequest.class), responseFactory)
+                .toFuture();
+    }
+}
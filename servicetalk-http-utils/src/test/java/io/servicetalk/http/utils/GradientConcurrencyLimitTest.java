@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+
+class GradientConcurrencyLimitTest {
+
+    private long nowNanos;
+
+    @Test
+    void limitIsEnforced() {
+        final GradientConcurrencyLimit limit = newLimit();
+        for (int i = 1; i <= 20; ++i) {
+            assertThat(limit.tryAcquire(), is(i));
+        }
+        assertThat(limit.tryAcquire(), is(0));
+        limit.release();
+        assertThat(limit.tryAcquire(), is(20));
+    }
+
+    @Test
+    void limitGrowsWhileLatencyIsStable() {
+        final GradientConcurrencyLimit limit = newLimit();
+        runWindows(limit, 20, 10, 20);
+        assertThat(limit.limit(), is(greaterThan(20)));
+    }
+
+    @Test
+    void limitShrinksWhenLatencyIncreases() {
+        final GradientConcurrencyLimit limit = newLimit();
+        runWindows(limit, 20, 10, 10);
+        final int stableLimit = limit.limit();
+        runWindows(limit, stableLimit, 40, 10);
+        assertThat(limit.limit(), is(lessThan(stableLimit)));
+    }
+
+    @Test
+    void limitDoesNotGrowWhenUnderused() {
+        final GradientConcurrencyLimit limit = newLimit();
+        runWindows(limit, 5, 10, 20);
+        assertThat(limit.limit(), is(20));
+    }
+
+    private GradientConcurrencyLimit newLimit() {
+        return new GradientConcurrencyLimit(20, 1, 1000, 1.5, 0.2, nowNanos);
+    }
+
+    private void runWindows(final GradientConcurrencyLimit limit, final int inFlight, final long rttMillis,
+                            final int windows) {
+        for (int window = 0; window < windows; ++window) {
+            nowNanos += MILLISECONDS.toNanos(100);
+            for (int i = 0; i < 10; ++i) {
+                limit.onSample(MILLISECONDS.toNanos(rttMillis), inFlight, nowNanos);
+            }
+        }
+    }
+}
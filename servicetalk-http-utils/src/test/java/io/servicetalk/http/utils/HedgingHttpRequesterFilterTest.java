@@ -0,0 +1,194 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.SingleSource.Processor;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.internal.DeliberateException;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.FilterableStreamingHttpClient;
+import io.servicetalk.http.api.HttpExecutionContext;
+import io.servicetalk.http.api.HttpExecutionStrategy;
+import io.servicetalk.http.api.HttpRequestMethod;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.StreamingHttpRequester;
+import io.servicetalk.http.api.StreamingHttpResponse;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Processors.newSingleProcessor;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpRequestMethod.GET;
+import static io.servicetalk.http.api.HttpRequestMethod.POST;
+import static java.lang.String.valueOf;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HedgingHttpRequesterFilterTest {
+
+    private static final StreamingHttpRequestResponseFactory REQ_RESP_FACTORY =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+
+    private final TestExecutor executor = new TestExecutor();
+    private final List<Processor<StreamingHttpResponse, StreamingHttpResponse>> responses = new ArrayList<>();
+    private final List<AtomicBoolean> cancelled = new ArrayList<>();
+    private final List<StreamingHttpRequest> requests = new ArrayList<>();
+    private final FilterableStreamingHttpClient client = mock(FilterableStreamingHttpClient.class);
+
+    @BeforeEach
+    void setUp() {
+        final HttpExecutionContext executionContext = mock(HttpExecutionContext.class);
+        when(executionContext.executor()).thenReturn(executor);
+        when(client.executionContext()).thenReturn(executionContext);
+        when(client.newRequest(any(), any())).thenAnswer(invocation ->
+                REQ_RESP_FACTORY.newRequest(invocation.getArgument(0), invocation.getArgument(1)));
+        when(client.request(any(), any())).thenAnswer(invocation -> {
+            requests.add(invocation.getArgument(1));
+            final Processor<StreamingHttpResponse, StreamingHttpResponse> processor = newSingleProcessor();
+            final AtomicBoolean cancel = new AtomicBoolean();
+            responses.add(processor);
+            cancelled.add(cancel);
+            return fromSource(processor).whenCancel(() -> cancel.set(true));
+        });
+    }
+
+    @Test
+    void fastResponseIsNotHedged() throws Exception {
+        final Future<StreamingHttpResponse> future = request(newFilter(), GET);
+        final StreamingHttpResponse response = mock(StreamingHttpResponse.class);
+        responses.get(0).onSuccess(response);
+        assertThat(future.get(), is(sameInstance(response)));
+
+        executor.advanceTimeBy(100, MILLISECONDS);
+        assertThat(responses, hasSize(1));
+    }
+
+    @Test
+    void firstResponseWinsAndLoserIsCancelled() throws Exception {
+        final Future<StreamingHttpResponse> future = request(newFilter(), GET);
+        executor.advanceTimeBy(10, MILLISECONDS);
+        assertThat(responses, hasSize(2));
+
+        final StreamingHttpResponse response = mock(StreamingHttpResponse.class);
+        responses.get(1).onSuccess(response);
+        assertThat(future.get(), is(sameInstance(response)));
+        assertThat(cancelled.get(0).get(), is(true));
+    }
+
+    @Test
+    void nonIdempotentRequestsAreNotHedged() {
+        request(newFilter(), POST);
+        executor.advanceTimeBy(100, MILLISECONDS);
+        assertThat(responses, hasSize(1));
+    }
+
+    @Test
+    void failedCopyWaitsForTheOther() throws Exception {
+        final Future<StreamingHttpResponse> future = request(newFilter(), GET);
+        executor.advanceTimeBy(10, MILLISECONDS);
+        responses.get(0).onError(DELIBERATE_EXCEPTION);
+        assertThat(future.isDone(), is(false));
+
+        final StreamingHttpResponse response = mock(StreamingHttpResponse.class);
+        responses.get(1).onSuccess(response);
+        assertThat(future.get(), is(sameInstance(response)));
+    }
+
+    @Test
+    void bothCopiesFailing() {
+        final Future<StreamingHttpResponse> future = request(newFilter(), GET);
+        executor.advanceTimeBy(10, MILLISECONDS);
+        responses.get(0).onError(new DeliberateException());
+        responses.get(1).onError(DELIBERATE_EXCEPTION);
+        final ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertThat(e.getCause(), is(instanceOf(DeliberateException.class)));
+    }
+
+    @Test
+    void copiesHaveTheirOwnMetadataAndPayloadBody() throws Exception {
+        final StreamingHttpRequester requester = new HedgingHttpRequesterFilter.Builder()
+                .delay(Duration.ofMillis(10))
+                .hedgeFor(__ -> true)
+                .build()
+                .create(client);
+        final StreamingHttpRequest request = REQ_RESP_FACTORY.post("/path")
+                .addHeader("x-test", "value")
+                .payloadBody(from(DEFAULT_ALLOCATOR.fromAscii("hello")));
+        requester.request(mock(HttpExecutionStrategy.class), request).toFuture();
+        executor.advanceTimeBy(10, MILLISECONDS);
+        assertThat(requests, hasSize(2));
+
+        final StreamingHttpRequest first = requests.get(0);
+        final StreamingHttpRequest second = requests.get(1);
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.headers(), is(not(sameInstance(first.headers()))));
+        for (StreamingHttpRequest copy : requests) {
+            assertThat(copy.method(), is(POST));
+            assertThat(copy.requestTarget(), is("/path"));
+            assertThat(valueOf(copy.headers().get("x-test")), is("value"));
+            assertThat(copy.toRequest().toFuture().get().payloadBody().toString(US_ASCII), is("hello"));
+        }
+    }
+
+    @Test
+    void budgetLimitsHedges() {
+        final StreamingHttpRequester requester = new HedgingHttpRequesterFilter.Builder()
+                .delay(Duration.ofMillis(10))
+                .budget(0, 1)
+                .build()
+                .create(client);
+        request(requester, GET);
+        request(requester, GET);
+        executor.advanceTimeBy(10, MILLISECONDS);
+        // Only the first request got a hedge, the budget is exhausted afterwards.
+        assertThat(responses, hasSize(3));
+    }
+
+    private StreamingHttpRequester newFilter() {
+        return new HedgingHttpRequesterFilter.Builder().delay(Duration.ofMillis(10)).build().create(client);
+    }
+
+    private static Future<StreamingHttpResponse> request(final StreamingHttpRequester requester,
+                                                         final HttpRequestMethod method) {
+        return requester.request(mock(HttpExecutionStrategy.class), REQ_RESP_FACTORY.newRequest(method, "/"))
+                .toFuture();
+    }
+}
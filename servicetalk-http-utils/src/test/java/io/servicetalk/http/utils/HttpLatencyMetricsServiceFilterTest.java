@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.http.api.DefaultHttpHeadersFactory;
+import io.servicetalk.http.api.DefaultStreamingHttpRequestResponseFactory;
+import io.servicetalk.http.api.HttpRequestMetaData;
+import io.servicetalk.http.api.HttpServiceContext;
+import io.servicetalk.http.api.StreamingHttpRequest;
+import io.servicetalk.http.api.StreamingHttpResponse;
+import io.servicetalk.http.api.StreamingHttpService;
+import io.servicetalk.http.api.StreamingHttpServiceFilter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.servicetalk.buffer.netty.BufferAllocators.DEFAULT_ALLOCATOR;
+import static io.servicetalk.concurrent.api.Publisher.from;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.http.api.HttpExecutionStrategies.noOffloadsStrategy;
+import static io.servicetalk.http.api.HttpProtocolVersion.HTTP_1_1;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.CLIENT_ERROR_4XX;
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SUCCESSFUL_2XX;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HttpLatencyMetricsServiceFilterTest {
+
+    private final DefaultStreamingHttpRequestResponseFactory factory =
+            new DefaultStreamingHttpRequestResponseFactory(DEFAULT_ALLOCATOR, DefaultHttpHeadersFactory.INSTANCE,
+                    HTTP_1_1);
+    private final StreamingHttpService service = mock(StreamingHttpService.class);
+    private final HttpLatencyMetrics metrics = new HttpLatencyMetrics();
+    private final List<String> exported = new ArrayList<>();
+    private final List<HttpLatencyHistograms> exportedHistograms = new ArrayList<>();
+
+    @Test
+    void recordsPerRouteAndStatusClass() throws Exception {
+        when(service.handle(any(), any(), any())).thenAnswer(invocation -> {
+            final StreamingHttpRequest request = invocation.getArgument(1);
+            return request.payloadBody().ignoreElements().concat(succeeded(
+                    request.path().equals("/missing") ? factory.notFound() :
+                            factory.ok().payloadBody(from(DEFAULT_ALLOCATOR.fromAscii("hello")))));
+        });
+        final StreamingHttpServiceFilter filter = new HttpLatencyMetricsServiceFilter(metrics,
+                HttpRequestMetaData::path).create(service);
+
+        handle(filter, factory.post("/echo").payloadBody(from(DEFAULT_ALLOCATOR.fromAscii("abc"))));
+        handle(filter, factory.post("/echo").payloadBody(from(DEFAULT_ALLOCATOR.fromAscii("abc"))));
+        handle(filter, factory.get("/missing"));
+
+        export();
+        assertThat(exported, hasSize(2));
+        final HttpLatencyHistograms echo = find("/echo");
+        assertThat(echo.statusClass(), is(SUCCESSFUL_2XX));
+        assertThat(echo.timeToFirstByte().count(), is(2L));
+        assertThat(echo.timeToLastByte().count(), is(2L));
+        assertThat(echo.requestPayloadSize().sum(), is(6L));
+        assertThat(echo.responsePayloadSize().sum(), is(10L));
+        assertThat(find("/missing").statusClass(), is(CLIENT_ERROR_4XX));
+
+        // The next interval only has the new requests.
+        handle(filter, factory.get("/missing"));
+        export();
+        assertThat(exported, hasSize(1));
+        assertThat(find("/missing").timeToLastByte().count(), is(1L));
+        export();
+        assertThat(exported, is(empty()));
+    }
+
+    @Test
+    void failedRequestsHaveNoStatusClass() throws Exception {
+        when(service.handle(any(), any(), any())).thenReturn(failed(new IllegalStateException("failed")));
+        final StreamingHttpServiceFilter filter = new HttpLatencyMetricsServiceFilter(metrics).create(service);
+
+        assertThrows(Exception.class, () -> handle(filter, factory.get("/")));
+        export();
+        assertThat(exported, hasSize(1));
+        final HttpLatencyHistograms histograms = find("GET");
+        assertThat(histograms.statusClass(), is(nullValue()));
+        assertThat(histograms.timeToFirstByte().count(), is(0L));
+        assertThat(histograms.timeToLastByte().count(), is(1L));
+    }
+
+    @Test
+    void requestFailingAfterResponseMetaDataIsRecordedInOneSlot() throws Exception {
+        when(service.handle(any(), any(), any())).thenReturn(succeeded(factory.ok()
+                .payloadBody(Publisher.failed(new IllegalStateException("failed")))));
+        final StreamingHttpServiceFilter filter = new HttpLatencyMetricsServiceFilter(metrics).create(service);
+
+        assertThrows(Exception.class, () -> handle(filter, factory.get("/")));
+        export();
+        assertThat(exported, hasSize(1));
+        final HttpLatencyHistograms histograms = find("GET");
+        assertThat(histograms.statusClass(), is(nullValue()));
+        assertThat(histograms.timeToFirstByte().count(), is(1L));
+        assertThat(histograms.timeToLastByte().count(), is(1L));
+        assertThat(histograms.responsePayloadSize().count(), is(1L));
+    }
+
+    @Test
+    void filterDoesNotRequireOffloading() {
+        assertThat(new HttpLatencyMetricsServiceFilter(metrics).influenceStrategy(noOffloadsStrategy()),
+                is(noOffloadsStrategy()));
+    }
+
+    private void handle(final StreamingHttpServiceFilter filter, final StreamingHttpRequest request)
+            throws Exception {
+        final StreamingHttpResponse response = filter.handle(mock(HttpServiceContext.class), request, factory)
+                .toFuture().get();
+        response.messageBody().ignoreElements().toFuture().get();
+    }
+
+    private void export() {
+        exported.clear();
+        exportedHistograms.clear();
+        metrics.export(histograms -> {
+            exported.add(histograms.route());
+            exportedHistograms.add(histograms);
+        });
+    }
+
+    private HttpLatencyHistograms find(final String route) {
+        return exportedHistograms.get(exported.indexOf(route));
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.http.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.servicetalk.http.api.HttpResponseStatus.StatusClass.SUCCESSFUL_2XX;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class HttpLatencyMetricsTest {
+
+    private static final int THREADS = 4;
+    private static final int REQUESTS_PER_THREAD = 100_000;
+
+    private final HttpLatencyMetrics metrics = new HttpLatencyMetrics();
+
+    @Test
+    void concurrentExportsDoNotLoseRequests() throws Exception {
+        final List<Thread> threads = new ArrayList<>(THREADS);
+        for (int i = 0; i < THREADS; ++i) {
+            final Thread thread = new Thread(() -> {
+                for (int j = 0; j < REQUESTS_PER_THREAD; ++j) {
+                    metrics.record("GET", SUCCESSFUL_2XX, 1, 2, 3, 4);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        final AtomicLong requests = new AtomicLong();
+        final AtomicLong firstBytes = new AtomicLong();
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            export(requests, firstBytes);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        export(requests, firstBytes);
+
+        assertThat(requests.get(), is((long) THREADS * REQUESTS_PER_THREAD));
+        assertThat(firstBytes.get(), is((long) THREADS * REQUESTS_PER_THREAD));
+    }
+
+    private void export(final AtomicLong requests, final AtomicLong firstBytes) {
+        metrics.export(histograms -> {
+            requests.addAndGet(histograms.timeToLastByte().count());
+            firstBytes.addAndGet(histograms.timeToFirstByte().count());
+        });
+    }
+}
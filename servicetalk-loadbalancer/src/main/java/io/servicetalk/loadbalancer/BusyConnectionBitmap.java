@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+/**
+ * Lock-free bitmap of hints which connections of an immutable array were recently rejected by a selector, i.e. are
+ * likely to be busy.
+ * <p>
+ * Selection scans 64 connections per word read and evaluates the selector first for connections which are not hinted
+ * busy, then for the hinted ones, each at most once per selection. Connections rejected by the selector are hinted
+ * busy, so that concurrent and subsequent selections evaluate them last. The load balancer is not notified when a
+ * connection becomes available again, hence a hint is only cleared when the selector accepts the hinted connection.
+ * Compared to probing random indexes this avoids evaluating the selector repeatedly for the same busy connections,
+ * and finds the available connections when most are busy.
+ * <p>
+ * A bitmap belongs to one array of connections. Adding or removing a connection creates a new array and a new bitmap,
+ * without hints.
+ */
+final class BusyConnectionBitmap {
+
+    private static final int WORD_SHIFT = 6;
+    private static final int BITS_MASK = 63;
+
+    private final AtomicLongArray words;
+    private final long lastWordMask;
+
+    BusyConnectionBitmap(final int connections) {
+        words = new AtomicLongArray((connections + BITS_MASK) >>> WORD_SHIFT);
+        final int lastWordBits = connections & BITS_MASK;
+        lastWordMask = lastWordBits == 0 ? -1L : (1L << lastWordBits) - 1;
+    }
+
+    /**
+     * Selects a connection which is accepted by {@code selector}.
+     *
+     * @param connections the connections this bitmap was created for.
+     * @param selector the selector to evaluate.
+     * @param maxAttempts the maximum number of selector evaluations.
+     * @param rnd the random to pick the start of the scan.
+     * @param <C> The type of connection.
+     * @return the index of the selected connection, or {@code -1} if none was accepted by {@code selector}.
+     */
+    <C> int selectIndex(final Object[] connections, final Predicate<C> selector, final int maxAttempts,
+                        final ThreadLocalRandom rnd) {
+        final int length = words.length();
+        if (length == 0) {
+            return -1;
+        }
+        assert connections.length <= length << WORD_SHIFT;
+        // Start at a random position to spread concurrent selections across connections.
+        final int startWord = length == 1 ? 0 : rnd.nextInt(length);
+        final int rotation = rnd.nextInt(64);
+        // Connections rejected by this selection, which are not evaluated again in the pass over the hinted ones.
+        // A single word covers up to 64 connections and does not need an array.
+        long rejectedFirstWord = 0;
+        @Nullable
+        long[] rejected = null;
+        int attempts = 0;
+        for (int pass = 0; pass < 2; ++pass) {
+            final boolean hinted = pass == 1;
+            for (int i = 0; i < length && attempts < maxAttempts; ++i) {
+                final int wordIndex = startWord + i < length ? startWord + i : startWord + i - length;
+                final long word = words.get(wordIndex);
+                final long candidateBits = hinted ?
+                        word & ~(length == 1 ? rejectedFirstWord : rejected == null ? 0 : rejected[wordIndex]) :
+                        ~word;
+                long candidates = Long.rotateRight(candidateBits & validMask(wordIndex), rotation);
+                while (candidates != 0 && attempts < maxAttempts) {
+                    final int bit = (Long.numberOfTrailingZeros(candidates) + rotation) & BITS_MASK;
+                    candidates &= candidates - 1;
+                    ++attempts;
+                    final int index = (wordIndex << WORD_SHIFT) + bit;
+                    final long mask = 1L << bit;
+                    @SuppressWarnings("unchecked")
+                    final C connection = (C) connections[index];
+                    if (selector.test(connection)) {
+                        if (hinted) {
+                            // The connection became available again.
+                            clearBusy(wordIndex, mask);
+                        }
+                        return index;
+                    }
+                    if (!hinted) {
+                        markBusy(wordIndex, mask);
+                        if (length == 1) {
+                            rejectedFirstWord |= mask;
+                        } else {
+                            if (rejected == null) {
+                                rejected = new long[length];
+                            }
+                            rejected[wordIndex] |= mask;
+                        }
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private long validMask(final int wordIndex) {
+        return wordIndex == words.length() - 1 ? lastWordMask : -1L;
+    }
+
+    private void markBusy(final int wordIndex, final long mask) {
+        for (;;) {
+            final long word = words.get(wordIndex);
+            if ((word & mask) != 0 || words.compareAndSet(wordIndex, word, word | mask)) {
+                return;
+            }
+        }
+    }
+
+    private void clearBusy(final int wordIndex, final long mask) {
+        for (;;) {
+            final long word = words.get(wordIndex);
+            if ((word & mask) == 0 || words.compareAndSet(wordIndex, word, word & ~mask)) {
+                return;
+            }
+        }
+    }
+}
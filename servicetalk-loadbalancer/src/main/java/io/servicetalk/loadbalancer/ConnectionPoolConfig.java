@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import java.time.Duration;
+
+import static java.time.Duration.ofSeconds;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of how the load balancers in this package reuse the connections of each host, and when they close
+ * idle connections.
+ * <p>
+ * With the {@link ReusePolicy#FIRST_AVAILABLE FIRST_AVAILABLE} policy, the connections of a host are always tried in
+ * the order they were opened, so that requests are concentrated on the oldest connections which stay hot, while the
+ * connections which were only needed for a burst become idle. Connections which were not selected for longer than
+ * {@link #maxIdleTime()} are gracefully closed by a background task running every {@link #evictionInterval()}, down to
+ * the {@link MinConnectionsConfig#minConnections() minimum number of connections} of the host, if any.
+ */
+public final class ConnectionPoolConfig {
+
+    /**
+     * The order in which the connections of a host are considered for reuse.
+     */
+    public enum ReusePolicy {
+        /**
+         * Each selection starts at a random connection, which spreads requests across all connections.
+         */
+        RANDOM,
+        /**
+         * Each selection considers the connections in the order they were opened and reuses the first available one,
+         * which concentrates requests on the oldest connections and lets surplus connections become idle.
+         * <p>
+         * Note this is not a LIFO order: the load balancer is not notified when a connection is released, so the
+         * oldest available connection is reused rather than the most recently released one.
+         */
+        FIRST_AVAILABLE
+    }
+
+    private final ReusePolicy reusePolicy;
+    private final Duration maxIdleTime;
+    private final Duration evictionInterval;
+
+    private ConnectionPoolConfig(final ReusePolicy reusePolicy, final Duration maxIdleTime,
+                                 final Duration evictionInterval) {
+        this.reusePolicy = reusePolicy;
+        this.maxIdleTime = maxIdleTime;
+        this.evictionInterval = evictionInterval;
+    }
+
+    /**
+     * The order in which the connections of a host are considered for reuse.
+     *
+     * @return the order in which the connections of a host are considered for reuse.
+     */
+    public ReusePolicy reusePolicy() {
+        return reusePolicy;
+    }
+
+    /**
+     * The time after which a connection which was not selected is closed.
+     *
+     * @return the time after which a connection which was not selected is closed.
+     */
+    public Duration maxIdleTime() {
+        return maxIdleTime;
+    }
+
+    /**
+     * The interval at which idle connections are looked up, which is also the precision of {@link #maxIdleTime()}.
+     *
+     * @return the interval at which idle connections are looked up.
+     */
+    public Duration evictionInterval() {
+        return evictionInterval;
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPoolConfig{" +
+                "reusePolicy=" + reusePolicy +
+                ", maxIdleTime=" + maxIdleTime +
+                ", evictionInterval=" + evictionInterval +
+                '}';
+    }
+
+    /**
+     * Builder for {@link ConnectionPoolConfig}.
+     */
+    public static final class Builder {
+        private ReusePolicy reusePolicy = ReusePolicy.FIRST_AVAILABLE;
+        private Duration maxIdleTime = ofSeconds(60);
+        private Duration evictionInterval = ofSeconds(10);
+
+        /**
+         * Sets the order in which the connections of a host are considered for reuse. The default is
+         * {@link ReusePolicy#FIRST_AVAILABLE}.
+         *
+         * @param reusePolicy the order in which the connections of a host are considered for reuse.
+         * @return {@code this}.
+         */
+        public Builder reusePolicy(final ReusePolicy reusePolicy) {
+            this.reusePolicy = requireNonNull(reusePolicy);
+            return this;
+        }
+
+        /**
+         * Sets the time after which a connection which was not selected is closed. The default is 60 seconds.
+         *
+         * @param maxIdleTime the time after which a connection which was not selected is closed.
+         * @return {@code this}.
+         */
+        public Builder maxIdleTime(final Duration maxIdleTime) {
+            if (requireNonNull(maxIdleTime).isNegative() || maxIdleTime.isZero()) {
+                throw new IllegalArgumentException("maxIdleTime: " + maxIdleTime + " (expected > 0)");
+            }
+            this.maxIdleTime = maxIdleTime;
+            return this;
+        }
+
+        /**
+         * Sets the interval at which idle connections are looked up. The default is 10 seconds.
+         *
+         * @param evictionInterval the interval at which idle connections are looked up.
+         * @return {@code this}.
+         */
+        public Builder evictionInterval(final Duration evictionInterval) {
+            if (requireNonNull(evictionInterval).isNegative() || evictionInterval.isZero()) {
+                throw new IllegalArgumentException("evictionInterval: " + evictionInterval + " (expected > 0)");
+            }
+            this.evictionInterval = evictionInterval;
+            return this;
+        }
+
+        /**
+         * Builds the {@link ConnectionPoolConfig} configured by this builder.
+         *
+         * @return a new {@link ConnectionPoolConfig}.
+         */
+        public ConnectionPoolConfig build() {
+            if (evictionInterval.compareTo(maxIdleTime) > 0) {
+                throw new IllegalArgumentException("evictionInterval: " + evictionInterval + " (expected <= " +
+                        "maxIdleTime: " + maxIdleTime + ")");
+            }
+            return new ConnectionPoolConfig(reusePolicy, maxIdleTime, evictionInterval);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.SingleSource;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * Keeps {@link MinConnectionsConfig#minConnections()} connections open to each active and healthy {@link Host}, with
+ * at most {@link MinConnectionsConfig#maxConcurrentConnects()} concurrent connection attempts.
+ * <p>
+ * Every missing connection is reserved on the {@link Host} and queued, the queue is drained as connection attempts
+ * complete. Hence a {@link Host} is never warmed up beyond its minimum, regardless of how often it is queued.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class ConnectionWarmer<Addr, C extends LoadBalancedConnection> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionWarmer.class);
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<ConnectionWarmer> connectsUpdater =
+            newUpdater(ConnectionWarmer.class, "connects");
+
+    private final int minConnections;
+    private final int maxConcurrentConnects;
+    private final ConnectionFactory<Addr, ? extends C> connectionFactory;
+    @Nullable
+    private final Runnable onHostWarm;
+    private final Queue<Host<Addr, C>> pending = new ConcurrentLinkedQueue<>();
+    private volatile int connects;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param config the {@link MinConnectionsConfig}.
+     * @param connectionFactory the {@link ConnectionFactory} to open connections.
+     * @param onHostWarm invoked whenever a connection is added to a {@link Host} which has at least
+     * {@link MinConnectionsConfig#minConnections()} connections afterwards, or {@code null}.
+     */
+    ConnectionWarmer(final MinConnectionsConfig config, final ConnectionFactory<Addr, ? extends C> connectionFactory,
+                     @Nullable final Runnable onHostWarm) {
+        this.minConnections = config.minConnections();
+        this.maxConcurrentConnects = config.maxConcurrentConnects();
+        this.connectionFactory = connectionFactory;
+        this.onHostWarm = onHostWarm;
+    }
+
+    /**
+     * Opens connections to {@code host} in the background until it has the minimum number of connections.
+     *
+     * @param host the host to warm up.
+     */
+    void ensureMinConnections(final Host<Addr, C> host) {
+        while (!closed && host.tryReserveWarmUp(minConnections)) {
+            pending.offer(host);
+        }
+        drain();
+    }
+
+    /**
+     * Notifies that a connection was added to {@code host}.
+     *
+     * @param host the host that got a new connection.
+     * @param connections the number of connections of {@code host} after the connection was added.
+     */
+    void onConnectionAdded(final Host<Addr, C> host, final int connections) {
+        if (onHostWarm != null && connections >= minConnections) {
+            onHostWarm.run();
+        }
+        // Hosts recovering from a failed health check or a failed warm-up continue to warm up.
+        ensureMinConnections(host);
+    }
+
+    /**
+     * Stops opening new connections.
+     */
+    void close() {
+        closed = true;
+        Host<Addr, C> host;
+        while ((host = pending.poll()) != null) {
+            host.endWarmUp();
+        }
+    }
+
+    private void drain() {
+        for (;;) {
+            if (closed || pending.isEmpty()) {
+                return;
+            }
+            final int current = connects;
+            if (current >= maxConcurrentConnects) {
+                // A completing connection attempt will drain the queue.
+                return;
+            }
+            if (!connectsUpdater.compareAndSet(this, current, current + 1)) {
+                continue;
+            }
+            final Host<Addr, C> host = pending.poll();
+            if (host == null) {
+                // Another thread drained the queue, it may have been refilled after the release.
+                connectsUpdater.decrementAndGet(this);
+                continue;
+            }
+            if (!host.isActiveAndHealthy()) {
+                host.endWarmUp();
+                connectsUpdater.decrementAndGet(this);
+                continue;
+            }
+            connect(host);
+        }
+    }
+
+    private void connect(final Host<Addr, C> host) {
+        // This LB implementation does not automatically provide TransportObserver. Therefore, we pass "null" here.
+        toSource(connectionFactory.newConnection(host.address, host.requestTracker(), null))
+                .subscribe(new SingleSource.Subscriber<C>() {
+            @Override
+            public void onSubscribe(final Cancellable cancellable) {
+            }
+
+            @Override
+            public void onSuccess(@Nullable final C connection) {
+                assert connection != null;
+                // Add before ending the reservation, so that the host is not reserved beyond its minimum meanwhile.
+                final boolean added = host.addConnection(connection);
+                host.endWarmUp();
+                connectsUpdater.decrementAndGet(ConnectionWarmer.this);
+                if (!added) {
+                    connection.closeAsync().subscribe();
+                }
+                drain();
+            }
+
+            @Override
+            public void onError(final Throwable t) {
+                LOGGER.debug("Failed to warm up a connection to {}.", host.address, t);
+                host.endWarmUp();
+                connectsUpdater.decrementAndGet(ConnectionWarmer.this);
+                host.onWarmUpFailed(connectionFactory);
+                // Don't retry the same host right away, others may be waiting.
+                drain();
+            }
+        });
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.RequestTracker;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.CANCELLED;
+import static java.lang.Math.exp;
+import static java.lang.Math.max;
+import static java.util.concurrent.atomic.AtomicIntegerFieldUpdater.newUpdater;
+
+/**
+ * {@link RequestTracker} that keeps track of the number of outstanding requests and a peak exponentially weighted
+ * moving average (EWMA) of the request latency for a host.
+ * <p>
+ * The latency average reacts to spikes immediately (a sample larger than the current average replaces it) and decays
+ * exponentially over time towards newer samples. When no samples are recorded, the average decays towards {@code 0},
+ * which allows hosts that were considered slow in the past to be probed again. Failures are recorded as a multiple of
+ * the larger of their latency and the current average, so that a host which fails fast is not preferred.
+ * <p>
+ * The latency state is updated without synchronization. Concurrent updates may lose samples, which is acceptable for a
+ * statistical signal and keeps the request path free of contention.
+ * <p>
+ * When an {@link OutlierDetector} is provided, the tracker additionally counts consecutive failures and accumulates
+ * per-interval statistics which the detector drains periodically.
+ */
+final class DefaultRequestTracker implements RequestTracker {
+
+    private static final AtomicIntegerFieldUpdater<DefaultRequestTracker> pendingUpdater =
+            newUpdater(DefaultRequestTracker.class, "pending");
+    private static final AtomicIntegerFieldUpdater<DefaultRequestTracker> consecutiveFailuresUpdater =
+            newUpdater(DefaultRequestTracker.class, "consecutiveFailures");
+    private static final AtomicLongFieldUpdater<DefaultRequestTracker> intervalSuccessesUpdater =
+            AtomicLongFieldUpdater.newUpdater(DefaultRequestTracker.class, "intervalSuccesses");
+    private static final AtomicLongFieldUpdater<DefaultRequestTracker> intervalFailuresUpdater =
+            AtomicLongFieldUpdater.newUpdater(DefaultRequestTracker.class, "intervalFailures");
+    private static final AtomicLongFieldUpdater<DefaultRequestTracker> intervalLatencyNanosUpdater =
+            AtomicLongFieldUpdater.newUpdater(DefaultRequestTracker.class, "intervalLatencyNanos");
+
+    /**
+     * Cost assigned to each outstanding request when there is no latency data yet. It makes sure that a host with
+     * unknown latency is probed by one request at a time until the first response comes back.
+     */
+    private static final long UNKNOWN_LATENCY_PENALTY = Long.MAX_VALUE >> 16;
+    /**
+     * Multiplier of the latency sample recorded for a failure.
+     */
+    private static final int FAILURE_PENALTY_FACTOR = 2;
+
+    private final double decayNanos;
+    @Nullable
+    private final OutlierDetector<?, ?> outlierDetector;
+
+    private volatile int pending;
+    private volatile long ewmaNanos;
+    private volatile long lastUpdateNanos;
+    private volatile int consecutiveFailures;
+    private volatile long intervalSuccesses;
+    private volatile long intervalFailures;
+    private volatile long intervalLatencyNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param decayNanos time in nanoseconds after which the weight of a latency sample drops to {@code 1/e}.
+     */
+    DefaultRequestTracker(final long decayNanos) {
+        this(decayNanos, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param decayNanos time in nanoseconds after which the weight of a latency sample drops to {@code 1/e}.
+     * @param outlierDetector {@link OutlierDetector} to notify about consecutive failures, or {@code null} if outlier
+     * detection is disabled.
+     */
+    DefaultRequestTracker(final long decayNanos, @Nullable final OutlierDetector<?, ?> outlierDetector) {
+        if (decayNanos <= 0) {
+            throw new IllegalArgumentException("decayNanos: " + decayNanos + " (expected > 0)");
+        }
+        this.decayNanos = decayNanos;
+        this.outlierDetector = outlierDetector;
+        this.lastUpdateNanos = System.nanoTime();
+    }
+
+    @Override
+    public long beforeStart() {
+        pendingUpdater.incrementAndGet(this);
+        return System.nanoTime();
+    }
+
+    @Override
+    public void onSuccess(final long beforeStartTimeNs) {
+        pendingUpdater.decrementAndGet(this);
+        final long rtt = recordLatency(beforeStartTimeNs, false);
+        if (outlierDetector != null) {
+            intervalSuccessesUpdater.incrementAndGet(this);
+            intervalLatencyNanosUpdater.addAndGet(this, rtt);
+            if (consecutiveFailures != 0) {
+                // Avoid the write in the common case, which keeps the cache line shared between cores.
+                consecutiveFailures = 0;
+            }
+        }
+    }
+
+    @Override
+    public void onError(final long beforeStartTimeNs, final ErrorClass errorClass) {
+        pendingUpdater.decrementAndGet(this);
+        if (errorClass != CANCELLED) {
+            // Cancellations are driven by the caller and don't say anything about the host.
+            recordLatency(beforeStartTimeNs, true);
+            if (outlierDetector != null) {
+                intervalFailuresUpdater.incrementAndGet(this);
+                final int failures = consecutiveFailuresUpdater.incrementAndGet(this);
+                if (failures == outlierDetector.consecutiveFailuresThreshold()) {
+                    outlierDetector.onConsecutiveFailures(this);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of requests that started but did not terminate yet.
+     *
+     * @return the number of requests that started but did not terminate yet.
+     */
+    int pending() {
+        return pending;
+    }
+
+    /**
+     * Returns the current latency estimate in nanoseconds, or {@code 0} if there is no data.
+     *
+     * @return the current latency estimate in nanoseconds, or {@code 0} if there is no data.
+     */
+    long latencyNanos() {
+        return decayedEwma(System.nanoTime());
+    }
+
+    /**
+     * Returns the cost of sending one more request to the tracked host. Lower is better.
+     *
+     * @return the cost of sending one more request to the tracked host.
+     */
+    long cost() {
+        final int pending = max(0, this.pending);
+        final long latency = latencyNanos();
+        if (latency == 0) {
+            return pending == 0 ? 0 : UNKNOWN_LATENCY_PENALTY + pending;
+        }
+        final long cost = latency * (pending + 1L);
+        return cost < 0 ? Long.MAX_VALUE : cost;
+    }
+
+    /**
+     * Resets the number of consecutive failures, used when the ejection of the tracked host is attempted.
+     */
+    void resetConsecutiveFailures() {
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Returns and resets the number of successful requests since the last call.
+     *
+     * @return the number of successful requests since the last call.
+     */
+    long drainIntervalSuccesses() {
+        return intervalSuccessesUpdater.getAndSet(this, 0);
+    }
+
+    /**
+     * Returns and resets the number of failed requests since the last call.
+     *
+     * @return the number of failed requests since the last call.
+     */
+    long drainIntervalFailures() {
+        return intervalFailuresUpdater.getAndSet(this, 0);
+    }
+
+    /**
+     * Returns and resets the sum of latencies of successful requests since the last call.
+     *
+     * @return the sum of latencies in nanoseconds of successful requests since the last call.
+     */
+    long drainIntervalLatencyNanos() {
+        return intervalLatencyNanosUpdater.getAndSet(this, 0);
+    }
+
+    private long decayedEwma(final long nowNanos) {
+        final long ewma = this.ewmaNanos;
+        if (ewma == 0) {
+            return 0;
+        }
+        final long elapsed = nowNanos - lastUpdateNanos;
+        return elapsed <= 0 ? ewma : (long) (ewma * exp(-elapsed / decayNanos));
+    }
+
+    private long recordLatency(final long beforeStartTimeNs, final boolean failed) {
+        final long now = System.nanoTime();
+        final long rtt = max(0, now - beforeStartTimeNs);
+        final long current = ewmaNanos;
+        // Failures can be faster than successes (e.g. a refused connection), they must not make the host cheaper.
+        final long sample = failed ? failurePenalty(max(rtt, current)) : rtt;
+        final long next;
+        if (sample > current) {
+            // Peak sensitivity: react to latency spikes immediately.
+            next = sample;
+        } else {
+            // The longer it has been since the last sample, the more weight the new sample gets.
+            final double weight = exp(-max(0, now - lastUpdateNanos) / decayNanos);
+            next = (long) (current * weight + sample * (1 - weight));
+        }
+        // Avoid storing 0 for a host that was observed, 0 is reserved for "no data".
+        ewmaNanos = max(1, next);
+        lastUpdateNanos = now;
+        return rtt;
+    }
+
+    private static long failurePenalty(final long latencyNanos) {
+        // Consecutive failures multiply the latency, cap it to keep the cost computation from overflowing.
+        return latencyNanos >= UNKNOWN_LATENCY_PENALTY / FAILURE_PENALTY_FACTOR ? UNKNOWN_LATENCY_PENALTY :
+                latencyNanos * FAILURE_PENALTY_FACTOR;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultRequestTracker{" +
+                "pending=" + pending +
+                ", latencyNanos=" + latencyNanos() +
+                '}';
+    }
+}
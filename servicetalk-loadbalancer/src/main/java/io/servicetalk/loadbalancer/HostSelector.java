@@ -0,0 +1,56 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import java.util.List;
+
+/**
+ * Strategy which determines the order in which a {@link RoundRobinLoadBalancer} considers hosts for a new request.
+ * <p>
+ * By default, if the picked host has no connection available and can not open a new one, the remaining hosts are
+ * visited in order, starting after the picked one.
+ */
+interface HostSelector {
+
+    /**
+     * Picks the host to consider first.
+     *
+     * @param hosts non-empty list of the currently used hosts.
+     * @param <Addr> The resolved address type.
+     * @param <C> The type of connection.
+     * @return a cursor which is passed to {@link #hostIndex(List, int, int)}, by default the index in {@code hosts} of
+     * the host to consider first.
+     */
+    <Addr, C extends LoadBalancedConnection> int firstHost(List<Host<Addr, C>> hosts);
+
+    /**
+     * Maps the {@code i}-th host to consider to its index in {@code hosts}. Must be allocation-free, as it is called
+     * for every visited host.
+     *
+     * @param hosts non-empty list of the currently used hosts, the same as passed to {@link #firstHost(List)}.
+     * @param cursor the cursor returned by {@link #firstHost(List)}.
+     * @param i the number of hosts considered before, from {@code 0} to {@code hosts.size() - 1}.
+     * @param <Addr> The resolved address type.
+     * @param <C> The type of connection.
+     * @return the index in {@code hosts} of the {@code i}-th host to consider.
+     */
+    default <Addr, C extends LoadBalancedConnection> int hostIndex(List<Host<Addr, C>> hosts, int cursor, int i) {
+        return (cursor + i) % hosts.size();
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Closes the connections of a single load balancer which were not selected for longer than
+ * {@link ConnectionPoolConfig#maxIdleTime()}, as described by {@link ConnectionPoolConfig}.
+ * <p>
+ * Instead of reading the clock on every selection, time is measured in ticks of the eviction task: a selected
+ * connection is stamped with the current tick, and a connection is idle once its stamp is older than the number of
+ * ticks which cover the maximum idle time. Stamps are only written when the tick changed, so hot connections are not
+ * written to on every selection.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class IdleConnectionEvictor<Addr, C extends LoadBalancedConnection> implements Cancellable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdleConnectionEvictor.class);
+
+    private final ConnectionPoolConfig config;
+    private final Executor executor;
+    private final Supplier<List<Host<Addr, C>>> hostsSupplier;
+    private final int minConnections;
+    private final long maxIdleTicks;
+    private final SequentialCancellable timerCancellable = new SequentialCancellable();
+    // Only written by the eviction task.
+    private volatile long tick;
+
+    IdleConnectionEvictor(final ConnectionPoolConfig config, final Executor executor,
+                          final Supplier<List<Host<Addr, C>>> hostsSupplier, final int minConnections) {
+        this.config = config;
+        this.executor = executor;
+        this.hostsSupplier = hostsSupplier;
+        this.minConnections = minConnections;
+        final long intervalNanos = config.evictionInterval().toNanos();
+        this.maxIdleTicks = (config.maxIdleTime().toNanos() + intervalNanos - 1) / intervalNanos;
+    }
+
+    /**
+     * Starts the periodic eviction.
+     */
+    void start() {
+        scheduleNextEviction();
+    }
+
+    @Override
+    public void cancel() {
+        timerCancellable.cancel();
+    }
+
+    /**
+     * The current tick, to stamp selected connections with.
+     *
+     * @return the current tick.
+     */
+    long tick() {
+        return tick;
+    }
+
+    private void scheduleNextEviction() {
+        try {
+            timerCancellable.nextCancellable(executor.schedule(this::evict, config.evictionInterval()));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Failed to schedule idle connection eviction, eviction is stopped.", e);
+        }
+    }
+
+    private void evict() {
+        try {
+            evict(hostsSupplier.get());
+        } catch (Throwable t) {
+            LOGGER.warn("Unexpected error during idle connection eviction.", t);
+        } finally {
+            scheduleNextEviction();
+        }
+    }
+
+    // Visible for testing
+    void evict(final List<Host<Addr, C>> hosts) {
+        final long currentTick = tick + 1;
+        tick = currentTick;
+        for (Host<Addr, C> host : hosts) {
+            final int evicted = host.closeIdleConnections(currentTick - maxIdleTicks, minConnections);
+            if (evicted > 0) {
+                LOGGER.debug("Closed {} idle connections of host {}.", evicted, host);
+            }
+        }
+    }
+}
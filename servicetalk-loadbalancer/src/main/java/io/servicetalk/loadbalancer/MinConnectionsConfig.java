@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancerReadyEvent;
+
+/**
+ * Configuration of the minimum number of connections the load balancers in this package keep open to each host.
+ * <p>
+ * Connections are established in the background as soon as a host becomes available, and again whenever connections
+ * close, so that the first requests to a host don't pay the cost of establishing connections. The number of concurrent
+ * connection attempts for the whole load balancer is bounded by {@link #maxConcurrentConnects()}. Hosts which are
+ * unavailable, unhealthy or ejected are not warmed up. Failed attempts are not retried immediately, the regular health
+ * checking takes care of hosts which don't accept connections.
+ */
+public final class MinConnectionsConfig {
+
+    private final int minConnections;
+    private final int maxConcurrentConnects;
+    private final boolean waitForWarmUp;
+
+    private MinConnectionsConfig(final int minConnections, final int maxConcurrentConnects,
+                                 final boolean waitForWarmUp) {
+        this.minConnections = minConnections;
+        this.maxConcurrentConnects = maxConcurrentConnects;
+        this.waitForWarmUp = waitForWarmUp;
+    }
+
+    /**
+     * The minimum number of connections to keep open to each host.
+     *
+     * @return the minimum number of connections to keep open to each host.
+     */
+    public int minConnections() {
+        return minConnections;
+    }
+
+    /**
+     * The maximum number of concurrent connection attempts of the load balancer to warm up hosts.
+     *
+     * @return the maximum number of concurrent connection attempts to warm up hosts.
+     */
+    public int maxConcurrentConnects() {
+        return maxConcurrentConnects;
+    }
+
+    /**
+     * Whether the {@link LoadBalancerReadyEvent#LOAD_BALANCER_READY_EVENT ready event} is delayed until a host has
+     * {@link #minConnections()} connections.
+     *
+     * @return {@code true} if the ready event waits for a warm host.
+     */
+    public boolean waitForWarmUp() {
+        return waitForWarmUp;
+    }
+
+    @Override
+    public String toString() {
+        return "MinConnectionsConfig{" +
+                "minConnections=" + minConnections +
+                ", maxConcurrentConnects=" + maxConcurrentConnects +
+                ", waitForWarmUp=" + waitForWarmUp +
+                '}';
+    }
+
+    /**
+     * Builder for {@link MinConnectionsConfig}.
+     */
+    public static final class Builder {
+        private final int minConnections;
+        private int maxConcurrentConnects = 4;
+        private boolean waitForWarmUp;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param minConnections the minimum number of connections to keep open to each host.
+         */
+        public Builder(final int minConnections) {
+            if (minConnections <= 0) {
+                throw new IllegalArgumentException("minConnections: " + minConnections + " (expected > 0)");
+            }
+            this.minConnections = minConnections;
+        }
+
+        /**
+         * Sets the maximum number of concurrent connection attempts of the load balancer to warm up hosts. The
+         * default is {@code 4}.
+         *
+         * @param maxConcurrentConnects the maximum number of concurrent connection attempts to warm up hosts.
+         * @return {@code this}.
+         */
+        public Builder maxConcurrentConnects(final int maxConcurrentConnects) {
+            if (maxConcurrentConnects <= 0) {
+                throw new IllegalArgumentException("maxConcurrentConnects: " + maxConcurrentConnects +
+                        " (expected > 0)");
+            }
+            this.maxConcurrentConnects = maxConcurrentConnects;
+            return this;
+        }
+
+        /**
+         * Sets whether the {@link LoadBalancerReadyEvent#LOAD_BALANCER_READY_EVENT ready event} is delayed until a
+         * host has {@link MinConnectionsConfig#minConnections()} connections, instead of being emitted as soon as a
+         * host is available. The default is {@code false}.
+         *
+         * @param waitForWarmUp {@code true} to delay the ready event until a host is warm.
+         * @return {@code this}.
+         */
+        public Builder waitForWarmUp(final boolean waitForWarmUp) {
+            this.waitForWarmUp = waitForWarmUp;
+            return this;
+        }
+
+        /**
+         * Builds the {@link MinConnectionsConfig} configured by this builder.
+         *
+         * @return a new {@link MinConnectionsConfig}.
+         */
+        public MinConnectionsConfig build() {
+            return new MinConnectionsConfig(minConnections, maxConcurrentConnects, waitForWarmUp);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.concurrent.Cancellable;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.internal.SequentialCancellable;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+/**
+ * Detects and ejects outlier hosts of a single load balancer, as described by {@link OutlierDetectorConfig}.
+ * <p>
+ * Consecutive failures are reported by the {@link DefaultRequestTracker} of each host as they happen, while success
+ * rate and latency are evaluated by a task running every {@link OutlierDetectorConfig#detectionInterval()} on the
+ * health checking {@link Executor}. Ejection decisions are rare, hence they are serialized with a lock to respect
+ * {@link OutlierDetectorConfig#maxEjectionPercent()}.
+ *
+ * @param <Addr> The resolved address type.
+ * @param <C> The type of connection.
+ */
+final class OutlierDetector<Addr, C extends LoadBalancedConnection> implements Cancellable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutlierDetector.class);
+
+    private final OutlierDetectorConfig config;
+    private final Executor executor;
+    private final Supplier<List<Host<Addr, C>>> hostsSupplier;
+    private final ConnectionFactory<Addr, ? extends C> connectionFactory;
+    private final SequentialCancellable timerCancellable = new SequentialCancellable();
+
+    OutlierDetector(final OutlierDetectorConfig config, final Executor executor,
+                    final Supplier<List<Host<Addr, C>>> hostsSupplier,
+                    final ConnectionFactory<Addr, ? extends C> connectionFactory) {
+        this.config = config;
+        this.executor = executor;
+        this.hostsSupplier = hostsSupplier;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Starts the periodic detection, which also decays the ejection time multiplier of hosts.
+     */
+    void start() {
+        scheduleNextDetection();
+    }
+
+    @Override
+    public void cancel() {
+        timerCancellable.cancel();
+    }
+
+    int consecutiveFailuresThreshold() {
+        // A threshold that can not be reached disables the detection.
+        return config.consecutiveFailures() == 0 ? -1 : config.consecutiveFailures();
+    }
+
+    /**
+     * Invoked by a {@link DefaultRequestTracker} when it observes {@link #consecutiveFailuresThreshold()} failures
+     * in a row.
+     *
+     * @param tracker the {@link DefaultRequestTracker} of the failing host.
+     */
+    void onConsecutiveFailures(final DefaultRequestTracker tracker) {
+        for (Host<Addr, C> host : hostsSupplier.get()) {
+            if (host.requestTracker() == tracker) {
+                tryEject(host, config.consecutiveFailures() + " consecutive failures");
+                return;
+            }
+        }
+    }
+
+    private void scheduleNextDetection() {
+        try {
+            timerCancellable.nextCancellable(executor.schedule(this::detect, config.detectionInterval()));
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Failed to schedule outlier detection, detection is stopped.", e);
+        }
+    }
+
+    private void detect() {
+        try {
+            detect(hostsSupplier.get());
+        } catch (Throwable t) {
+            LOGGER.warn("Unexpected error during outlier detection.", t);
+        } finally {
+            scheduleNextDetection();
+        }
+    }
+
+    // Visible for testing
+    synchronized void detect(final List<Host<Addr, C>> hosts) {
+        final int size = hosts.size();
+        if (size == 0) {
+            return;
+        }
+        final double[] successRates = new double[size];
+        final double[] latencies = new double[size];
+        final boolean[] eligible = new boolean[size];
+        int eligibleHosts = 0;
+        for (int i = 0; i < size; ++i) {
+            final Host<Addr, C> host = hosts.get(i);
+            final DefaultRequestTracker tracker = host.requestTracker();
+            assert tracker != null : "Outlier detection requires request tracking";
+            final long successes = tracker.drainIntervalSuccesses();
+            final long failures = tracker.drainIntervalFailures();
+            final long latencyNanos = tracker.drainIntervalLatencyNanos();
+            if (host.isEjected()) {
+                continue;
+            }
+            if (host.ejections > 0) {
+                --host.ejections;
+            }
+            if (host.isActiveAndHealthy() && successes + failures >= config.requestVolume()) {
+                eligible[i] = true;
+                ++eligibleHosts;
+                successRates[i] = (double) successes / (successes + failures);
+                latencies[i] = successes == 0 ? Double.NaN : (double) latencyNanos / successes;
+            }
+        }
+        if (eligibleHosts < config.minimumHosts()) {
+            return;
+        }
+        if (config.successRateStdevFactor() > 0) {
+            detectSuccessRateOutliers(hosts, successRates, eligible, eligibleHosts);
+        }
+        if (config.latencyFactor() > 0) {
+            detectLatencyOutliers(hosts, latencies, eligible);
+        }
+    }
+
+    private void detectSuccessRateOutliers(final List<Host<Addr, C>> hosts, final double[] successRates,
+                                           final boolean[] eligible, final int eligibleHosts) {
+        double sum = 0;
+        for (int i = 0; i < successRates.length; ++i) {
+            if (eligible[i]) {
+                sum += successRates[i];
+            }
+        }
+        final double mean = sum / eligibleHosts;
+        double variance = 0;
+        for (int i = 0; i < successRates.length; ++i) {
+            if (eligible[i]) {
+                variance += (successRates[i] - mean) * (successRates[i] - mean);
+            }
+        }
+        final double threshold = mean - config.successRateStdevFactor() * sqrt(variance / eligibleHosts);
+        for (int i = 0; i < successRates.length; ++i) {
+            if (eligible[i] && successRates[i] < threshold) {
+                tryEject(hosts.get(i), "success rate " + successRates[i] + " below threshold " + threshold);
+            }
+        }
+    }
+
+    private void detectLatencyOutliers(final List<Host<Addr, C>> hosts, final double[] latencies,
+                                       final boolean[] eligible) {
+        final double[] sorted = new double[latencies.length];
+        int count = 0;
+        for (int i = 0; i < latencies.length; ++i) {
+            if (eligible[i] && !Double.isNaN(latencies[i])) {
+                sorted[count++] = latencies[i];
+            }
+        }
+        if (count < config.minimumHosts()) {
+            return;
+        }
+        Arrays.sort(sorted, 0, count);
+        final double median = (count & 1) == 1 ? sorted[count >>> 1] :
+                (sorted[(count >>> 1) - 1] + sorted[count >>> 1]) / 2;
+        final double threshold = median * config.latencyFactor();
+        for (int i = 0; i < latencies.length; ++i) {
+            if (eligible[i] && latencies[i] > threshold) {
+                tryEject(hosts.get(i), "average latency " + (long) latencies[i] + "ns above threshold " +
+                        (long) threshold + "ns");
+            }
+        }
+    }
+
+    private synchronized void tryEject(final Host<Addr, C> host, final String reason) {
+        final DefaultRequestTracker tracker = host.requestTracker();
+        if (tracker != null) {
+            // Count again whether the host is ejected or not, a refused host is reconsidered after as many failures.
+            tracker.resetConsecutiveFailures();
+        }
+        final List<Host<Addr, C>> hosts = hostsSupplier.get();
+        int ejected = 0;
+        for (Host<Addr, C> h : hosts) {
+            if (h.isEjected()) {
+                ++ejected;
+            }
+        }
+        // Never eject the only host, otherwise allow at least one ejection regardless of the percentage.
+        final int maxEjected = hosts.size() <= 1 ? 0 :
+                max(1, hosts.size() * config.maxEjectionPercent() / 100);
+        if (ejected >= maxEjected) {
+            LOGGER.debug("Outlier detected for address {} ({}), but {} out of {} hosts are already ejected.",
+                    host.address, reason, ejected, hosts.size());
+            return;
+        }
+        final Duration ejectionTime = ejectionTime(host.ejections + 1);
+        if (host.eject(connectionFactory, ejectionTime)) {
+            ++host.ejections;
+            LOGGER.info("Ejected address {} for {} ({}).", host.address, ejectionTime, reason);
+        }
+    }
+
+    private Duration ejectionTime(final int ejections) {
+        final long baseNanos = config.baseEjectionTime().toNanos();
+        final long maxNanos = config.maxEjectionTime().toNanos();
+        // Compare before multiplying to avoid overflow.
+        return Duration.ofNanos(ejections >= maxNanos / baseNanos ? maxNanos : min(maxNanos, baseNanos * ejections));
+    }
+
+    @Override
+    public String toString() {
+        return "OutlierDetector{" +
+                "config=" + config +
+                '}';
+    }
+}
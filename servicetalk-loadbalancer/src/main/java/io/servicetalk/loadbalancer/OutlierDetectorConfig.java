@@ -0,0 +1,316 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.RequestTracker;
+import io.servicetalk.client.api.RequestTracker.ErrorClass;
+
+import java.time.Duration;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the outlier detection performed by the load balancers in this package.
+ * <p>
+ * Outlier detection uses the request outcomes reported through a {@link RequestTracker} to identify hosts which accept
+ * connections but fail to process requests properly, and temporarily ejects them from the selection. The following
+ * detection mechanisms are supported:
+ * <ul>
+ * <li><b>Consecutive failures</b>: a host is ejected as soon as the configured number of requests in a row
+ * terminated with {@link ErrorClass#CONNECTION_FAILURE} or {@link ErrorClass#RESPONSE_FAILURE}.</li>
+ * <li><b>Success rate</b>: every {@link #detectionInterval()}, hosts whose success rate is lower than the mean
+ * success rate of all hosts by more than {@link #successRateStdevFactor()} standard deviations are ejected.</li>
+ * <li><b>Latency</b>: every {@link #detectionInterval()}, hosts whose average latency of successful requests is
+ * greater than the median of all hosts multiplied by {@link #latencyFactor()} are ejected.</li>
+ * </ul>
+ * An ejected host does not receive new requests. After the ejection time elapses, the host goes through the same
+ * health check as hosts which failed to accept new connections and returns to the selection once a new connection
+ * is established. The ejection time is {@link #baseEjectionTime()} multiplied by the number of times the host was
+ * ejected, capped at {@link #maxEjectionTime()}. Each {@link #detectionInterval()} during which a host is not ejected
+ * decreases the multiplier by one.
+ */
+public final class OutlierDetectorConfig {
+
+    private final int consecutiveFailures;
+    private final Duration detectionInterval;
+    private final Duration baseEjectionTime;
+    private final Duration maxEjectionTime;
+    private final int maxEjectionPercent;
+    private final int minimumHosts;
+    private final int requestVolume;
+    private final double successRateStdevFactor;
+    private final double latencyFactor;
+
+    private OutlierDetectorConfig(final Builder builder) {
+        this.consecutiveFailures = builder.consecutiveFailures;
+        this.detectionInterval = builder.detectionInterval;
+        this.baseEjectionTime = builder.baseEjectionTime;
+        this.maxEjectionTime = builder.maxEjectionTime;
+        this.maxEjectionPercent = builder.maxEjectionPercent;
+        this.minimumHosts = builder.minimumHosts;
+        this.requestVolume = builder.requestVolume;
+        this.successRateStdevFactor = builder.successRateStdevFactor;
+        this.latencyFactor = builder.latencyFactor;
+    }
+
+    /**
+     * Number of consecutive failed requests after which a host is ejected, {@code 0} if disabled.
+     *
+     * @return number of consecutive failed requests after which a host is ejected, {@code 0} if disabled.
+     */
+    public int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Interval at which the success rate and latency of hosts is evaluated.
+     *
+     * @return interval at which the success rate and latency of hosts is evaluated.
+     */
+    public Duration detectionInterval() {
+        return detectionInterval;
+    }
+
+    /**
+     * Base ejection time, multiplied by the number of times a host was ejected.
+     *
+     * @return base ejection time.
+     */
+    public Duration baseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    /**
+     * Upper bound for the ejection time.
+     *
+     * @return upper bound for the ejection time.
+     */
+    public Duration maxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    /**
+     * Maximum percentage of hosts which can be ejected at the same time. At least one host can always be ejected.
+     *
+     * @return maximum percentage of hosts which can be ejected at the same time.
+     */
+    public int maxEjectionPercent() {
+        return maxEjectionPercent;
+    }
+
+    /**
+     * Minimum number of hosts with at least {@link #requestVolume()} requests during a {@link #detectionInterval()}
+     * required to perform success rate and latency detection.
+     *
+     * @return minimum number of hosts required to perform success rate and latency detection.
+     */
+    public int minimumHosts() {
+        return minimumHosts;
+    }
+
+    /**
+     * Minimum number of requests a host has to process during a {@link #detectionInterval()} to be considered for
+     * success rate and latency detection.
+     *
+     * @return minimum number of requests a host has to process during a {@link #detectionInterval()}.
+     */
+    public int requestVolume() {
+        return requestVolume;
+    }
+
+    /**
+     * Factor applied to the standard deviation of the success rate to compute the ejection threshold, {@code 0} if
+     * success rate detection is disabled.
+     *
+     * @return factor applied to the standard deviation of the success rate, {@code 0} if disabled.
+     */
+    public double successRateStdevFactor() {
+        return successRateStdevFactor;
+    }
+
+    /**
+     * Factor applied to the median latency of all hosts to compute the ejection threshold, {@code 0} if latency
+     * detection is disabled.
+     *
+     * @return factor applied to the median latency of all hosts, {@code 0} if disabled.
+     */
+    public double latencyFactor() {
+        return latencyFactor;
+    }
+
+    @Override
+    public String toString() {
+        return "OutlierDetectorConfig{" +
+                "consecutiveFailures=" + consecutiveFailures +
+                ", detectionInterval=" + detectionInterval +
+                ", baseEjectionTime=" + baseEjectionTime +
+                ", maxEjectionTime=" + maxEjectionTime +
+                ", maxEjectionPercent=" + maxEjectionPercent +
+                ", minimumHosts=" + minimumHosts +
+                ", requestVolume=" + requestVolume +
+                ", successRateStdevFactor=" + successRateStdevFactor +
+                ", latencyFactor=" + latencyFactor +
+                '}';
+    }
+
+    /**
+     * Builder for {@link OutlierDetectorConfig}.
+     */
+    public static final class Builder {
+        private int consecutiveFailures = 5;
+        private Duration detectionInterval = Duration.ofSeconds(10);
+        private Duration baseEjectionTime = Duration.ofSeconds(30);
+        private Duration maxEjectionTime = Duration.ofSeconds(300);
+        private int maxEjectionPercent = 10;
+        private int minimumHosts = 5;
+        private int requestVolume = 100;
+        private double successRateStdevFactor = 1.9;
+        private double latencyFactor;
+
+        /**
+         * Creates a new instance with default settings.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Sets the number of consecutive failed requests after which a host is ejected.
+         *
+         * @param consecutiveFailures number of consecutive failed requests after which a host is ejected. Use
+         * {@code 0} to disable detection based on consecutive failures.
+         * @return {@code this}.
+         */
+        public Builder consecutiveFailures(final int consecutiveFailures) {
+            if (consecutiveFailures < 0) {
+                throw new IllegalArgumentException("consecutiveFailures: " + consecutiveFailures +
+                        " (expected >= 0)");
+            }
+            this.consecutiveFailures = consecutiveFailures;
+            return this;
+        }
+
+        /**
+         * Sets the interval at which the success rate and latency of hosts is evaluated.
+         *
+         * @param detectionInterval interval at which the success rate and latency of hosts is evaluated.
+         * @return {@code this}.
+         */
+        public Builder detectionInterval(final Duration detectionInterval) {
+            this.detectionInterval = requirePositive(detectionInterval, "detectionInterval");
+            return this;
+        }
+
+        /**
+         * Sets the base ejection time and its upper bound.
+         *
+         * @param baseEjectionTime base ejection time, multiplied by the number of times a host was ejected.
+         * @param maxEjectionTime upper bound for the ejection time.
+         * @return {@code this}.
+         */
+        public Builder ejectionTime(final Duration baseEjectionTime, final Duration maxEjectionTime) {
+            requirePositive(baseEjectionTime, "baseEjectionTime");
+            requirePositive(maxEjectionTime, "maxEjectionTime");
+            if (maxEjectionTime.compareTo(baseEjectionTime) < 0) {
+                throw new IllegalArgumentException("maxEjectionTime: " + maxEjectionTime +
+                        " (expected >= baseEjectionTime: " + baseEjectionTime + ')');
+            }
+            this.baseEjectionTime = baseEjectionTime;
+            this.maxEjectionTime = maxEjectionTime;
+            return this;
+        }
+
+        /**
+         * Sets the maximum percentage of hosts which can be ejected at the same time.
+         *
+         * @param maxEjectionPercent maximum percentage of hosts which can be ejected at the same time.
+         * @return {@code this}.
+         */
+        public Builder maxEjectionPercent(final int maxEjectionPercent) {
+            if (maxEjectionPercent < 0 || maxEjectionPercent > 100) {
+                throw new IllegalArgumentException("maxEjectionPercent: " + maxEjectionPercent +
+                        " (expected [0, 100])");
+            }
+            this.maxEjectionPercent = maxEjectionPercent;
+            return this;
+        }
+
+        /**
+         * Sets the requirements for hosts to be considered for success rate and latency detection.
+         *
+         * @param minimumHosts minimum number of hosts which satisfy the {@code requestVolume} requirement.
+         * @param requestVolume minimum number of requests a host has to process during a detection interval.
+         * @return {@code this}.
+         */
+        public Builder detectionVolume(final int minimumHosts, final int requestVolume) {
+            if (minimumHosts <= 0) {
+                throw new IllegalArgumentException("minimumHosts: " + minimumHosts + " (expected > 0)");
+            }
+            if (requestVolume <= 0) {
+                throw new IllegalArgumentException("requestVolume: " + requestVolume + " (expected > 0)");
+            }
+            this.minimumHosts = minimumHosts;
+            this.requestVolume = requestVolume;
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the standard deviation of the success rate to compute the ejection threshold.
+         *
+         * @param successRateStdevFactor factor applied to the standard deviation of the success rate. Use {@code 0} to
+         * disable success rate detection.
+         * @return {@code this}.
+         */
+        public Builder successRateStdevFactor(final double successRateStdevFactor) {
+            if (successRateStdevFactor < 0) {
+                throw new IllegalArgumentException("successRateStdevFactor: " + successRateStdevFactor +
+                        " (expected >= 0)");
+            }
+            this.successRateStdevFactor = successRateStdevFactor;
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the median latency of all hosts to compute the ejection threshold.
+         *
+         * @param latencyFactor factor applied to the median latency of all hosts, must be greater than {@code 1}. Use
+         * {@code 0} to disable latency detection, which is the default.
+         * @return {@code this}.
+         */
+        public Builder latencyFactor(final double latencyFactor) {
+            if (latencyFactor != 0 && latencyFactor <= 1) {
+                throw new IllegalArgumentException("latencyFactor: " + latencyFactor + " (expected 0 or > 1)");
+            }
+            this.latencyFactor = latencyFactor;
+            return this;
+        }
+
+        /**
+         * Builds the {@link OutlierDetectorConfig} configured by this builder.
+         *
+         * @return a new {@link OutlierDetectorConfig}.
+         */
+        public OutlierDetectorConfig build() {
+            return new OutlierDetectorConfig(this);
+        }
+
+        private static Duration requirePositive(final Duration duration, final String name) {
+            if (requireNonNull(duration, name).isNegative() || duration.isZero()) {
+                throw new IllegalArgumentException(name + ": " + duration + " (expected > 0)");
+            }
+            return duration;
+        }
+    }
+}
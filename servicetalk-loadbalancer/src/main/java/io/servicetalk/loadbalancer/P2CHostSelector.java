@@ -0,0 +1,75 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@link HostSelector} implementing the "power of two choices" algorithm: two distinct hosts are picked at random and
+ * the one with the lower {@link Host#cost() cost} wins. Hosts which are not active and healthy lose against hosts that
+ * are. If hosts have different weights, the candidates are sampled proportionally to their weight and the cost is
+ * divided by the weight.
+ */
+final class P2CHostSelector implements HostSelector {
+
+    /**
+     * Number of attempts to sample a second candidate distinct from the first one using weights, before falling back to
+     * uniform sampling. Matters only if a single host holds most of the total weight.
+     */
+    private static final int MAX_WEIGHTED_ATTEMPTS = 3;
+
+    private final WeightedHostSampler weightedSampler = new WeightedHostSampler();
+
+    @Override
+    public <Addr, C extends LoadBalancedConnection> int firstHost(final List<Host<Addr, C>> hosts) {
+        final int size = hosts.size();
+        if (size == 1) {
+            return 0;
+        }
+        final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int i = weightedSampler.sample(hosts);
+        int j = -1;
+        if (i < 0) {
+            i = rnd.nextInt(size);
+        } else {
+            for (int attempt = 0; attempt < MAX_WEIGHTED_ATTEMPTS && (j < 0 || j == i); ++attempt) {
+                j = weightedSampler.sample(hosts);
+            }
+        }
+        if (j < 0 || j == i) {
+            j = rnd.nextInt(size - 1);
+            if (j >= i) {
+                ++j;
+            }
+        }
+        final Host<Addr, C> first = hosts.get(i);
+        final Host<Addr, C> second = hosts.get(j);
+        final boolean firstUsable = first.isActiveAndHealthy();
+        if (firstUsable != second.isActiveAndHealthy()) {
+            return firstUsable ? i : j;
+        }
+        final int firstWeight = first.weight();
+        final int secondWeight = second.weight();
+        if (firstWeight == secondWeight) {
+            return first.cost() <= second.cost() ? i : j;
+        }
+        return (double) first.cost() / firstWeight <= (double) second.cost() / secondWeight ? i : j;
+    }
+}
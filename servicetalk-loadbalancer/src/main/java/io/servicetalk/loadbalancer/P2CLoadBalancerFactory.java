@@ -0,0 +1,325 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.RequestTracker;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Executor;
+import io.servicetalk.concurrent.api.Publisher;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.HealthCheckConfig;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.SharedExecutor;
+
+import java.time.Duration;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.DEFAULT_HEALTH_CHECK_FAILED_CONNECTIONS_THRESHOLD;
+import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.DEFAULT_HEALTH_CHECK_INTERVAL;
+import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.EAGER_CONNECTION_SHUTDOWN_ENABLED;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link LoadBalancerFactory} that creates {@link LoadBalancer} instances which use the "power of two choices" (P2C)
+ * strategy for selecting addresses. The created instances have the following behaviour:
+ * <ul>
+ * <li>Every address keeps track of its outstanding requests and of a peak exponentially weighted moving average of
+ * its request latency. The information is collected through a {@link RequestTracker} which is passed to the
+ * {@link ConnectionFactory#newConnection(Object, RequestTracker, io.servicetalk.transport.api.TransportObserver)
+ * ConnectionFactory}. Protocols which do not report requests to the {@link RequestTracker} make all addresses look
+ * alike, which degrades the selection to random.</li>
+ * <li>For each selection two distinct addresses are picked at random and the one with the lower product of
+ * outstanding requests and latency is used. A slow or overloaded address therefore receives less traffic than its
+ * {@code 1/N} share, while the randomness avoids herding all clients onto the same "best" address.</li>
+ * <li>If the picked address has no available connection and can not open a new one, the remaining addresses are
+ * visited in order. All other aspects (lazy connection creation, connection reuse, eager connection shutdown,
+ * health checking and outlier detection) are the same as described for {@link RoundRobinLoadBalancerFactory}.</li>
+ * </ul>
+ *
+ * @param <ResolvedAddress> The resolved address type.
+ * @param <C> The type of connection.
+ */
+public final class P2CLoadBalancerFactory<ResolvedAddress, C extends LoadBalancedConnection>
+        implements LoadBalancerFactory<ResolvedAddress, C> {
+
+    static final Duration DEFAULT_LATENCY_DECAY = Duration.ofSeconds(10);
+
+    private final boolean eagerConnectionShutdown;
+    @Nullable
+    private final HealthCheckConfig healthCheckConfig;
+    @Nullable
+    private final OutlierDetectorConfig outlierDetectorConfig;
+    @Nullable
+    private final SubsettingConfig subsettingConfig;
+    @Nullable
+    private final SlowStartConfig slowStartConfig;
+    @Nullable
+    private final MinConnectionsConfig minConnectionsConfig;
+    @Nullable
+    private final ZoneAwareRoutingConfig zoneAwareRoutingConfig;
+    @Nullable
+    private final ConnectionPoolConfig connectionPoolConfig;
+    private final Executor backgroundExecutor;
+    private final long latencyDecayNanos;
+
+    private P2CLoadBalancerFactory(final boolean eagerConnectionShutdown,
+                                   @Nullable final HealthCheckConfig healthCheckConfig,
+                                   @Nullable final OutlierDetectorConfig outlierDetectorConfig,
+                                   @Nullable final SubsettingConfig subsettingConfig,
+                                   @Nullable final SlowStartConfig slowStartConfig,
+                                   @Nullable final MinConnectionsConfig minConnectionsConfig,
+                                   @Nullable final ZoneAwareRoutingConfig zoneAwareRoutingConfig,
+                                   @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                                   final Executor backgroundExecutor,
+                                   final long latencyDecayNanos) {
+        this.eagerConnectionShutdown = eagerConnectionShutdown;
+        this.healthCheckConfig = healthCheckConfig;
+        this.outlierDetectorConfig = outlierDetectorConfig;
+        this.subsettingConfig = subsettingConfig;
+        this.slowStartConfig = slowStartConfig;
+        this.minConnectionsConfig = minConnectionsConfig;
+        this.zoneAwareRoutingConfig = zoneAwareRoutingConfig;
+        this.connectionPoolConfig = connectionPoolConfig;
+        this.backgroundExecutor = backgroundExecutor;
+        this.latencyDecayNanos = latencyDecayNanos;
+    }
+
+    @Override
+    public <T extends C> LoadBalancer<T> newLoadBalancer(
+            final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+            final ConnectionFactory<ResolvedAddress, T> connectionFactory) {
+        return new RoundRobinLoadBalancer<>(
+                subsettingConfig == null ? eventPublisher : Subsetter.subset(eventPublisher, subsettingConfig),
+                connectionFactory, eagerConnectionShutdown, healthCheckConfig, outlierDetectorConfig,
+                slowStartConfig, minConnectionsConfig, zoneAwareRoutingConfig, connectionPoolConfig,
+                backgroundExecutor, P2CHostSelector::new, latencyDecayNanos);
+    }
+
+    /**
+     * Builder for {@link P2CLoadBalancerFactory}.
+     *
+     * @param <ResolvedAddress> The resolved address type.
+     * @param <C> The type of connection.
+     */
+    public static final class Builder<ResolvedAddress, C extends LoadBalancedConnection> {
+        private boolean eagerConnectionShutdown = EAGER_CONNECTION_SHUTDOWN_ENABLED;
+        @Nullable
+        private Executor backgroundExecutor;
+        private Duration healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
+        private int healthCheckFailedConnectionsThreshold = DEFAULT_HEALTH_CHECK_FAILED_CONNECTIONS_THRESHOLD;
+        private Duration latencyDecay = DEFAULT_LATENCY_DECAY;
+        @Nullable
+        private OutlierDetectorConfig outlierDetectorConfig;
+        @Nullable
+        private SubsettingConfig subsettingConfig;
+        @Nullable
+        private SlowStartConfig slowStartConfig;
+        @Nullable
+        private MinConnectionsConfig minConnectionsConfig;
+        @Nullable
+        private ZoneAwareRoutingConfig zoneAwareRoutingConfig;
+        @Nullable
+        private ConnectionPoolConfig connectionPoolConfig;
+
+        /**
+         * Creates a new instance with default settings.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Configures the time it takes for the weight of a latency sample to drop to {@code 1/e} of its initial
+         * value. Shorter values react faster to latency changes, longer values are more resilient to noise.
+         * <p>
+         * The same time frame is used to forget the latency of an address that does not receive any requests, which
+         * makes sure slow addresses are eventually probed again.
+         *
+         * @param latencyDecay the decay time of latency samples.
+         * @return {@code this}.
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> latencyDecay(final Duration latencyDecay) {
+            if (latencyDecay.isNegative() || latencyDecay.isZero()) {
+                throw new IllegalArgumentException("Latency decay should be greater than 0");
+            }
+            this.latencyDecay = latencyDecay;
+            return this;
+        }
+
+        /**
+         * Configures eagerness of connection shutdown.
+         *
+         * @param eagerConnectionShutdown when {@code true}, connections will be shut down upon receiving
+         * {@link ServiceDiscovererEvent#isAvailable() unavailable} events for a particular host. Value of {@code false}
+         * preserves connections and routes requests through them but no new connections are opened for such host.
+         * @return {@code this}.
+         * @see RoundRobinLoadBalancerFactory.Builder#eagerConnectionShutdown(boolean)
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> eagerConnectionShutdown(
+                final boolean eagerConnectionShutdown) {
+            this.eagerConnectionShutdown = eagerConnectionShutdown;
+            return this;
+        }
+
+        /**
+         * Configures the {@link Executor} on which to schedule health checking.
+         *
+         * @param backgroundExecutor {@link Executor} on which to schedule health checking.
+         * @return {@code this}.
+         * @see RoundRobinLoadBalancerFactory.Builder#backgroundExecutor(Executor)
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> backgroundExecutor(
+                final Executor backgroundExecutor) {
+            this.backgroundExecutor = requireNonNull(backgroundExecutor);
+            return this;
+        }
+
+        /**
+         * Configure an interval for health checking a host that failed to open connections.
+         *
+         * @param interval interval at which a background health check will be scheduled.
+         * @return {@code this}.
+         * @see RoundRobinLoadBalancerFactory.Builder#healthCheckInterval(Duration)
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> healthCheckInterval(final Duration interval) {
+            if (interval.isNegative() || interval.isZero()) {
+                throw new IllegalArgumentException("Health check interval should be greater than 0");
+            }
+            this.healthCheckInterval = interval;
+            return this;
+        }
+
+        /**
+         * Configure a threshold for consecutive connection failures to a host.
+         *
+         * @param threshold number of consecutive connection failures to consider a host unhealthy and eligible for
+         * background health checking. Use negative value to disable the health checking mechanism.
+         * @return {@code this}.
+         * @see RoundRobinLoadBalancerFactory.Builder#healthCheckFailedConnectionsThreshold(int)
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> healthCheckFailedConnectionsThreshold(
+                final int threshold) {
+            if (threshold == 0) {
+                throw new IllegalArgumentException("Health check failed connections threshold should not be 0");
+            }
+            this.healthCheckFailedConnectionsThreshold = threshold;
+            return this;
+        }
+
+        /**
+         * Enables outlier detection, which ejects hosts that fail or slow down requests while still accepting
+         * connections. Requires health checking to be enabled, as ejected hosts return through a health check.
+         *
+         * @param outlierDetectorConfig configuration of the outlier detection.
+         * @return {@code this}.
+         * @see OutlierDetectorConfig
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> outlierDetectorConfig(
+                final OutlierDetectorConfig outlierDetectorConfig) {
+            this.outlierDetectorConfig = requireNonNull(outlierDetectorConfig);
+            return this;
+        }
+
+        /**
+         * Enables deterministic subsetting, which limits the addresses used by each {@link LoadBalancer} to a stable
+         * subset of the addresses provided by the service discovery.
+         *
+         * @param subsettingConfig configuration of the subsetting.
+         * @return {@code this}.
+         * @see SubsettingConfig
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> subsetting(final SubsettingConfig subsettingConfig) {
+            this.subsettingConfig = requireNonNull(subsettingConfig);
+            return this;
+        }
+
+        /**
+         * Enables the slow start of hosts discovered after the {@link LoadBalancer} started to select connections,
+         * which ramps up their share of traffic during a warm-up window.
+         *
+         * @param slowStartConfig configuration of the slow start.
+         * @return {@code this}.
+         * @see SlowStartConfig
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> slowStart(final SlowStartConfig slowStartConfig) {
+            this.slowStartConfig = requireNonNull(slowStartConfig);
+            return this;
+        }
+
+        /**
+         * Keeps a minimum number of connections open to each available host, which are established in the background
+         * as soon as the host becomes available and whenever connections close.
+         *
+         * @param minConnectionsConfig configuration of the minimum number of connections.
+         * @return {@code this}.
+         * @see MinConnectionsConfig
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> minConnections(
+                final MinConnectionsConfig minConnectionsConfig) {
+            this.minConnectionsConfig = requireNonNull(minConnectionsConfig);
+            return this;
+        }
+
+        /**
+         * Enables zone-aware routing, which prefers hosts in the same zone as the client and spills over to other
+         * zones when the local zone is degraded.
+         *
+         * @param zoneAwareRoutingConfig configuration of the zone-aware routing.
+         * @return {@code this}.
+         * @see ZoneAwareRoutingConfig
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> zoneAwareRouting(
+                final ZoneAwareRoutingConfig zoneAwareRoutingConfig) {
+            this.zoneAwareRoutingConfig = requireNonNull(zoneAwareRoutingConfig);
+            return this;
+        }
+
+        /**
+         * Configures the order in which connections are reused and the eviction of idle connections. By default
+         * connections are reused in a random order and are only closed by the peer or when the host becomes
+         * unavailable.
+         *
+         * @param connectionPoolConfig configuration of the reuse and the eviction of connections.
+         * @return {@code this}.
+         * @see ConnectionPoolConfig
+         */
+        public P2CLoadBalancerFactory.Builder<ResolvedAddress, C> connectionPool(
+                final ConnectionPoolConfig connectionPoolConfig) {
+            this.connectionPoolConfig = requireNonNull(connectionPoolConfig);
+            return this;
+        }
+
+        /**
+         * Builds the {@link P2CLoadBalancerFactory} configured by this builder.
+         *
+         * @return a new instance of {@link P2CLoadBalancerFactory} with settings from this builder.
+         */
+        public P2CLoadBalancerFactory<ResolvedAddress, C> build() {
+            final Executor backgroundExecutor =
+                    this.backgroundExecutor == null ? SharedExecutor.getInstance() : this.backgroundExecutor;
+            final HealthCheckConfig healthCheckConfig = healthCheckFailedConnectionsThreshold < 0 ? null :
+                    new HealthCheckConfig(backgroundExecutor, healthCheckInterval,
+                            healthCheckFailedConnectionsThreshold);
+            if (healthCheckConfig == null && outlierDetectorConfig != null) {
+                throw new IllegalArgumentException("Outlier detection requires health checking to be enabled");
+            }
+            return new P2CLoadBalancerFactory<>(eagerConnectionShutdown, healthCheckConfig, outlierDetectorConfig,
+                    subsettingConfig, slowStartConfig, minConnectionsConfig, zoneAwareRoutingConfig,
+                    connectionPoolConfig, backgroundExecutor, latencyDecay.toNanos());
+        }
+    }
+}
@@ -21,6 +21,7 @@ import io.servicetalk.client.api.LoadBalancedConnection;
 import io.servicetalk.client.api.LoadBalancer;
 import io.servicetalk.client.api.LoadBalancerFactory;
 import io.servicetalk.client.api.NoAvailableHostException;
+import io.servicetalk.client.api.RequestTracker;
 import io.servicetalk.client.api.ServiceDiscovererEvent;
 import io.servicetalk.concurrent.PublisherSource.Processor;
 import io.servicetalk.concurrent.PublisherSource.Subscriber;
@@ -46,11 +47,14 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 
@@ -68,6 +72,7 @@ import static io.servicetalk.concurrent.api.Single.succeeded;
 import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
 import static io.servicetalk.concurrent.internal.FlowControlUtils.addWithOverflowProtection;
+import static io.servicetalk.loadbalancer.P2CLoadBalancerFactory.DEFAULT_LATENCY_DECAY;
 import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.DEFAULT_HEALTH_CHECK_FAILED_CONNECTIONS_THRESHOLD;
 import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.DEFAULT_HEALTH_CHECK_INTERVAL;
 import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.EAGER_CONNECTION_SHUTDOWN_ENABLED;
@@ -98,9 +103,8 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
     private static final AtomicReferenceFieldUpdater<RoundRobinLoadBalancer, List> usedHostsUpdater =
             newUpdater(RoundRobinLoadBalancer.class, List.class, "usedHosts");
     @SuppressWarnings("rawtypes")
-    private static final AtomicIntegerFieldUpdater<RoundRobinLoadBalancer> indexUpdater =
-            newUpdater(RoundRobinLoadBalancer.class, "index");
-
+    private static final AtomicIntegerFieldUpdater<RoundRobinLoadBalancer> warmUpReadyUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(RoundRobinLoadBalancer.class, "warmUpReady");
     /**
      * With a relatively small number of connections we can minimize connection creation under moderate concurrency by
      * exhausting the full search space without sacrificing too much latency caused by the cost of a CAS operation per
@@ -118,14 +122,25 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
      */
     private static final float SEARCH_FACTOR = 0.75f;
 
-    @SuppressWarnings("unused")
-    private volatile int index;
     private volatile List<Host<ResolvedAddress, C>> usedHosts = emptyList();
 
     private final Publisher<Object> eventStream;
     private final SequentialCancellable discoveryCancellable = new SequentialCancellable();
     private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
+    private final HostSelector hostSelector;
+    @Nullable
+    private final OutlierDetector<ResolvedAddress, C> outlierDetector;
+    @Nullable
+    private final SlowStartConfig slowStartConfig;
+    @Nullable
+    private final ConnectionWarmer<ResolvedAddress, C> connectionWarmer;
+    @Nullable
+    private final IdleConnectionEvictor<ResolvedAddress, C> idleConnectionEvictor;
+    private final boolean waitForWarmUp;
+    private final boolean firstAvailable;
     private final ListenableAsyncCloseable asyncCloseable;
+    private volatile boolean selectionStarted;
+    private volatile int warmUpReady;
 
     /**
      * Creates a new instance.
@@ -161,9 +176,115 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                            final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
                            final boolean eagerConnectionShutdown,
                            @Nullable final HealthCheckConfig healthCheckConfig) {
+        this(eventPublisher, connectionFactory, eagerConnectionShutdown, healthCheckConfig, null, null, null, null,
+                null, SharedExecutor.getInstance());
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param eagerConnectionShutdown whether connections with {@link ServiceDiscovererEvent#isAvailable()} flag
+     * set to {@code false} should be eagerly closed.
+     * @param healthCheckConfig configuration for the health checking mechanism, {@code null} disables it.
+     * @param outlierDetectorConfig configuration for outlier detection, {@code null} disables it. Requires health
+     * checking to be enabled.
+     * @param slowStartConfig configuration for the slow start of new hosts, {@code null} disables it.
+     * @param minConnectionsConfig configuration for the minimum number of connections per host, {@code null}
+     * disables it.
+     * @param zoneAwareRoutingConfig configuration for zone-aware routing, {@code null} disables it.
+     * @param connectionPoolConfig configuration for the reuse and the eviction of connections, {@code null} reuses
+     * connections in a random order and never evicts them.
+     * @param backgroundExecutor {@link Executor} for background tasks which are not health checks.
+     */
+    RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final boolean eagerConnectionShutdown,
+                           @Nullable final HealthCheckConfig healthCheckConfig,
+                           @Nullable final OutlierDetectorConfig outlierDetectorConfig,
+                           @Nullable final SlowStartConfig slowStartConfig,
+                           @Nullable final MinConnectionsConfig minConnectionsConfig,
+                           @Nullable final ZoneAwareRoutingConfig zoneAwareRoutingConfig,
+                           @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                           final Executor backgroundExecutor) {
+        this(eventPublisher, connectionFactory, eagerConnectionShutdown, healthCheckConfig, outlierDetectorConfig,
+                slowStartConfig, minConnectionsConfig, zoneAwareRoutingConfig, connectionPoolConfig,
+                backgroundExecutor, RoundRobinHostSelector::new, 0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param eventPublisher provides a stream of addresses to connect to.
+     * @param connectionFactory a function which creates new connections.
+     * @param eagerConnectionShutdown whether connections with {@link ServiceDiscovererEvent#isAvailable()} flag
+     * set to {@code false} should be eagerly closed.
+     * @param healthCheckConfig configuration for the health checking mechanism, {@code null} disables it.
+     * @param outlierDetectorConfig configuration for outlier detection, {@code null} disables it. Requires health
+     * checking to be enabled and implies request tracking.
+     * @param slowStartConfig configuration for the slow start of new hosts, {@code null} disables it.
+     * @param minConnectionsConfig configuration for the minimum number of connections per host, {@code null}
+     * disables it.
+     * @param zoneAwareRoutingConfig configuration for zone-aware routing, {@code null} disables it.
+     * @param connectionPoolConfig configuration for the reuse and the eviction of connections, {@code null} reuses
+     * connections in a random order and never evicts them.
+     * @param backgroundExecutor {@link Executor} for background tasks which are not health checks.
+     * @param hostSelectorFactory creates the {@link HostSelector} which picks the host to consider first for each
+     * selection.
+     * @param requestTrackingDecayNanos when positive, every host tracks outstanding requests and their latency through
+     * a {@link RequestTracker} passed to the {@link ConnectionFactory}, with the latency samples decaying over the
+     * specified amount of nanoseconds. {@code 0} disables request tracking.
+     */
+    RoundRobinLoadBalancer(final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
+                           final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                           final boolean eagerConnectionShutdown,
+                           @Nullable final HealthCheckConfig healthCheckConfig,
+                           @Nullable final OutlierDetectorConfig outlierDetectorConfig,
+                           @Nullable final SlowStartConfig slowStartConfig,
+                           @Nullable final MinConnectionsConfig minConnectionsConfig,
+                           @Nullable final ZoneAwareRoutingConfig zoneAwareRoutingConfig,
+                           @Nullable final ConnectionPoolConfig connectionPoolConfig,
+                           final Executor backgroundExecutor,
+                           final Supplier<HostSelector> hostSelectorFactory,
+                           final long requestTrackingDecayNanos) {
         Processor<Object, Object> eventStreamProcessor = newPublisherProcessorDropHeadOnOverflow(32);
         this.eventStream = fromSource(eventStreamProcessor);
         this.connectionFactory = requireNonNull(connectionFactory);
+        this.hostSelector = zoneAwareRoutingConfig == null ? requireNonNull(hostSelectorFactory.get()) :
+                new ZoneAwareHostSelector(zoneAwareRoutingConfig, hostSelectorFactory);
+        this.slowStartConfig = slowStartConfig;
+        if (minConnectionsConfig == null) {
+            connectionWarmer = null;
+            waitForWarmUp = false;
+        } else {
+            waitForWarmUp = minConnectionsConfig.waitForWarmUp();
+            connectionWarmer = new ConnectionWarmer<>(minConnectionsConfig, connectionFactory, !waitForWarmUp ? null :
+                    () -> {
+                        if (warmUpReadyUpdater.compareAndSet(this, 0, 1)) {
+                            eventStreamProcessor.onNext(LOAD_BALANCER_READY_EVENT);
+                        }
+                    });
+        }
+        if (connectionPoolConfig == null) {
+            firstAvailable = false;
+            idleConnectionEvictor = null;
+        } else {
+            firstAvailable = connectionPoolConfig.reusePolicy() == ConnectionPoolConfig.ReusePolicy.FIRST_AVAILABLE;
+            idleConnectionEvictor = new IdleConnectionEvictor<>(connectionPoolConfig, backgroundExecutor,
+                    () -> usedHosts, minConnectionsConfig == null ? 0 : minConnectionsConfig.minConnections());
+        }
+        if (outlierDetectorConfig == null) {
+            outlierDetector = null;
+        } else {
+            if (healthCheckConfig == null) {
+                throw new IllegalArgumentException("Outlier detection requires health checking to be enabled");
+            }
+            outlierDetector = new OutlierDetector<>(outlierDetectorConfig, healthCheckConfig.executor,
+                    () -> usedHosts, connectionFactory);
+        }
+        final long trackingDecayNanos = requestTrackingDecayNanos > 0 || outlierDetector == null ?
+                requestTrackingDecayNanos : DEFAULT_LATENCY_DECAY.toNanos();
 
         toSource(eventPublisher).subscribe(new Subscriber<ServiceDiscovererEvent<ResolvedAddress>>() {
 
@@ -193,7 +314,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
 
                         if (eagerConnectionShutdown) {
                             if (event.isAvailable()) {
-                                return addHostToList(oldHostsTyped, addr, false);
+                                return addHostToList(oldHostsTyped, addr, event.weight(), event.zone(), false);
                             } else {
                                 return listWithHostRemoved(oldHostsTyped, host -> {
                                     boolean match = host.address.equals(addr);
@@ -204,7 +325,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                                 });
                             }
                         } else if (event.isAvailable()) {
-                            return addHostToList(oldHostsTyped, addr, true);
+                            return addHostToList(oldHostsTyped, addr, event.weight(), event.zone(), true);
                         } else if (oldHostsTyped.isEmpty()) {
                             return emptyList();
                         } else {
@@ -216,14 +337,28 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                         usedAddresses.size(), usedAddresses);
 
                 if (event.isAvailable()) {
-                    if (usedAddresses.size() == 1) {
+                    if (connectionWarmer != null) {
+                        warmUp(usedAddresses, event.address());
+                    }
+                    if (usedAddresses.size() == 1 && !waitForWarmUp) {
                         eventStreamProcessor.onNext(LOAD_BALANCER_READY_EVENT);
                     }
                 } else if (usedAddresses.isEmpty()) {
+                    warmUpReady = 0;
                     eventStreamProcessor.onNext(LOAD_BALANCER_NOT_READY_EVENT);
                 }
             }
 
+            private void warmUp(final List<Host<ResolvedAddress, C>> usedAddresses, final ResolvedAddress addr) {
+                assert connectionWarmer != null;
+                for (Host<ResolvedAddress, C> host : usedAddresses) {
+                    if (host.address.equals(addr)) {
+                        connectionWarmer.ensureMinConnections(host);
+                        return;
+                    }
+                }
+            }
+
             private List<Host<ResolvedAddress, C>> markHostAsExpired(
                     final List<Host<ResolvedAddress, C>> oldHostsTyped, final ResolvedAddress addr) {
                 for (Host<ResolvedAddress, C> host : oldHostsTyped) {
@@ -236,8 +371,14 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 return oldHostsTyped;
             }
 
-            private Host<ResolvedAddress, C> createHost(ResolvedAddress addr) {
-                Host<ResolvedAddress, C> host = new Host<>(addr, healthCheckConfig);
+            private Host<ResolvedAddress, C> createHost(ResolvedAddress addr, int weight, @Nullable String zone) {
+                Host<ResolvedAddress, C> host = new Host<>(addr, weight, healthCheckConfig, trackingDecayNanos > 0 ?
+                        new DefaultRequestTracker(trackingDecayNanos, outlierDetector) : null, connectionWarmer,
+                        idleConnectionEvictor);
+                host.zone(zone);
+                if (slowStartConfig != null && selectionStarted) {
+                    host.beginSlowStart(System.nanoTime());
+                }
                 if (!eagerConnectionShutdown) {
                     host.onClose().afterFinally(() ->
                             usedHostsUpdater.updateAndGet(RoundRobinLoadBalancer.this, previousHosts -> {
@@ -251,10 +392,10 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 return host;
             }
 
-            private List<Host<ResolvedAddress, C>> addHostToList(
-                    List<Host<ResolvedAddress, C>> oldHostsTyped, ResolvedAddress addr, boolean handleExpired) {
+            private List<Host<ResolvedAddress, C>> addHostToList(List<Host<ResolvedAddress, C>> oldHostsTyped,
+                    ResolvedAddress addr, int weight, @Nullable String zone, boolean handleExpired) {
                 if (oldHostsTyped.isEmpty()) {
-                    return singletonList(createHost(addr));
+                    return singletonList(createHost(addr, weight, zone));
                 }
 
                 // duplicates are not allowed
@@ -266,13 +407,20 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                             // of replacing the usedHosts array the marking succeeds so we will not add a new entry.
                             break;
                         }
+                        if (host.weight() != weight || !Objects.equals(host.zone(), zone)) {
+                            // Keep the host and its connections, but publish a new list so that host selectors
+                            // which cache weights or zones per list observe the change.
+                            host.weight(weight);
+                            host.zone(zone);
+                            return new ArrayList<>(oldHostsTyped);
+                        }
                         return oldHostsTyped;
                     }
                 }
 
                 final List<Host<ResolvedAddress, C>> newHosts = new ArrayList<>(oldHostsTyped.size() + 1);
                 newHosts.addAll(oldHostsTyped);
-                newHosts.add(createHost(addr));
+                newHosts.add(createHost(addr, weight, zone));
                 return newHosts;
             }
 
@@ -319,10 +467,25 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             @SuppressWarnings("unchecked")
             List<Host<ResolvedAddress, C>> currentList = usedHostsUpdater.getAndSet(this, CLOSED_LIST);
             discoveryCancellable.cancel();
+            if (outlierDetector != null) {
+                outlierDetector.cancel();
+            }
+            if (connectionWarmer != null) {
+                connectionWarmer.close();
+            }
+            if (idleConnectionEvictor != null) {
+                idleConnectionEvictor.cancel();
+            }
             eventStreamProcessor.onComplete();
             CompositeCloseable cc = newCompositeCloseable().appendAll(currentList).appendAll(connectionFactory);
             return graceful ? cc.closeAsyncGracefully() : cc.closeAsync();
         });
+        if (outlierDetector != null) {
+            outlierDetector.start();
+        }
+        if (idleConnectionEvictor != null) {
+            idleConnectionEvictor.start();
+        }
     }
 
     /**
@@ -363,28 +526,35 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                     RoundRobinLoadBalancer.class, "selectConnection0(...)"));
         }
 
+        if (slowStartConfig != null && !selectionStarted) {
+            selectionStarted = true;
+        }
+
         // try one loop over hosts and if all are expired, give up
-        final int cursor = (indexUpdater.getAndIncrement(this) & Integer.MAX_VALUE) % usedHosts.size();
+        final int cursor = hostSelector.firstHost(usedHosts);
         final ThreadLocalRandom rnd = ThreadLocalRandom.current();
         Host<ResolvedAddress, C> pickedHost = null;
+        Host<ResolvedAddress, C> skippedHost = null;
         for (int i = 0; i < usedHosts.size(); ++i) {
             // for a particular iteration we maintain a local cursor without contention with other requests
-            int localCursor = (cursor + i) % usedHosts.size();
-            final Host<ResolvedAddress, C> host = usedHosts.get(localCursor);
+            final Host<ResolvedAddress, C> host = usedHosts.get(hostSelector.hostIndex(usedHosts, cursor, i));
             assert host != null : "Host can't be null.";
+            if (host.isEjected()) {
+                // Ejected hosts keep their connections for when they return, but must not receive requests.
+                continue;
+            }
+            if (slowStartConfig != null && host.skipForSlowStart(slowStartConfig, rnd)) {
+                // Remember the first skipped host, in case all others are unavailable.
+                if (skippedHost == null) {
+                    skippedHost = host;
+                }
+                continue;
+            }
 
             // Try first to see if an existing connection can be used
-            final Object[] connections = host.connState.connections;
-            // With small enough search space, attempt all connections.
-            // Back off after exploring most of the search space, it gives diminishing returns.
-            final int attempts = connections.length < MIN_SEARCH_SPACE ?
-                    connections.length : (int) (connections.length * SEARCH_FACTOR);
-            for (int j = 0; j < attempts; ++j) {
-                @SuppressWarnings("unchecked")
-                final C connection = (C) connections[rnd.nextInt(connections.length)];
-                if (selector.test(connection)) {
-                    return succeeded(connection);
-                }
+            final C connection = selectFromExisting(host, selector, rnd);
+            if (connection != null) {
+                return succeeded(connection);
             }
 
             // Don't open new connections for expired or unhealthy hosts, try a different one.
@@ -394,6 +564,15 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 break;
             }
         }
+        if (pickedHost == null && skippedHost != null) {
+            final C connection = selectFromExisting(skippedHost, selector, rnd);
+            if (connection != null) {
+                return succeeded(connection);
+            }
+            if (skippedHost.isActiveAndHealthy()) {
+                pickedHost = skippedHost;
+            }
+        }
         if (pickedHost == null) {
             return failed(StacklessNoAvailableHostException.newInstance(
                     "Failed to pick an active host. Either all are busy or all are expired.",
@@ -404,7 +583,8 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
 
         // This LB implementation does not automatically provide TransportObserver. Therefore, we pass "null" here.
         // Users can apply a ConnectionFactoryFilter if they need to override this "null" value with TransportObserver.
-        Single<? extends C> establishConnection = connectionFactory.newConnection(host.address, null);
+        Single<? extends C> establishConnection =
+                connectionFactory.newConnection(host.address, host.requestTracker, null);
         if (host.healthCheckConfig != null) {
                 // Schedule health check before returning
                 establishConnection = establishConnection.beforeOnError(t -> host.markUnhealthy(connectionFactory));
@@ -428,6 +608,40 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 });
     }
 
+    @Nullable
+    private C selectFromExisting(final Host<?, C> host, final Predicate<C> selector, final ThreadLocalRandom rnd) {
+        final Host.ConnState connState = host.connState;
+        final Object[] connections = connState.connections;
+        // With small enough search space, attempt all connections.
+        // Back off after exploring most of the search space, it gives diminishing returns.
+        final int attempts = connections.length < MIN_SEARCH_SPACE ?
+                connections.length : (int) (connections.length * SEARCH_FACTOR);
+        final int index = firstAvailable ? selectFirst(connections, selector, attempts) :
+                connState.busyConnections.selectIndex(connections, selector, attempts, rnd);
+        if (index < 0) {
+            return null;
+        }
+        if (idleConnectionEvictor != null) {
+            connState.markSelected(index, idleConnectionEvictor.tick());
+        }
+        @SuppressWarnings("unchecked")
+        final C connection = (C) connections[index];
+        return connection;
+    }
+
+    private static <C> int selectFirst(final Object[] connections, final Predicate<C> selector, final int attempts) {
+        // Busy hints are not used: skipping the first connections while they are busy would spread the selections
+        // across all connections again.
+        for (int i = 0; i < attempts; ++i) {
+            @SuppressWarnings("unchecked")
+            final C connection = (C) connections[i];
+            if (selector.test(connection)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     @Override
     public Completable onClose() {
         return asyncCloseable.onClose();
@@ -482,13 +696,32 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
         }
     }
 
-    private static final class Host<Addr, C extends LoadBalancedConnection> implements ListenableAsyncCloseable {
+    /**
+     * {@link HostSelector} which visits hosts in a round robin fashion, using a cursor shared by all selections. If
+     * hosts have different weights, the first host is instead sampled proportionally to its weight.
+     */
+    private static final class RoundRobinHostSelector implements HostSelector {
+        private static final AtomicIntegerFieldUpdater<RoundRobinHostSelector> indexUpdater =
+                newUpdater(RoundRobinHostSelector.class, "index");
+
+        private final WeightedHostSampler weightedSampler = new WeightedHostSampler();
+        @SuppressWarnings("unused")
+        private volatile int index;
+
+        @Override
+        public <Addr, C extends LoadBalancedConnection> int firstHost(final List<Host<Addr, C>> hosts) {
+            final int weighted = weightedSampler.sample(hosts);
+            return weighted >= 0 ? weighted : (indexUpdater.getAndIncrement(this) & Integer.MAX_VALUE) % hosts.size();
+        }
+    }
+
+    static final class Host<Addr, C extends LoadBalancedConnection> implements ListenableAsyncCloseable {
 
         private enum State {
             // The enum is not exhaustive, as other states have dynamic properties.
             // For clarity, the other state classes are listed as comments:
             // ACTIVE - see ActiveState
-            // UNHEALTHY - see HealthCheck
+            // UNHEALTHY, EJECTED - see HealthCheck
             EXPIRED,
             CLOSED
         }
@@ -500,16 +733,46 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
         @SuppressWarnings("rawtypes")
         private static final AtomicReferenceFieldUpdater<Host, ConnState> connStateUpdater =
                 AtomicReferenceFieldUpdater.newUpdater(Host.class, ConnState.class, "connState");
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Host> warmUpsUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Host.class, "warmUps");
 
         final Addr address;
         @Nullable
         private final HealthCheckConfig healthCheckConfig;
+        @Nullable
+        private final DefaultRequestTracker requestTracker;
+        @Nullable
+        private final ConnectionWarmer<Addr, C> warmer;
+        @Nullable
+        private final IdleConnectionEvictor<Addr, C> evictor;
         private final ListenableAsyncCloseable closeable;
         private volatile ConnState connState = ACTIVE_EMPTY_CONN_STATE;
+        private volatile int weight;
+        @Nullable
+        private volatile String zone;
+        private volatile int warmUps;
+        /**
+         * Multiplier of the ejection time, guarded by the lock of the {@link OutlierDetector}.
+         */
+        int ejections;
+        private long slowStartBeginNanos;
+        private volatile boolean slowStart;
+
+        Host(Addr address, int weight, @Nullable HealthCheckConfig healthCheckConfig,
+             @Nullable DefaultRequestTracker requestTracker) {
+            this(address, weight, healthCheckConfig, requestTracker, null, null);
+        }
 
-        Host(Addr address, @Nullable HealthCheckConfig healthCheckConfig) {
+        Host(Addr address, int weight, @Nullable HealthCheckConfig healthCheckConfig,
+             @Nullable DefaultRequestTracker requestTracker, @Nullable ConnectionWarmer<Addr, C> warmer,
+             @Nullable IdleConnectionEvictor<Addr, C> evictor) {
             this.address = requireNonNull(address);
+            this.weight = weight;
             this.healthCheckConfig = healthCheckConfig;
+            this.requestTracker = requestTracker;
+            this.warmer = warmer;
+            this.evictor = evictor;
             this.closeable = toAsyncCloseable(graceful ->
                     graceful ? doClose(AsyncCloseable::closeAsyncGracefully) : doClose(AsyncCloseable::closeAsync));
         }
@@ -517,7 +780,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
         boolean markActiveIfNotClosed() {
             final Object oldState = connStateUpdater.getAndUpdate(this, oldConnState -> {
                 if (oldConnState.state == State.EXPIRED) {
-                    return new ConnState(oldConnState.connections, STATE_ACTIVE_NO_FAILURES);
+                    return new ConnState(oldConnState, STATE_ACTIVE_NO_FAILURES);
                 }
                 // If oldConnState.state == State.ACTIVE this could mean either a duplicate event,
                 // or a repeated CAS operation. We could issue a warning, but as we don't know, we don't log anything.
@@ -548,7 +811,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 Object nextState = oldState.connections.length == 0 ? State.CLOSED : State.EXPIRED;
 
                 if (connStateUpdater.compareAndSet(this, oldState,
-                        new ConnState(oldState.connections, nextState))) {
+                        new ConnState(oldState, nextState))) {
                     cancelIfHealthCheck(oldState.state);
                     if (nextState == State.CLOSED) {
                         // Trigger the callback to remove the host from usedHosts array.
@@ -569,7 +832,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             // health check.
             Object oldState = connStateUpdater.getAndUpdate(this, previous -> {
                 if (HealthCheck.class.equals(previous.state.getClass())) {
-                    return new ConnState(previous.connections, STATE_ACTIVE_NO_FAILURES);
+                    return new ConnState(previous, STATE_ACTIVE_NO_FAILURES);
                 }
                 return previous;
             }).state;
@@ -589,7 +852,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 if (previousState.failedConnections + 1 < this.healthCheckConfig.failedThreshold) {
                     final ActiveState nextState = previousState.forNextFailedConnection();
                     if (connStateUpdater.compareAndSet(this, previous,
-                            new ConnState(previous.connections, nextState))) {
+                            new ConnState(previous, nextState))) {
                         LOGGER.debug("Active host for address {} failed to open {} connections" +
                                         " ({} consecutive failures trigger health check).",
                                 address, nextState.failedConnections, healthCheckConfig.failedThreshold);
@@ -600,7 +863,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 }
 
                 final HealthCheck<Addr, C> healthCheck = new HealthCheck<>(connectionFactory, this);
-                final ConnState nextState = new ConnState(previous.connections, healthCheck);
+                final ConnState nextState = new ConnState(previous, healthCheck);
                 if (connStateUpdater.compareAndSet(this, previous, nextState)) {
                     LOGGER.debug("Triggering health check for address {} after {} failed attempts" +
                                     " to open a new connection", address, previousState.failedConnections);
@@ -610,11 +873,135 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             }
         }
 
+        /**
+         * Ejects this host until the ejection time elapses and a health check succeeds. Existing connections are kept
+         * but not selected while the host is ejected.
+         *
+         * @param connectionFactory {@link ConnectionFactory} used by the health check.
+         * @param ejectionTime the time after which the health check starts.
+         * @return {@code true} if the host was ejected, {@code false} if it was not active and healthy.
+         */
+        boolean eject(ConnectionFactory<Addr, ? extends C> connectionFactory, Duration ejectionTime) {
+            assert healthCheckConfig != null;
+            for (;;) {
+                final ConnState previous = connStateUpdater.get(this);
+                if (!ActiveState.class.equals(previous.state.getClass())) {
+                    return false;
+                }
+                final HealthCheck<Addr, C> healthCheck = new HealthCheck<>(connectionFactory, this, ejectionTime);
+                if (connStateUpdater.compareAndSet(this, previous,
+                        new ConnState(previous, healthCheck))) {
+                    LOGGER.debug("Health check for ejected address {} scheduled in {}.", address, ejectionTime);
+                    healthCheck.schedule();
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Starts the slow start of this host. Must be invoked before the host is visible to other threads.
+         *
+         * @param nowNanos the current {@link System#nanoTime()}.
+         */
+        void beginSlowStart(long nowNanos) {
+            slowStartBeginNanos = nowNanos;
+            slowStart = true;
+        }
+
+        /**
+         * Decides whether this host should be skipped by a selection because it is in slow start.
+         *
+         * @param config the {@link SlowStartConfig}.
+         * @param rnd the source of randomness for the decision.
+         * @return {@code true} if this host should be skipped.
+         */
+        boolean skipForSlowStart(SlowStartConfig config, ThreadLocalRandom rnd) {
+            if (!slowStart) {
+                return false;
+            }
+            final double weight = config.weight(System.nanoTime() - slowStartBeginNanos);
+            if (weight >= 1) {
+                // Concurrent selections may write the same value, which is benign.
+                slowStart = false;
+                return false;
+            }
+            return rnd.nextDouble() >= weight;
+        }
+
         boolean isActiveAndHealthy() {
             return ActiveState.class.equals(connState.state.getClass());
         }
 
+        int weight() {
+            return weight;
+        }
+
+        void weight(int weight) {
+            this.weight = weight;
+        }
+
+        @Nullable
+        String zone() {
+            return zone;
+        }
+
+        void zone(@Nullable String zone) {
+            this.zone = zone;
+        }
+
+        boolean isEjected() {
+            final Object state = connState.state;
+            return HealthCheck.class.equals(state.getClass()) && ((HealthCheck<?, ?>) state).ejectionTime != null;
+        }
+
+        @Nullable
+        DefaultRequestTracker requestTracker() {
+            return requestTracker;
+        }
+
+        /**
+         * Reserves a background connection attempt if this host is active and healthy and has less than
+         * {@code minConnections} connections, including the reserved attempts.
+         *
+         * @param minConnections the minimum number of connections.
+         * @return {@code true} if an attempt was reserved, it must be ended by {@link #endWarmUp()}.
+         */
+        boolean tryReserveWarmUp(final int minConnections) {
+            for (;;) {
+                final ConnState connState = this.connState;
+                final int warmUps = this.warmUps;
+                if (!ActiveState.class.equals(connState.state.getClass()) ||
+                        connState.connections.length + warmUps >= minConnections) {
+                    return false;
+                }
+                if (warmUpsUpdater.compareAndSet(this, warmUps, warmUps + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void endWarmUp() {
+            warmUpsUpdater.decrementAndGet(this);
+        }
+
+        void onWarmUpFailed(final ConnectionFactory<Addr, ? extends C> connectionFactory) {
+            if (healthCheckConfig != null) {
+                markUnhealthy(connectionFactory);
+            }
+        }
+
+        /**
+         * Returns the cost of sending one more request to this host, lower is better. Always {@code 0} if request
+         * tracking is disabled.
+         *
+         * @return the cost of sending one more request to this host.
+         */
+        long cost() {
+            return requestTracker == null ? 0 : requestTracker.cost();
+        }
+
         boolean addConnection(C connection) {
+            final int newConnections;
             for (;;) {
                 final ConnState previous = connStateUpdater.get(this);
                 if (previous == CLOSED_CONN_STATE) {
@@ -628,8 +1015,9 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                 Object newState = ActiveState.class.equals(previous.state.getClass()) ?
                         STATE_ACTIVE_NO_FAILURES : previous.state;
 
-                if (connStateUpdater.compareAndSet(this,
-                        previous, new ConnState(newList, newState))) {
+                if (connStateUpdater.compareAndSet(this, previous, new ConnState(newList,
+                        evictor == null ? null : previous.withSelectedTick(evictor.tick()), newState))) {
+                    newConnections = newList.length;
                     break;
                 }
             }
@@ -651,7 +1039,8 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                     if (i == connections.length) {
                         break;
                     } else if (connections.length == 1) {
-                        if (ActiveState.class.equals(currentConnState.state.getClass())) {
+                        if (currentConnState.state != State.EXPIRED) {
+                            // Active hosts, and ejected hosts waiting for a health check, stay in their state.
                             if (connStateUpdater.compareAndSet(this, currentConnState,
                                     new ConnState(EMPTY_ARRAY, currentConnState.state))) {
                                 break;
@@ -672,16 +1061,53 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                         Object[] newList = new Object[connections.length - 1];
                         System.arraycopy(connections, 0, newList, 0, i);
                         System.arraycopy(connections, i + 1, newList, i, newList.length - i);
-                        if (connStateUpdater.compareAndSet(this,
-                                currentConnState, new ConnState(newList, currentConnState.state))) {
+                        if (connStateUpdater.compareAndSet(this, currentConnState, new ConnState(newList,
+                                currentConnState.withoutSelectedTick(i), currentConnState.state))) {
                             break;
                         }
                     }
                 }
+                if (warmer != null) {
+                    // Restore the minimum number of connections.
+                    warmer.ensureMinConnections(this);
+                }
             }).subscribe();
+            if (warmer != null) {
+                warmer.onConnectionAdded(this, newConnections);
+            }
             return true;
         }
 
+        /**
+         * Gracefully closes the connections which were last selected at or before {@code idleTick}, keeping at least
+         * {@code minConnections} connections.
+         *
+         * @param idleTick the latest tick of the connections to close.
+         * @param minConnections the minimum number of connections to keep.
+         * @return the number of closed connections.
+         */
+        int closeIdleConnections(final long idleTick, final int minConnections) {
+            final ConnState connState = this.connState;
+            final AtomicLongArray selectedTicks = connState.selectedTicks;
+            final Object[] connections = connState.connections;
+            final int closeable = connections.length - minConnections;
+            if (selectedTicks == null || closeable <= 0) {
+                return 0;
+            }
+            int closed = 0;
+            // Start with the last connections, the least likely to be selected with the FIRST_AVAILABLE
+            // reuse policy.
+            for (int i = connections.length - 1; i >= 0 && closed < closeable; --i) {
+                if (selectedTicks.get(i) <= idleTick) {
+                    @SuppressWarnings("unchecked")
+                    final C connection = (C) connections[i];
+                    connection.closeAsyncGracefully().subscribe();
+                    ++closed;
+                }
+            }
+            return closed;
+        }
+
         // Used for testing only
         @SuppressWarnings("unchecked")
         Entry<Addr, List<C>> asEntry() {
@@ -729,6 +1155,8 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             final ConnState connState = this.connState;
             return "Host{" +
                     "address=" + address +
+                    ", weight=" + weight +
+                    ", zone=" + zone +
                     ", state=" + connState.state +
                     ", #connections=" + connState.connections.length +
                     '}';
@@ -762,20 +1190,31 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
                     HealthCheck.class, "run()");
             private final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory;
             private final Host<ResolvedAddress, C> host;
+            @Nullable
+            private final Duration ejectionTime;
 
             private HealthCheck(final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
                                 final Host<ResolvedAddress, C> host) {
+                this(connectionFactory, host, null);
+            }
+
+            private HealthCheck(final ConnectionFactory<ResolvedAddress, ? extends C> connectionFactory,
+                                final Host<ResolvedAddress, C> host, @Nullable final Duration ejectionTime) {
                 this.connectionFactory = connectionFactory;
                 this.host = host;
+                this.ejectionTime = ejectionTime;
             }
 
             public void schedule() {
                 assert host.healthCheckConfig != null;
-                delayedCancellable(
+                final Completable initialDelay = ejectionTime != null ?
+                        host.healthCheckConfig.executor.timer(ejectionTime) :
                         retryWithConstantBackoffFullJitter(cause -> true,
                                 host.healthCheckConfig.healthCheckInterval,
                                 host.healthCheckConfig.executor)
-                                .apply(0, RESCHEDULE_SIGNAL)
+                                .apply(0, RESCHEDULE_SIGNAL);
+                delayedCancellable(
+                        initialDelay
                                 .concat(reconnect()
                                         .retryWhen(retryWithConstantBackoffFullJitter(
                                                 cause -> cause == RESCHEDULE_SIGNAL,
@@ -785,7 +1224,7 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
             }
 
             public Completable reconnect() {
-                return connectionFactory.newConnection(host.address, null)
+                return connectionFactory.newConnection(host.address, host.requestTracker, null)
                         .onErrorMap(cause -> {
                             LOGGER.debug("Health check failed for address {}.", host.address, cause);
                             return RESCHEDULE_SIGNAL;
@@ -805,18 +1244,78 @@ public final class RoundRobinLoadBalancer<ResolvedAddress, C extends LoadBalance
 
             @Override
             public String toString() {
-                return "UNHEALTHY";
+                return ejectionTime != null ? "EJECTED" : "UNHEALTHY";
             }
         }
 
         private static final class ConnState {
             final Object[] connections;
+            final BusyConnectionBitmap busyConnections;
+            /**
+             * The {@link IdleConnectionEvictor#tick() tick} at which each connection was last selected, {@code null}
+             * when idle connections are not evicted or there are no connections.
+             */
+            @Nullable
+            final AtomicLongArray selectedTicks;
             final Object state;
 
             ConnState(final Object[] connections, final Object state) {
+                this(connections, null, state);
+            }
+
+            ConnState(final Object[] connections, @Nullable final AtomicLongArray selectedTicks, final Object state) {
+                this(connections, new BusyConnectionBitmap(connections.length), selectedTicks, state);
+            }
+
+            ConnState(final ConnState previous, final Object state) {
+                this(previous.connections, previous.busyConnections, previous.selectedTicks, state);
+            }
+
+            private ConnState(final Object[] connections, final BusyConnectionBitmap busyConnections,
+                              @Nullable final AtomicLongArray selectedTicks, final Object state) {
+                assert selectedTicks == null || selectedTicks.length() == connections.length;
                 this.connections = connections;
+                this.busyConnections = busyConnections;
+                this.selectedTicks = selectedTicks;
                 this.state = state;
             }
+
+            void markSelected(final int index, final long tick) {
+                final AtomicLongArray selectedTicks = this.selectedTicks;
+                // Only write when the tick changed, to not contend on the connections which are selected all the time.
+                if (selectedTicks != null && selectedTicks.get(index) != tick) {
+                    selectedTicks.lazySet(index, tick);
+                }
+            }
+
+            /**
+             * Creates the selected ticks of a new connection appended to these connections.
+             */
+            AtomicLongArray withSelectedTick(final long tick) {
+                final long[] ticks = new long[connections.length + 1];
+                for (int i = 0; i < connections.length; ++i) {
+                    ticks[i] = selectedTicks == null ? tick : selectedTicks.get(i);
+                }
+                ticks[connections.length] = tick;
+                return new AtomicLongArray(ticks);
+            }
+
+            /**
+             * Creates the selected ticks of these connections without the connection at {@code index}.
+             */
+            @Nullable
+            AtomicLongArray withoutSelectedTick(final int index) {
+                if (selectedTicks == null) {
+                    return null;
+                }
+                final long[] ticks = new long[connections.length - 1];
+                for (int i = 0, j = 0; i < connections.length; ++i) {
+                    if (i != index) {
+                        ticks[j++] = selectedTicks.get(i);
+                    }
+                }
+                return new AtomicLongArray(ticks);
+            }
         }
     }
 
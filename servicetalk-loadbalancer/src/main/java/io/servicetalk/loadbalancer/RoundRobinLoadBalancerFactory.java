@@ -54,6 +54,19 @@ import static java.util.Objects.requireNonNull;
  * This behaviour can be disabled using a negative argument for
  * {@link Builder#healthCheckFailedConnectionsThreshold(int)} and the failing host will take part in the regular
  * round robin cycle for trying to establish a connection on the request path.</li>
+ * <li>When {@link Builder#outlierDetectorConfig(OutlierDetectorConfig) outlier detection} is enabled, hosts which
+ * accept connections but fail requests or respond much slower than the others are ejected: they keep their
+ * connections but don't receive new requests until the ejection time elapses and the health check succeeds.</li>
+ * <li>When {@link Builder#subsetting(SubsettingConfig) subsetting} is enabled, only a stable subset of the addresses
+ * provided by the service discovery is used, which bounds the number of connections in large fleets.</li>
+ * <li>When {@link Builder#slowStart(SlowStartConfig) slow start} is enabled, newly discovered hosts receive a reduced
+ * share of traffic which ramps up during a warm-up window.</li>
+ * <li>When {@link Builder#minConnections(MinConnectionsConfig) minimum connections} are configured, connections to
+ * available hosts are established in the background before requests need them.</li>
+ * <li>When {@link Builder#zoneAwareRouting(ZoneAwareRoutingConfig) zone-aware routing} is enabled, hosts in the same
+ * zone as the client are preferred as long as they are healthy.</li>
+ * <li>When a {@link Builder#connectionPool(ConnectionPoolConfig) connection pool} is configured, connections can be
+ * reused in the order they were opened and connections which stay idle are closed.</li>
  * </ul>
  *
  * @param <ResolvedAddress> The resolved address type.
@@ -71,10 +84,42 @@ public final class RoundRobinLoadBalancerFactory<ResolvedAddress, C extends Load
     @Nullable
     private final HealthCheckConfig healthCheckConfig;
 
+    @Nullable
+    private final OutlierDetectorConfig outlierDetectorConfig;
+
+    @Nullable
+    private final SubsettingConfig subsettingConfig;
+
+    @Nullable
+    private final SlowStartConfig slowStartConfig;
+
+    @Nullable
+    private final MinConnectionsConfig minConnectionsConfig;
+
+    @Nullable
+    private final ZoneAwareRoutingConfig zoneAwareRoutingConfig;
+    @Nullable
+    private final ConnectionPoolConfig connectionPoolConfig;
+    private final Executor backgroundExecutor;
+
     private RoundRobinLoadBalancerFactory(boolean eagerConnectionShutdown,
-                                          @Nullable HealthCheckConfig healthCheckConfig) {
+                                          @Nullable HealthCheckConfig healthCheckConfig,
+                                          @Nullable OutlierDetectorConfig outlierDetectorConfig,
+                                          @Nullable SubsettingConfig subsettingConfig,
+                                          @Nullable SlowStartConfig slowStartConfig,
+                                          @Nullable MinConnectionsConfig minConnectionsConfig,
+                                          @Nullable ZoneAwareRoutingConfig zoneAwareRoutingConfig,
+                                          @Nullable ConnectionPoolConfig connectionPoolConfig,
+                                          Executor backgroundExecutor) {
         this.eagerConnectionShutdown = eagerConnectionShutdown;
         this.healthCheckConfig = healthCheckConfig;
+        this.outlierDetectorConfig = outlierDetectorConfig;
+        this.subsettingConfig = subsettingConfig;
+        this.slowStartConfig = slowStartConfig;
+        this.minConnectionsConfig = minConnectionsConfig;
+        this.zoneAwareRoutingConfig = zoneAwareRoutingConfig;
+        this.connectionPoolConfig = connectionPoolConfig;
+        this.backgroundExecutor = backgroundExecutor;
     }
 
     @Override
@@ -82,7 +127,9 @@ public final class RoundRobinLoadBalancerFactory<ResolvedAddress, C extends Load
             final Publisher<? extends ServiceDiscovererEvent<ResolvedAddress>> eventPublisher,
             final ConnectionFactory<ResolvedAddress, T> connectionFactory) {
         return new RoundRobinLoadBalancer<>(
-                eventPublisher, connectionFactory, eagerConnectionShutdown, healthCheckConfig);
+                subsettingConfig == null ? eventPublisher : Subsetter.subset(eventPublisher, subsettingConfig),
+                connectionFactory, eagerConnectionShutdown, healthCheckConfig, outlierDetectorConfig, slowStartConfig,
+                minConnectionsConfig, zoneAwareRoutingConfig, connectionPoolConfig, backgroundExecutor);
     }
 
     /**
@@ -97,6 +144,18 @@ public final class RoundRobinLoadBalancerFactory<ResolvedAddress, C extends Load
         private Executor backgroundExecutor;
         private Duration healthCheckInterval = DEFAULT_HEALTH_CHECK_INTERVAL;
         private int healthCheckFailedConnectionsThreshold = DEFAULT_HEALTH_CHECK_FAILED_CONNECTIONS_THRESHOLD;
+        @Nullable
+        private OutlierDetectorConfig outlierDetectorConfig;
+        @Nullable
+        private SubsettingConfig subsettingConfig;
+        @Nullable
+        private SlowStartConfig slowStartConfig;
+        @Nullable
+        private MinConnectionsConfig minConnectionsConfig;
+        @Nullable
+        private ZoneAwareRoutingConfig zoneAwareRoutingConfig;
+        @Nullable
+        private ConnectionPoolConfig connectionPoolConfig;
 
         /**
          * Creates a new instance with default settings.
@@ -184,21 +243,114 @@ public final class RoundRobinLoadBalancerFactory<ResolvedAddress, C extends Load
             return this;
         }
 
+        /**
+         * Enables outlier detection, which ejects hosts that fail or slow down requests while still accepting
+         * connections. Requires health checking to be enabled, as ejected hosts return through a health check.
+         *
+         * @param outlierDetectorConfig configuration of the outlier detection.
+         * @return {@code this}.
+         * @see OutlierDetectorConfig
+         */
+        public RoundRobinLoadBalancerFactory.Builder<ResolvedAddress, C> outlierDetectorConfig(
+                final OutlierDetectorConfig outlierDetectorConfig) {
+            this.outlierDetectorConfig = requireNonNull(outlierDetectorConfig);
+            return this;
+        }
+
+        /**
+         * Enables deterministic subsetting, which limits the addresses used by each {@link LoadBalancer} to a stable
+         * subset of the addresses provided by the service discovery.
+         *
+         * @param subsettingConfig configuration of the subsetting.
+         * @return {@code this}.
+         * @see SubsettingConfig
+         */
+        public RoundRobinLoadBalancerFactory.Builder<ResolvedAddress, C> subsetting(
+                final SubsettingConfig subsettingConfig) {
+            this.subsettingConfig = requireNonNull(subsettingConfig);
+            return this;
+        }
+
+        /**
+         * Enables the slow start of hosts discovered after the {@link LoadBalancer} started to select connections,
+         * which ramps up their share of traffic during a warm-up window.
+         *
+         * @param slowStartConfig configuration of the slow start.
+         * @return {@code this}.
+         * @see SlowStartConfig
+         */
+        public RoundRobinLoadBalancerFactory.Builder<ResolvedAddress, C> slowStart(
+                final SlowStartConfig slowStartConfig) {
+            this.slowStartConfig = requireNonNull(slowStartConfig);
+            return this;
+        }
+
+        /**
+         * Keeps a minimum number of connections open to each available host, which are established in the background
+         * as soon as the host becomes available and whenever connections close.
+         *
+         * @param minConnectionsConfig configuration of the minimum number of connections.
+         * @return {@code this}.
+         * @see MinConnectionsConfig
+         */
+        public RoundRobinLoadBalancerFactory.Builder<ResolvedAddress, C> minConnections(
+                final MinConnectionsConfig minConnectionsConfig) {
+            this.minConnectionsConfig = requireNonNull(minConnectionsConfig);
+            return this;
+        }
+
+        /**
+         * Enables zone-aware routing, which prefers hosts in the same zone as the client and spills over to other
+         * zones when the local zone is degraded.
+         *
+         * @param zoneAwareRoutingConfig configuration of the zone-aware routing.
+         * @return {@code this}.
+         * @see ZoneAwareRoutingConfig
+         */
+        public RoundRobinLoadBalancerFactory.Builder<ResolvedAddress, C> zoneAwareRouting(
+                final ZoneAwareRoutingConfig zoneAwareRoutingConfig) {
+            this.zoneAwareRoutingConfig = requireNonNull(zoneAwareRoutingConfig);
+            return this;
+        }
+
+        /**
+         * Configures the order in which connections are reused and the eviction of idle connections. By default
+         * connections are reused in a random order and are only closed by the peer or when the host becomes
+         * unavailable.
+         *
+         * @param connectionPoolConfig configuration of the reuse and the eviction of connections.
+         * @return {@code this}.
+         * @see ConnectionPoolConfig
+         */
+        public RoundRobinLoadBalancerFactory.Builder<ResolvedAddress, C> connectionPool(
+                final ConnectionPoolConfig connectionPoolConfig) {
+            this.connectionPoolConfig = requireNonNull(connectionPoolConfig);
+            return this;
+        }
+
         /**
          * Builds the {@link RoundRobinLoadBalancerFactory} configured by this builder.
          *
          * @return a new instance of {@link RoundRobinLoadBalancerFactory} with settings from this builder.
          */
         public RoundRobinLoadBalancerFactory<ResolvedAddress, C> build() {
+            final Executor backgroundExecutor =
+                    this.backgroundExecutor == null ? SharedExecutor.getInstance() : this.backgroundExecutor;
             if (this.healthCheckFailedConnectionsThreshold < 0) {
-                return new RoundRobinLoadBalancerFactory<>(eagerConnectionShutdown, null);
+                if (outlierDetectorConfig != null) {
+                    throw new IllegalArgumentException("Outlier detection requires health checking to be enabled");
+                }
+                return new RoundRobinLoadBalancerFactory<>(eagerConnectionShutdown, null, null, subsettingConfig,
+                        slowStartConfig, minConnectionsConfig, zoneAwareRoutingConfig, connectionPoolConfig,
+                        backgroundExecutor);
             }
 
-            HealthCheckConfig healthCheckConfig = new HealthCheckConfig(
-                            this.backgroundExecutor == null ? SharedExecutor.getInstance() : this.backgroundExecutor,
+            HealthCheckConfig healthCheckConfig = new HealthCheckConfig(backgroundExecutor,
                     healthCheckInterval, healthCheckFailedConnectionsThreshold);
 
-            return new RoundRobinLoadBalancerFactory<>(eagerConnectionShutdown, healthCheckConfig);
+            return new RoundRobinLoadBalancerFactory<>(eagerConnectionShutdown, healthCheckConfig,
+                    outlierDetectorConfig, subsettingConfig, slowStartConfig, minConnectionsConfig,
+                    zoneAwareRoutingConfig, connectionPoolConfig, backgroundExecutor);
         }
     }
 
@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import java.time.Duration;
+
+import static java.lang.Math.max;
+import static java.lang.Math.pow;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of the slow start (warm-up) of newly discovered hosts for the load balancers in this package.
+ * <p>
+ * A host added to the load balancer after it started receives a reduced share of traffic during the
+ * {@link #window()}: for each selection the host is skipped with a probability of {@code 1 - weight}, where the weight
+ * grows from {@link #minWeightPercent()} to {@code 1} as {@code (elapsed / window) ^ (1 / aggression)}. An
+ * {@link #aggression()} of {@code 1} ramps linearly, greater values ramp faster at the beginning of the window and
+ * values between {@code 0} and {@code 1} keep the traffic low for longer.
+ * <p>
+ * Hosts discovered before the load balancer selects its first connection start with the full weight, because there is
+ * no traffic yet that could be shifted to already warm hosts.
+ */
+public final class SlowStartConfig {
+
+    private final Duration window;
+    private final long windowNanos;
+    private final double aggression;
+    private final int minWeightPercent;
+
+    private SlowStartConfig(final Duration window, final double aggression, final int minWeightPercent) {
+        this.window = window;
+        this.windowNanos = window.toNanos();
+        this.aggression = aggression;
+        this.minWeightPercent = minWeightPercent;
+    }
+
+    /**
+     * The duration of the slow start.
+     *
+     * @return the duration of the slow start.
+     */
+    public Duration window() {
+        return window;
+    }
+
+    /**
+     * The aggression of the ramp, {@code 1} is linear.
+     *
+     * @return the aggression of the ramp.
+     */
+    public double aggression() {
+        return aggression;
+    }
+
+    /**
+     * The minimum weight, in percent of the full weight, of a host in slow start.
+     *
+     * @return the minimum weight of a host in slow start.
+     */
+    public int minWeightPercent() {
+        return minWeightPercent;
+    }
+
+    long windowNanos() {
+        return windowNanos;
+    }
+
+    /**
+     * Computes the weight of a host which was added {@code elapsedNanos} ago.
+     *
+     * @param elapsedNanos the time in nanoseconds since the host was added.
+     * @return the weight of the host, between {@code minWeightPercent / 100} and {@code 1}.
+     */
+    double weight(final long elapsedNanos) {
+        if (elapsedNanos >= windowNanos) {
+            return 1;
+        }
+        final double timeFactor = max(0, elapsedNanos) / (double) windowNanos;
+        return max(minWeightPercent / 100d, aggression == 1 ? timeFactor : pow(timeFactor, 1 / aggression));
+    }
+
+    @Override
+    public String toString() {
+        return "SlowStartConfig{" +
+                "window=" + window +
+                ", aggression=" + aggression +
+                ", minWeightPercent=" + minWeightPercent +
+                '}';
+    }
+
+    /**
+     * Builder for {@link SlowStartConfig}.
+     */
+    public static final class Builder {
+        private final Duration window;
+        private double aggression = 1;
+        private int minWeightPercent = 10;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param window the duration of the slow start.
+         */
+        public Builder(final Duration window) {
+            if (requireNonNull(window).isNegative() || window.isZero()) {
+                throw new IllegalArgumentException("window: " + window + " (expected > 0)");
+            }
+            this.window = window;
+        }
+
+        /**
+         * Sets the aggression of the ramp. {@code 1} ramps linearly, which is the default.
+         *
+         * @param aggression the aggression of the ramp, must be greater than {@code 0}.
+         * @return {@code this}.
+         */
+        public Builder aggression(final double aggression) {
+            if (!(aggression > 0) || Double.isInfinite(aggression)) {
+                throw new IllegalArgumentException("aggression: " + aggression + " (expected > 0)");
+            }
+            this.aggression = aggression;
+            return this;
+        }
+
+        /**
+         * Sets the minimum weight, in percent of the full weight, of a host in slow start. The default is {@code 10}.
+         *
+         * @param minWeightPercent the minimum weight of a host in slow start.
+         * @return {@code this}.
+         */
+        public Builder minWeightPercent(final int minWeightPercent) {
+            if (minWeightPercent < 0 || minWeightPercent > 100) {
+                throw new IllegalArgumentException("minWeightPercent: " + minWeightPercent + " (expected [0, 100])");
+            }
+            this.minWeightPercent = minWeightPercent;
+            return this;
+        }
+
+        /**
+         * Builds the {@link SlowStartConfig} configured by this builder.
+         *
+         * @return a new {@link SlowStartConfig}.
+         */
+        public SlowStartConfig build() {
+            return new SlowStartConfig(window, aggression, minWeightPercent);
+        }
+    }
+}
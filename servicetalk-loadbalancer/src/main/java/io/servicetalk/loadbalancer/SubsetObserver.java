@@ -0,0 +1,36 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+/**
+ * An observer of the host subset used by a load balancer configured with {@link SubsettingConfig}.
+ * <p>
+ * Implementations are expected to be cheap and non-blocking, for example to update metrics. Callbacks for the same
+ * load balancer are never invoked concurrently.
+ */
+@FunctionalInterface
+public interface SubsetObserver {
+
+    /**
+     * Invoked when a service discovery event changes the set of available hosts or the subset.
+     *
+     * @param subsetSize the number of hosts in the subset after the change.
+     * @param availableHosts the number of hosts known to the service discovery after the change.
+     * @param addedHosts the number of hosts which joined the subset as a result of the event.
+     * @param removedHosts the number of hosts which left the subset as a result of the event.
+     */
+    void onSubsetChanged(int subsetSize, int availableHosts, int addedHosts, int removedHosts);
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Publisher;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Publisher.defer;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Translates a stream of {@link ServiceDiscovererEvent}s for the whole fleet into a stream of events for the subset
+ * selected by rendezvous hashing, as described by {@link SubsettingConfig}.
+ * <p>
+ * Each {@link #subset(Publisher, SubsettingConfig) subscription} has its own state. Events are processed sequentially,
+ * the selection is {@code O(number of available addresses)} per event in the worst case, which is acceptable for the
+ * rate of service discovery updates.
+ *
+ * @param <Addr> The resolved address type.
+ */
+final class Subsetter<Addr> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Subsetter.class);
+
+    private final int subsetSize;
+    private final long clientKey;
+    @Nullable
+    private final SubsetObserver observer;
+    private final Map<Addr, Long> available = new HashMap<>();
+    private final Map<Addr, Long> subset = new HashMap<>();
+    private final Map<Addr, ServiceDiscovererEvent<Addr>> lastEvents = new HashMap<>();
+
+    Subsetter(final SubsettingConfig config, final long clientKey) {
+        this.subsetSize = config.subsetSize();
+        this.clientKey = clientKey;
+        this.observer = config.observer();
+    }
+
+    /**
+     * Applies subsetting to the passed stream of {@link ServiceDiscovererEvent}s.
+     *
+     * @param events the stream of {@link ServiceDiscovererEvent}s for all addresses.
+     * @param config the {@link SubsettingConfig}.
+     * @param <Addr> The resolved address type.
+     * @return the stream of {@link ServiceDiscovererEvent}s for the addresses in the subset.
+     */
+    static <Addr> Publisher<ServiceDiscovererEvent<Addr>> subset(
+            final Publisher<? extends ServiceDiscovererEvent<Addr>> events, final SubsettingConfig config) {
+        final long clientKey = config.isRandomClientKey() ? ThreadLocalRandom.current().nextLong() : config.clientKey();
+        return defer(() -> {
+            final Subsetter<Addr> subsetter = new Subsetter<>(config, clientKey);
+            return events.flatMapConcatIterable(subsetter::onEvent);
+        });
+    }
+
+    /**
+     * Processes an event for the whole fleet.
+     *
+     * @param event the event for the whole fleet.
+     * @return the events for the subset, in the order they must be applied.
+     */
+    List<ServiceDiscovererEvent<Addr>> onEvent(final ServiceDiscovererEvent<Addr> event) {
+        final Addr address = requireNonNull(event.address());
+        final List<ServiceDiscovererEvent<Addr>> result;
+        if (event.isAvailable()) {
+            final ServiceDiscovererEvent<Addr> lastEvent = lastEvents.put(address, event);
+            if (available.containsKey(address)) {
+                // Propagate weight and zone updates of members, the load balancer keeps the host and its connections.
+                return lastEvent != null && subset.containsKey(address) && (lastEvent.weight() != event.weight() ||
+                        !Objects.equals(lastEvent.zone(), event.zone())) ? singletonList(event) : emptyList();
+            }
+            final long score = score(address);
+            available.put(address, score);
+            if (subset.size() < subsetSize) {
+                subset.put(address, score);
+                result = new ArrayList<>(1);
+                result.add(event);
+            } else {
+                final Entry<Addr, Long> lowest = lowestMember();
+                if (lowest.getValue() >= score) {
+                    notifyObserver(0, 0);
+                    return emptyList();
+                }
+                subset.remove(lowest.getKey());
+                subset.put(address, score);
+                result = new ArrayList<>(2);
+                // Remove first, so the load balancer never exceeds the subset size.
+                result.add(new DefaultServiceDiscovererEvent<>(lowest.getKey(), false));
+                result.add(event);
+            }
+        } else {
+            lastEvents.remove(address);
+            if (available.remove(address) == null) {
+                return emptyList();
+            }
+            if (subset.remove(address) == null) {
+                notifyObserver(0, 0);
+                return emptyList();
+            }
+            final Entry<Addr, Long> highest = highestNonMember();
+            result = new ArrayList<>(2);
+            result.add(event);
+            if (highest != null) {
+                subset.put(highest.getKey(), highest.getValue());
+                final ServiceDiscovererEvent<Addr> replacement = lastEvents.get(highest.getKey());
+                assert replacement != null;
+                result.add(replacement);
+            }
+        }
+        int added = 0;
+        for (ServiceDiscovererEvent<Addr> e : result) {
+            if (e.isAvailable()) {
+                ++added;
+            }
+        }
+        notifyObserver(added, result.size() - added);
+        LOGGER.debug("Subset changed by {}: {}. Subset size {} out of {} available addresses.",
+                event, result, subset.size(), available.size());
+        return result;
+    }
+
+    private Entry<Addr, Long> lowestMember() {
+        Entry<Addr, Long> lowest = null;
+        for (Entry<Addr, Long> entry : subset.entrySet()) {
+            if (lowest == null || entry.getValue() < lowest.getValue()) {
+                lowest = entry;
+            }
+        }
+        assert lowest != null;
+        return lowest;
+    }
+
+    @Nullable
+    private Entry<Addr, Long> highestNonMember() {
+        Entry<Addr, Long> highest = null;
+        for (Entry<Addr, Long> entry : available.entrySet()) {
+            if ((highest == null || entry.getValue() > highest.getValue()) && !subset.containsKey(entry.getKey())) {
+                highest = entry;
+            }
+        }
+        return highest;
+    }
+
+    private void notifyObserver(final int added, final int removed) {
+        if (observer != null) {
+            observer.onSubsetChanged(subset.size(), available.size(), added, removed);
+        }
+    }
+
+    private long score(final Addr address) {
+        // Rendezvous hashing: every (client, address) pair gets an independent pseudo-random score.
+        return mix64(clientKey ^ mix64(address.hashCode()));
+    }
+
+    private static long mix64(long z) {
+        // Finalizer of MurmurHash3, spreads all input bits across the output.
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
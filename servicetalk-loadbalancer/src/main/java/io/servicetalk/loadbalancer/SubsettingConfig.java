@@ -0,0 +1,161 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of deterministic subsetting for the load balancers in this package.
+ * <p>
+ * With subsetting enabled a load balancer only uses a subset of at most {@link #subsetSize()} of the addresses provided
+ * by the {@link ServiceDiscovererEvent} stream, which bounds the number of connections each client opens regardless of
+ * the size of the fleet. The subset is chosen by rendezvous (highest random weight) hashing of each address combined
+ * with a {@link #clientKey() client key}:
+ * <ul>
+ * <li>For a fixed client key and set of addresses the subset is always the same.</li>
+ * <li>Clients with different keys pick statistically independent subsets, which spreads the load evenly across the
+ * fleet.</li>
+ * <li>Membership changes move the minimal number of addresses: an address joining the fleet replaces at most one member
+ * of the subset, and an address leaving the fleet is replaced by exactly one new member if it was in the subset.</li>
+ * </ul>
+ * The hashing relies on {@link Object#hashCode()} of the resolved address, which must be stable for equal addresses.
+ */
+public final class SubsettingConfig {
+
+    private final int subsetSize;
+    private final long clientKey;
+    private final boolean randomClientKey;
+    @Nullable
+    private final SubsetObserver observer;
+
+    private SubsettingConfig(final int subsetSize, final long clientKey, final boolean randomClientKey,
+                             @Nullable final SubsetObserver observer) {
+        this.subsetSize = subsetSize;
+        this.clientKey = clientKey;
+        this.randomClientKey = randomClientKey;
+        this.observer = observer;
+    }
+
+    /**
+     * Maximum number of addresses used by a load balancer.
+     *
+     * @return maximum number of addresses used by a load balancer.
+     */
+    public int subsetSize() {
+        return subsetSize;
+    }
+
+    /**
+     * The key which determines the subset of a client, only meaningful if not {@link #isRandomClientKey() random}.
+     *
+     * @return the key which determines the subset of a client.
+     */
+    public long clientKey() {
+        return clientKey;
+    }
+
+    /**
+     * Whether each load balancer picks a random client key when it is created.
+     *
+     * @return {@code true} if each load balancer picks a random client key when it is created.
+     */
+    public boolean isRandomClientKey() {
+        return randomClientKey;
+    }
+
+    /**
+     * The {@link SubsetObserver} notified about subset changes, if any.
+     *
+     * @return the {@link SubsetObserver} notified about subset changes, or {@code null}.
+     */
+    @Nullable
+    public SubsetObserver observer() {
+        return observer;
+    }
+
+    @Override
+    public String toString() {
+        return "SubsettingConfig{" +
+                "subsetSize=" + subsetSize +
+                ", clientKey=" + (randomClientKey ? "random" : clientKey) +
+                ", observer=" + observer +
+                '}';
+    }
+
+    /**
+     * Builder for {@link SubsettingConfig}.
+     */
+    public static final class Builder {
+        private final int subsetSize;
+        private long clientKey;
+        private boolean randomClientKey = true;
+        @Nullable
+        private SubsetObserver observer;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param subsetSize maximum number of addresses used by a load balancer.
+         */
+        public Builder(final int subsetSize) {
+            if (subsetSize <= 0) {
+                throw new IllegalArgumentException("subsetSize: " + subsetSize + " (expected > 0)");
+            }
+            this.subsetSize = subsetSize;
+        }
+
+        /**
+         * Sets the key which determines the subset of a client. By default each load balancer picks a random key.
+         * <p>
+         * A stable key, for example derived from the host name and process identifier, keeps the subset of a client
+         * the same across restarts. Clients which share a key share a subset, hence keys must be distinct for the load
+         * to spread.
+         *
+         * @param clientKey the key which determines the subset of a client.
+         * @return {@code this}.
+         */
+        public Builder clientKey(final long clientKey) {
+            this.clientKey = clientKey;
+            this.randomClientKey = false;
+            return this;
+        }
+
+        /**
+         * Sets a {@link SubsetObserver} which is notified about subset changes, for example to report subset size and
+         * churn metrics.
+         *
+         * @param observer {@link SubsetObserver} which is notified about subset changes.
+         * @return {@code this}.
+         */
+        public Builder observer(final SubsetObserver observer) {
+            this.observer = requireNonNull(observer);
+            return this;
+        }
+
+        /**
+         * Builds the {@link SubsettingConfig} configured by this builder.
+         *
+         * @return a new {@link SubsettingConfig}.
+         */
+        public SubsettingConfig build() {
+            return new SubsettingConfig(subsetSize, clientKey, randomClientKey, observer);
+        }
+    }
+}
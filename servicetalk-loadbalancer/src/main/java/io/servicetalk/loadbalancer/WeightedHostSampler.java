@@ -0,0 +1,139 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.annotation.Nullable;
+
+import static java.util.Collections.emptyList;
+
+/**
+ * Samples hosts proportionally to their {@link ServiceDiscovererEvent#weight() weight} using Vose's alias method.
+ * <p>
+ * The alias table is built for a specific list of hosts and rebuilt when a different list is passed. The load balancer
+ * replaces its copy-on-write list of hosts whenever a host or a weight changes, hence the table is rebuilt only on
+ * membership or weight changes and sampling is allocation-free and {@code O(1)} otherwise.
+ */
+final class WeightedHostSampler {
+
+    private static final AliasTable EMPTY = new AliasTable(emptyList(), null, null);
+
+    private volatile AliasTable table = EMPTY;
+
+    /**
+     * Samples a host from the passed list.
+     *
+     * @param hosts the list of hosts.
+     * @param <Addr> The resolved address type.
+     * @param <C> The type of connection.
+     * @return the index of the sampled host, or {@code -1} if all hosts have the same weight, in which case the caller
+     * is free to use an unweighted strategy.
+     */
+    <Addr, C extends LoadBalancedConnection> int sample(final List<Host<Addr, C>> hosts) {
+        AliasTable table = this.table;
+        if (table.hosts != hosts) {
+            // Concurrent rebuilds produce equivalent tables, the last one wins.
+            table = AliasTable.build(hosts);
+            this.table = table;
+        }
+        return table.sample();
+    }
+
+    private static final class AliasTable {
+        final List<?> hosts;
+        @Nullable
+        private final double[] probabilities;
+        @Nullable
+        private final int[] aliases;
+
+        private AliasTable(final List<?> hosts, @Nullable final double[] probabilities,
+                           @Nullable final int[] aliases) {
+            this.hosts = hosts;
+            this.probabilities = probabilities;
+            this.aliases = aliases;
+        }
+
+        int sample() {
+            if (probabilities == null) {
+                return -1;
+            }
+            assert aliases != null;
+            final ThreadLocalRandom rnd = ThreadLocalRandom.current();
+            final int i = rnd.nextInt(probabilities.length);
+            return rnd.nextDouble() < probabilities[i] ? i : aliases[i];
+        }
+
+        static <Addr, C extends LoadBalancedConnection> AliasTable build(final List<Host<Addr, C>> hosts) {
+            final int size = hosts.size();
+            if (size <= 1) {
+                return new AliasTable(hosts, null, null);
+            }
+            final int[] weights = new int[size];
+            long total = 0;
+            boolean uniform = true;
+            for (int i = 0; i < size; ++i) {
+                weights[i] = hosts.get(i).weight();
+                total += weights[i];
+                uniform &= weights[i] == weights[0];
+            }
+            if (uniform) {
+                return new AliasTable(hosts, null, null);
+            }
+
+            final double[] probabilities = new double[size];
+            final int[] aliases = new int[size];
+            // Scaled probabilities, the average is 1.
+            final double[] scaled = new double[size];
+            final int[] small = new int[size];
+            final int[] large = new int[size];
+            int smallSize = 0;
+            int largeSize = 0;
+            for (int i = 0; i < size; ++i) {
+                scaled[i] = (double) weights[i] * size / total;
+                if (scaled[i] < 1) {
+                    small[smallSize++] = i;
+                } else {
+                    large[largeSize++] = i;
+                }
+            }
+            while (smallSize > 0 && largeSize > 0) {
+                final int less = small[--smallSize];
+                final int more = large[--largeSize];
+                probabilities[less] = scaled[less];
+                aliases[less] = more;
+                scaled[more] = scaled[more] + scaled[less] - 1;
+                if (scaled[more] < 1) {
+                    small[smallSize++] = more;
+                } else {
+                    large[largeSize++] = more;
+                }
+            }
+            // Remaining entries are 1 up to floating point errors.
+            while (largeSize > 0) {
+                probabilities[large[--largeSize]] = 1;
+            }
+            while (smallSize > 0) {
+                probabilities[small[--smallSize]] = 1;
+            }
+            return new AliasTable(hosts, probabilities, aliases);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.loadbalancer.RoundRobinLoadBalancer.Host;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static java.util.Collections.emptyList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * {@link HostSelector} implementing zone-aware routing as described by {@link ZoneAwareRoutingConfig}.
+ * <p>
+ * Each selection visits either the local hosts first and then the remote hosts, or the other way around. The first
+ * host within each group is picked by a separate instance of the delegate {@link HostSelector}. The partition of the
+ * hosts is built when the list of hosts changes, the share of the local zone is refreshed periodically from the state
+ * of the hosts. Selections don't allocate: the chosen group is encoded in the cursor, see
+ * {@link #hostIndex(List, int, int)}.
+ */
+final class ZoneAwareHostSelector implements HostSelector {
+
+    private static final long REFRESH_INTERVAL_NANOS = MILLISECONDS.toNanos(500);
+
+    private final String localZone;
+    private final int minHosts;
+    private final HostSelector allHostsSelector;
+    private final HostSelector localHostsSelector;
+    private final HostSelector remoteHostsSelector;
+    private volatile Zones zones = new Zones(emptyList(), false, emptyList(), emptyList(), new int[0], new int[0],
+            0, 0);
+
+    ZoneAwareHostSelector(final ZoneAwareRoutingConfig config, final Supplier<HostSelector> delegateFactory) {
+        this.localZone = config.localZone();
+        this.minHosts = config.minHosts();
+        this.allHostsSelector = delegateFactory.get();
+        this.localHostsSelector = delegateFactory.get();
+        this.remoteHostsSelector = delegateFactory.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The cursor is in {@code [0, size)} if zone-aware routing is inactive, in {@code [size, 2 * size)} if the local
+     * hosts are visited first and in {@code [2 * size, 3 * size)} if the remote hosts are visited first.
+     */
+    @Override
+    public <Addr, C extends LoadBalancedConnection> int firstHost(final List<Host<Addr, C>> hosts) {
+        final Zones zones = zones(hosts);
+        if (!zones.active) {
+            return allHostsSelector.firstHost(hosts);
+        }
+        final int size = hosts.size();
+        final double localProbability = zones.localProbability(hosts);
+        if (localProbability >= 1 || ThreadLocalRandom.current().nextDouble() < localProbability) {
+            @SuppressWarnings("unchecked")
+            final List<Host<Addr, C>> localHosts = (List<Host<Addr, C>>) zones.localHosts;
+            return size + localHostsSelector.firstHost(localHosts);
+        }
+        @SuppressWarnings("unchecked")
+        final List<Host<Addr, C>> remoteHosts = (List<Host<Addr, C>>) zones.remoteHosts;
+        return 2 * size + remoteHostsSelector.firstHost(remoteHosts);
+    }
+
+    @Override
+    public <Addr, C extends LoadBalancedConnection> int hostIndex(final List<Host<Addr, C>> hosts, final int cursor,
+                                                                  final int i) {
+        final int size = hosts.size();
+        final Zones zones = this.zones;
+        if (cursor < size || zones.hosts != hosts) {
+            // Inactive, or a concurrent selection rebuilt the zones for a different list of hosts.
+            return (cursor + i) % size;
+        }
+        final int[] first;
+        final int[] second;
+        final int start;
+        if (cursor < 2 * size) {
+            first = zones.localIndexes;
+            second = zones.remoteIndexes;
+            start = cursor - size;
+        } else {
+            first = zones.remoteIndexes;
+            second = zones.localIndexes;
+            start = cursor - 2 * size;
+        }
+        return i < first.length ? first[(start + i) % first.length] :
+                second[(start + i - first.length) % second.length];
+    }
+
+    private <Addr, C extends LoadBalancedConnection> Zones zones(final List<Host<Addr, C>> hosts) {
+        Zones zones = this.zones;
+        if (zones.hosts != hosts) {
+            // Concurrent rebuilds produce equivalent partitions, the last one wins.
+            zones = buildZones(hosts);
+            this.zones = zones;
+        }
+        return zones;
+    }
+
+    private <Addr, C extends LoadBalancedConnection> Zones buildZones(final List<Host<Addr, C>> hosts) {
+        final int size = hosts.size();
+        int localCount = 0;
+        long localWeight = 0;
+        long totalWeight = 0;
+        for (int i = 0; i < size; ++i) {
+            final Host<Addr, C> host = hosts.get(i);
+            totalWeight += host.weight();
+            if (localZone.equals(host.zone())) {
+                ++localCount;
+                localWeight += host.weight();
+            }
+        }
+        final List<Host<?, ?>> localHosts = new ArrayList<>(localCount);
+        final List<Host<?, ?>> remoteHosts = new ArrayList<>(size - localCount);
+        final int[] localIndexes = new int[localCount];
+        final int[] remoteIndexes = new int[size - localCount];
+        for (int i = 0; i < size; ++i) {
+            final Host<Addr, C> host = hosts.get(i);
+            if (localZone.equals(host.zone())) {
+                localIndexes[localHosts.size()] = i;
+                localHosts.add(host);
+            } else {
+                remoteIndexes[remoteHosts.size()] = i;
+                remoteHosts.add(host);
+            }
+        }
+        final boolean active = size >= minHosts && localCount > 0 && localCount < size;
+        return new Zones(hosts, active, localHosts, remoteHosts, localIndexes, remoteIndexes, localWeight,
+                totalWeight);
+    }
+
+    private final class Zones {
+        final List<?> hosts;
+        final boolean active;
+        final List<?> localHosts;
+        final List<?> remoteHosts;
+        final int[] localIndexes;
+        final int[] remoteIndexes;
+        private final double expectedLocalShare;
+        private volatile double localProbability = 1;
+        private volatile long refreshAtNanos;
+
+        Zones(final List<?> hosts, final boolean active, final List<?> localHosts, final List<?> remoteHosts,
+              final int[] localIndexes, final int[] remoteIndexes, final long localWeight, final long totalWeight) {
+            this.hosts = hosts;
+            this.active = active;
+            this.localHosts = localHosts;
+            this.remoteHosts = remoteHosts;
+            this.localIndexes = localIndexes;
+            this.remoteIndexes = remoteIndexes;
+            this.expectedLocalShare = totalWeight == 0 ? 0 : (double) localWeight / totalWeight;
+            this.refreshAtNanos = System.nanoTime();
+        }
+
+        <Addr, C extends LoadBalancedConnection> double localProbability(final List<Host<Addr, C>> hosts) {
+            final long now = System.nanoTime();
+            if (now - refreshAtNanos < 0) {
+                return localProbability;
+            }
+            // Concurrent refreshes compute the same value.
+            refreshAtNanos = now + REFRESH_INTERVAL_NANOS;
+            long healthyLocalWeight = 0;
+            long healthyWeight = 0;
+            for (int i = 0; i < hosts.size(); ++i) {
+                final Host<Addr, C> host = hosts.get(i);
+                if (host.isActiveAndHealthy()) {
+                    healthyWeight += host.weight();
+                    if (localZone.equals(host.zone())) {
+                        healthyLocalWeight += host.weight();
+                    }
+                }
+            }
+            // If no host is healthy, spilling over doesn't help.
+            final double probability = healthyWeight == 0 ? 1 :
+                    Math.min(1, (double) healthyLocalWeight / healthyWeight / expectedLocalShare);
+            localProbability = probability;
+            return probability;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Configuration of zone-aware routing for the load balancers in this package.
+ * <p>
+ * Hosts are assigned to zones by {@link ServiceDiscovererEvent#zone()}. Requests are routed to hosts in the
+ * {@link #localZone() local zone} as long as the local zone has at least its share of the healthy capacity, assuming
+ * that clients are spread across zones in the same proportion as the hosts. The capacity of a zone is the sum of the
+ * {@link ServiceDiscovererEvent#weight() weights} of its hosts. When hosts of the local zone become unhealthy or
+ * ejected, the local zone receives a share of the requests proportional to its remaining healthy capacity, the rest
+ * spills over to the healthy hosts of other zones. For example, with three zones of equal size and half of the local
+ * hosts unhealthy, half of the requests stay in the local zone.
+ * <p>
+ * Zone-aware routing is inactive while there are fewer than {@link #minHosts()} hosts, or no hosts in the local zone
+ * or in other zones, in which case all hosts are considered alike.
+ */
+public final class ZoneAwareRoutingConfig {
+
+    private final String localZone;
+    private final int minHosts;
+
+    private ZoneAwareRoutingConfig(final String localZone, final int minHosts) {
+        this.localZone = localZone;
+        this.minHosts = minHosts;
+    }
+
+    /**
+     * The zone of the client.
+     *
+     * @return the zone of the client.
+     */
+    public String localZone() {
+        return localZone;
+    }
+
+    /**
+     * The minimum number of hosts for zone-aware routing to be active.
+     *
+     * @return the minimum number of hosts for zone-aware routing to be active.
+     */
+    public int minHosts() {
+        return minHosts;
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneAwareRoutingConfig{" +
+                "localZone=" + localZone +
+                ", minHosts=" + minHosts +
+                '}';
+    }
+
+    /**
+     * Builder for {@link ZoneAwareRoutingConfig}.
+     */
+    public static final class Builder {
+        private final String localZone;
+        private int minHosts = 6;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param localZone the zone of the client, compared with {@link ServiceDiscovererEvent#zone()}.
+         */
+        public Builder(final String localZone) {
+            this.localZone = requireNonNull(localZone);
+        }
+
+        /**
+         * Sets the minimum number of hosts for zone-aware routing to be active. With few hosts, the hosts of a single
+         * zone may not be able to handle the requests of all clients in that zone. The default is {@code 6}.
+         *
+         * @param minHosts the minimum number of hosts for zone-aware routing to be active.
+         * @return {@code this}.
+         */
+        public Builder minHosts(final int minHosts) {
+            if (minHosts < 0) {
+                throw new IllegalArgumentException("minHosts: " + minHosts + " (expected >= 0)");
+            }
+            this.minHosts = minHosts;
+            return this;
+        }
+
+        /**
+         * Builds the {@link ZoneAwareRoutingConfig} configured by this builder.
+         *
+         * @return a new {@link ZoneAwareRoutingConfig}.
+         */
+        public ZoneAwareRoutingConfig build() {
+            return new ZoneAwareRoutingConfig(localZone, minHosts);
+        }
+    }
+}
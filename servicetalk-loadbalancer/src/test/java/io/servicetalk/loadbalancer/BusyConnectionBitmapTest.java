@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BusyConnectionBitmapTest {
+
+    @Test
+    public void findsTheOnlyAvailableConnection() {
+        for (int size : new int[]{1, 63, 64, 65, 130, 1024}) {
+            final Integer[] connections = connections(size);
+            final BusyConnectionBitmap bitmap = new BusyConnectionBitmap(size);
+            final int available = size / 2;
+            final AtomicInteger evaluations = new AtomicInteger();
+            final int selections = 10;
+            for (int i = 0; i < selections; ++i) {
+                assertThat(select(bitmap, connections, c -> {
+                    evaluations.incrementAndGet();
+                    return c == available;
+                }, size), is(available));
+            }
+            // Rejected connections are hinted busy and skipped by subsequent selections.
+            assertThat(evaluations.get(), lessThanOrEqualTo(size - 1 + selections));
+        }
+    }
+
+    @Test
+    public void evaluatesEachConnectionAtMostOnce() {
+        final int size = 200;
+        final Integer[] connections = connections(size);
+        final BusyConnectionBitmap bitmap = new BusyConnectionBitmap(size);
+        final Set<Integer> evaluated = new HashSet<>();
+        final AtomicInteger evaluations = new AtomicInteger();
+        assertThat(select(bitmap, connections, c -> {
+            evaluations.incrementAndGet();
+            evaluated.add(c);
+            return false;
+        }, size), is(-1));
+        assertThat(evaluations.get(), is(size));
+        assertThat(evaluated.size(), is(size));
+    }
+
+    @Test
+    public void hintedConnectionIsSelectedWhenAvailable() {
+        final int size = 10;
+        final Integer[] connections = connections(size);
+        final BusyConnectionBitmap bitmap = new BusyConnectionBitmap(size);
+        assertThat(select(bitmap, connections, c -> false, size), is(-1));
+        assertThat(select(bitmap, connections, c -> c == 3, size), is(3));
+        // The hint of the selected connection is cleared, so it is evaluated before the hinted connections.
+        final AtomicInteger evaluations = new AtomicInteger();
+        assertThat(select(bitmap, connections, c -> {
+            evaluations.incrementAndGet();
+            return c == 3;
+        }, size), is(3));
+        assertThat(evaluations.get(), is(1));
+    }
+
+    @Test
+    public void releasedConnectionIsReselected() {
+        for (int size : new int[]{2, 64, 65, 130}) {
+            final Integer[] connections = connections(size);
+            final BusyConnectionBitmap bitmap = new BusyConnectionBitmap(size);
+            final Set<Integer> busy = new HashSet<>();
+            for (int i = 0; i < size; ++i) {
+                busy.add(i);
+            }
+            // Selections reserve the connection they select, like a connection which allows a single request.
+            final Predicate<Integer> selector = busy::add;
+            assertThat(select(bitmap, connections, selector, size), is(-1));
+            for (int i = 0; i < 1000; ++i) {
+                final int released = ThreadLocalRandom.current().nextInt(size);
+                busy.remove(released);
+                assertThat(select(bitmap, connections, selector, size), is(released));
+            }
+        }
+    }
+
+    @Test
+    public void respectsMaxAttempts() {
+        final int size = 100;
+        final BusyConnectionBitmap bitmap = new BusyConnectionBitmap(size);
+        final AtomicInteger evaluations = new AtomicInteger();
+        assertThat(select(bitmap, connections(size), c -> evaluations.incrementAndGet() < 0, 10), is(-1));
+        assertThat(evaluations.get(), is(10));
+    }
+
+    private static int select(final BusyConnectionBitmap bitmap, final Integer[] connections,
+                              final Predicate<Integer> selector, final int maxAttempts) {
+        return bitmap.selectIndex(connections, selector, maxAttempts, ThreadLocalRandom.current());
+    }
+
+    private static Integer[] connections(final int size) {
+        final Integer[] connections = new Integer[size];
+        for (int i = 0; i < size; ++i) {
+            connections[i] = i;
+        }
+        return connections;
+    }
+}
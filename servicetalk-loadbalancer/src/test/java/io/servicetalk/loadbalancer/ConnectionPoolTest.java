@@ -0,0 +1,222 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ExecutorRule;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ConnectionPoolTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final ExecutorRule<TestExecutor> executor = ExecutorRule.withTestExecutor();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private final List<TestConnection> connections = new CopyOnWriteArrayList<>();
+    @Nullable
+    private LoadBalancer<TestConnection> lb;
+
+    @After
+    public void tearDown() throws Exception {
+        if (lb != null) {
+            lb.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void firstAvailableReusesFirstConnection() throws Exception {
+        newLoadBalancer(new ConnectionPoolConfig.Builder().build(), null);
+        openConnections(3);
+
+        for (int i = 0; i < 10; ++i) {
+            final TestConnection connection = reserve();
+            assertThat(connection, is(sameInstance(connections.get(0))));
+            connection.release();
+        }
+        assertThat(connections, hasSize(3));
+    }
+
+    @Test
+    public void firstAvailableReusesOldestReleasedConnection() throws Exception {
+        newLoadBalancer(new ConnectionPoolConfig.Builder().build(), null);
+        openConnections(3);
+        final TestConnection first = reserve();
+        final TestConnection second = reserve();
+        final TestConnection third = reserve();
+        assertThat(first, is(sameInstance(connections.get(0))));
+        assertThat(second, is(sameInstance(connections.get(1))));
+        assertThat(third, is(sameInstance(connections.get(2))));
+
+        // The connection which was opened first is reused, not the one which was released last.
+        second.release();
+        third.release();
+        assertThat(reserve(), is(sameInstance(second)));
+        first.release();
+        assertThat(reserve(), is(sameInstance(first)));
+        assertThat(reserve(), is(sameInstance(third)));
+        assertThat(connections, hasSize(3));
+    }
+
+    @Test
+    public void idleConnectionsAreClosed() throws Exception {
+        newLoadBalancer(new ConnectionPoolConfig.Builder()
+                .maxIdleTime(Duration.ofSeconds(2))
+                .evictionInterval(Duration.ofSeconds(1))
+                .build(), null);
+        openConnections(3);
+
+        executor.executor().advanceTimeBy(1, SECONDS);
+        reserve().release();
+        executor.executor().advanceTimeBy(1, SECONDS);
+        assertThat(connections.get(0).isClosed(), is(false));
+        assertThat(connections.get(1).isClosed(), is(true));
+        assertThat(connections.get(2).isClosed(), is(true));
+
+        // The remaining connection is still used.
+        assertThat(reserve(), is(sameInstance(connections.get(0))));
+    }
+
+    @Test
+    public void minConnectionsAreKept() throws Exception {
+        newLoadBalancer(new ConnectionPoolConfig.Builder()
+                .maxIdleTime(Duration.ofSeconds(2))
+                .evictionInterval(Duration.ofSeconds(1))
+                .build(), new MinConnectionsConfig.Builder(1).build());
+        openConnections(3);
+
+        for (int i = 0; i < 5; ++i) {
+            executor.executor().advanceTimeBy(1, SECONDS);
+        }
+        assertThat(connections, hasSize(3));
+        assertThat(connections.get(0).isClosed(), is(false));
+        assertThat(connections.get(1).isClosed(), is(true));
+        assertThat(connections.get(2).isClosed(), is(true));
+    }
+
+    private void openConnections(final int count) throws Exception {
+        final List<TestConnection> reserved = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            reserved.add(reserve());
+        }
+        assertThat(connections, hasSize(count));
+        reserved.forEach(TestConnection::release);
+    }
+
+    private TestConnection reserve() throws Exception {
+        assert lb != null;
+        return lb.selectConnection(TestConnection::tryReserve).toFuture().get();
+    }
+
+    private void newLoadBalancer(final ConnectionPoolConfig config,
+                                 @Nullable final MinConnectionsConfig minConnectionsConfig) {
+        final RoundRobinLoadBalancerFactory.Builder<String, TestConnection> builder =
+                new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>()
+                        .backgroundExecutor(executor.executor())
+                        .connectionPool(config);
+        if (minConnectionsConfig != null) {
+            builder.minConnections(minConnectionsConfig);
+        }
+        lb = builder.build().newLoadBalancer(sdPublisher, new TestConnectionFactory());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+    }
+
+    private final class TestConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            final TestConnection connection = new TestConnection();
+            connections.add(connection);
+            return succeeded(connection);
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        private final AtomicBoolean reserved = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        boolean tryReserve() {
+            return reserved.compareAndSet(false, true);
+        }
+
+        void release() {
+            reserved.set(false);
+        }
+
+        boolean isClosed() {
+            return closed.get();
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync().beforeOnSubscribe(__ -> closed.set(true));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.SingleSource.Processor;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.LoadBalancerReadyEvent.LOAD_BALANCER_READY_EVENT;
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Processors.newSingleProcessor;
+import static io.servicetalk.concurrent.api.SourceAdapters.fromSource;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class MinConnectionsTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private final TestConnectionFactory connectionFactory = new TestConnectionFactory();
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    @Nullable
+    private LoadBalancer<TestConnection> lb;
+
+    @After
+    public void tearDown() throws Exception {
+        if (lb != null) {
+            lb.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void connectionsAreOpenedWhenHostBecomesAvailable() throws Exception {
+        newLoadBalancer(new MinConnectionsConfig.Builder(3).build());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        assertThat(connectionFactory.connects, hasSize(3));
+        final List<TestConnection> connections = connectionFactory.completeAll();
+        assertThat(connections, hasSize(3));
+        assertThat(connectionFactory.connects, is(empty()));
+
+        // The warm connections are used without opening new ones.
+        assertThat(lb.selectConnection(__ -> true).toFuture().get().address, is("address-1"));
+        assertThat(connectionFactory.connects, is(empty()));
+    }
+
+    @Test
+    public void closedConnectionsAreReplaced() throws Exception {
+        newLoadBalancer(new MinConnectionsConfig.Builder(2).build());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        final List<TestConnection> connections = connectionFactory.completeAll();
+        assertThat(connections, hasSize(2));
+
+        connections.get(0).closeAsync().toFuture().get();
+        assertThat(connectionFactory.connects, hasSize(1));
+    }
+
+    @Test
+    public void concurrentConnectsAreBounded() throws Exception {
+        newLoadBalancer(new MinConnectionsConfig.Builder(3).maxConcurrentConnects(2).build());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true));
+        assertThat(connectionFactory.connects, hasSize(2));
+
+        // Each completed attempt starts the next one, until both hosts are warm.
+        int completed = 0;
+        while (!connectionFactory.connects.isEmpty()) {
+            assertThat(connectionFactory.connects.size() <= 2, is(true));
+            connectionFactory.completeNext();
+            ++completed;
+        }
+        assertThat(completed, is(6));
+    }
+
+    @Test
+    public void failedWarmUpIsNotRetriedImmediately() throws Exception {
+        newLoadBalancer(new MinConnectionsConfig.Builder(1).build());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        final Processor<TestConnection, TestConnection> connect = connectionFactory.connects.poll();
+        assert connect != null;
+        connect.onError(new Exception("deliberate failure"));
+        assertThat(connectionFactory.connects, is(empty()));
+    }
+
+    @Test
+    public void readyEventWaitsForWarmUp() throws Exception {
+        newLoadBalancer(new MinConnectionsConfig.Builder(2).waitForWarmUp(true).build());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        assertThat(events, is(empty()));
+
+        connectionFactory.completeNext();
+        assertThat(events, is(empty()));
+        connectionFactory.completeNext();
+        assertThat(events, contains(sameInstance(LOAD_BALANCER_READY_EVENT)));
+    }
+
+    private void newLoadBalancer(final MinConnectionsConfig config) {
+        lb = new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>()
+                .minConnections(config)
+                .build()
+                .newLoadBalancer(sdPublisher, connectionFactory);
+        lb.eventStream().forEach(events::add);
+    }
+
+    private static final class TestConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        final Queue<Processor<TestConnection, TestConnection>> connects = new ConcurrentLinkedQueue<>();
+        private final Queue<String> addresses = new ConcurrentLinkedQueue<>();
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            final Processor<TestConnection, TestConnection> processor = newSingleProcessor();
+            connects.add(processor);
+            addresses.add(address);
+            return fromSource(processor);
+        }
+
+        TestConnection completeNext() {
+            final Processor<TestConnection, TestConnection> processor = connects.poll();
+            final String address = addresses.poll();
+            assert processor != null && address != null;
+            final TestConnection connection = new TestConnection(address);
+            processor.onSuccess(connection);
+            return connection;
+        }
+
+        List<TestConnection> completeAll() {
+            final List<TestConnection> connections = new CopyOnWriteArrayList<>();
+            while (!connects.isEmpty()) {
+                connections.add(completeNext());
+            }
+            return connections;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        final String address;
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        TestConnection(final String address) {
+            this.address = address;
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+}
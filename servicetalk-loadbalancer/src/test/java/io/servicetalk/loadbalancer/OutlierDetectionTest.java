@@ -0,0 +1,321 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RequestTracker;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ExecutorRule;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestExecutor;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.RESPONSE_FAILURE;
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Single.defer;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.loadbalancer.RoundRobinLoadBalancerFactory.DEFAULT_HEALTH_CHECK_INTERVAL;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+
+public class OutlierDetectionTest {
+
+    private static final Duration DETECTION_INTERVAL = Duration.ofSeconds(10);
+    private static final Duration BASE_EJECTION_TIME = Duration.ofSeconds(30);
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+    @Rule
+    public final ExecutorRule<TestExecutor> executor = ExecutorRule.withTestExecutor();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private final Map<String, RequestTracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionsCreated = new AtomicInteger();
+    @Nullable
+    private volatile String failConnectsTo;
+    @Nullable
+    private LoadBalancer<TestConnection> lb;
+
+    @After
+    public void tearDown() throws Exception {
+        if (lb != null) {
+            lb.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void consecutiveFailuresEjectHostUntilHealthCheckPasses() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(3).maxEjectionPercent(50).build(),
+                "address-1", "address-2");
+        fail(trackers.get("address-1"), 3);
+
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2"));
+
+        executor.executor().advanceTimeBy(BASE_EJECTION_TIME.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void ejectedHostReturnsOnlyAfterHealthCheckConnects() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(3).maxEjectionPercent(50).build(),
+                "address-1", "address-2");
+        failConnectsTo = "address-1";
+        fail(trackers.get("address-1"), 3);
+
+        executor.executor().advanceTimeBy(BASE_EJECTION_TIME.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2"));
+
+        failConnectsTo = null;
+        final int healthCheckConnections = connectionsCreated.get();
+        executor.executor().advanceTimeBy(DEFAULT_HEALTH_CHECK_INTERVAL.getSeconds(), SECONDS);
+        assertThat(connectionsCreated.get(), is(healthCheckConnections + 1));
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void hostOverThresholdIsEjectedOnceCapacityFreesUp() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(3).maxEjectionPercent(34).build(),
+                "address-1", "address-2", "address-3");
+        fail(trackers.get("address-1"), 3);
+        // Only one host out of three can be ejected at a time.
+        fail(trackers.get("address-2"), 5);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2", "address-3"));
+
+        executor.executor().advanceTimeBy(BASE_EJECTION_TIME.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-2", "address-3"));
+
+        fail(trackers.get("address-2"), 3);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-3"));
+    }
+
+    @Test
+    public void returnedHostIsEjectedAgainOnFurtherFailures() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(3).maxEjectionPercent(50).build(),
+                "address-1", "address-2");
+        final RequestTracker tracker = trackers.get("address-1");
+        fail(tracker, 3);
+        executor.executor().advanceTimeBy(BASE_EJECTION_TIME.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), hasItem("address-1"));
+
+        fail(tracker, 3);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2"));
+
+        // The second ejection lasts twice as long.
+        executor.executor().advanceTimeBy(BASE_EJECTION_TIME.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2"));
+        executor.executor().advanceTimeBy(BASE_EJECTION_TIME.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void successResetsConsecutiveFailures() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(3).maxEjectionPercent(50).build(),
+                "address-1", "address-2");
+        final RequestTracker tracker = trackers.get("address-1");
+        fail(tracker, 2);
+        tracker.onSuccess(tracker.beforeStart());
+        fail(tracker, 2);
+
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void maxEjectionPercentIsRespected() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(1).maxEjectionPercent(0).build(),
+                "address-1", "address-2", "address-3");
+        fail(trackers.get("address-1"), 1);
+        fail(trackers.get("address-2"), 1);
+
+        // At least one host can be ejected regardless of the percentage, but not more.
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2", "address-3"));
+    }
+
+    @Test
+    public void onlyHostIsNeverEjected() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(1).maxEjectionPercent(100).build(),
+                "address-1");
+        fail(trackers.get("address-1"), 1);
+
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1"));
+    }
+
+    @Test
+    public void successRateOutlierIsEjected() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(0).detectionVolume(5, 10)
+                        .detectionInterval(DETECTION_INTERVAL).build(),
+                "address-1", "address-2", "address-3", "address-4", "address-5");
+        for (Map.Entry<String, RequestTracker> entry : trackers.entrySet()) {
+            final RequestTracker tracker = entry.getValue();
+            for (int i = 0; i < 20; ++i) {
+                if ("address-1".equals(entry.getKey()) && i % 2 == 0) {
+                    tracker.onError(tracker.beforeStart(), RESPONSE_FAILURE);
+                } else {
+                    tracker.onSuccess(tracker.beforeStart());
+                }
+            }
+        }
+        assertThat(selectedAddresses(), hasItem("address-1"));
+
+        executor.executor().advanceTimeBy(DETECTION_INTERVAL.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), not(hasItem("address-1")));
+    }
+
+    @Test
+    public void latencyOutlierIsEjected() throws Exception {
+        newLoadBalancer(new OutlierDetectorConfig.Builder().consecutiveFailures(0).successRateStdevFactor(0)
+                        .latencyFactor(3).detectionVolume(5, 10).detectionInterval(DETECTION_INTERVAL).build(),
+                "address-1", "address-2", "address-3", "address-4", "address-5");
+        for (Map.Entry<String, RequestTracker> entry : trackers.entrySet()) {
+            final RequestTracker tracker = entry.getValue();
+            final long latencyNanos = "address-1".equals(entry.getKey()) ? SECONDS.toNanos(1) :
+                    SECONDS.toNanos(1) / 100;
+            for (int i = 0; i < 20; ++i) {
+                tracker.onSuccess(tracker.beforeStart() - latencyNanos);
+            }
+        }
+
+        executor.executor().advanceTimeBy(DETECTION_INTERVAL.getSeconds(), SECONDS);
+        assertThat(selectedAddresses(), not(hasItem("address-1")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void requiresHealthChecking() {
+        new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>()
+                .healthCheckFailedConnectionsThreshold(-1)
+                .outlierDetectorConfig(new OutlierDetectorConfig.Builder().build())
+                .build();
+    }
+
+    private void newLoadBalancer(final OutlierDetectorConfig config, final String... addresses) throws Exception {
+        lb = new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>()
+                .backgroundExecutor(executor.executor())
+                .outlierDetectorConfig(config)
+                .build()
+                .newLoadBalancer(sdPublisher, new TrackerCapturingConnectionFactory());
+        for (String address : addresses) {
+            sdPublisher.onNext(new DefaultServiceDiscovererEvent<>(address, true));
+        }
+        // A selector which never accepts existing connections forces the LB to open a new one on the next host.
+        final Predicate<TestConnection> newConnectionOnly = c -> !c.selected;
+        while (trackers.size() < addresses.length) {
+            lb.selectConnection(newConnectionOnly).toFuture().get().selected = true;
+        }
+    }
+
+    private Set<String> selectedAddresses() throws Exception {
+        assert lb != null;
+        final Set<String> addresses = new HashSet<>();
+        for (int i = 0; i < 20; ++i) {
+            addresses.add(lb.selectConnection(__ -> true).toFuture().get().address);
+        }
+        return addresses;
+    }
+
+    private static void fail(final RequestTracker tracker, final int times) {
+        for (int i = 0; i < times; ++i) {
+            tracker.onError(tracker.beforeStart(), RESPONSE_FAILURE);
+        }
+    }
+
+    private final class TrackerCapturingConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            return newConnection(address, null, observer);
+        }
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final RequestTracker requestTracker,
+                                                    @Nullable final TransportObserver observer) {
+            if (requestTracker != null) {
+                trackers.put(address, requestTracker);
+            }
+            // Health checks subscribe the same Single again, it must connect every time.
+            return defer(() -> {
+                connectionsCreated.incrementAndGet();
+                if (address.equals(failConnectsTo)) {
+                    return failed(DELIBERATE_EXCEPTION);
+                }
+                return succeeded(new TestConnection(address));
+            });
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        final String address;
+        volatile boolean selected;
+
+        TestConnection(final String address) {
+            this.address = address;
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+}
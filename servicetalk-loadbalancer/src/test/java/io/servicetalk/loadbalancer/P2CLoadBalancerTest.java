@@ -0,0 +1,218 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.RequestTracker;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.CANCELLED;
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.CONNECTION_FAILURE;
+import static io.servicetalk.client.api.RequestTracker.ErrorClass.RESPONSE_FAILURE;
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class P2CLoadBalancerTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private final Map<String, RequestTracker> trackers = new ConcurrentHashMap<>();
+    private LoadBalancer<TestConnection> lb;
+
+    @Before
+    public void setUp() {
+        lb = new P2CLoadBalancerFactory.Builder<String, TestConnection>().build()
+                .newLoadBalancer(sdPublisher, new TrackerCapturingConnectionFactory());
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lb.closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void requestTrackerIsPassedToConnectionFactory() throws Exception {
+        openConnectionsToAllHosts();
+        assertThat(trackers.get("address-1"), is(notNullValue()));
+        assertThat(trackers.get("address-2"), is(notNullValue()));
+    }
+
+    @Test
+    public void hostWithMorePendingRequestsIsAvoided() throws Exception {
+        openConnectionsToAllHosts();
+        final RequestTracker busy = trackers.get("address-1");
+        final RequestTracker idle = trackers.get("address-2");
+        idle.onSuccess(idle.beforeStart());
+        busy.onSuccess(busy.beforeStart());
+        for (int i = 0; i < 10; ++i) {
+            busy.beforeStart();
+        }
+
+        for (int i = 0; i < 20; ++i) {
+            assertThat(lb.selectConnection(any()).toFuture().get().address, is("address-2"));
+        }
+    }
+
+    @Test
+    public void slowHostIsAvoided() throws Exception {
+        openConnectionsToAllHosts();
+        final RequestTracker slow = trackers.get("address-1");
+        final RequestTracker fast = trackers.get("address-2");
+        slow.beforeStart();
+        slow.onSuccess(System.nanoTime() - SECONDS.toNanos(1));
+        fast.beforeStart();
+        fast.onSuccess(System.nanoTime() - MILLISECONDS.toNanos(1));
+
+        for (int i = 0; i < 20; ++i) {
+            assertThat(lb.selectConnection(any()).toFuture().get().address, is("address-2"));
+        }
+    }
+
+    @Test
+    public void hostFailingFastIsNotPreferred() throws Exception {
+        openConnectionsToAllHosts();
+        final RequestTracker failing = trackers.get("address-1");
+        final RequestTracker healthy = trackers.get("address-2");
+        failing.beforeStart();
+        failing.onSuccess(System.nanoTime() - MILLISECONDS.toNanos(10));
+        healthy.beforeStart();
+        healthy.onSuccess(System.nanoTime() - MILLISECONDS.toNanos(10));
+        // The failure is immediate, much faster than the successful requests.
+        failing.onError(failing.beforeStart(), CONNECTION_FAILURE);
+
+        for (int i = 0; i < 20; ++i) {
+            assertThat(lb.selectConnection(any()).toFuture().get().address, is("address-2"));
+        }
+    }
+
+    @Test
+    public void failuresIncreaseLatency() {
+        final DefaultRequestTracker tracker = new DefaultRequestTracker(SECONDS.toNanos(10));
+        tracker.onSuccess(tracker.beforeStart() - MILLISECONDS.toNanos(10));
+        final long latency = tracker.latencyNanos();
+        tracker.onError(tracker.beforeStart(), RESPONSE_FAILURE);
+        assertThat(tracker.latencyNanos(), greaterThan(latency));
+    }
+
+    @Test
+    public void cancellationDoesNotAffectLatency() {
+        final DefaultRequestTracker tracker = new DefaultRequestTracker(SECONDS.toNanos(10));
+        tracker.onError(tracker.beforeStart() - SECONDS.toNanos(1), CANCELLED);
+        assertThat(tracker.pending(), is(0));
+        assertThat(tracker.latencyNanos(), is(0L));
+
+        tracker.onSuccess(tracker.beforeStart() - SECONDS.toNanos(1));
+        assertThat(tracker.pending(), is(0));
+        assertThat(tracker.latencyNanos(), greaterThan(0L));
+    }
+
+    private void openConnectionsToAllHosts() throws Exception {
+        // A selector which never accepts existing connections forces the LB to open a new one on the picked host.
+        final Predicate<TestConnection> newConnectionOnly = c -> !c.selected;
+        while (trackers.size() < 2) {
+            lb.selectConnection(newConnectionOnly).toFuture().get().selected = true;
+        }
+    }
+
+    private static Predicate<TestConnection> any() {
+        return __ -> true;
+    }
+
+    private final class TrackerCapturingConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            return newConnection(address, null, observer);
+        }
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final RequestTracker requestTracker,
+                                                    @Nullable final TransportObserver observer) {
+            if (requestTracker != null) {
+                trackers.put(address, requestTracker);
+            }
+            return succeeded(new TestConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        final String address;
+        volatile boolean selected;
+
+        TestConnection(final String address) {
+            this.address = address;
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+}
@@ -63,6 +63,7 @@ import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -96,6 +97,7 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
@@ -335,6 +337,23 @@ abstract class RoundRobinLoadBalancerTest {
         assertThat(connectionsCreated, hasSize(2));
     }
 
+    @Test
+    public void releasedConnectionIsReselected() throws Exception {
+        sendServiceDiscoveryEvents(upEvent("address-1"));
+        // Selections reserve the connection they select, like a connection which allows a single request.
+        final Set<TestLoadBalancedConnection> busy = new CopyOnWriteArraySet<>();
+        final Predicate<TestLoadBalancedConnection> selector = busy::add;
+        final TestLoadBalancedConnection first = awaitIndefinitely(lb.selectConnection(selector));
+        final TestLoadBalancedConnection second = awaitIndefinitely(lb.selectConnection(selector));
+        assertThat(second, is(not(first)));
+        for (int i = 0; i < 100; ++i) {
+            final TestLoadBalancedConnection released = ThreadLocalRandom.current().nextBoolean() ? first : second;
+            busy.remove(released);
+            assertThat(awaitIndefinitely(lb.selectConnection(selector)), is(released));
+        }
+        assertThat(connectionsCreated, hasSize(2));
+    }
+
     @Test
     public void closedConnectionPruning() throws Exception {
         sendServiceDiscoveryEvents(upEvent("address-1"));
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+
+public class SlowStartTest {
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private LoadBalancer<TestConnection> lb;
+
+    @Before
+    public void setUp() {
+        lb = new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>()
+                .slowStart(new SlowStartConfig.Builder(Duration.ofHours(1)).minWeightPercent(0).build())
+                .build()
+                .newLoadBalancer(sdPublisher, new TestConnectionFactory());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lb.closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void hostsDiscoveredBeforeFirstSelectionAreNotWarmedUp() throws Exception {
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true));
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1", "address-2"));
+    }
+
+    @Test
+    public void newHostIsSkippedDuringSlowStart() throws Exception {
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1"));
+
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true));
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1"));
+    }
+
+    @Test
+    public void hostInSlowStartIsUsedIfNoOtherHostIsAvailable() throws Exception {
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true));
+        assertThat(selectedAddresses(), containsInAnyOrder("address-1"));
+
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true));
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", false));
+        assertThat(selectedAddresses(), containsInAnyOrder("address-2"));
+    }
+
+    @Test
+    public void weightRamp() {
+        final SlowStartConfig linear = new SlowStartConfig.Builder(Duration.ofSeconds(10)).build();
+        assertThat(linear.weight(0), is(0.1));
+        assertThat(linear.weight(SECONDS.toNanos(5)), closeTo(0.5, 0.001));
+        assertThat(linear.weight(SECONDS.toNanos(10)), is(1.0));
+
+        final SlowStartConfig aggressive = new SlowStartConfig.Builder(Duration.ofSeconds(10))
+                .aggression(2).minWeightPercent(0).build();
+        assertThat(aggressive.weight(SECONDS.toNanos(1)), closeTo(Math.sqrt(0.1), 0.001));
+    }
+
+    private Set<String> selectedAddresses() throws Exception {
+        final Set<String> addresses = new HashSet<>();
+        for (int i = 0; i < 20; ++i) {
+            addresses.add(lb.selectConnection(__ -> true).toFuture().get().address);
+        }
+        return addresses;
+    }
+
+    private static final class TestConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            return succeeded(new TestConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        final String address;
+
+        TestConnection(final String address) {
+            this.address = address;
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return completed();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed();
+        }
+    }
+}
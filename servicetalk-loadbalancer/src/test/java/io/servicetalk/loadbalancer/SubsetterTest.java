@@ -0,0 +1,189 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.servicetalk.concurrent.api.Publisher.fromIterable;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isIn;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SubsetterTest {
+
+    private static final int HOSTS = 100;
+    private static final int SUBSET_SIZE = 10;
+
+    private final AtomicInteger churn = new AtomicInteger();
+    private final AtomicInteger lastSubsetSize = new AtomicInteger();
+    private final SubsettingConfig config = new SubsettingConfig.Builder(SUBSET_SIZE)
+            .clientKey(42)
+            .observer((subsetSize, availableHosts, addedHosts, removedHosts) -> {
+                lastSubsetSize.set(subsetSize);
+                churn.addAndGet(addedHosts + removedHosts);
+            })
+            .build();
+
+    @Test
+    public void subsetIsBoundedAndDeterministic() {
+        final List<ServiceDiscovererEvent<Integer>> events = upEvents(0, HOSTS);
+        final Set<Integer> first = apply(new Subsetter<>(config, 42), events);
+        final Set<Integer> second = apply(new Subsetter<>(config, 42), events);
+
+        assertThat(first, hasSize(SUBSET_SIZE));
+        assertThat(lastSubsetSize.get(), is(SUBSET_SIZE));
+        assertThat(second, is(first));
+    }
+
+    @Test
+    public void membershipChangesMoveMinimalNumberOfHosts() {
+        final Subsetter<Integer> subsetter = new Subsetter<>(config, 42);
+        final Set<Integer> subset = apply(subsetter, upEvents(0, HOSTS));
+
+        // Removing a host outside of the subset doesn't change it.
+        final int outsider = firstNotIn(subset);
+        churn.set(0);
+        assertThat(apply(new HashSet<>(subset),
+                subsetter.onEvent(new DefaultServiceDiscovererEvent<>(outsider, false))), is(subset));
+        assertThat(churn.get(), is(0));
+
+        // Removing a member replaces exactly that member.
+        final int member = subset.iterator().next();
+        final Set<Integer> afterRemoval = apply(new HashSet<>(subset),
+                subsetter.onEvent(new DefaultServiceDiscovererEvent<>(member, false)));
+        assertThat(afterRemoval, hasSize(SUBSET_SIZE));
+        assertThat(churn.get(), is(2));
+
+        // Adding hosts replaces at most one member per added host.
+        churn.set(0);
+        final Set<Integer> afterAddition = apply(subsetter, upEvents(HOSTS, HOSTS + 10), afterRemoval);
+        assertThat(afterAddition, hasSize(SUBSET_SIZE));
+        assertThat(churn.get(), lessThanOrEqualTo(20));
+    }
+
+    @Test
+    public void weightUpdatesOfMembersArePropagated() {
+        final Subsetter<Integer> subsetter = new Subsetter<>(config, 42);
+        final Set<Integer> subset = apply(subsetter, upEvents(0, HOSTS));
+
+        final int member = subset.iterator().next();
+        final List<ServiceDiscovererEvent<Integer>> memberUpdate =
+                subsetter.onEvent(new DefaultServiceDiscovererEvent<>(member, true, 5));
+        assertThat(memberUpdate, hasSize(1));
+        assertThat(memberUpdate.get(0).weight(), is(5));
+
+        final int outsider = firstNotIn(subset);
+        assertThat(subsetter.onEvent(new DefaultServiceDiscovererEvent<>(outsider, true, 5)), hasSize(0));
+        // Repeated events without a weight change are ignored.
+        assertThat(subsetter.onEvent(new DefaultServiceDiscovererEvent<>(member, true, 5)), hasSize(0));
+    }
+
+    @Test
+    public void zoneUpdatesOfMembersArePropagated() {
+        final Subsetter<Integer> subsetter = new Subsetter<>(config, 42);
+        final Set<Integer> subset = apply(subsetter, upEvents(0, HOSTS));
+
+        final int member = subset.iterator().next();
+        final List<ServiceDiscovererEvent<Integer>> memberUpdate =
+                subsetter.onEvent(new DefaultServiceDiscovererEvent<>(member, true, 1, "zone-a"));
+        assertThat(memberUpdate, hasSize(1));
+        assertThat(memberUpdate.get(0).zone(), is("zone-a"));
+        assertThat(subsetter.onEvent(new DefaultServiceDiscovererEvent<>(member, true, 1, "zone-a")), hasSize(0));
+    }
+
+    @Test
+    public void differentClientsSpreadAcrossHosts() {
+        final int[] clientsPerHost = new int[HOSTS];
+        final int clients = 1000;
+        for (int client = 0; client < clients; ++client) {
+            for (int host : apply(new Subsetter<>(config, client), upEvents(0, HOSTS))) {
+                ++clientsPerHost[host];
+            }
+        }
+        final List<Integer> counts = new ArrayList<>(HOSTS);
+        for (int count : clientsPerHost) {
+            counts.add(count);
+        }
+        // Expected 100 clients per host.
+        assertThat(counts, everyItem(greaterThan(50)));
+        assertThat(counts, everyItem(lessThan(150)));
+    }
+
+    @Test
+    public void publisherEmitsSubsetEvents() throws Exception {
+        final Collection<ServiceDiscovererEvent<Integer>> events =
+                Subsetter.subset(fromIterable(upEvents(0, HOSTS)), config).toFuture().get();
+        final Set<Integer> subset = apply(new HashSet<>(), events);
+        assertThat(subset, hasSize(SUBSET_SIZE));
+        assertThat(subset, everyItem(isIn(apply(new Subsetter<>(config, 42), upEvents(0, HOSTS)))));
+    }
+
+    private static List<ServiceDiscovererEvent<Integer>> upEvents(final int from, final int to) {
+        final List<ServiceDiscovererEvent<Integer>> events = new ArrayList<>(to - from);
+        for (int i = from; i < to; ++i) {
+            events.add(new DefaultServiceDiscovererEvent<>(i, true));
+        }
+        return events;
+    }
+
+    private static Set<Integer> apply(final Subsetter<Integer> subsetter,
+                                      final List<ServiceDiscovererEvent<Integer>> events) {
+        return apply(subsetter, events, new HashSet<>());
+    }
+
+    private static Set<Integer> apply(final Subsetter<Integer> subsetter,
+                                      final List<ServiceDiscovererEvent<Integer>> events, final Set<Integer> subset) {
+        for (ServiceDiscovererEvent<Integer> event : events) {
+            apply(subset, subsetter.onEvent(event));
+        }
+        return subset;
+    }
+
+    private static Set<Integer> apply(final Set<Integer> subset,
+                                      final Collection<ServiceDiscovererEvent<Integer>> events) {
+        for (ServiceDiscovererEvent<Integer> event : events) {
+            if (event.isAvailable()) {
+                subset.add(event.address());
+            } else {
+                subset.remove(event.address());
+            }
+        }
+        return subset;
+    }
+
+    private static int firstNotIn(final Set<Integer> subset) {
+        for (int i = 0; ; ++i) {
+            if (!subset.contains(i)) {
+                return i;
+            }
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+@RunWith(Parameterized.class)
+public class WeightedHostsTest {
+
+    private static final int SELECTIONS = 4000;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private final LoadBalancerFactory<String, TestConnection> lbFactory;
+    private LoadBalancer<TestConnection> lb;
+
+    public WeightedHostsTest(final String name, final LoadBalancerFactory<String, TestConnection> lbFactory) {
+        this.lbFactory = lbFactory;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        return Arrays.asList(
+                new Object[]{"round robin",
+                        new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>().build()},
+                new Object[]{"p2c", new P2CLoadBalancerFactory.Builder<String, TestConnection>().build()});
+    }
+
+    @Before
+    public void setUp() {
+        lb = lbFactory.newLoadBalancer(sdPublisher, new TestConnectionFactory());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        lb.closeAsync().toFuture().get();
+    }
+
+    @Test
+    public void trafficIsProportionalToWeight() throws Exception {
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true, 1));
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true, 3));
+        final Map<String, Integer> counts = select();
+        assertThat(counts.get("address-2"), allOf(greaterThan(SELECTIONS * 65 / 100), lessThan(SELECTIONS * 85 / 100)));
+    }
+
+    @Test
+    public void weightUpdateKeepsConnections() throws Exception {
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true, 1));
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-2", true, 1));
+        final Map<String, TestConnection> connections = new HashMap<>();
+        for (int i = 0; i < 20; ++i) {
+            final TestConnection connection = lb.selectConnection(__ -> true).toFuture().get();
+            connections.put(connection.address, connection);
+        }
+        assertThat(connections.size(), is(2));
+
+        sdPublisher.onNext(new DefaultServiceDiscovererEvent<>("address-1", true, 9));
+        final Map<String, Integer> counts = select();
+        assertThat(counts.get("address-1"), greaterThan(SELECTIONS * 80 / 100));
+        for (int i = 0; i < 20; ++i) {
+            final TestConnection connection = lb.selectConnection(__ -> true).toFuture().get();
+            assertThat(connection, sameInstance(connections.get(connection.address)));
+        }
+    }
+
+    private Map<String, Integer> select() throws Exception {
+        final Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < SELECTIONS; ++i) {
+            counts.merge(lb.selectConnection(__ -> true).toFuture().get().address, 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static final class TestConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            return succeeded(new TestConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        final String address;
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        TestConnection(final String address) {
+            this.address = address;
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+}
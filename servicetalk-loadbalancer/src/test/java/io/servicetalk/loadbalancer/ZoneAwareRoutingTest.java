@@ -0,0 +1,226 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.loadbalancer;
+
+import io.servicetalk.client.api.ConnectionFactory;
+import io.servicetalk.client.api.DefaultServiceDiscovererEvent;
+import io.servicetalk.client.api.LoadBalancedConnection;
+import io.servicetalk.client.api.LoadBalancer;
+import io.servicetalk.client.api.LoadBalancerFactory;
+import io.servicetalk.client.api.ServiceDiscovererEvent;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.ListenableAsyncCloseable;
+import io.servicetalk.concurrent.api.Single;
+import io.servicetalk.concurrent.api.TestPublisher;
+import io.servicetalk.concurrent.internal.DeliberateException;
+import io.servicetalk.concurrent.internal.ServiceTalkTestTimeout;
+import io.servicetalk.transport.api.TransportObserver;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.emptyAsyncCloseable;
+import static io.servicetalk.concurrent.api.Single.failed;
+import static io.servicetalk.concurrent.api.Single.succeeded;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+@RunWith(Parameterized.class)
+public class ZoneAwareRoutingTest {
+
+    private static final int SELECTIONS = 3000;
+
+    @Rule
+    public final Timeout timeout = new ServiceTalkTestTimeout();
+
+    private final TestPublisher<ServiceDiscovererEvent<String>> sdPublisher = new TestPublisher<>();
+    private final TestConnectionFactory connectionFactory = new TestConnectionFactory();
+    private final Function<ZoneAwareRoutingConfig, LoadBalancerFactory<String, TestConnection>> lbFactory;
+    @Nullable
+    private LoadBalancer<TestConnection> lb;
+
+    public ZoneAwareRoutingTest(final String name,
+                                final Function<ZoneAwareRoutingConfig,
+                                        LoadBalancerFactory<String, TestConnection>> lbFactory) {
+        this.lbFactory = lbFactory;
+    }
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> data() {
+        final Function<ZoneAwareRoutingConfig, LoadBalancerFactory<String, TestConnection>> roundRobin =
+                config -> new RoundRobinLoadBalancerFactory.Builder<String, TestConnection>()
+                        .healthCheckFailedConnectionsThreshold(1)
+                        .healthCheckInterval(Duration.ofMinutes(1))
+                        .zoneAwareRouting(config)
+                        .build();
+        final Function<ZoneAwareRoutingConfig, LoadBalancerFactory<String, TestConnection>> p2c =
+                config -> new P2CLoadBalancerFactory.Builder<String, TestConnection>()
+                        .healthCheckFailedConnectionsThreshold(1)
+                        .healthCheckInterval(Duration.ofMinutes(1))
+                        .zoneAwareRouting(config)
+                        .build();
+        return Arrays.asList(new Object[]{"round robin", roundRobin}, new Object[]{"p2c", p2c});
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (lb != null) {
+            lb.closeAsync().toFuture().get();
+        }
+    }
+
+    @Test
+    public void healthyLocalZoneReceivesAllRequests() throws Exception {
+        newLoadBalancer(new ZoneAwareRoutingConfig.Builder("zone-a").build());
+        addHosts("zone-a", "zone-b", "zone-c");
+        final Map<String, Integer> counts = select();
+        assertThat(counts.get("zone-a"), is(SELECTIONS));
+    }
+
+    @Test
+    public void degradedLocalZoneSpillsOver() throws Exception {
+        newLoadBalancer(new ZoneAwareRoutingConfig.Builder("zone-a").build());
+        addHosts("zone-a", "zone-b", "zone-c");
+        connectionFactory.failing.add("zone-a-1");
+        // Select until the failing host is marked unhealthy.
+        while (connectionFactory.failures.get() == 0) {
+            try {
+                lb.selectConnection(__ -> true).toFuture().get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause() instanceof DeliberateException, is(true));
+            }
+        }
+        // Wait for the share of the local zone to be refreshed.
+        Thread.sleep(600);
+
+        // The local zone has 1 of 5 healthy hosts while it should have a third of them: 60% of requests stay local.
+        final Map<String, Integer> counts = select();
+        assertThat(counts.get("zone-a"), allOf(greaterThan(SELECTIONS * 50 / 100), lessThan(SELECTIONS * 70 / 100)));
+        assertThat(counts.get("zone-b"), greaterThan(SELECTIONS * 10 / 100));
+        assertThat(counts.get("zone-c"), greaterThan(SELECTIONS * 10 / 100));
+    }
+
+    @Test
+    public void inactiveWithFewHosts() throws Exception {
+        newLoadBalancer(new ZoneAwareRoutingConfig.Builder("zone-a").minHosts(7).build());
+        addHosts("zone-a", "zone-b", "zone-c");
+        final Map<String, Integer> counts = select();
+        assertThat(counts.get("zone-a"), lessThan(SELECTIONS * 50 / 100));
+        assertThat(counts.get("zone-b"), greaterThan(SELECTIONS * 20 / 100));
+    }
+
+    @Test
+    public void inactiveWithoutLocalHosts() throws Exception {
+        newLoadBalancer(new ZoneAwareRoutingConfig.Builder("zone-x").minHosts(0).build());
+        addHosts("zone-a", "zone-b", "zone-c");
+        final Map<String, Integer> counts = select();
+        assertThat(counts.get("zone-x"), is(nullValue()));
+        assertThat(counts.get("zone-a"), greaterThan(SELECTIONS * 20 / 100));
+    }
+
+    private void newLoadBalancer(final ZoneAwareRoutingConfig config) {
+        lb = lbFactory.apply(config).newLoadBalancer(sdPublisher, connectionFactory);
+    }
+
+    private void addHosts(final String... zones) {
+        for (String zone : zones) {
+            for (int i = 1; i <= 2; ++i) {
+                sdPublisher.onNext(new DefaultServiceDiscovererEvent<>(zone + '-' + i, true, 1, zone));
+            }
+        }
+    }
+
+    private Map<String, Integer> select() throws Exception {
+        assert lb != null;
+        final Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < SELECTIONS; ++i) {
+            final String address = lb.selectConnection(__ -> true).toFuture().get().address;
+            counts.merge(address.substring(0, address.lastIndexOf('-')), 1, Integer::sum);
+        }
+        return counts;
+    }
+
+    private static final class TestConnectionFactory implements ConnectionFactory<String, TestConnection> {
+        final Set<String> failing = ConcurrentHashMap.newKeySet();
+        final AtomicInteger failures = new AtomicInteger();
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        @Override
+        public Single<TestConnection> newConnection(final String address,
+                                                    @Nullable final TransportObserver observer) {
+            if (failing.contains(address)) {
+                failures.incrementAndGet();
+                return failed(DeliberateException.DELIBERATE_EXCEPTION);
+            }
+            return succeeded(new TestConnection(address));
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+
+    private static final class TestConnection implements LoadBalancedConnection {
+        final String address;
+        private final ListenableAsyncCloseable closeable = emptyAsyncCloseable();
+
+        TestConnection(final String address) {
+            this.address = address;
+        }
+
+        @Override
+        public int score() {
+            return 1;
+        }
+
+        @Override
+        public Completable onClose() {
+            return closeable.onClose();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return closeable.closeAsync();
+        }
+    }
+}
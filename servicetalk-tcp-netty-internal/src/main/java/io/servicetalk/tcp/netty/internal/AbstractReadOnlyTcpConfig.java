@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -39,6 +39,7 @@ abstract class AbstractReadOnlyTcpConfig<SecurityConfig> {
     private final Map<ChannelOption, Object> options;
     @Nullable
     private final Long idleTimeoutMs;
+    private final boolean flushConsolidation;
     private final FlushStrategy flushStrategy;
     @Nullable
     private final UserDataLoggerConfig wireLoggerConfig;
@@ -46,6 +47,7 @@ abstract class AbstractReadOnlyTcpConfig<SecurityConfig> {
     protected AbstractReadOnlyTcpConfig(final AbstractTcpConfig<SecurityConfig> from) {
         options = nonNullOptions(from.options());
         idleTimeoutMs = from.idleTimeoutMs();
+        flushConsolidation = from.flushConsolidation();
         flushStrategy = from.flushStrategy();
         wireLoggerConfig = from.wireLoggerConfig();
     }
@@ -75,6 +77,16 @@ abstract class AbstractReadOnlyTcpConfig<SecurityConfig> {
         return idleTimeoutMs;
     }
 
+    /**
+     * Returns whether flushes are consolidated per event loop as expressed via option
+     * {@link ServiceTalkSocketOptions#FLUSH_CONSOLIDATION}.
+     *
+     * @return {@code true} if flushes are consolidated per event loop
+     */
+    public final boolean flushConsolidation() {
+        return flushConsolidation;
+    }
+
     /**
      * Returns the {@link FlushStrategy} for this client.
      *
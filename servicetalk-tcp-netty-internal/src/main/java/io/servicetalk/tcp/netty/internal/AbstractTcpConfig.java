@@ -1,5 +1,5 @@
 /*
- * Copyright © 2019-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2019-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,6 +48,7 @@ abstract class AbstractTcpConfig<SslConfigType> {
     private Map<ChannelOption, Object> options;
     @Nullable
     private Long idleTimeoutMs;
+    private boolean flushConsolidation;
     private FlushStrategy flushStrategy = defaultFlushStrategy();
     @Nullable
     private UserDataLoggerConfig wireLoggerConfig;
@@ -60,6 +61,7 @@ abstract class AbstractTcpConfig<SslConfigType> {
     protected AbstractTcpConfig(final AbstractTcpConfig<SslConfigType> from) {
         options = from.options;
         idleTimeoutMs = from.idleTimeoutMs;
+        flushConsolidation = from.flushConsolidation;
         flushStrategy = from.flushStrategy;
         wireLoggerConfig = from.wireLoggerConfig;
         sslConfig = from.sslConfig;
@@ -76,6 +78,10 @@ abstract class AbstractTcpConfig<SslConfigType> {
         return idleTimeoutMs;
     }
 
+    final boolean flushConsolidation() {
+        return flushConsolidation;
+    }
+
     final FlushStrategy flushStrategy() {
         return flushStrategy;
     }
@@ -105,6 +111,8 @@ abstract class AbstractTcpConfig<SslConfigType> {
         requireNonNull(value);
         if (option == ServiceTalkSocketOptions.IDLE_TIMEOUT) {
             idleTimeoutMs = (Long) value;
+        } else if (option == ServiceTalkSocketOptions.FLUSH_CONSOLIDATION) {
+            flushConsolidation = (Boolean) value;
         } else {
             if (options == null) {
                 options = new HashMap<>();
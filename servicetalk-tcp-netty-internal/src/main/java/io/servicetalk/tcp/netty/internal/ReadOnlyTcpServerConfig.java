@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 package io.servicetalk.tcp.netty.internal;
 
 import io.servicetalk.transport.api.ServerSslConfig;
+import io.servicetalk.transport.api.ServiceTalkSocketOptions;
 import io.servicetalk.transport.api.TransportObserver;
 import io.servicetalk.transport.netty.internal.NoopTransportObserver;
 
@@ -44,10 +45,12 @@ public final class ReadOnlyTcpServerConfig extends AbstractReadOnlyTcpConfig<Ser
     @Nullable
     private final Mapping<String, SslContext> sniMapping;
     private final boolean alpnConfigured;
+    private final boolean reusePortPerIoThread;
 
     ReadOnlyTcpServerConfig(final TcpServerConfig from) {
         super(from);
         listenOptions = nonNullOptions(from.listenOptions());
+        reusePortPerIoThread = from.reusePortPerIoThread();
         final TransportObserver transportObserver = from.transportObserver();
         this.transportObserver = transportObserver == NoopTransportObserver.INSTANCE ? transportObserver :
                 asSafeObserver(transportObserver);
@@ -124,4 +127,14 @@ public final class ReadOnlyTcpServerConfig extends AbstractReadOnlyTcpConfig<Ser
     public Map<ChannelOption, Object> listenOptions() {
         return listenOptions;
     }
+
+    /**
+     * Returns {@code true} if one server socket per I/O thread should be bound, as described by
+     * {@link ServiceTalkSocketOptions#SO_REUSEPORT_PER_IO_THREAD}.
+     *
+     * @return {@code true} if one server socket per I/O thread should be bound.
+     */
+    public boolean reusePortPerIoThread() {
+        return reusePortPerIoThread;
+    }
 }
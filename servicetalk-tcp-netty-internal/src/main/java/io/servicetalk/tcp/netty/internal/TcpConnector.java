@@ -54,6 +54,7 @@ import java.util.function.Consumer;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.SourceAdapters.toSource;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.eventLoopGroup;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.socketChannel;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toNettyAddress;
 import static io.servicetalk.transport.netty.internal.CopyByteBufHandlerChannelInitializer.POOLED_ALLOCATOR;
@@ -136,7 +137,8 @@ public final class TcpConnector {
             }
         };
 
-        EventLoop loop = toEventLoopAwareNettyIoExecutor(executionContext.ioExecutor()).eventLoopGroup().next();
+        EventLoop loop = eventLoopGroup(toEventLoopAwareNettyIoExecutor(executionContext.ioExecutor()),
+                resolvedRemoteAddress).next();
         if (!(resolvedRemoteAddress instanceof FileDescriptorSocketAddress)) {
             return connectWithBootstrap(localAddress, resolvedRemoteAddress, config, autoRead, loop, handler);
         }
@@ -15,6 +15,7 @@
  */
 package io.servicetalk.tcp.netty.internal;
 
+import io.servicetalk.concurrent.SingleSource.Subscriber;
 import io.servicetalk.concurrent.api.Single;
 import io.servicetalk.concurrent.api.internal.SubscribableSingle;
 import io.servicetalk.transport.api.ConnectionAcceptor;
@@ -32,26 +33,40 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.util.ReferenceCounted;
+import io.netty.util.concurrent.EventExecutor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.annotation.Nullable;
 
 import static io.servicetalk.concurrent.api.Single.defer;
 import static io.servicetalk.concurrent.api.Single.succeeded;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.eventLoopGroup;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.reusePortOption;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toNettyAddress;
 import static io.servicetalk.transport.netty.internal.ChannelCloseUtils.close;
 import static io.servicetalk.transport.netty.internal.CopyByteBufHandlerChannelInitializer.POOLED_ALLOCATOR;
 import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
+import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -91,29 +106,14 @@ public final class TcpServerBinder {
         requireNonNull(connectionConsumer);
         listenAddress = toNettyAddress(listenAddress);
         EventLoopAwareNettyIoExecutor nettyIoExecutor = toEventLoopAwareNettyIoExecutor(executionContext.ioExecutor());
-        ServerBootstrap bs = new ServerBootstrap();
-        configure(config, autoRead, bs, nettyIoExecutor.eventLoopGroup(), listenAddress.getClass());
+        final EventLoopGroup eventLoopGroup = eventLoopGroup(nettyIoExecutor, listenAddress);
+        if (eventLoopGroup == null) {
+            throw new IllegalStateException("IoExecutor must be specified before building");
+        }
 
         ChannelSet channelSet = new ChannelSet(executionContext.executor());
-        bs.handler(new ChannelInboundHandlerAdapter() {
-            @Override
-            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
-                // Verify that we do not leak pooled memory in the "accept" pipeline
-                if (msg instanceof ReferenceCounted) {
-                    try {
-                        throw new IllegalArgumentException("Unexpected ReferenceCounted msg in 'accept' pipeline: " +
-                                msg);
-                    } finally {
-                        ((ReferenceCounted) msg).release();
-                    }
-                }
-                if (msg instanceof Channel && !channelSet.addIfAbsent((Channel) msg)) {
-                    LOGGER.warn("Channel ({}) not added to ChannelSet", msg);
-                }
-                ctx.fireChannelRead(msg);
-            }
-        });
-        bs.childHandler(new io.netty.channel.ChannelInitializer<Channel>() {
+        // ChannelInitializer is sharable, one instance initializes the channels of all server channels.
+        final ChannelHandler childHandler = new io.netty.channel.ChannelInitializer<Channel>() {
             @Override
             protected void initChannel(Channel channel) {
                 Single<T> connectionSingle = connectionFunction.apply(channel,
@@ -135,28 +135,124 @@ public final class TcpServerBinder {
                     close(channel, cause);
                 }).subscribe(connectionConsumer);
             }
-        });
+        };
 
-        ChannelFuture future = bs.bind(listenAddress);
+        final List<ServerBootstrap> bootstraps = new ArrayList<>();
+        final ChannelOption<Boolean> reusePortOption = config.reusePortPerIoThread() ?
+                reusePortOption(eventLoopGroup) : null;
+        if (reusePortOption != null && listenAddress instanceof InetSocketAddress) {
+            // One server channel per I/O thread, each accepts and processes its own connections.
+            for (EventExecutor eventLoop : eventLoopGroup) {
+                ServerBootstrap bs = newBootstrap(config, autoRead, (EventLoop) eventLoop, listenAddress.getClass(),
+                        channelSet, childHandler);
+                bs.option(reusePortOption, true);
+                bootstraps.add(bs);
+            }
+        } else {
+            if (config.reusePortPerIoThread()) {
+                LOGGER.warn("SO_REUSEPORT is not supported for {} with {}, binding a single server socket.",
+                        listenAddress, eventLoopGroup);
+            }
+            bootstraps.add(newBootstrap(config, autoRead, eventLoopGroup, listenAddress.getClass(), channelSet,
+                    childHandler));
+        }
+
+        ChannelFuture future = bootstraps.get(0).bind(listenAddress);
         return new SubscribableSingle<ServerContext>() {
             @Override
             protected void handleSubscribe(Subscriber<? super ServerContext> subscriber) {
-                subscriber.onSubscribe(() -> future.cancel(true));
+                final Queue<ChannelFuture> pending = new ConcurrentLinkedQueue<>();
+                pending.add(future);
+                subscriber.onSubscribe(() -> {
+                    for (ChannelFuture f : pending) {
+                        f.cancel(true);
+                    }
+                });
                 future.addListener((ChannelFuture f) -> {
                     Channel channel = f.channel();
                     Throwable cause = f.cause();
-                    if (cause == null) {
+                    if (cause != null) {
+                        close(channel, f.cause());
+                        subscriber.onError(f.cause());
+                    } else if (bootstraps.size() == 1) {
                         subscriber.onSuccess(NettyServerContext.wrap(channel, channelSet,
                                 connectionAcceptor, executionContext));
                     } else {
-                        close(channel, f.cause());
-                        subscriber.onError(f.cause());
+                        bindRemaining(channel, bootstraps, pending, listenChannels ->
+                                NettyServerContext.wrap(listenChannels, channelSet, connectionAcceptor,
+                                        executionContext), subscriber);
                     }
                 });
             }
         };
     }
 
+    /**
+     * Binds the server channels of all but the first {@link ServerBootstrap} to the address of the already bound
+     * first server channel, which resolves an ephemeral port.
+     */
+    private static void bindRemaining(final Channel first, final List<ServerBootstrap> bootstraps,
+                                      final Queue<ChannelFuture> pending,
+                                      final Function<List<Channel>, ServerContext> contextFactory,
+                                      final Subscriber<? super ServerContext> subscriber) {
+        final SocketAddress boundAddress = first.localAddress();
+        final Channel[] channels = new Channel[bootstraps.size()];
+        channels[0] = first;
+        final AtomicInteger remaining = new AtomicInteger(channels.length - 1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int i = 1; i < channels.length; ++i) {
+            final int index = i;
+            final ChannelFuture future = bootstraps.get(i).bind(boundAddress);
+            pending.add(future);
+            future.addListener((ChannelFuture f) -> {
+                channels[index] = f.channel();
+                if (f.cause() != null) {
+                    failure.compareAndSet(null, f.cause());
+                }
+                if (remaining.decrementAndGet() != 0) {
+                    return;
+                }
+                final Throwable cause = failure.get();
+                if (cause == null) {
+                    subscriber.onSuccess(contextFactory.apply(asList(channels)));
+                } else {
+                    for (Channel channel : channels) {
+                        close(channel, cause);
+                    }
+                    subscriber.onError(cause);
+                }
+            });
+        }
+    }
+
+    private static ServerBootstrap newBootstrap(ReadOnlyTcpServerConfig config, boolean autoRead,
+                                                EventLoopGroup eventLoopGroup,
+                                                Class<? extends SocketAddress> bindAddressClass,
+                                                ChannelSet channelSet, ChannelHandler childHandler) {
+        ServerBootstrap bs = new ServerBootstrap();
+        configure(config, autoRead, bs, eventLoopGroup, bindAddressClass);
+        bs.handler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(final ChannelHandlerContext ctx, final Object msg) {
+                // Verify that we do not leak pooled memory in the "accept" pipeline
+                if (msg instanceof ReferenceCounted) {
+                    try {
+                        throw new IllegalArgumentException("Unexpected ReferenceCounted msg in 'accept' pipeline: " +
+                                msg);
+                    } finally {
+                        ((ReferenceCounted) msg).release();
+                    }
+                }
+                if (msg instanceof Channel && !channelSet.addIfAbsent((Channel) msg)) {
+                    LOGGER.warn("Channel ({}) not added to ChannelSet", msg);
+                }
+                ctx.fireChannelRead(msg);
+            }
+        });
+        bs.childHandler(childHandler);
+        return bs;
+    }
+
     private static void configure(ReadOnlyTcpServerConfig config, boolean autoRead, ServerBootstrap bs,
                                   @Nullable EventLoopGroup eventLoopGroup,
                                   Class<? extends SocketAddress> bindAddressClass) {
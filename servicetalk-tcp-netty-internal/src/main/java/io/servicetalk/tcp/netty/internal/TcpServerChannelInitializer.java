@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import io.servicetalk.logging.api.UserDataLoggerConfig;
 import io.servicetalk.transport.api.ConnectionObserver;
 import io.servicetalk.transport.netty.internal.ChannelInitializer;
 import io.servicetalk.transport.netty.internal.ConnectionObserverInitializer;
+import io.servicetalk.transport.netty.internal.FlushConsolidationInitializer;
 import io.servicetalk.transport.netty.internal.IdleTimeoutInitializer;
 import io.servicetalk.transport.netty.internal.NoopTransportObserver.NoopConnectionObserver;
 import io.servicetalk.transport.netty.internal.SniServerChannelInitializer;
@@ -54,6 +55,10 @@ public class TcpServerChannelInitializer implements ChannelInitializer {
             delegate = delegate.andThen(new IdleTimeoutInitializer(config.idleTimeoutMs()));
         }
 
+        if (config.flushConsolidation()) {
+            delegate = delegate.andThen(FlushConsolidationInitializer.INSTANCE);
+        }
+
         if (config.sniMapping() != null) {
             delegate = delegate.andThen(new SniServerChannelInitializer(config.sniMapping()));
         } else if (config.sslContext() != null) {
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,7 @@ public final class TcpServerConfig extends AbstractTcpConfig<ServerSslConfig> {
     private TransportObserver transportObserver = NoopTransportObserver.INSTANCE;
     @Nullable
     private Map<String, ServerSslConfig> sniConfig;
+    private boolean reusePortPerIoThread;
 
     TransportObserver transportObserver() {
         return transportObserver;
@@ -58,6 +59,10 @@ public final class TcpServerConfig extends AbstractTcpConfig<ServerSslConfig> {
         return listenOptions;
     }
 
+    boolean reusePortPerIoThread() {
+        return reusePortPerIoThread;
+    }
+
     /**
      * Sets a {@link TransportObserver} that provides visibility into transport events.
      *
@@ -92,6 +97,10 @@ public final class TcpServerConfig extends AbstractTcpConfig<ServerSslConfig> {
      * @see ServiceTalkSocketOptions
      */
     public <T> void listenSocketOption(final SocketOption<T> option, T value) {
+        if (option == ServiceTalkSocketOptions.SO_REUSEPORT_PER_IO_THREAD) {
+            reusePortPerIoThread = (Boolean) value;
+            return;
+        }
         if (listenOptions == null) {
             listenOptions = new HashMap<>();
         }
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -63,6 +63,17 @@ public final class ServiceTalkSocketOptions {
     public static final SocketOption<Boolean> TCP_FASTOPEN_CONNECT =
             new ServiceTalkSocketOption<>("TCP_FASTOPEN_CONNECT", Boolean.class);
 
+    /**
+     * Consolidate flushes of all connections served by the same event loop.
+     * <p>
+     * When enabled, a flush requested by a connection is deferred to the end of the current event loop iteration and
+     * all connections which requested a flush during that iteration are flushed together. This reduces the number of
+     * system calls when many connections write during the same iteration (e.g. many mostly idle connections which
+     * respond at the same time), at the cost of a slightly higher latency for each write.
+     */
+    public static final SocketOption<Boolean> FLUSH_CONSOLIDATION =
+            new ServiceTalkSocketOption<>("FLUSH_CONSOLIDATION", Boolean.class);
+
     // -- Server/listen socket specific options --
 
     /**
@@ -83,6 +94,19 @@ public final class ServiceTalkSocketOptions {
     public static final SocketOption<Integer> TCP_FASTOPEN_BACKLOG =
             new ServiceTalkSocketOption<>("TCP_FASTOPEN_BACKLOG", Integer.class);
 
+    /**
+     * Bind one server socket per I/O thread to the same address with
+     * <a href="https://man7.org/linux/man-pages/man7/socket.7.html">SO_REUSEPORT</a>, so that the kernel load-balances
+     * new connections between the I/O threads and each I/O thread accepts its own connections. The server sockets
+     * are still managed as a single server.
+     * <p>
+     * Note this option may not be supported by the underlying transport (e.g. supported by Netty's
+     * <a href="https://netty.io/wiki/native-transports.html#using-the-linux-native-transport">linux EPOLL
+     * transport)</a>, if not supported a single server socket is bound.
+     */
+    public static final SocketOption<Boolean> SO_REUSEPORT_PER_IO_THREAD =
+            new ServiceTalkSocketOption<>("SO_REUSEPORT_PER_IO_THREAD", Boolean.class);
+
     private ServiceTalkSocketOptions() {
     }
 
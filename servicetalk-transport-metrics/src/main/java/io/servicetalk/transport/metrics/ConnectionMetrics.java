@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.metrics;
+
+import io.servicetalk.transport.api.ConnectionInfo;
+
+import javax.annotation.Nullable;
+
+/**
+ * Metrics of a single connection, reported by a {@link MetricsTransportObserver} when the connection closes.
+ */
+public final class ConnectionMetrics {
+    @Nullable
+    private final ConnectionInfo connectionInfo;
+    @Nullable
+    private final Throwable error;
+    private final long lifetimeNanos;
+    private final long bytesRead;
+    private final long bytesWritten;
+    private final long flushes;
+    private final long streams;
+
+    ConnectionMetrics(@Nullable final ConnectionInfo connectionInfo, @Nullable final Throwable error,
+                      final long lifetimeNanos, final long bytesRead, final long bytesWritten, final long flushes,
+                      final long streams) {
+        this.connectionInfo = connectionInfo;
+        this.error = error;
+        this.lifetimeNanos = lifetimeNanos;
+        this.bytesRead = bytesRead;
+        this.bytesWritten = bytesWritten;
+        this.flushes = flushes;
+        this.streams = streams;
+    }
+
+    /**
+     * The {@link ConnectionInfo} of the connection.
+     *
+     * @return the {@link ConnectionInfo} of the connection, or {@code null} if the connection closed before it was
+     * established.
+     */
+    @Nullable
+    public ConnectionInfo connectionInfo() {
+        return connectionInfo;
+    }
+
+    /**
+     * The error which closed the connection.
+     *
+     * @return the error which closed the connection, or {@code null} if the connection was closed without an error.
+     */
+    @Nullable
+    public Throwable error() {
+        return error;
+    }
+
+    /**
+     * The lifetime of the connection in nanoseconds, from the initiation of the connection.
+     *
+     * @return the lifetime of the connection in nanoseconds.
+     */
+    public long lifetimeNanos() {
+        return lifetimeNanos;
+    }
+
+    /**
+     * The number of bytes read from the connection.
+     *
+     * @return the number of bytes read from the connection.
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * The number of bytes written to the connection.
+     *
+     * @return the number of bytes written to the connection.
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * The number of flushes of the connection.
+     *
+     * @return the number of flushes of the connection.
+     */
+    public long flushes() {
+        return flushes;
+    }
+
+    /**
+     * The number of streams opened on the connection, {@code 0} for a non-multiplexed connection.
+     *
+     * @return the number of streams opened on the connection.
+     */
+    public long streams() {
+        return streams;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() +
+                "{connectionInfo=" + connectionInfo +
+                ", error=" + error +
+                ", lifetimeNanos=" + lifetimeNanos +
+                ", bytesRead=" + bytesRead +
+                ", bytesWritten=" + bytesWritten +
+                ", flushes=" + flushes +
+                ", streams=" + streams +
+                '}';
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.metrics;
+
+import io.servicetalk.transport.api.ConnectionInfo;
+import io.servicetalk.transport.api.ConnectionObserver;
+import io.servicetalk.transport.api.ConnectionObserver.DataObserver;
+import io.servicetalk.transport.api.ConnectionObserver.MultiplexedObserver;
+import io.servicetalk.transport.api.ConnectionObserver.ReadObserver;
+import io.servicetalk.transport.api.ConnectionObserver.SecurityHandshakeObserver;
+import io.servicetalk.transport.api.ConnectionObserver.StreamObserver;
+import io.servicetalk.transport.api.ConnectionObserver.WriteObserver;
+import io.servicetalk.transport.api.TransportObserver;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import javax.net.ssl.SSLSession;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link TransportObserver} which collects {@link TransportMetrics} of all observed connections, and optionally
+ * reports {@link ConnectionMetrics} of each connection when it closes.
+ * <p>
+ * Use one instance per client or server to collect metrics per endpoint, by passing it to the
+ * {@code transportObserver(...)} method of the client or server builder. Events on the hot path, such as reads,
+ * writes, and flushes, only update {@link java.util.concurrent.atomic.LongAdder}s and fields of the connection, the
+ * clock is only read when a connection or a security handshake starts and ends.
+ */
+public final class MetricsTransportObserver implements TransportObserver {
+
+    private static final AtomicLongFieldUpdater<MetricsConnectionObserver> streamsUpdater =
+            AtomicLongFieldUpdater.newUpdater(MetricsConnectionObserver.class, "streams");
+
+    private final TransportMetrics metrics = new TransportMetrics();
+    @Nullable
+    private final Consumer<? super ConnectionMetrics> connectionClosedListener;
+    private final LongSupplier nanoTime;
+
+    /**
+     * Creates a new instance which only collects {@link TransportMetrics}.
+     */
+    public MetricsTransportObserver() {
+        this(null, System::nanoTime);
+    }
+
+    /**
+     * Creates a new instance which also reports {@link ConnectionMetrics} of each connection when it closes.
+     *
+     * @param connectionClosedListener invoked with the {@link ConnectionMetrics} of each connection when it closes,
+     * from the IO thread of the connection. Must not block.
+     */
+    public MetricsTransportObserver(final Consumer<? super ConnectionMetrics> connectionClosedListener) {
+        this(requireNonNull(connectionClosedListener), System::nanoTime);
+    }
+
+    // Visible for testing
+    MetricsTransportObserver(@Nullable final Consumer<? super ConnectionMetrics> connectionClosedListener,
+                             final LongSupplier nanoTime) {
+        this.connectionClosedListener = connectionClosedListener;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * The {@link TransportMetrics} of all connections observed by this {@link TransportObserver}.
+     *
+     * @return the {@link TransportMetrics} of all connections observed by this {@link TransportObserver}.
+     */
+    public TransportMetrics metrics() {
+        return metrics;
+    }
+
+    @Override
+    public ConnectionObserver onNewConnection() {
+        metrics.connectionsOpened.increment();
+        return new MetricsConnectionObserver(nanoTime.getAsLong());
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '{' + metrics + '}';
+    }
+
+    private final class MetricsConnectionObserver implements ConnectionObserver, MultiplexedObserver {
+        private final long startNanos;
+        @Nullable
+        private ConnectionInfo connectionInfo;
+        // Only updated from the IO thread of the connection.
+        private long bytesRead;
+        private long bytesWritten;
+        private long flushes;
+        // Streams may be opened from other threads.
+        volatile long streams;
+
+        MetricsConnectionObserver(final long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void onDataRead(final int size) {
+            bytesRead += size;
+            metrics.bytesRead.add(size);
+        }
+
+        @Override
+        public void onDataWrite(final int size) {
+            bytesWritten += size;
+            metrics.bytesWritten.add(size);
+        }
+
+        @Override
+        public void onFlush() {
+            ++flushes;
+            metrics.flushes.increment();
+        }
+
+        @Override
+        public SecurityHandshakeObserver onSecurityHandshake() {
+            return new MetricsSecurityHandshakeObserver(nanoTime.getAsLong());
+        }
+
+        @Override
+        public DataObserver connectionEstablished(final ConnectionInfo info) {
+            connectionInfo = info;
+            return NoopDataObserver.INSTANCE;
+        }
+
+        @Override
+        public MultiplexedObserver multiplexedConnectionEstablished(final ConnectionInfo info) {
+            connectionInfo = info;
+            return this;
+        }
+
+        @Override
+        public StreamObserver onNewStream() {
+            streamsUpdater.incrementAndGet(this);
+            metrics.streamsOpened.increment();
+            return new MetricsStreamObserver();
+        }
+
+        @Override
+        public void connectionClosed(final Throwable error) {
+            metrics.connectionsFailed.increment();
+            connectionClosed0(error);
+        }
+
+        @Override
+        public void connectionClosed() {
+            connectionClosed0(null);
+        }
+
+        private void connectionClosed0(@Nullable final Throwable error) {
+            final long lifetimeNanos = nanoTime.getAsLong() - startNanos;
+            metrics.connectionLifetime.record(lifetimeNanos);
+            metrics.connectionsClosed.increment();
+            if (connectionClosedListener != null) {
+                connectionClosedListener.accept(new ConnectionMetrics(connectionInfo, error, lifetimeNanos,
+                        bytesRead, bytesWritten, flushes, streams));
+            }
+        }
+    }
+
+    private final class MetricsSecurityHandshakeObserver implements SecurityHandshakeObserver {
+        private final long startNanos;
+
+        MetricsSecurityHandshakeObserver(final long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void handshakeFailed(final Throwable cause) {
+            metrics.handshakesFailed.increment();
+        }
+
+        @Override
+        public void handshakeComplete(final SSLSession sslSession) {
+            metrics.handshakeLatency.record(nanoTime.getAsLong() - startNanos);
+        }
+    }
+
+    private final class MetricsStreamObserver implements StreamObserver {
+        @Override
+        public DataObserver streamEstablished() {
+            return NoopDataObserver.INSTANCE;
+        }
+
+        @Override
+        public void streamClosed(final Throwable error) {
+            metrics.streamsFailed.increment();
+            metrics.streamsClosed.increment();
+        }
+
+        @Override
+        public void streamClosed() {
+            metrics.streamsClosed.increment();
+        }
+    }
+
+    private static final class NoopDataObserver implements DataObserver {
+        static final DataObserver INSTANCE = new NoopDataObserver();
+
+        private NoopDataObserver() {
+            // Singleton
+        }
+
+        @Override
+        public ReadObserver onNewRead() {
+            return NoopReadObserver.INSTANCE;
+        }
+
+        @Override
+        public WriteObserver onNewWrite() {
+            return NoopWriteObserver.INSTANCE;
+        }
+    }
+
+    private static final class NoopReadObserver implements ReadObserver {
+        static final ReadObserver INSTANCE = new NoopReadObserver();
+
+        private NoopReadObserver() {
+            // Singleton
+        }
+
+        @Override
+        public void requestedToRead(final long n) {
+        }
+
+        @Override
+        public void itemRead() {
+        }
+
+        @Override
+        public void readFailed(final Throwable cause) {
+        }
+
+        @Override
+        public void readComplete() {
+        }
+
+        @Override
+        public void readCancelled() {
+        }
+    }
+
+    private static final class NoopWriteObserver implements WriteObserver {
+        static final WriteObserver INSTANCE = new NoopWriteObserver();
+
+        private NoopWriteObserver() {
+            // Singleton
+        }
+
+        @Override
+        public void requestedToWrite(final long n) {
+        }
+
+        @Override
+        public void itemReceived() {
+        }
+
+        @Override
+        public void onFlushRequest() {
+        }
+
+        @Override
+        public void itemWritten() {
+        }
+
+        @Override
+        public void writeFailed(final Throwable cause) {
+        }
+
+        @Override
+        public void writeComplete() {
+        }
+
+        @Override
+        public void writeCancelled() {
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of all connections observed by a {@link MetricsTransportObserver}, such as all connections of a client or a
+ * server.
+ * <p>
+ * Counters are cumulative and backed by {@link LongAdder}s, so that connections on different IO threads do not contend
+ * on updates. They can be exposed through any metrics library, for example as function counters and gauges which read
+ * the getters of this class. Latencies are recorded in nanoseconds.
+ */
+public final class TransportMetrics {
+    final LongAdder connectionsOpened = new LongAdder();
+    final LongAdder connectionsClosed = new LongAdder();
+    final LongAdder connectionsFailed = new LongAdder();
+    final LongAdder bytesRead = new LongAdder();
+    final LongAdder bytesWritten = new LongAdder();
+    final LongAdder flushes = new LongAdder();
+    final LongAdder handshakesFailed = new LongAdder();
+    final LongAdder streamsOpened = new LongAdder();
+    final LongAdder streamsClosed = new LongAdder();
+    final LongAdder streamsFailed = new LongAdder();
+    final Histogram handshakeLatency = new Histogram();
+    final Histogram connectionLifetime = new Histogram();
+
+    TransportMetrics() {
+    }
+
+    /**
+     * The number of connections which were initiated, including connections which failed to establish.
+     *
+     * @return the number of connections which were initiated.
+     */
+    public long connectionsOpened() {
+        return connectionsOpened.sum();
+    }
+
+    /**
+     * The number of connections which were closed, including {@link #connectionsFailed() failed} connections.
+     *
+     * @return the number of connections which were closed.
+     */
+    public long connectionsClosed() {
+        return connectionsClosed.sum();
+    }
+
+    /**
+     * The number of connections which were closed due to an error.
+     *
+     * @return the number of connections which were closed due to an error.
+     */
+    public long connectionsFailed() {
+        return connectionsFailed.sum();
+    }
+
+    /**
+     * The number of connections which are currently open.
+     *
+     * @return the number of connections which are currently open.
+     */
+    public long activeConnections() {
+        // Read closed first, so that a concurrent close can not make the result negative.
+        final long closed = connectionsClosed.sum();
+        return connectionsOpened.sum() - closed;
+    }
+
+    /**
+     * The number of bytes read from all connections.
+     *
+     * @return the number of bytes read from all connections.
+     */
+    public long bytesRead() {
+        return bytesRead.sum();
+    }
+
+    /**
+     * The number of bytes written to all connections.
+     *
+     * @return the number of bytes written to all connections.
+     */
+    public long bytesWritten() {
+        return bytesWritten.sum();
+    }
+
+    /**
+     * The number of flushes of all connections.
+     *
+     * @return the number of flushes of all connections.
+     */
+    public long flushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * The number of security handshakes which failed.
+     *
+     * @return the number of security handshakes which failed.
+     */
+    public long handshakesFailed() {
+        return handshakesFailed.sum();
+    }
+
+    /**
+     * The latency in nanoseconds of the security handshakes which completed successfully.
+     *
+     * @return the latency in nanoseconds of the security handshakes which completed successfully.
+     */
+    public Histogram handshakeLatency() {
+        return handshakeLatency;
+    }
+
+    /**
+     * The lifetime in nanoseconds of the connections which were closed, from the initiation of the connection.
+     *
+     * @return the lifetime in nanoseconds of the connections which were closed.
+     */
+    public Histogram connectionLifetime() {
+        return connectionLifetime;
+    }
+
+    /**
+     * The number of streams which were opened on multiplexed connections.
+     *
+     * @return the number of streams which were opened on multiplexed connections.
+     */
+    public long streamsOpened() {
+        return streamsOpened.sum();
+    }
+
+    /**
+     * The number of streams which were closed, including {@link #streamsFailed() failed} streams.
+     *
+     * @return the number of streams which were closed.
+     */
+    public long streamsClosed() {
+        return streamsClosed.sum();
+    }
+
+    /**
+     * The number of streams which were closed due to an error.
+     *
+     * @return the number of streams which were closed due to an error.
+     */
+    public long streamsFailed() {
+        return streamsFailed.sum();
+    }
+
+    /**
+     * The number of streams which are currently open.
+     *
+     * @return the number of streams which are currently open.
+     */
+    public long activeStreams() {
+        final long closed = streamsClosed.sum();
+        return streamsOpened.sum() - closed;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() +
+                "{activeConnections=" + activeConnections() +
+                ", connectionsOpened=" + connectionsOpened() +
+                ", connectionsFailed=" + connectionsFailed() +
+                ", bytesRead=" + bytesRead() +
+                ", bytesWritten=" + bytesWritten() +
+                ", flushes=" + flushes() +
+                ", handshakeLatency=" + handshakeLatency +
+                ", handshakesFailed=" + handshakesFailed() +
+                ", activeStreams=" + activeStreams() +
+                ", streamsFailed=" + streamsFailed() +
+                ", connectionLifetime=" + connectionLifetime +
+                '}';
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static io.servicetalk.transport.metrics.Histogram.bucketIndex;
+import static io.servicetalk.transport.metrics.Histogram.highestValueInBucket;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistogramTest {
+
+    @Test
+    void bucketsCoverAllValues() {
+        for (int shift = 0; shift < Long.SIZE - 1; ++shift) {
+            for (long value : new long[] {(1L << shift) - 1, 1L << shift, (1L << shift) + 1}) {
+                final int index = bucketIndex(value);
+                assertThat(highestValueInBucket(index), is(greaterThanOrEqualTo(value)));
+                if (index > 0) {
+                    assertThat(highestValueInBucket(index - 1), is(lessThanOrEqualTo(value - 1)));
+                }
+            }
+        }
+        assertThat(highestValueInBucket(bucketIndex(Long.MAX_VALUE)), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    void percentilesHaveBoundedError() {
+        final Histogram histogram = new Histogram();
+        for (long value = 1; value <= 10_000; ++value) {
+            histogram.record(value * 1_000);
+        }
+        assertThat(histogram.count(), is(10_000L));
+        assertThat(histogram.max(), is(10_000_000L));
+        assertThat(histogram.valueAtPercentile(100), is(10_000_000L));
+        assertThat(histogram.valueAtPercentile(50), is(allOf(greaterThanOrEqualTo(5_000_000L),
+                lessThanOrEqualTo(5_000_000L + 5_000_000L / 16))));
+        assertThat(histogram.valueAtPercentile(99), is(allOf(greaterThanOrEqualTo(9_900_000L),
+                lessThanOrEqualTo(9_900_000L + 9_900_000L / 16))));
+    }
+
+    @Test
+    void emptyAndNegative() {
+        final Histogram histogram = new Histogram();
+        assertThat(histogram.valueAtPercentile(99), is(0L));
+        histogram.record(-5);
+        assertThat(histogram.count(), is(1L));
+        assertThat(histogram.sum(), is(0L));
+        assertThrows(IllegalArgumentException.class, () -> histogram.valueAtPercentile(101));
+    }
+}
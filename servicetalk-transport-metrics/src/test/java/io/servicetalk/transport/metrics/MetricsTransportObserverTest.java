@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.metrics;
+
+import io.servicetalk.transport.api.ConnectionObserver;
+import io.servicetalk.transport.api.ConnectionObserver.MultiplexedObserver;
+import io.servicetalk.transport.api.ConnectionObserver.SecurityHandshakeObserver;
+import io.servicetalk.transport.api.ConnectionObserver.StreamObserver;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+class MetricsTransportObserverTest {
+
+    private final List<ConnectionMetrics> closedConnections = new ArrayList<>();
+    private long nanoTime;
+    private final MetricsTransportObserver observer =
+            new MetricsTransportObserver(closedConnections::add, () -> nanoTime);
+
+    @Test
+    void connectionMetrics() {
+        final ConnectionObserver connection = observer.onNewConnection();
+        final SecurityHandshakeObserver handshake = connection.onSecurityHandshake();
+        nanoTime += MILLISECONDS.toNanos(5);
+        handshake.handshakeComplete(null);
+        connection.connectionEstablished(null);
+        connection.onDataWrite(100);
+        connection.onFlush();
+        connection.onDataRead(200);
+        connection.onDataRead(300);
+
+        final TransportMetrics metrics = observer.metrics();
+        assertThat(metrics.activeConnections(), is(1L));
+        assertThat(metrics.bytesRead(), is(500L));
+        assertThat(metrics.bytesWritten(), is(100L));
+        assertThat(metrics.flushes(), is(1L));
+        assertThat(metrics.handshakeLatency().count(), is(1L));
+        assertThat(metrics.handshakeLatency().max(), is(MILLISECONDS.toNanos(5)));
+
+        nanoTime += MILLISECONDS.toNanos(10);
+        connection.connectionClosed();
+        assertThat(metrics.activeConnections(), is(0L));
+        assertThat(metrics.connectionsFailed(), is(0L));
+        assertThat(metrics.connectionLifetime().max(), is(MILLISECONDS.toNanos(15)));
+
+        assertThat(closedConnections, hasSize(1));
+        final ConnectionMetrics closed = closedConnections.get(0);
+        assertThat(closed.error(), is(nullValue()));
+        assertThat(closed.lifetimeNanos(), is(MILLISECONDS.toNanos(15)));
+        assertThat(closed.bytesRead(), is(500L));
+        assertThat(closed.bytesWritten(), is(100L));
+        assertThat(closed.flushes(), is(1L));
+        assertThat(closed.streams(), is(0L));
+    }
+
+    @Test
+    void failedHandshakeAndConnection() {
+        final ConnectionObserver connection = observer.onNewConnection();
+        final IOException cause = new IOException("failed");
+        connection.onSecurityHandshake().handshakeFailed(cause);
+        connection.connectionClosed(cause);
+
+        final TransportMetrics metrics = observer.metrics();
+        assertThat(metrics.handshakesFailed(), is(1L));
+        assertThat(metrics.handshakeLatency().count(), is(0L));
+        assertThat(metrics.connectionsFailed(), is(1L));
+        assertThat(metrics.connectionsClosed(), is(1L));
+        assertThat(closedConnections.get(0).error(), is(sameInstance(cause)));
+    }
+
+    @Test
+    void streamMetrics() {
+        final ConnectionObserver connection = observer.onNewConnection();
+        final MultiplexedObserver multiplexed = connection.multiplexedConnectionEstablished(null);
+        final StreamObserver first = multiplexed.onNewStream();
+        final StreamObserver second = multiplexed.onNewStream();
+        first.streamEstablished();
+        second.streamEstablished();
+
+        final TransportMetrics metrics = observer.metrics();
+        assertThat(metrics.activeStreams(), is(2L));
+        first.streamClosed();
+        second.streamClosed(new IOException("reset"));
+        assertThat(metrics.activeStreams(), is(0L));
+        assertThat(metrics.streamsFailed(), is(1L));
+
+        connection.connectionClosed();
+        assertThat(closedConnections.get(0).streams(), is(2L));
+    }
+}
@@ -55,12 +55,12 @@ abstract class AbstractNettyIoExecutor<T extends EventLoopGroup> implements Nett
     }
 
     @Override
-    public final Completable onClose() {
+    public Completable onClose() {
         return new NettyFutureCompletable(eventLoop::terminationFuture);
     }
 
     @Override
-    public final boolean isUnixDomainSocketSupported() {
+    public boolean isUnixDomainSocketSupported() {
         return NativeTransportUtils.isUnixDomainSocketSupported(eventLoop);
     }
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.buffer.api.Buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import javax.annotation.Nullable;
+
+/**
+ * A {@link FlushStrategy} which coalesces the flushes of writes which follow each other closely, and flushes each
+ * write right away when they don't.
+ * <p>
+ * After an item is written, the flush is deferred until the tasks which are already queued on the event loop ran, so
+ * that items which are already on their way are flushed together. The flush is sent right away once the unflushed
+ * items reach a number of bytes. When the deferred flushes keep covering a single item, which means items are written
+ * at a low rate, items are flushed right away for a while, to not pay the extra event loop task.
+ */
+final class AdaptiveFlush implements FlushStrategy {
+
+    static final int DEFAULT_MAX_PENDING_BYTES = 32 * 1024;
+
+    private final long maxPendingBytes;
+
+    AdaptiveFlush(final long maxPendingBytes) {
+        if (maxPendingBytes <= 0) {
+            throw new IllegalArgumentException("maxPendingBytes: " + maxPendingBytes + " (expected > 0)");
+        }
+        this.maxPendingBytes = maxPendingBytes;
+    }
+
+    @Override
+    public WriteEventsListener apply(final FlushSender sender) {
+        return new AdaptiveFlushListener(sender, maxPendingBytes);
+    }
+
+    static final class AdaptiveFlushListener implements WriteEventsListener, Runnable {
+        // Number of consecutive deferred flushes of a single item after which items are flushed right away.
+        static final int SINGLE_ITEM_FLUSHES_BEFORE_IMMEDIATE = 8;
+        // Number of items flushed right away before flushes are deferred again.
+        static final int IMMEDIATE_FLUSHES = 64;
+
+        private static final AtomicIntegerFieldUpdater<AdaptiveFlushListener> deferredItemsUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(AdaptiveFlushListener.class, "deferredItems");
+
+        private final FlushSender sender;
+        private final long maxPendingBytes;
+        /**
+         * Number of items written since the deferred flush was scheduled, {@code 0} if no deferred flush is scheduled.
+         * Incremented by the writer, reset by the deferred flush on the event loop.
+         */
+        private volatile int deferredItems;
+        /**
+         * Written by the deferred flush, read by the writer.
+         */
+        private volatile boolean immediate;
+        // Only accessed by the deferred flush, which always runs on the event loop.
+        private int singleItemFlushes;
+        // Only accessed by the writer, the methods of WriteEventsListener which write are not called concurrently.
+        private long pendingBytes;
+        private int immediateFlushes;
+
+        AdaptiveFlushListener(final FlushSender sender, final long maxPendingBytes) {
+            this.sender = sender;
+            this.maxPendingBytes = maxPendingBytes;
+        }
+
+        @Override
+        public void writeStarted() {
+        }
+
+        @Override
+        public void itemWritten(@Nullable final Object written) {
+            if (immediate) {
+                sender.flush();
+                if (++immediateFlushes == IMMEDIATE_FLUSHES) {
+                    immediateFlushes = 0;
+                    immediate = false;
+                }
+                return;
+            }
+            final int size = size(written);
+            if (deferredItemsUpdater.getAndIncrement(this) == 0) {
+                pendingBytes = size;
+                sender.executeAfterPendingWrites(this);
+            } else if ((pendingBytes += size) >= maxPendingBytes) {
+                pendingBytes = 0;
+                sender.flush();
+            }
+        }
+
+        @Override
+        public void run() {
+            final int items = deferredItemsUpdater.getAndSet(this, 0);
+            // If items are written from another thread, the flush is sent through the event loop as well, so that it
+            // follows the writes of all items counted above, even the ones queued after this task.
+            sender.flush();
+            if (items > 1) {
+                singleItemFlushes = 0;
+            } else if (++singleItemFlushes == SINGLE_ITEM_FLUSHES_BEFORE_IMMEDIATE) {
+                singleItemFlushes = 0;
+                immediate = true;
+            }
+        }
+
+        @Override
+        public void writeTerminated() {
+            if (deferredItems != 0) {
+                // Don't wait for the deferred flush, the write completes after the terminal flush.
+                sender.flush();
+            }
+        }
+
+        @Override
+        public void writeCancelled() {
+        }
+
+        private static int size(@Nullable final Object item) {
+            if (item instanceof ByteBuf) {
+                return ((ByteBuf) item).readableBytes();
+            }
+            if (item instanceof ByteBufHolder) {
+                return ((ByteBufHolder) item).content().readableBytes();
+            }
+            if (item instanceof Buffer) {
+                return ((Buffer) item).readableBytes();
+            }
+            return 0;
+        }
+    }
+}
@@ -19,7 +19,9 @@ import io.servicetalk.transport.api.FileDescriptorSocketAddress;
 import io.servicetalk.transport.api.HostAndPort;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FileRegion;
 import io.netty.channel.ServerChannel;
 import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.epoll.EpollDomainSocketChannel;
@@ -36,6 +38,11 @@ import io.netty.channel.socket.nio.NioDatagramChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
 import io.netty.util.NetUtil;
 
 import java.io.Closeable;
@@ -49,6 +56,7 @@ import javax.annotation.Nullable;
 
 import static io.netty.util.NetUtil.createByteArrayFromIpAddressString;
 import static io.servicetalk.transport.netty.internal.NativeTransportUtils.useEpoll;
+import static io.servicetalk.transport.netty.internal.NativeTransportUtils.useIoUring;
 import static io.servicetalk.transport.netty.internal.NativeTransportUtils.useKQueue;
 import static java.net.InetAddress.getByAddress;
 
@@ -75,6 +83,9 @@ public final class BuilderUtils {
         } else if (useKQueue(group)) {
             return DomainSocketAddress.class.isAssignableFrom(addressClass) ? KQueueServerDomainSocketChannel.class :
                     KQueueServerSocketChannel.class;
+        } else if (useIoUring(group)) {
+            checkIoUringAddress(addressClass);
+            return IOUringServerSocketChannel.class;
         } else {
             return NioServerSocketChannel.class;
         }
@@ -95,11 +106,39 @@ public final class BuilderUtils {
         } else if (useKQueue(group)) {
             return DomainSocketAddress.class.isAssignableFrom(addressClass) ? KQueueDomainSocketChannel.class :
                     KQueueSocketChannel.class;
+        } else if (useIoUring(group)) {
+            checkIoUringAddress(addressClass);
+            return IOUringSocketChannel.class;
         } else {
             return NioSocketChannel.class;
         }
     }
 
+    private static void checkIoUringAddress(final Class<? extends SocketAddress> addressClass) {
+        if (DomainSocketAddress.class.isAssignableFrom(addressClass)) {
+            throw new IllegalArgumentException("Unsupported address: " + addressClass.getName() +
+                    ", the io_uring transport does not support domain sockets, use " +
+                    "EventLoopAwareNettyIoExecutor#epollFallback() for them.");
+        }
+    }
+
+    /**
+     * Returns the {@link EventLoopGroup} to use for channels which connect or bind to the given address.
+     * <p>
+     * Note that the {@link IOUringEventLoopGroup io_uring} transport does not support domain sockets and file
+     * descriptors, channels for them use the {@link EventLoopAwareNettyIoExecutor#epollFallback() epoll fallback}.
+     *
+     * @param ioExecutor the {@link EventLoopAwareNettyIoExecutor} of the channels
+     * @param address    the address to connect or bind to.
+     * @return the {@link EventLoopGroup} that should be used for bootstrapping
+     */
+    public static EventLoopGroup eventLoopGroup(EventLoopAwareNettyIoExecutor ioExecutor, Object address) {
+        final EventLoopGroup group = ioExecutor.eventLoopGroup();
+        return useIoUring(group) && (address instanceof DomainSocketAddress ||
+                address instanceof io.servicetalk.transport.api.DomainSocketAddress ||
+                address instanceof FileDescriptorSocketAddress) ? ioExecutor.epollFallback().eventLoopGroup() : group;
+    }
+
     /**
      * Returns the correct Channel that wraps the given filedescriptor or {@code null} if not supported.
      *
@@ -167,11 +206,40 @@ public final class BuilderUtils {
             return EpollDatagramChannel.class;
         } else if (useKQueue(group)) {
             return KQueueDatagramChannel.class;
+        } else if (useIoUring(group)) {
+            return IOUringDatagramChannel.class;
         } else {
             return NioDatagramChannel.class;
         }
     }
 
+    /**
+     * Returns the {@link ChannelOption} which enables {@code SO_REUSEPORT} for server channels of the given
+     * {@link EventLoopGroup}, if the transport supports binding multiple server channels to the same address and the
+     * kernel load-balances new connections between them.
+     *
+     * @param group the {@link EventLoopGroup} of the server channels
+     * @return the {@link ChannelOption} which enables {@code SO_REUSEPORT} or {@code null} if not supported
+     */
+    @Nullable
+    public static ChannelOption<Boolean> reusePortOption(EventLoopGroup group) {
+        return useEpoll(group) || useIoUring(group) ? UnixChannelOption.SO_REUSEPORT : null;
+    }
+
+    /**
+     * Determine if channels of the given {@link EventLoopGroup} can write a {@link FileRegion}, which transfers the
+     * content of a file to the socket without copying it into user space where the transport supports it (e.g.
+     * {@code sendfile}).
+     * <p>
+     * Note that the {@link IOUringEventLoopGroup io_uring} transport does not support {@link FileRegion} yet.
+     *
+     * @param group the {@link EventLoopGroup} of the channels
+     * @return {@code true} if channels of {@code group} can write a {@link FileRegion}
+     */
+    public static boolean isFileRegionSupported(EventLoopGroup group) {
+        return !useIoUring(group);
+    }
+
     /**
      * Format an address into a canonical numeric format.
      *
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,10 +25,12 @@ import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.FileRegion;
 
 import javax.annotation.Nullable;
 
 import static io.servicetalk.transport.netty.internal.ChannelCloseUtils.channelError;
+import static java.lang.Math.min;
 import static java.util.Objects.requireNonNull;
 
 /**
@@ -117,6 +119,9 @@ public final class ConnectionObserverInitializer implements ChannelInitializer {
                 observer.onDataWrite(((ByteBuf) msg).readableBytes());
             } else if (msg instanceof ByteBufHolder) {
                 observer.onDataWrite(((ByteBufHolder) msg).content().readableBytes());
+            } else if (msg instanceof FileRegion) {
+                // The observer API reports sizes as int, regions larger than 2 GiB are reported as Integer.MAX_VALUE
+                observer.onDataWrite((int) min(((FileRegion) msg).count(), Integer.MAX_VALUE));
             }
             ctx.write(msg, promise);
         }
@@ -45,4 +45,16 @@ public interface EventLoopAwareNettyIoExecutor extends NettyIoExecutor {
      * {@link EventLoopGroup}.
      */
     EventLoopAwareNettyIoExecutor next();
+
+    /**
+     * Returns a {@link EventLoopAwareNettyIoExecutor} to use for channels which the transport of this
+     * {@link EventLoopAwareNettyIoExecutor} does not support. The incubating io_uring transport falls back to epoll
+     * for domain sockets, file descriptors and HTTP/2.
+     *
+     * @return {@link EventLoopAwareNettyIoExecutor} to use for channels which the transport of this
+     * {@link EventLoopAwareNettyIoExecutor} does not support, or {@code this} if there is no fallback.
+     */
+    default EventLoopAwareNettyIoExecutor epollFallback() {
+        return this;
+    }
 }
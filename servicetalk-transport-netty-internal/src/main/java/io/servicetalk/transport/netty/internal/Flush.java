@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018, 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import io.servicetalk.concurrent.PublisherSource.Subscriber;
 import io.servicetalk.concurrent.PublisherSource.Subscription;
 import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.api.ConnectionObserver.WriteObserver;
+import io.servicetalk.transport.netty.internal.FlushStrategy.FlushSender;
 import io.servicetalk.transport.netty.internal.FlushStrategy.WriteEventsListener;
 
 import io.netty.channel.Channel;
@@ -49,9 +50,29 @@ final class Flush {
      */
     static <T> Publisher<T> composeFlushes(Channel channel, Publisher<T> source, FlushStrategy flushStrategy,
                                            WriteObserver observer) {
+        return composeFlushes(channel, source, flushStrategy, observer, false);
+    }
+
+    /**
+     * Apply the passed {@link FlushStrategy} to the passed {@link Publisher} such that the passed {@link Channel} is
+     * flushed according to the {@link FlushStrategy}.
+     *
+     * @param channel Channel to flush.
+     * @param source Original source.
+     * @param flushStrategy {@link FlushStrategy} to apply.
+     * @param observer a {@link WriteObserver} to report write events
+     * @param consolidateFlushes {@code true} to defer the flushes to the end of the current event loop iteration and
+     * consolidate them with the flushes of other channels of the same event loop.
+     * @param <T> Type of elements emitted by {@code source}.
+     * @return {@link Publisher} that forwards all items from {@code source} and flushes the channel as directed by
+     * {@link FlushStrategy}.
+     */
+    static <T> Publisher<T> composeFlushes(Channel channel, Publisher<T> source, FlushStrategy flushStrategy,
+                                           WriteObserver observer, boolean consolidateFlushes) {
         requireNonNull(channel);
         requireNonNull(flushStrategy);
-        return source.liftSync(subscriber -> new FlushSubscriber<>(flushStrategy, subscriber, channel, observer));
+        return source.liftSync(subscriber -> new FlushSubscriber<>(flushStrategy, subscriber, channel, observer,
+                consolidateFlushes));
     }
 
     private static final class FlushSubscriber<T> implements Subscriber<T> {
@@ -62,16 +83,27 @@ final class Flush {
         private volatile boolean enqueueFlush;
 
         FlushSubscriber(FlushStrategy flushStrategy, Subscriber<? super T> subscriber, Channel channel,
-                        WriteObserver observer) {
-            this.eventLoop = requireNonNull(channel.eventLoop());
+                        WriteObserver observer, boolean consolidateFlushes) {
+            final EventExecutor eventLoop = requireNonNull(channel.eventLoop());
+            this.eventLoop = eventLoop;
             this.subscriber = requireNonNull(subscriber);
             this.observer = observer;
-            this.writeEventsListener = flushStrategy.apply(() -> {
-                observer.onFlushRequest();
-                if (enqueueFlush) {
-                    eventLoop.execute(channel::flush);
-                } else {
-                    channel.flush();
+            final Runnable channelFlush = consolidateFlushes ?
+                    () -> FlushConsolidator.flushLater(eventLoop, channel) : channel::flush;
+            this.writeEventsListener = flushStrategy.apply(new FlushSender() {
+                @Override
+                public void flush() {
+                    observer.onFlushRequest();
+                    if (enqueueFlush) {
+                        eventLoop.execute(channelFlush);
+                    } else {
+                        channelFlush.run();
+                    }
+                }
+
+                @Override
+                public void executeAfterPendingWrites(final Runnable task) {
+                    eventLoop.execute(task);
                 }
             });
         }
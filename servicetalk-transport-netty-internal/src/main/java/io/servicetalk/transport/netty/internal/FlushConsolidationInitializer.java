@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.transport.api.ServiceTalkSocketOptions;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.AttributeKey;
+
+import static io.netty.util.AttributeKey.newInstance;
+
+/**
+ * Initializes the channel to consolidate the flushes of {@link DefaultNettyConnection}s with the flushes of all other
+ * channels of the same event loop, as described by {@link ServiceTalkSocketOptions#FLUSH_CONSOLIDATION}.
+ * <p>
+ * Streams multiplexed on an initialized channel (e.g. HTTP/2 streams) consolidate their flushes too.
+ */
+public final class FlushConsolidationInitializer implements ChannelInitializer {
+
+    /**
+     * Singleton instance.
+     */
+    public static final ChannelInitializer INSTANCE = new FlushConsolidationInitializer();
+
+    private static final AttributeKey<Boolean> FLUSH_CONSOLIDATION = newInstance("FlushConsolidation");
+
+    private FlushConsolidationInitializer() {
+        // singleton
+    }
+
+    @Override
+    public void init(final Channel channel) {
+        channel.attr(FLUSH_CONSOLIDATION).set(Boolean.TRUE);
+        channel.pipeline().addLast(FlushBeforeCloseHandler.INSTANCE);
+    }
+
+    /**
+     * Returns {@code true} if the flushes of the passed {@link Channel} are consolidated.
+     *
+     * @param channel the {@link Channel} to check.
+     * @return {@code true} if the flushes of the passed {@link Channel} are consolidated.
+     */
+    static boolean isFlushConsolidated(final Channel channel) {
+        if (channel.hasAttr(FLUSH_CONSOLIDATION)) {
+            return true;
+        }
+        final Channel parent = channel.parent();
+        return parent != null && parent.hasAttr(FLUSH_CONSOLIDATION);
+    }
+
+    /**
+     * A flush may still be pending when the channel is closed during the same event loop iteration, flush before
+     * closing to not fail the pending writes.
+     */
+    @Sharable
+    private static final class FlushBeforeCloseHandler extends ChannelOutboundHandlerAdapter {
+        static final FlushBeforeCloseHandler INSTANCE = new FlushBeforeCloseHandler();
+
+        @Override
+        public void close(final ChannelHandlerContext ctx, final ChannelPromise promise) {
+            ctx.flush();
+            ctx.close(promise);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Defers the flushes requested on an event loop to the end of the current event loop iteration and then flushes all
+ * channels which requested a flush together.
+ * <p>
+ * The drain is scheduled as a task of the event loop, which Netty runs after processing the I/O events of the current
+ * iteration. There is one instance per event loop thread, which is only accessed from that thread.
+ */
+final class FlushConsolidator implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FlushConsolidator.class);
+
+    private static final FastThreadLocal<FlushConsolidator> CONSOLIDATORS = new FastThreadLocal<FlushConsolidator>() {
+        @Override
+        protected FlushConsolidator initialValue() {
+            return new FlushConsolidator();
+        }
+    };
+
+    private final List<Channel> pending = new ArrayList<>();
+    private boolean drainScheduled;
+
+    private FlushConsolidator() {
+    }
+
+    /**
+     * Flushes the passed {@link Channel} at the end of the current event loop iteration.
+     *
+     * @param eventLoop the event loop of the {@link Channel}.
+     * @param channel the {@link Channel} to flush.
+     */
+    static void flushLater(final EventExecutor eventLoop, final Channel channel) {
+        if (eventLoop.inEventLoop()) {
+            CONSOLIDATORS.get().add(eventLoop, channel);
+        } else {
+            eventLoop.execute(() -> CONSOLIDATORS.get().add(eventLoop, channel));
+        }
+    }
+
+    private void add(final EventExecutor eventLoop, final Channel channel) {
+        final int size = pending.size();
+        // Cheap de-duplication of the common case: the same channel requesting multiple flushes in a row.
+        if (size == 0 || pending.get(size - 1) != channel) {
+            pending.add(channel);
+        }
+        if (!drainScheduled) {
+            drainScheduled = true;
+            try {
+                eventLoop.execute(this);
+            } catch (RejectedExecutionException e) {
+                LOGGER.debug("Failed to defer flushes, flushing immediately.", e);
+                run();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        // A flush may trigger more writes and flush requests, those are added to the end and flushed by this loop.
+        for (int i = 0; i < pending.size(); ++i) {
+            final Channel channel = pending.get(i);
+            try {
+                channel.flush();
+            } catch (Throwable t) {
+                LOGGER.warn("Failed to flush channel {}.", channel, t);
+            }
+        }
+        pending.clear();
+        drainScheduled = false;
+    }
+}
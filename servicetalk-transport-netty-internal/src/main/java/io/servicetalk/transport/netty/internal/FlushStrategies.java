@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ import io.servicetalk.concurrent.api.Publisher;
 import io.servicetalk.transport.netty.internal.FlushStrategy.FlushSender;
 import io.servicetalk.transport.netty.internal.FlushStrategy.WriteEventsListener;
 
+import static io.servicetalk.transport.netty.internal.AdaptiveFlush.DEFAULT_MAX_PENDING_BYTES;
 import static io.servicetalk.transport.netty.internal.FlushOnEach.FLUSH_ON_EACH;
 import static io.servicetalk.transport.netty.internal.FlushOnEnd.FLUSH_ON_END;
 import static java.lang.Integer.MAX_VALUE;
@@ -94,4 +95,31 @@ public final class FlushStrategies {
     public static FlushStrategy flushOnEnd() {
         return FLUSH_ON_END;
     }
+
+    /**
+     * Creates a {@link FlushStrategy} that adapts to the rate of writes: it {@link FlushSender#flush() flushes writes}
+     * which follow each other closely together, once the writes which are already queued on the event loop are done or
+     * {@code 32} KiB are pending, and flushes each write right away when writes are infrequent.
+     *
+     * @return A {@link FlushStrategy} that adapts to the rate of writes.
+     * @see #adaptiveFlush(long)
+     */
+    public static FlushStrategy adaptiveFlush() {
+        return adaptiveFlush(DEFAULT_MAX_PENDING_BYTES);
+    }
+
+    /**
+     * Creates a {@link FlushStrategy} that adapts to the rate of writes: it {@link FlushSender#flush() flushes writes}
+     * which follow each other closely together, once the writes which are already queued on the event loop are done or
+     * {@code maxPendingBytes} are pending, and flushes each write right away when writes are infrequent.
+     * <p>
+     * Compared to {@link #flushOnEach()}, this reduces the number of system calls for streams of many small items, such
+     * as server streaming gRPC responses or server-sent events, without delaying items which are written alone.
+     *
+     * @param maxPendingBytes Number of unflushed bytes after which writes are flushed right away.
+     * @return A {@link FlushStrategy} that adapts to the rate of writes.
+     */
+    public static FlushStrategy adaptiveFlush(long maxPendingBytes) {
+        return new AdaptiveFlush(maxPendingBytes);
+    }
 }
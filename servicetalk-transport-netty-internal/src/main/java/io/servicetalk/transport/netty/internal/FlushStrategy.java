@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -56,6 +56,19 @@ public interface FlushStrategy {
          * {@link WriteEventsListener}.
          */
         void flush();
+
+        /**
+         * Executes {@code task} on the event loop of the associated connection, after the tasks which are already
+         * queued on it, such as the writes of items emitted from other threads. A {@link FlushStrategy} can use this
+         * to {@link #flush() flush} all writes which are already on their way together.
+         * <p>
+         * The default implementation executes {@code task} right away.
+         *
+         * @param task the task to execute.
+         */
+        default void executeAfterPendingWrites(Runnable task) {
+            task.run();
+        }
     }
 
     /**
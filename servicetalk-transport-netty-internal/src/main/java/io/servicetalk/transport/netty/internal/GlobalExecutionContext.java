@@ -131,6 +131,11 @@ public final class GlobalExecutionContext {
             return delegate.next();
         }
 
+        @Override
+        public EventLoopAwareNettyIoExecutor epollFallback() {
+            return delegate.epollFallback();
+        }
+
         @Override
         public Executor asExecutor() {
             return delegate.asExecutor();
@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.servicetalk.concurrent.api.Completable;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+
+import static io.servicetalk.concurrent.api.Completable.defer;
+
+/**
+ * An {@link EventLoopAwareNettyIoExecutor} backed by an {@link IOUringEventLoopGroup}, which lazily creates an epoll
+ * {@link EventLoopGroup} for the channels the incubating io_uring transport does not support.
+ */
+final class IoUringIoExecutor extends AbstractNettyIoExecutor<IOUringEventLoopGroup>
+        implements EventLoopAwareNettyIoExecutor {
+
+    @Nullable
+    private final Supplier<EventLoopGroup> epollGroupFactory;
+    @Nullable
+    private volatile EventLoopAwareNettyIoExecutor epollFallback;
+    private boolean closed;
+
+    IoUringIoExecutor(IOUringEventLoopGroup eventLoopGroup, @Nullable Supplier<EventLoopGroup> epollGroupFactory) {
+        super(eventLoopGroup, true);
+        this.epollGroupFactory = epollGroupFactory;
+    }
+
+    @Override
+    public boolean isCurrentThreadEventLoop() {
+        return false; // We are in the group not a specific eventloop.
+    }
+
+    @Override
+    public EventLoopGroup eventLoopGroup() {
+        return eventLoop;
+    }
+
+    @Override
+    public EventLoopAwareNettyIoExecutor next() {
+        return new EventLoopIoExecutor(eventLoop.next(), interruptOnCancel, isIoThreadSupported);
+    }
+
+    @Override
+    public EventLoopAwareNettyIoExecutor epollFallback() {
+        EventLoopAwareNettyIoExecutor fallback = epollFallback;
+        if (fallback == null) {
+            synchronized (this) {
+                fallback = epollFallback;
+                if (fallback == null) {
+                    if (closed || epollGroupFactory == null) {
+                        // Epoll is not available, or this is closed and no new threads must be started. Channels
+                        // fail to be created or registered on io_uring instead.
+                        return this;
+                    }
+                    epollFallback = fallback = new EventLoopGroupIoExecutor(epollGroupFactory.get(),
+                            interruptOnCancel, isIoThreadSupported);
+                }
+            }
+        }
+        return fallback;
+    }
+
+    @Override
+    public boolean isUnixDomainSocketSupported() {
+        return epollGroupFactory != null;
+    }
+
+    @Override
+    public boolean isFileDescriptorSocketAddressSupported() {
+        return epollGroupFactory != null;
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return close(NettyIoExecutor::closeAsync, super.closeAsync());
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return close(NettyIoExecutor::closeAsyncGracefully, super.closeAsyncGracefully());
+    }
+
+    @Override
+    public Completable onClose() {
+        return defer(() -> {
+            final EventLoopAwareNettyIoExecutor fallback = epollFallback;
+            return fallback == null ? super.onClose() : super.onClose().merge(fallback.onClose());
+        });
+    }
+
+    private Completable close(final Function<NettyIoExecutor, Completable> closeFallback,
+                              final Completable closeIoUring) {
+        return defer(() -> {
+            final EventLoopAwareNettyIoExecutor fallback;
+            synchronized (this) {
+                closed = true;
+                fallback = epollFallback;
+            }
+            return fallback == null ? closeIoUring : closeIoUring.merge(closeFallback.apply(fallback));
+        });
+    }
+}
@@ -24,11 +24,14 @@ import io.netty.channel.epoll.Epoll;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.kqueue.KQueue;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
 import io.netty.util.internal.PlatformDependent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import static io.netty.util.internal.PlatformDependent.normalizedArch;
+import static java.lang.Boolean.getBoolean;
 
 /**
  * Utility to check availability of Netty <a href="https://netty.io/wiki/native-transports.html">native transports</a>.
@@ -40,14 +43,28 @@ final class NativeTransportUtils {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(NativeTransportUtils.class);
 
+    /**
+     * The <a href="https://github.com/netty/netty-incubator-transport-io_uring">io_uring transport</a> is still
+     * incubating, so it is only preferred over epoll when explicitly requested with this system property.
+     */
+    private static final String TRY_IO_URING_PROPERTY = "io.servicetalk.transport.netty.tryIoUring";
+
     private static final boolean IS_LINUX;
     private static final boolean IS_OSX_OR_BSD;
+    private static final boolean TRY_IO_URING;
 
     static {
         final String os = PlatformDependent.normalizedOs();
         IS_LINUX = "linux".equals(os);
         IS_OSX_OR_BSD = "osx".equals(os) || os.contains("bsd");
+        TRY_IO_URING = IS_LINUX && getBoolean(TRY_IO_URING_PROPERTY);
 
+        if (TRY_IO_URING && !IOUring.isAvailable()) {
+            LOGGER.warn("Can not use io_uring transport requested by -D{}=true, it requires Linux kernel 5.9+ and " +
+                            "\"io.netty.incubator:netty-incubator-transport-native-io_uring:$nettyIoUringVersion:" +
+                            "linux-{}\". Falling back to another transport.", TRY_IO_URING_PROPERTY, normalizedArch(),
+                    IOUring.unavailabilityCause());
+        }
         if (IS_LINUX && !Epoll.isAvailable()) {
             logUnavailability("epoll", os, Epoll.unavailabilityCause());
         } else if (IS_OSX_OR_BSD && !KQueue.isAvailable()) {
@@ -74,6 +91,16 @@ final class NativeTransportUtils {
         return IS_LINUX && Epoll.isAvailable();
     }
 
+    /**
+     * Determine if {@link IOUring} is available and was requested by the
+     * {@code io.servicetalk.transport.netty.tryIoUring} system property.
+     *
+     * @return {@code true} if {@link IOUring} is available and requested
+     */
+    static boolean isIoUringAvailable() {
+        return TRY_IO_URING && IOUring.isAvailable();
+    }
+
     /**
      * Determine if {@link KQueue} is available.
      *
@@ -99,6 +126,22 @@ final class NativeTransportUtils {
                 ((EventLoop) group).parent() instanceof EpollEventLoopGroup);
     }
 
+    /**
+     * Returns {@code true} if native {@link IOUring} transport could be used.
+     *
+     * @param group the used {@link EventLoopGroup}
+     * @return {@code true} if native {@link IOUring} transport could be used
+     */
+    static boolean useIoUring(final EventLoopGroup group) {
+        if (!IS_LINUX) {
+            return false;
+        }
+        // The io_uring transport is used whenever an IOUringEventLoopGroup is passed, regardless of the system
+        // property, because the group could only be created if io_uring is available.
+        return group instanceof IOUringEventLoopGroup || (group instanceof EventLoop &&
+                ((EventLoop) group).parent() instanceof IOUringEventLoopGroup);
+    }
+
     /**
      * Returns {@code true} if native {@link KQueue} transport could be used.
      *
@@ -117,6 +160,8 @@ final class NativeTransportUtils {
 
     /**
      * Determine if {@link DomainSocketAddress} is supported.
+     * <p>
+     * Note that the {@link IOUring} transport does not support {@link DomainSocketAddress} yet.
      *
      * @param group the group to test.
      * @return {@code true} if {@link DomainSocketAddress} is supported by {@code group}
@@ -127,6 +172,8 @@ final class NativeTransportUtils {
 
     /**
      * Determine if {@link FileDescriptorSocketAddress} is supported.
+     * <p>
+     * Note that the {@link IOUring} transport does not support {@link FileDescriptorSocketAddress} yet.
      *
      * @param group the group to test.
      * @return {@code true} if {@link FileDescriptorSocketAddress} is supported by {@code group}
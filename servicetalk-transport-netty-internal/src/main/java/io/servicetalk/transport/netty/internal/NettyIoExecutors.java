@@ -24,8 +24,10 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.kqueue.KQueueEventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
 
 import static io.servicetalk.transport.netty.internal.NativeTransportUtils.isEpollAvailable;
+import static io.servicetalk.transport.netty.internal.NativeTransportUtils.isIoUringAvailable;
 import static io.servicetalk.transport.netty.internal.NativeTransportUtils.isKQueueAvailable;
 import static java.lang.Runtime.getRuntime;
 import static java.util.Objects.requireNonNull;
@@ -41,6 +43,12 @@ public final class NettyIoExecutors {
 
     /**
      * Create a new {@link NettyIoExecutor} with the default number of {@code ioThreads}.
+     * <p>
+     * The transport is chosen based on availability: epoll on Linux, kqueue on macOS and BSD, and NIO otherwise.
+     * On Linux the incubating io_uring transport is preferred if it is available and requested by setting the
+     * {@code io.servicetalk.transport.netty.tryIoUring} system property to {@code true}. Domain sockets, file
+     * descriptors and HTTP/2 are not supported by io_uring and use epoll threads instead. This applies to all
+     * {@code createIoExecutor} methods.
      *
      * @return The created {@link IoExecutor}
      */
@@ -94,6 +102,11 @@ public final class NettyIoExecutors {
     public static <T extends Thread & IoThread> EventLoopAwareNettyIoExecutor createIoExecutor(
             int ioThreads, IoThreadFactory<T> threadFactory) {
         validateIoThreads(ioThreads);
+        if (isIoUringAvailable()) {
+            // Channels which io_uring does not support use epoll threads, which are only created when needed.
+            return new IoUringIoExecutor(new IOUringEventLoopGroup(ioThreads, threadFactory), isEpollAvailable() ?
+                    () -> new EpollEventLoopGroup(ioThreads, threadFactory) : null);
+        }
         return new EventLoopGroupIoExecutor(createEventLoopGroup(ioThreads, threadFactory), true);
     }
 
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -99,7 +99,10 @@ abstract class OverlappingCapacityAwareEstimator implements WriteDemandEstimator
         static SizeEstimator defaultEstimator() {
             return (written, before, after) -> {
                 if (written instanceof FileRegion) {
-                    return ((FileRegion) written).count();
+                    // The content of a FileRegion is transferred from the file when the channel is flushed and does
+                    // not consume write buffer capacity (Netty estimates its size as 0 bytes). Recording its count
+                    // would make subsequent items look large and reduce the demand for them.
+                    return 0;
                 }
                 return before > after ? before - after : 0;
             };
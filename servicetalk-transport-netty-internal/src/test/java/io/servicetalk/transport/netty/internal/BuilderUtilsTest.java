@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,18 +17,41 @@ package io.servicetalk.transport.netty.internal;
 
 import io.servicetalk.transport.api.HostAndPort;
 
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
+import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
+import io.netty.incubator.channel.uring.IOUringServerSocketChannel;
+import io.netty.incubator.channel.uring.IOUringSocketChannel;
 import io.netty.util.NetUtil;
 import org.junit.jupiter.api.Test;
 
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 
+import static io.servicetalk.transport.netty.internal.BuilderUtils.datagramChannel;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.eventLoopGroup;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.serverChannel;
+import static io.servicetalk.transport.netty.internal.BuilderUtils.socketChannel;
 import static io.servicetalk.transport.netty.internal.BuilderUtils.toResolvedInetSocketAddress;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoopGroup;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class BuilderUtilsTest {
 
@@ -58,4 +81,56 @@ class BuilderUtilsTest {
                 () -> toResolvedInetSocketAddress(HostAndPort.of("unresolved-hostname", 8080)));
         assertThat(t.getCause(), instanceOf(UnknownHostException.class));
     }
+
+    @Test
+    void ioUringChannels() throws Exception {
+        assumeTrue(IOUring.isAvailable(), "io_uring is not available");
+        final EventLoopGroup group = new IOUringEventLoopGroup(1, new NettyIoThreadFactory("io_uring"));
+        try {
+            assertThat(serverChannel(group, InetSocketAddress.class), sameInstance(IOUringServerSocketChannel.class));
+            assertThat(socketChannel(group, InetSocketAddress.class), sameInstance(IOUringSocketChannel.class));
+            assertThat(datagramChannel(group), sameInstance(IOUringDatagramChannel.class));
+            assertThrows(IllegalArgumentException.class, () -> socketChannel(group, DomainSocketAddress.class));
+            assertThat(fromNettyEventLoopGroup(group).isUnixDomainSocketSupported(), is(false));
+
+            final Channel server = new ServerBootstrap().group(group)
+                    .channel(serverChannel(group, InetSocketAddress.class))
+                    .childHandler(new ChannelInboundHandlerAdapter())
+                    .bind(NetUtil.LOCALHOST, 0).sync().channel();
+            try {
+                final Channel client = new Bootstrap().group(group)
+                        .channel(socketChannel(group, InetSocketAddress.class))
+                        .handler(new ChannelInboundHandlerAdapter())
+                        .connect(server.localAddress()).sync().channel();
+                assertThat(client.isActive(), is(true));
+                client.close().sync();
+            } finally {
+                server.close().sync();
+            }
+        } finally {
+            // The incubating io_uring transport occasionally does not terminate its event loop, don't block on it.
+            group.shutdownGracefully(0, 0, MILLISECONDS).await(5, SECONDS);
+        }
+    }
+
+    @Test
+    void ioUringFallsBackToEpollForDomainSockets() throws Exception {
+        assumeTrue(IOUring.isAvailable(), "io_uring is not available");
+        assumeTrue(Epoll.isAvailable(), "epoll is not available");
+        final IOUringEventLoopGroup group = new IOUringEventLoopGroup(1, new NettyIoThreadFactory("io_uring"));
+        final IoUringIoExecutor ioExecutor = new IoUringIoExecutor(group,
+                () -> new EpollEventLoopGroup(1, new NettyIoThreadFactory("epoll")));
+        try {
+            assertThat(ioExecutor.isUnixDomainSocketSupported(), is(true));
+            assertThat(eventLoopGroup(ioExecutor, new InetSocketAddress(NetUtil.LOCALHOST, 0)), sameInstance(group));
+            final EventLoopGroup fallback = eventLoopGroup(ioExecutor, new DomainSocketAddress("/tmp/test.sock"));
+            assertThat(fallback, instanceOf(EpollEventLoopGroup.class));
+            assertThat(socketChannel(fallback, DomainSocketAddress.class),
+                    sameInstance(EpollDomainSocketChannel.class));
+            assertThat(ioExecutor.epollFallback().eventLoopGroup(), sameInstance(fallback));
+        } finally {
+            ioExecutor.closeAsync().toFuture().get();
+            assertThat(ioExecutor.epollFallback().eventLoopGroup().isShutdown(), is(true));
+        }
+    }
 }
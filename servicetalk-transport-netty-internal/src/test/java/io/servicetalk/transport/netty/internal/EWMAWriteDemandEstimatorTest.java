@@ -1,5 +1,5 @@
 /*
- * Copyright © 2020 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2020-2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -15,8 +15,11 @@
  */
 package io.servicetalk.transport.netty.internal;
 
+import io.netty.channel.DefaultFileRegion;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 
@@ -85,4 +88,14 @@ class EWMAWriteDemandEstimatorTest {
         // default memory of 5 so by this time the size should be set to 2
         assertThat("Unexpected requestN.", supplier.estimateRequestN(10), is(5L));
     }
+
+    @Test
+    void fileRegionDoesNotChangeSize() {
+        EWMAWriteDemandEstimator supplier = new EWMAWriteDemandEstimator(2);
+        assertThat("Unexpected requestN.", supplier.estimateRequestN(10), is(5L));
+        for (int i = 0; i < 10; ++i) {
+            supplier.onItemWrite(new DefaultFileRegion(new File("unused"), 0, 1 << 30), 100, 100);
+        }
+        assertThat("Unexpected requestN.", supplier.estimateRequestN(20), is(10L));
+    }
 }
@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty.internal;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static io.servicetalk.transport.netty.internal.FlushConsolidationInitializer.isFlushConsolidated;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class FlushConsolidatorTest {
+
+    private final EventLoop eventLoop = new DefaultEventLoop();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLoop.shutdownGracefully(0, 0, MILLISECONDS).sync();
+    }
+
+    @Test
+    void flushesAreDeferredAndConsolidated() throws Exception {
+        final Channel channel1 = mock(Channel.class);
+        final Channel channel2 = mock(Channel.class);
+        eventLoop.submit(() -> {
+            FlushConsolidator.flushLater(eventLoop, channel1);
+            FlushConsolidator.flushLater(eventLoop, channel1);
+            FlushConsolidator.flushLater(eventLoop, channel2);
+            verify(channel1, never()).flush();
+            verify(channel2, never()).flush();
+        }).sync();
+        // The drain task is scheduled before the sync() above returns, so it completed by now.
+        eventLoop.submit(() -> { }).sync();
+        verify(channel1).flush();
+        verify(channel2).flush();
+    }
+
+    @Test
+    void flushRequestedOutsideEventLoop() throws Exception {
+        final Channel channel = mock(Channel.class);
+        final CountDownLatch blockEventLoop = new CountDownLatch(1);
+        eventLoop.execute(() -> {
+            try {
+                blockEventLoop.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        FlushConsolidator.flushLater(eventLoop, channel);
+        FlushConsolidator.flushLater(eventLoop, channel);
+        blockEventLoop.countDown();
+        // Both requests are added to the same drain, which flushes the channel once.
+        eventLoop.submit(() -> { }).sync();
+        eventLoop.submit(() -> { }).sync();
+        verify(channel).flush();
+    }
+
+    @Test
+    void initializerMarksChannelAndFlushesBeforeClose() {
+        final EmbeddedChannel channel = new EmbeddedChannel();
+        assertThat(isFlushConsolidated(channel), is(false));
+        FlushConsolidationInitializer.INSTANCE.init(channel);
+        assertThat(isFlushConsolidated(channel), is(true));
+
+        channel.write(Unpooled.copiedBuffer("data", US_ASCII));
+        channel.close();
+        final Object written = channel.readOutbound();
+        assertThat(written, is(notNullValue()));
+    }
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright © 2018-2019 Apple Inc. and the ServiceTalk project authors
+ * Copyright © 2018-2019, 2021 Apple Inc. and the ServiceTalk project authors
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,11 +24,21 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.netty.buffer.Unpooled.wrappedBuffer;
 import static io.servicetalk.concurrent.internal.DeliberateException.DELIBERATE_EXCEPTION;
+import static io.servicetalk.transport.netty.internal.AdaptiveFlush.AdaptiveFlushListener.SINGLE_ITEM_FLUSHES_BEFORE_IMMEDIATE;
+import static io.servicetalk.transport.netty.internal.FlushStrategies.adaptiveFlush;
 import static io.servicetalk.transport.netty.internal.FlushStrategies.flushOnEach;
 import static io.servicetalk.transport.netty.internal.FlushStrategies.flushOnEnd;
 import static io.servicetalk.transport.netty.internal.FlushStrategies.flushWith;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -39,10 +49,13 @@ class FlushStrategiesTest {
     private TestPublisher<String> durationSource;
     private WriteEventsListener listener;
     private TestSubscription subscription = new TestSubscription();
+    private final List<Runnable> deferredTasks = new ArrayList<>();
 
     @BeforeEach
     public void setUp() {
         flushSender = mock(FlushSender.class);
+        doAnswer(invocation -> deferredTasks.add(invocation.getArgument(0)))
+                .when(flushSender).executeAfterPendingWrites(any());
         durationSource = new TestPublisher<>();
     }
 
@@ -164,6 +177,58 @@ class FlushStrategiesTest {
         assertTrue(subscription.isCancelled());
     }
 
+    @Test
+    void testAdaptiveFlushCoalescesQueuedWrites() {
+        setupFor(adaptiveFlush());
+        listener.itemWritten(1);
+        listener.itemWritten(2);
+        listener.itemWritten(3);
+        assertThat(deferredTasks, hasSize(1));
+        verify(flushSender, Mockito.never()).flush();
+        runDeferredTasks();
+        verifyFlush(1);
+
+        // The next write defers a new flush.
+        listener.itemWritten(4);
+        assertThat(deferredTasks, hasSize(1));
+    }
+
+    @Test
+    void testAdaptiveFlushOnMaxPendingBytes() {
+        setupFor(adaptiveFlush(10));
+        listener.itemWritten(wrappedBuffer(new byte[6]));
+        verify(flushSender, Mockito.never()).flush();
+        listener.itemWritten(wrappedBuffer(new byte[6]));
+        verifyFlush(1);
+    }
+
+    @Test
+    void testAdaptiveFlushImmediateForInfrequentWrites() {
+        setupFor(adaptiveFlush());
+        for (int i = 0; i < SINGLE_ITEM_FLUSHES_BEFORE_IMMEDIATE; i++) {
+            listener.itemWritten(i);
+            runDeferredTasks();
+        }
+        verifyFlush(SINGLE_ITEM_FLUSHES_BEFORE_IMMEDIATE);
+        listener.itemWritten(1);
+        assertThat(deferredTasks, hasSize(0));
+        verifyFlush(SINGLE_ITEM_FLUSHES_BEFORE_IMMEDIATE + 1);
+    }
+
+    @Test
+    void testAdaptiveFlushOnEnd() {
+        setupFor(adaptiveFlush());
+        listener.itemWritten(1);
+        listener.writeTerminated();
+        verifyFlush(1);
+    }
+
+    private void runDeferredTasks() {
+        final List<Runnable> tasks = new ArrayList<>(deferredTasks);
+        deferredTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
     private void setupFor(FlushStrategy strategy) {
         listener = strategy.apply(flushSender);
         listener.writeStarted();
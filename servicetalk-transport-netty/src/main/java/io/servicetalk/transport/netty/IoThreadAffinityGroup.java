@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty;
+
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.concurrent.api.CompositeCloseable;
+import io.servicetalk.transport.api.IoExecutor;
+import io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutor;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static io.servicetalk.concurrent.api.AsyncCloseables.newCompositeCloseable;
+import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoop;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds one instance of a resource (e.g. a client) per I/O thread of an {@link IoExecutor}, each created with an
+ * {@link IoExecutor} which is bound to a single I/O thread.
+ * <p>
+ * A client created this way opens all its connections on the I/O thread it is bound to. When a service which runs on
+ * the I/O threads (no offloading) uses {@link #current()} to call other services, the outgoing requests and the
+ * incoming request are processed by the same thread, without a handoff between threads. Together with binding a
+ * listen socket per I/O thread this allows shared-nothing, thread-per-core operation.
+ *
+ * @param <T> the type of the resource.
+ */
+public final class IoThreadAffinityGroup<T extends AsyncCloseable> implements AsyncCloseable {
+
+    private static final int NOT_AN_IO_THREAD = -1;
+
+    private final EventLoop[] eventLoops;
+    private final List<T> resources;
+    private final CompositeCloseable closeable;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    // The index of the resource of the calling thread, looked up once per thread.
+    private final FastThreadLocal<Integer> currentIndex = new FastThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            for (int i = 0; i < eventLoops.length; ++i) {
+                if (eventLoops[i].inEventLoop()) {
+                    return i;
+                }
+            }
+            return NOT_AN_IO_THREAD;
+        }
+    };
+
+    private IoThreadAffinityGroup(final EventLoop[] eventLoops, final List<T> resources) {
+        this.eventLoops = eventLoops;
+        this.resources = resources;
+        closeable = newCompositeCloseable().mergeAll(resources);
+    }
+
+    /**
+     * Creates a new {@link IoThreadAffinityGroup} with one resource per I/O thread of the passed {@link IoExecutor}.
+     *
+     * @param ioExecutor the {@link IoExecutor} whose I/O threads the resources are bound to.
+     * @param factory creates a resource for an {@link IoExecutor} which is bound to a single I/O thread. The resource
+     * is expected to use the passed {@link IoExecutor} for all its I/O, it must not close it.
+     * @param <T> the type of the resource.
+     * @return a new {@link IoThreadAffinityGroup}.
+     * @throws IllegalArgumentException If {@link IoExecutor} is not a netty based {@link IoExecutor}.
+     */
+    public static <T extends AsyncCloseable> IoThreadAffinityGroup<T> newIoThreadAffinityGroup(
+            final IoExecutor ioExecutor, final Function<IoExecutor, T> factory) {
+        requireNonNull(factory);
+        final EventLoopAwareNettyIoExecutor nettyIoExecutor = toEventLoopAwareNettyIoExecutor(ioExecutor);
+        final List<EventLoop> eventLoops = new ArrayList<>();
+        for (EventExecutor executor : nettyIoExecutor.eventLoopGroup()) {
+            eventLoops.add((EventLoop) executor);
+        }
+        final List<T> resources = new ArrayList<>(eventLoops.size());
+        for (EventLoop eventLoop : eventLoops) {
+            resources.add(requireNonNull(factory.apply(
+                    fromNettyEventLoop(eventLoop, nettyIoExecutor.isIoThreadSupported()))));
+        }
+        return new IoThreadAffinityGroup<>(eventLoops.toArray(new EventLoop[0]), resources);
+    }
+
+    /**
+     * Returns the resource bound to the calling I/O thread.
+     * <p>
+     * If the calling thread is not an I/O thread of this group (e.g. because the caller was offloaded), the resources
+     * are returned in round-robin order.
+     *
+     * @return the resource bound to the calling I/O thread.
+     */
+    public T current() {
+        final int index = currentIndex.get();
+        if (index != NOT_AN_IO_THREAD) {
+            return resources.get(index);
+        }
+        return resources.get((nextIndex.getAndIncrement() & Integer.MAX_VALUE) % eventLoops.length);
+    }
+
+    /**
+     * Returns the resource bound to the I/O thread of the passed {@link IoExecutor}, e.g. the {@link IoExecutor} of a
+     * connection accepted by a server which uses the same I/O threads.
+     *
+     * @param ioExecutor an {@link IoExecutor} which is bound to a single I/O thread of this group.
+     * @return the resource bound to the I/O thread of the passed {@link IoExecutor}.
+     * @throws IllegalArgumentException If {@link IoExecutor} is not bound to a single I/O thread of this group.
+     */
+    public T forIoExecutor(final IoExecutor ioExecutor) {
+        final EventLoopGroup eventLoopGroup = toEventLoopAwareNettyIoExecutor(ioExecutor).eventLoopGroup();
+        for (int i = 0; i < eventLoops.length; ++i) {
+            if (eventLoops[i] == eventLoopGroup) {
+                return resources.get(i);
+            }
+        }
+        throw new IllegalArgumentException("IoExecutor " + ioExecutor + " is not bound to an I/O thread of this group");
+    }
+
+    /**
+     * Returns the number of resources of this group, which is the number of I/O threads.
+     *
+     * @return the number of resources of this group.
+     */
+    public int size() {
+        return resources.size();
+    }
+
+    @Override
+    public Completable closeAsync() {
+        return closeable.closeAsync();
+    }
+
+    @Override
+    public Completable closeAsyncGracefully() {
+        return closeable.closeAsyncGracefully();
+    }
+}
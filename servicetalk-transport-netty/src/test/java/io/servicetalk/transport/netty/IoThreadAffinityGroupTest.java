@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2021 Apple Inc. and the ServiceTalk project authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.servicetalk.transport.netty;
+
+import io.servicetalk.concurrent.api.AsyncCloseable;
+import io.servicetalk.concurrent.api.Completable;
+import io.servicetalk.transport.api.IoExecutor;
+
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static io.servicetalk.concurrent.api.Completable.completed;
+import static io.servicetalk.transport.netty.IoThreadAffinityGroup.newIoThreadAffinityGroup;
+import static io.servicetalk.transport.netty.internal.EventLoopAwareNettyIoExecutors.toEventLoopAwareNettyIoExecutor;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoop;
+import static io.servicetalk.transport.netty.internal.NettyIoExecutors.fromNettyEventLoopGroup;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IoThreadAffinityGroupTest {
+
+    private final EventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(3);
+
+    @AfterEach
+    void tearDown() throws Exception {
+        eventLoopGroup.shutdownGracefully(0, 0, MILLISECONDS).sync();
+    }
+
+    @Test
+    void oneResourcePerIoThread() throws Exception {
+        final IoThreadAffinityGroup<Resource> group = newIoThreadAffinityGroup(
+                fromNettyEventLoopGroup(eventLoopGroup), Resource::new);
+        assertThat(group.size(), is(3));
+        final Set<EventLoopGroup> boundTo = new HashSet<>();
+        for (int i = 0; i < group.size(); ++i) {
+            final EventLoop eventLoop = eventLoopGroup.next();
+            final Resource resource = eventLoop.submit(group::current).get();
+            assertThat(resource.eventLoop(), is(sameInstance(eventLoop)));
+            assertThat(group.forIoExecutor(fromNettyEventLoop(eventLoop)), is(sameInstance(resource)));
+            boundTo.add(resource.eventLoop());
+        }
+        assertThat(boundTo.size(), is(3));
+    }
+
+    @Test
+    void roundRobinOutsideIoThreads() {
+        final IoThreadAffinityGroup<Resource> group = newIoThreadAffinityGroup(
+                fromNettyEventLoopGroup(eventLoopGroup), Resource::new);
+        final Set<Resource> resources = new HashSet<>();
+        for (int i = 0; i < group.size(); ++i) {
+            resources.add(group.current());
+        }
+        assertThat(resources.size(), is(3));
+    }
+
+    @Test
+    void unknownIoExecutor() {
+        final IoThreadAffinityGroup<Resource> group = newIoThreadAffinityGroup(
+                fromNettyEventLoopGroup(eventLoopGroup), Resource::new);
+        final EventLoopGroup other = new DefaultEventLoopGroup(1);
+        try {
+            assertThrows(IllegalArgumentException.class,
+                    () -> group.forIoExecutor(fromNettyEventLoop((EventLoop) other.next())));
+        } finally {
+            other.shutdownGracefully(0, 0, MILLISECONDS);
+        }
+    }
+
+    @Test
+    void closeClosesAllResources() throws Exception {
+        final IoThreadAffinityGroup<Resource> group = newIoThreadAffinityGroup(
+                fromNettyEventLoopGroup(eventLoopGroup), Resource::new);
+        final Set<Resource> resources = new HashSet<>();
+        for (int i = 0; i < group.size(); ++i) {
+            resources.add(group.current());
+        }
+        group.closeAsync().toFuture().get();
+        for (Resource resource : resources) {
+            assertThat(resource.closed, is(true));
+        }
+        assertThat(eventLoopGroup.isShuttingDown(), is(false));
+    }
+
+    private static final class Resource implements AsyncCloseable {
+        private final IoExecutor ioExecutor;
+        volatile boolean closed;
+
+        Resource(final IoExecutor ioExecutor) {
+            this.ioExecutor = ioExecutor;
+        }
+
+        EventLoopGroup eventLoop() {
+            return toEventLoopAwareNettyIoExecutor(ioExecutor).eventLoopGroup();
+        }
+
+        @Override
+        public Completable closeAsync() {
+            return completed().beforeOnComplete(() -> closed = true);
+        }
+    }
+}